@@ -0,0 +1,70 @@
+package com.jojos.path.benchmarks;
+
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.DimensionsWeight;
+import com.jojos.path.calculation.ShortestPathJob;
+import com.jojos.path.graph.CsrGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The paths between all the friends written by a {@link ShortestPathJob}, with the shipping cost of a package
+ *
+ * @author karanikasg@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AllPairsBenchmark {
+
+    // the output grows with the square of the vertices
+    @Param({"1000", "5000"})
+    private int vertices;
+
+    // the edges per vertex
+    @Param({"4", "16"})
+    private int degree;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private CsrGraph graph;
+    private DimensionsWeight dimensionsWeight;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void createGraph() throws IOException {
+        graph = GeneratedNetwork.createGraph(vertices, degree);
+        dimensionsWeight = Computations.parseDimensions("10x9x5x1200");
+        output = Files.createTempFile("all-pairs-benchmark", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutput() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void shortestPathJob() {
+        ShortestPathJob.withoutAssertions(graph, output.toString(), null, null, dimensionsWeight, parallelism).run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.jojos.path.benchmarks;
+
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.DimensionsWeight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The shipping costs of many paths, one cost at a time with {@link Computations#shippingCost(double, DimensionsWeight)}
+ * and for a few packages at once with {@link Computations#shippingCostMatrix}
+ *
+ * @author karanikasg@gmail.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ComputationsBenchmark {
+
+    // the weights of the paths
+    @Param({"1000", "100000"})
+    private int paths;
+
+    @Param({"1", "16"})
+    private int packages;
+
+    private double[] hards;
+    private DimensionsWeight[] dimensionsWeights;
+    private double[] widths;
+    private double[] lengths;
+    private double[] heights;
+    private double[] weights;
+
+    @Setup
+    public void createInput() {
+        Random random = new Random(GeneratedNetwork.SEED);
+        hards = new double[paths];
+        for (int p = 0; p < paths; p++) {
+            hards[p] = 1 + random.nextInt(100_000);
+        }
+        dimensionsWeights = new DimensionsWeight[packages];
+        widths = new double[packages];
+        lengths = new double[packages];
+        heights = new double[packages];
+        weights = new double[packages];
+        for (int k = 0; k < packages; k++) {
+            widths[k] = 1 + random.nextInt(100);
+            lengths[k] = 1 + random.nextInt(100);
+            heights[k] = 1 + random.nextInt(100);
+            weights[k] = 1 + random.nextInt(30_000);
+            dimensionsWeights[k] = Computations.parseDimensions(String.format("%dx%dx%dx%d",
+                    (int) widths[k], (int) lengths[k], (int) heights[k], (int) weights[k]));
+        }
+    }
+
+    @Benchmark
+    public void shippingCost(Blackhole blackhole) {
+        for (DimensionsWeight dimensionsWeight : dimensionsWeights) {
+            for (double hard : hards) {
+                blackhole.consume(Computations.shippingCost(hard, dimensionsWeight));
+            }
+        }
+    }
+
+    @Benchmark
+    public double[][] shippingCostMatrix() {
+        return Computations.shippingCostMatrix(widths, lengths, heights, weights, hards);
+    }
+}
@@ -0,0 +1,71 @@
+package com.jojos.path.benchmarks;
+
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates the random friend's networks the benchmarks run on. The same size, density and seed always
+ * generate the same network, so the results of different runs can be compared.
+ *
+ * Every friend ships to {@code degree} random friends (itself included) at a HARD between 1 and 1000.
+ * The first friend is always ME.
+ *
+ * @author karanikasg@gmail.com
+ */
+final class GeneratedNetwork {
+
+    static final long SEED = 42L;
+    private static final int MAX_HARD = 1000;
+
+    private GeneratedNetwork() {
+    }
+
+    static String nameOf(int vertex) {
+        return vertex == 0 ? "ME" : "Friend" + vertex;
+    }
+
+    /**
+     * Writes the network to a file in the input format of the application, one line per friend
+     */
+    static void writeInput(Path file, int vertices, int degree) throws IOException {
+        Random random = new Random(SEED);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder();
+            for (int v = 0; v < vertices; v++) {
+                line.setLength(0);
+                line.append(nameOf(v));
+                for (int e = 0; e < degree; e++) {
+                    line.append(',').append(nameOf(random.nextInt(vertices))).append(':')
+                            .append(1 + random.nextInt(MAX_HARD));
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @return the same network {@link #writeInput(Path, int, int)} writes, without parsing it
+     */
+    static CsrGraph createGraph(int vertices, int degree) {
+        Random random = new Random(SEED);
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        for (int v = 0; v < vertices; v++) {
+            builder.addVertex(nameOf(v));
+        }
+        for (int v = 0; v < vertices; v++) {
+            for (int e = 0; e < degree; e++) {
+                int target = random.nextInt(vertices);
+                builder.addEdge(v, target, 1 + random.nextInt(MAX_HARD));
+            }
+        }
+        return builder.build();
+    }
+}
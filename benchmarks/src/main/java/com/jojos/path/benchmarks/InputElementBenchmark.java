@@ -0,0 +1,92 @@
+package com.jojos.path.benchmarks;
+
+import com.jojos.path.input.AssertionElement;
+import com.jojos.path.input.InputElement;
+import com.jojos.path.input.InputRecordHandler;
+import com.jojos.path.input.InputTokenizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the elements of the input lines, once as {@link InputElement} objects and once with the
+ * {@link InputTokenizer} that hands them to the graph builder without creating objects
+ *
+ * @author karanikasg@gmail.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InputElementBenchmark {
+
+    // the targets of every line
+    @Param({"4", "16"})
+    private int degree;
+
+    private String[] elements;
+    private byte[] line;
+    private InputTokenizer tokenizer;
+
+    @Setup
+    public void createLine(Blackhole blackhole) {
+        Random random = new Random(GeneratedNetwork.SEED);
+        elements = new String[degree + 1];
+        elements[0] = GeneratedNetwork.nameOf(random.nextInt(100_000));
+        StringBuilder builder = new StringBuilder(elements[0]);
+        for (int e = 1; e <= degree; e++) {
+            elements[e] = GeneratedNetwork.nameOf(random.nextInt(100_000)) + ":" + (1 + random.nextInt(1000));
+            builder.append(',').append(elements[e]);
+        }
+        line = builder.toString().getBytes(StandardCharsets.UTF_8);
+        tokenizer = new InputTokenizer(new InputRecordHandler() {
+            @Override
+            public int vertex(byte[] bytes, int offset, int length) {
+                return length;
+            }
+
+            @Override
+            public void edge(int source, int target, long weight) {
+                blackhole.consume(weight);
+            }
+
+            @Override
+            public void assertion(AssertionElement assertionElement) {
+                blackhole.consume(assertionElement);
+            }
+        }, false);
+    }
+
+    /**
+     * A line split in its elements and parsed one element at a time
+     */
+    @Benchmark
+    public void inputElements(Blackhole blackhole) {
+        for (String element : elements) {
+            blackhole.consume(new InputElement(element));
+        }
+    }
+
+    /**
+     * The same line tokenized in place, the way the input files are parsed
+     */
+    @Benchmark
+    public void tokenizeLine() {
+        tokenizer.tokenizeLine(line, 0, line.length);
+    }
+}
@@ -0,0 +1,64 @@
+package com.jojos.path.benchmarks;
+
+import com.jojos.path.calculation.ParseJob;
+import com.jojos.path.input.ParsedObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a whole input file into a graph with {@link ParseJob#runAndCreateGraph(ParseJob.RunMode)}
+ *
+ * @author karanikasg@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int vertices;
+
+    // the edges per vertex
+    @Param({"4", "16"})
+    private int degree;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private Path input;
+
+    @Setup(Level.Trial)
+    public void writeInput() throws IOException {
+        input = Files.createTempFile("parse-benchmark", ".csv");
+        GeneratedNetwork.writeInput(input, vertices, degree);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInput() throws IOException {
+        Files.deleteIfExists(input);
+    }
+
+    @Benchmark
+    public ParsedObject runAndCreateGraph() {
+        return new ParseJob(input.toString(), parallelism).runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS);
+    }
+}
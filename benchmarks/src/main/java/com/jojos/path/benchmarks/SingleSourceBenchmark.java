@@ -0,0 +1,71 @@
+package com.jojos.path.benchmarks;
+
+import com.jojos.path.calculation.ShortestPathAlgorithm;
+import com.jojos.path.calculation.ShortestPathJob;
+import com.jojos.path.calculation.ShortestPathTree;
+import com.jojos.path.graph.CsrGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The paths of ME to all the other friends, once only searched and once written by a {@link ShortestPathJob}
+ *
+ * @author karanikasg@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SingleSourceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int vertices;
+
+    // the edges per vertex
+    @Param({"4", "16"})
+    private int degree;
+
+    private CsrGraph graph;
+    private ShortestPathAlgorithm algorithm;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void createGraph() throws IOException {
+        graph = GeneratedNetwork.createGraph(vertices, degree);
+        algorithm = ShortestPathAlgorithm.forGraph(graph);
+        output = Files.createTempFile("single-source-benchmark", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutput() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public ShortestPathTree search() {
+        return algorithm.getPaths(0);
+    }
+
+    @Benchmark
+    public void shortestPathJob() {
+        ShortestPathJob.withoutAssertions(graph, output.toString(), "ME", null, null).run();
+    }
+}
@@ -1,14 +1,37 @@
 package com.jojos.path;
 
+import com.jojos.path.calculation.BidirectionalDijkstra;
 import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.ContractionHierarchy;
+import com.jojos.path.calculation.DeltaJob;
 import com.jojos.path.calculation.DimensionsWeight;
+import com.jojos.path.calculation.DirectoryJob;
+import com.jojos.path.calculation.DistributedJob;
+import com.jojos.path.calculation.LandmarkIndex;
 import com.jojos.path.calculation.ParseJob;
+import com.jojos.path.calculation.PointToPointAlgorithm;
+import com.jojos.path.calculation.QueryBatchJob;
 import com.jojos.path.calculation.ShortestPathJob;
+import com.jojos.path.calculation.ShortestPathTreeCache;
+import com.jojos.path.calculation.WatchJob;
+import com.jojos.path.calculation.WorkerJob;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.OffHeapGraph;
 import com.jojos.path.input.ParsedObject;
+import com.jojos.path.metrics.Metrics;
+import com.jojos.path.server.QueryServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Main entry point of the application.
@@ -17,7 +40,7 @@ import java.util.Objects;
  * -input file_name
  *
  * where file_name can either be a single file with definition of a your friend network
- * or a directory in which case the program will execute consecutive for all files contained under that directory
+ * or a directory in which case the program will execute concurrently for all .csv files contained under that directory
  *
  * @author karanikasg@gmail.com
  */
@@ -30,16 +53,63 @@ public class App {
     private final String outputFile;
     private final String source;
     private final String target;
+    // the package as given on the command line, for the arguments of the workers
+    private final String dimensions;
     private final DimensionsWeight dimensionsWeight;
     private final ParseJob.RunMode runMode;
+    private final int parallelism;
+    private final boolean directoryInput;
+    private final int jobs;
+    private final long memoryBudget;
+    private final String snapshot;
+    private final int landmarks;
+    private final boolean hierarchy;
+    private final long treeCacheBytes;
+    // the port of the query server, -1 when the application runs a single job
+    private final int servePort;
+    private final boolean allowShutdown;
+    // the file of a batch of queries, null when the paths of the source and the target are written
+    private final String queriesFile;
+    // the file of the changes applied to the graph before its paths are written, null to write the parsed graph
+    private final String deltaFile;
+    private final boolean watch;
+    // the file the metrics of the phases are written to, null if they aren't written
+    private final String metricsFile;
+    private final boolean jmx;
+    private final boolean offHeap;
+    // the number of worker processes calculating the paths of all the sources, 0 to calculate them in this one
+    private final int workers;
+    // the port of the coordinator when this is a worker process, -1 otherwise
+    private final int coordinatorPort;
+    // the parsed graph once it's moved off the heap, closed when the application completes
+    private OffHeapGraph offHeapGraph;
 
     private App(String[] args) {
         this.inputDataFilePath = loadInputOrThrow(args);
-        this.outputFile = getOutputFile(args);
+        this.directoryInput = Files.isDirectory(Paths.get(inputDataFilePath));
+        this.outputFile = getOutputFile(args, directoryInput);
         this.source = getSource(args);
         this.target = getTarget(args);
+        this.dimensions = Util.getArgument(args, "dimensions");
         this.dimensionsWeight = getDimensionsAndWeight(args);
         this.runMode = getRunMode(args);
+        this.parallelism = getParallelism(args);
+        this.jobs = getJobs(args);
+        this.memoryBudget = getMemoryBudget(args);
+        this.snapshot = getSnapshot(args);
+        this.landmarks = getLandmarks(args);
+        this.hierarchy = Util.isPrimaryArgumentPresent(args, "hierarchy");
+        this.treeCacheBytes = getTreeCacheBytes(args);
+        this.servePort = getServePort(args);
+        this.allowShutdown = Util.isPrimaryArgumentPresent(args, "allowshutdown");
+        this.queriesFile = getQueriesFile(args);
+        this.deltaFile = getDeltaFile(args);
+        this.watch = Util.isPrimaryArgumentPresent(args, "watch");
+        this.metricsFile = getMetricsFile(args);
+        this.jmx = Util.isPrimaryArgumentPresent(args, "jmx");
+        this.offHeap = Util.isPrimaryArgumentPresent(args, "offheap");
+        this.workers = getWorkers(args);
+        this.coordinatorPort = getCoordinatorPort(args);
 
         logParameters();
 
@@ -47,8 +117,15 @@ public class App {
 
     private void logParameters() {
         log.info("Application started with ");
-        log.info("input file: \"{}\"", inputDataFilePath);
-        log.info("output file: \"{}\"", outputFile);
+        if (directoryInput) {
+            log.info("input directory: \"{}\"", inputDataFilePath);
+            log.info("output directory: \"{}\"", outputFile);
+            log.info("jobs: {}", jobs);
+            log.info("memory budget: {} MB", memoryBudget / (1024 * 1024));
+        } else {
+            log.info("input file: \"{}\"", inputDataFilePath);
+            log.info("output file: \"{}\"", outputFile);
+        }
         if (source != null) {
             log.info("source: \"{}\"", source);
         }
@@ -58,39 +135,243 @@ public class App {
         if (dimensionsWeight != null) {
             log.info("dimensions: \"{}\"", dimensionsWeight);
         }
+        if (snapshot != null) {
+            log.info("snapshot: \"{}\"", snapshot);
+        }
+        if (landmarks > 0) {
+            log.info("landmarks: {}", landmarks);
+        }
+        if (hierarchy) {
+            log.info("contraction hierarchy enabled");
+        }
+        if (treeCacheBytes > 0) {
+            log.info("tree cache: {} MB", treeCacheBytes / (1024 * 1024));
+        }
+        if (servePort >= 0) {
+            log.info("serving queries on port {}", servePort);
+            if (allowShutdown) {
+                log.info("clients can stop the server");
+            }
+        }
+        if (queriesFile != null) {
+            log.info("queries file: \"{}\"", queriesFile);
+        }
+        if (deltaFile != null) {
+            log.info("delta file: \"{}\"", deltaFile);
+        }
+        if (watch) {
+            log.info("watching the input for changes");
+        }
+        if (metricsFile != null) {
+            log.info("metrics file: \"{}\"", metricsFile);
+        }
+        if (jmx) {
+            log.info("metrics MBean enabled");
+        }
+        if (offHeap) {
+            log.info("graph off the heap");
+        }
+        if (workers > 0) {
+            log.info("workers: {}", workers);
+        }
+        if (coordinatorPort >= 0) {
+            log.info("working for the coordinator on port {}", coordinatorPort);
+        }
+        log.info("parallelism: {}", parallelism);
         log.info("running {} mode", runMode);
 
     }
 
     private void start() {
         log.info("Application starting");
+        if (offHeap && watch) {
+            throw new ApplicationException("-offheap doesn't apply to -watch, which changes the graph on the heap");
+        }
+        if (offHeap && directoryInput) {
+            throw new ApplicationException("-offheap doesn't apply to a directory, whose graphs are built one at a time");
+        }
         long start = System.currentTimeMillis();
-        ParsedObject parsedObject = startParseJob();
-        startShortestPathJob(parsedObject);
+        Metrics metrics = metricsFile != null || jmx ? Metrics.enable() : null;
+        if (jmx) {
+            metrics.registerMBean();
+        }
+        try {
+            if (coordinatorPort >= 0) {
+                startWorkerJob(startParseJob());
+            } else if (watch) {
+                startWatchJob();
+            } else if (directoryInput) {
+                startDirectoryJob();
+            } else if (servePort >= 0) {
+                startServer(startParseJob());
+            } else if (queriesFile != null) {
+                startQueryBatchJob(startParseJob());
+            } else if (deltaFile != null) {
+                startDeltaJob();
+            } else if (workers > 0 && source == null && runMode == ParseJob.RunMode.WITHOUT_ASSERTIONS) {
+                startDistributedJob();
+            } else {
+                if (workers > 0) {
+                    log.warn("Workers are ignored when there is a single source or when running with assertions");
+                }
+                ParsedObject parsedObject = startParseJob();
+                startShortestPathJob(parsedObject);
+            }
+        } finally {
+            if (offHeapGraph != null) {
+                log.info("Freeing {}", offHeapGraph);
+                offHeapGraph.close();
+            }
+            if (metricsFile != null) {
+                metrics.writeJson(Paths.get(metricsFile));
+            }
+        }
 
         String time = Util.longDuration(start);
         String processingCompleted = String.format("Application completed in %s", time);
         log.info(processingCompleted);
     }
 
+    private void startDirectoryJob() {
+        new DirectoryJob(inputDataFilePath, outputFile, runMode, source, target, dimensionsWeight,
+                jobs, parallelism, memoryBudget, snapshot).run();
+    }
+
+    /**
+     * Refreshes the results on every change of the input until the termination of the JVM
+     */
+    private void startWatchJob() {
+        WatchJob watchJob = new WatchJob(inputDataFilePath, outputFile, runMode, source, target, dimensionsWeight, parallelism);
+        Runtime.getRuntime().addShutdownHook(new Thread(watchJob::stop, "watch-job-shutdown-hook"));
+        watchJob.run();
+    }
+
+    /**
+     * With -offheap the graph is built, or loaded from the snapshot, off the heap and freed once the application
+     * is done with it
+     */
     private ParsedObject startParseJob() {
-        ParseJob parseJob = new ParseJob(inputDataFilePath);
-        return parseJob.runAndCreateGraph(runMode);
+        ParsedObject parsedObject = new ParseJob(inputDataFilePath, parallelism, snapshot, offHeap).runAndCreateGraph(runMode);
+        offHeapGraph = parsedObject.getOffHeapGraph();
+        if (offHeapGraph != null) {
+            log.info(String.format("Keeping %s off the heap, %.1f MB", offHeapGraph.getGraph(),
+                    offHeapGraph.getSizeBytes() / (1024d * 1024d)));
+        }
+        return parsedObject;
+    }
+
+    /**
+     * The workers load the graph from the snapshot the coordinator saves, a temporary one unless there is a
+     * -snapshot, and split the threads of the parallelism between them. The graph of the coordinator is only
+     * used to split the sources and is dropped before the workers start, so it stays on the heap even with -offheap,
+     * which only the workers apply.
+     */
+    private void startDistributedJob() {
+        Path temporarySnapshot = null;
+        String sharedSnapshot = snapshot;
+        try {
+            if (sharedSnapshot == null) {
+                temporarySnapshot = Files.createTempFile(Paths.get(outputFile).toAbsolutePath().getParent(), "graph", ".snapshot");
+                sharedSnapshot = temporarySnapshot.toString();
+            }
+            List<String> workerArguments = new ArrayList<>(Arrays.asList("-input", inputDataFilePath,
+                    "-snapshot", sharedSnapshot, "-parallelism", Integer.toString(Math.max(1, parallelism / workers))));
+            if (target != null) {
+                workerArguments.addAll(Arrays.asList("-target", target));
+            }
+            if (dimensions != null) {
+                workerArguments.addAll(Arrays.asList("-dimensions", dimensions));
+            }
+            if (offHeap) {
+                workerArguments.add("-offheap");
+            }
+            CsrGraph graph = new ParseJob(inputDataFilePath, parallelism, sharedSnapshot).runAndCreateGraph(runMode).getGraph();
+            new DistributedJob(graph, outputFile, workers,
+                    DistributedJob.processLauncher(App.class, workerArguments)).run();
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot create the snapshot of the workers: " + e.getMessage());
+        } finally {
+            if (temporarySnapshot != null) {
+                try {
+                    Files.deleteIfExists(temporarySnapshot);
+                } catch (IOException e) {
+                    log.warn("Cannot delete the snapshot {}: {}", temporarySnapshot, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates the ranges of sources the coordinator hands over until it stops this worker
+     */
+    private void startWorkerJob(ParsedObject parsedObject) {
+        new WorkerJob(parsedObject.getGraph(), coordinatorPort, target, dimensionsWeight, parallelism).run();
     }
 
     private void startShortestPathJob(ParsedObject parsedObject) {
+        ShortestPathJob shortestPathJob = null;
         switch (runMode) {
             case WITHOUT_ASSERTIONS:
-                ShortestPathJob
-                        .withoutAssertions(parsedObject.getGraph(), outputFile, source, target, dimensionsWeight)
-                        .run();
+                shortestPathJob = ShortestPathJob
+                        .withoutAssertions(parsedObject.getGraph(), outputFile, source, target, dimensionsWeight, parallelism);
                 break;
             case WITH_ASSERTIONS:
-                ShortestPathJob
-                        .withAssertions(parsedObject)
-                        .run();
+                shortestPathJob = ShortestPathJob
+                        .withAssertions(parsedObject, parallelism);
                 break;
         }
+        if (treeCacheBytes > 0) {
+            shortestPathJob.withTreeCache(ShortestPathTreeCache.withMaxBytes(parsedObject.getGraph(), treeCacheBytes));
+        }
+        if (hierarchy) {
+            shortestPathJob.withHierarchy(ContractionHierarchy.build(parsedObject.getGraph(), parallelism));
+        } else if (landmarks > 0) {
+            shortestPathJob.withLandmarks(LandmarkIndex.loadOrCreate(parsedObject.getGraph(), landmarks, inputDataFilePath));
+        }
+        shortestPathJob.run();
+    }
+
+    private void startQueryBatchJob(ParsedObject parsedObject) {
+        QueryBatchJob queryBatchJob = new QueryBatchJob(parsedObject.getGraph(), queriesFile, outputFile, dimensionsWeight, parallelism);
+        if (treeCacheBytes > 0) {
+            queryBatchJob.withTreeCache(ShortestPathTreeCache.withMaxBytes(parsedObject.getGraph(), treeCacheBytes));
+        }
+        queryBatchJob.run();
+    }
+
+    private void startDeltaJob() {
+        if (source == null) {
+            throw new ApplicationException("-delta needs a -source, parse the changed input for the paths of all the friends");
+        }
+        ParsedObject parsedObject = startParseJob();
+        new DeltaJob(parsedObject.getGraph(), deltaFile, outputFile, source, target, dimensionsWeight, parallelism).run();
+    }
+
+    /**
+     * Answers queries until a client or the termination of the JVM stops the server
+     */
+    private void startServer(ParsedObject parsedObject) {
+        CsrGraph graph = parsedObject.getGraph();
+        Supplier<PointToPointAlgorithm> queryFactory;
+        if (hierarchy) {
+            queryFactory = ContractionHierarchy.build(graph, parallelism)::newQuery;
+        } else if (landmarks > 0) {
+            queryFactory = LandmarkIndex.loadOrCreate(graph, landmarks, inputDataFilePath)::newQuery;
+        } else {
+            queryFactory = () -> new BidirectionalDijkstra(graph);
+        }
+        QueryServer server = new QueryServer(graph, queryFactory, servePort, parallelism);
+        if (allowShutdown) {
+            server.withShutdownCommand();
+        }
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "query-server-shutdown-hook"));
+        try {
+            server.awaitShutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.close();
+        }
     }
 
     public static void main(String[] args) {
@@ -99,7 +380,7 @@ public class App {
     }
 
     private static ParseJob.RunMode getRunMode(String[] commandLineArguments) {
-        return isPrimaryArgumentPresent(commandLineArguments, "assert")
+        return Util.isPrimaryArgumentPresent(commandLineArguments, "assert")
                 ? ParseJob.RunMode.WITH_ASSERTIONS : ParseJob.RunMode.WITHOUT_ASSERTIONS;
     }
 
@@ -108,7 +389,7 @@ public class App {
      * -source name
      */
     private static String getSource(String[] commandLineArguments) {
-        return getArgument(commandLineArguments, "source");
+        return Util.getArgument(commandLineArguments, "source");
     }
 
     /**
@@ -116,7 +397,7 @@ public class App {
      * -target name
      */
     private static String getTarget(String[] commandLineArguments) {
-        return getArgument(commandLineArguments, "target");
+        return Util.getArgument(commandLineArguments, "target");
     }
 
     /**
@@ -124,20 +405,190 @@ public class App {
      * -dimension WxLxHxWeight (in grams)
      */
     private static DimensionsWeight getDimensionsAndWeight(String[] commandLineArguments) {
-        String dimensionWeight = getArgument(commandLineArguments, "dimensions");
+        String dimensionWeight = Util.getArgument(commandLineArguments, "dimensions");
 
         return dimensionWeight == null ? null : Computations.parseDimensions(dimensionWeight);
     }
 
+    /**
+     * parse the command line usage of something like
+     * -parallelism 8
+     * If omitted the number of available processors is used
+     */
+    private static int getParallelism(String[] commandLineArguments) {
+        String parallelism = Util.getArgument(commandLineArguments, "parallelism");
+        if (Objects.isNull(parallelism)) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+        long value = Util.validateLongOrThrow(parallelism);
+        if (value < 1 || value > Short.MAX_VALUE) {
+            throw new ApplicationException("Parallelism must be between 1 and " + Short.MAX_VALUE);
+        }
+        return (int) value;
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -snapshot network.snapshot
+     * or a directory for the snapshots of the files of an input directory
+     */
+    private static String getSnapshot(String[] commandLineArguments) {
+        return Util.getArgument(commandLineArguments, "snapshot");
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -landmarks 16
+     * If omitted the single source and target queries are answered without landmarks
+     */
+    private static int getLandmarks(String[] commandLineArguments) {
+        String landmarks = Util.getArgument(commandLineArguments, "landmarks");
+        if (Objects.isNull(landmarks)) {
+            return 0;
+        }
+        long value = Util.validateLongOrThrow(landmarks);
+        if (value < 1 || value > Short.MAX_VALUE) {
+            throw new ApplicationException("Landmarks must be between 1 and " + Short.MAX_VALUE);
+        }
+        return (int) value;
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -cache 256
+     * expressed in MB. If omitted the shortest path trees aren't cached
+     */
+    private static long getTreeCacheBytes(String[] commandLineArguments) {
+        String cache = Util.getArgument(commandLineArguments, "cache");
+        if (Objects.isNull(cache)) {
+            return 0;
+        }
+        long value = Util.validateLongOrThrow(cache);
+        if (value < 1 || value > Integer.MAX_VALUE) {
+            throw new ApplicationException("Cache must be between 1 and " + Integer.MAX_VALUE + " MB");
+        }
+        return value * 1024 * 1024;
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -serve 7070
+     * If omitted the application runs a single job and exits
+     */
+    private static int getServePort(String[] commandLineArguments) {
+        String port = Util.getArgument(commandLineArguments, "serve");
+        if (Objects.isNull(port)) {
+            return -1;
+        }
+        long value = Util.validateLongOrThrow(port);
+        if (value < 0 || value > 65535) {
+            throw new ApplicationException("The port to serve must be between 0 and 65535");
+        }
+        return (int) value;
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -queries queries.csv
+     */
+    private static String getQueriesFile(String[] commandLineArguments) {
+        return Util.getArgument(commandLineArguments, "queries");
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -delta changes.csv
+     */
+    private static String getDeltaFile(String[] commandLineArguments) {
+        return Util.getArgument(commandLineArguments, "delta");
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -metrics metrics.json
+     */
+    private static String getMetricsFile(String[] commandLineArguments) {
+        return Util.getArgument(commandLineArguments, "metrics");
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -workers 4
+     * If omitted the paths of all the sources are calculated by this process
+     */
+    private static int getWorkers(String[] commandLineArguments) {
+        String workers = Util.getArgument(commandLineArguments, "workers");
+        if (Objects.isNull(workers)) {
+            return 0;
+        }
+        long value = Util.validateLongOrThrow(workers);
+        if (value < 1 || value > Short.MAX_VALUE) {
+            throw new ApplicationException("Workers must be between 1 and " + Short.MAX_VALUE);
+        }
+        return (int) value;
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -worker 40123
+     * given to the worker processes by their coordinator, -1 if omitted
+     */
+    private static int getCoordinatorPort(String[] commandLineArguments) {
+        String port = Util.getArgument(commandLineArguments, "worker");
+        if (Objects.isNull(port)) {
+            return -1;
+        }
+        long value = Util.validateLongOrThrow(port);
+        if (value < 1 || value > 65535) {
+            throw new ApplicationException("The port of the coordinator must be between 1 and 65535");
+        }
+        return (int) value;
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -jobs 4
+     * If omitted the files of an input directory are processed by up to 2 jobs at the same time
+     */
+    private static int getJobs(String[] commandLineArguments) {
+        String jobs = Util.getArgument(commandLineArguments, "jobs");
+        if (Objects.isNull(jobs)) {
+            return 2;
+        }
+        long value = Util.validateLongOrThrow(jobs);
+        if (value < 1 || value > Short.MAX_VALUE) {
+            throw new ApplicationException("Jobs must be between 1 and " + Short.MAX_VALUE);
+        }
+        return (int) value;
+    }
+
+    /**
+     * parse the command line usage of something like
+     * -memory 2048
+     * expressed in MB. If omitted three quarters of the maximum heap size are used
+     */
+    private static long getMemoryBudget(String[] commandLineArguments) {
+        String memory = Util.getArgument(commandLineArguments, "memory");
+        if (Objects.isNull(memory)) {
+            return Runtime.getRuntime().maxMemory() / 4 * 3;
+        }
+        long value = Util.validateLongOrThrow(memory);
+        if (value < 1 || value > Integer.MAX_VALUE) {
+            throw new ApplicationException("Memory must be between 1 and " + Integer.MAX_VALUE + " MB");
+        }
+        return value * 1024 * 1024;
+    }
+
     /**
      * parse the command line usage of something like
      * -output output.csv
-     * If no input is found the default output file is named output.csv
+     * If no input is found the default output file is named output.csv,
+     * or the default output directory is named output when the input is a directory
      */
-    private static String getOutputFile(String[] commandLineArguments) {
-        String output = getArgument(commandLineArguments, "output");
+    private static String getOutputFile(String[] commandLineArguments, boolean directoryInput) {
+        String output = Util.getArgument(commandLineArguments, "output");
         if (Objects.isNull(output)) {
-            output = "output.csv";
+            output = directoryInput ? "output" : "output.csv";
         }
         return output;
     }
@@ -149,7 +600,7 @@ public class App {
      * @throws ApplicationException if no input is found
      */
     private static String loadInputOrThrow(String[] commandLineArguments) {
-        String input = getArgument(commandLineArguments, "input");
+        String input = Util.getArgument(commandLineArguments, "input");
         if (Objects.isNull(input)) {
             String errorMsg = "Wrong usage. Please start the application with command line arguments -input example.csv";
             throw new ApplicationException(errorMsg);
@@ -157,45 +608,4 @@ public class App {
         return input;
     }
 
-    private static String getArgument(String[] commandLineArguments, String arg) {
-
-        if (commandLineArguments != null) {
-            for (int i = 0; i < commandLineArguments.length - 1; i++) {
-                if (commandLineArguments[i] == null ||
-                        commandLineArguments[i].length() == 0 ||
-                        commandLineArguments[i].charAt(0) != '-' ||
-                        commandLineArguments[i + 1] == null) {
-                    continue;
-                }
-                String tmpArg = commandLineArguments[i].substring(1);
-                if (tmpArg.equalsIgnoreCase(arg)) {
-                    String input = commandLineArguments[i + 1];
-                    if (input != null && !input.equals("")) {
-                        return input;
-                    }
-                }
-            }
-        }
-        return null;
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private static boolean isPrimaryArgumentPresent(String[] commandLineArguments, String arg) {
-
-        if (commandLineArguments != null) {
-            for (String commandLineArgument : commandLineArguments) {
-                if (commandLineArgument == null ||
-                        commandLineArgument.length() == 0 ||
-                        commandLineArgument.charAt(0) != '-') {
-                    continue;
-                }
-                String tmpArg = commandLineArgument.substring(1);
-                if (tmpArg.equalsIgnoreCase(arg)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
 }
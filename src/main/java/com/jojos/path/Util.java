@@ -1,5 +1,7 @@
 package com.jojos.path;
 
+import com.jojos.path.graph.VertexDictionary;
+
 import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -32,6 +34,24 @@ public class Util {
         return values.stream().map(Object::toString).collect(Collectors.joining(" -> ", "[", "]"));
     }
 
+    /**
+     * Creates a path list of the names of the vertices separated by " -> ".
+     *
+     * @param path       the ids of the vertices
+     * @param dictionary the dictionary holding the names of the vertices
+     * @return a string like "[a -> b -> c]"
+     */
+    public static String toPrettyPathString(int[] path, VertexDictionary dictionary) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0) {
+                builder.append(" -> ");
+            }
+            dictionary.appendName(path[i], builder);
+        }
+        return builder.append(']').toString();
+    }
+
     public static String validateNameOrThrow(String name) {
         if (name == null || name.isEmpty()) {
             throw new ApplicationException("Name attribute must have a value");
@@ -66,4 +86,49 @@ public class Util {
         }
     }
 
+    /**
+     * @return the value following the argument, like example.csv of -input example.csv, or null if it's missing
+     */
+    public static String getArgument(String[] commandLineArguments, String arg) {
+
+        if (commandLineArguments != null) {
+            for (int i = 0; i < commandLineArguments.length - 1; i++) {
+                if (commandLineArguments[i] == null ||
+                        commandLineArguments[i].length() == 0 ||
+                        commandLineArguments[i].charAt(0) != '-' ||
+                        commandLineArguments[i + 1] == null) {
+                    continue;
+                }
+                String tmpArg = commandLineArguments[i].substring(1);
+                if (tmpArg.equalsIgnoreCase(arg)) {
+                    String input = commandLineArguments[i + 1];
+                    if (input != null && !input.equals("")) {
+                        return input;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the argument is given, like -assert, whether a value follows it or not
+     */
+    public static boolean isPrimaryArgumentPresent(String[] commandLineArguments, String arg) {
+
+        if (commandLineArguments != null) {
+            for (String commandLineArgument : commandLineArguments) {
+                if (commandLineArgument == null ||
+                        commandLineArgument.length() == 0 ||
+                        commandLineArgument.charAt(0) != '-') {
+                    continue;
+                }
+                String tmpArg = commandLineArgument.substring(1);
+                if (tmpArg.equalsIgnoreCase(arg)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,174 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Point to point shortest paths with two Dijkstra searches running towards each other, one from the source
+ * over the graph and one from the target over its {@link CsrGraph#getReverse() reverse}.
+ *
+ * The side whose queue holds the smaller distance is expanded next. Whenever a vertex reached by one side
+ * is already reached by the other the length of the path through it is a candidate for the shortest path,
+ * and the search stops as soon as the smallest distances of the two queues add up to at least the best
+ * candidate, since no path through an unsettled vertex can be shorter. Both searches usually settle
+ * a small ball around their own end instead of everything closer to the source than the target.
+ *
+ * The weight is always the one of a full single source search. When there are several equally short
+ * paths the one returned may differ from the one a single source search would return.
+ *
+ * Only the vertices touched by a search are reset before the next one, so an instance can answer many
+ * queries on the same graph cheaply, but it must not be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class BidirectionalDijkstra implements PointToPointAlgorithm {
+
+    private static final int NONE = -1;
+
+    private final CsrGraph graph;
+    private final CsrGraph reverse;
+    private final IndexedMinHeap forwardHeap;
+    private final IndexedMinHeap backwardHeap;
+    private final double[] forwardDistances;
+    private final double[] backwardDistances;
+    // the previous vertex on the path from the source and the next vertex on the path to the target
+    private final int[] predecessors;
+    private final int[] successors;
+    // a distance is only valid when its stamp equals the stamp of the current search
+    private final int[] forwardStamps;
+    private final int[] backwardStamps;
+    private int stamp;
+
+    private double best;
+    private int meeting;
+    private long settledCount;
+
+    public BidirectionalDijkstra(CsrGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        this.graph = graph;
+        this.reverse = graph.getReverse();
+        this.forwardHeap = new IndexedMinHeap(vertexCount);
+        this.backwardHeap = new IndexedMinHeap(vertexCount);
+        this.forwardDistances = new double[vertexCount];
+        this.backwardDistances = new double[vertexCount];
+        this.predecessors = new int[vertexCount];
+        this.successors = new int[vertexCount];
+        this.forwardStamps = new int[vertexCount];
+        this.backwardStamps = new int[vertexCount];
+    }
+
+    @Override
+    public ShortestPath getPath(int source, int target) {
+        int vertexCount = graph.getVertexCount();
+        if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+            return ShortestPath.none(source, target);
+        }
+        if (source == target) {
+            return new ShortestPath(source, target, 0d, new int[]{source});
+        }
+
+        nextStamp();
+        forwardHeap.clear();
+        backwardHeap.clear();
+        best = Double.POSITIVE_INFINITY;
+        meeting = NONE;
+        reach(source, 0d, NONE, forwardHeap, forwardDistances, forwardStamps, predecessors);
+        reach(target, 0d, NONE, backwardHeap, backwardDistances, backwardStamps, successors);
+
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            double forwardMin = forwardHeap.peekKey();
+            double backwardMin = backwardHeap.peekKey();
+            if (forwardMin + backwardMin >= best) {
+                break;
+            }
+            if (forwardMin <= backwardMin) {
+                expand(graph, forwardHeap, forwardDistances, forwardStamps, predecessors, backwardDistances, backwardStamps);
+            } else {
+                expand(reverse, backwardHeap, backwardDistances, backwardStamps, successors, forwardDistances, forwardStamps);
+            }
+        }
+
+        if (meeting == NONE) {
+            return ShortestPath.none(source, target);
+        }
+        return new ShortestPath(source, target, best, path(source, target));
+    }
+
+    @Override
+    public long getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Settles the closest vertex of one side and relaxes its edges in the direction of that side
+     */
+    private void expand(CsrGraph direction,
+                        IndexedMinHeap heap,
+                        double[] distances,
+                        int[] stamps,
+                        int[] parents,
+                        double[] otherDistances,
+                        int[] otherStamps) {
+        int vertex = heap.poll();
+        settledCount++;
+        double distance = distances[vertex];
+        for (int e = direction.getFirstEdge(vertex), end = direction.getEndEdge(vertex); e < end; e++) {
+            int next = direction.getEdgeTarget(e);
+            double candidate = distance + direction.getEdgeWeight(e);
+            if (stamps[next] != stamp || candidate < distances[next]) {
+                reach(next, candidate, vertex, heap, distances, stamps, parents);
+                if (otherStamps[next] == stamp && candidate + otherDistances[next] < best) {
+                    best = candidate + otherDistances[next];
+                    meeting = next;
+                }
+            }
+        }
+    }
+
+    private void reach(int vertex, double distance, int parent, IndexedMinHeap heap, double[] distances, int[] stamps, int[] parents) {
+        stamps[vertex] = stamp;
+        distances[vertex] = distance;
+        parents[vertex] = parent;
+        heap.insertOrDecrease(vertex, distance);
+    }
+
+    private int[] path(int source, int target) {
+        int length = 1;
+        for (int v = meeting; v != source; v = predecessors[v]) {
+            length++;
+        }
+        for (int v = meeting; v != target; v = successors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = 0;
+        for (int v = meeting; ; v = predecessors[v]) {
+            path[i++] = v;
+            if (v == source) {
+                break;
+            }
+        }
+        // the part up to the meeting vertex was collected backwards
+        for (int left = 0, right = i - 1; left < right; left++, right--) {
+            int swap = path[left];
+            path[left] = path[right];
+            path[right] = swap;
+        }
+        for (int v = meeting; v != target; ) {
+            v = successors[v];
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // after the stamps wrap around older searches could look current, so forget all of them
+            Arrays.fill(forwardStamps, 0);
+            Arrays.fill(backwardStamps, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -46,10 +46,58 @@ public class Computations {
      * @see Computations#normalizedPackageWeight(DimensionsWeight)
      */
     public static double shippingCost(double hard, DimensionsWeight dimensionsWeight) {
-        double result = Math.sqrt(hard) * normalizedPackageWeight(dimensionsWeight);
+        return shippingCost(hard, normalizedPackageWeight(dimensionsWeight));
+    }
+
+    /**
+     * @param hard             the units of costs
+     * @param normalizedWeight the normalized weight of the package in kilograms
+     * @return the same cost as {@link #shippingCost(double, DimensionsWeight)} for a package of that normalized weight
+     * @see #normalizedPackageWeight(double, double, double, double)
+     */
+    public static double shippingCost(double hard, double normalizedWeight) {
+        double result = Math.sqrt(hard) * normalizedWeight;
         return Math.round(result * 100d) / 100d;
     }
 
+    /**
+     * Prices many packages over many paths at once, with the same result bit for bit as calling
+     * {@link #shippingCost(double, DimensionsWeight)} for every package and path.
+     *
+     * The packages are given as columns of the same length. The normalized weight of every package and the square
+     * root of every hard are computed once, so the inner loop over the paths is a multiplication and a rounding
+     * per cost that the JIT compiler can unroll and vectorize.
+     *
+     * @param widths  the width of every package in cm
+     * @param lengths the length of every package in cm
+     * @param heights the height of every package in cm
+     * @param weights the weight of every package in grams
+     * @param hards   the sum of the hard units of every path
+     * @return the shipping cost of every package, one row per package, over every path, one column per path
+     */
+    public static double[][] shippingCostMatrix(double[] widths, double[] lengths, double[] heights, double[] weights,
+                                                double[] hards) {
+        int packages = widths.length;
+        if (lengths.length != packages || heights.length != packages || weights.length != packages) {
+            throw new ApplicationException(String.format("The columns of the packages differ in length: %d, %d, %d and %d",
+                    widths.length, lengths.length, heights.length, weights.length));
+        }
+        double[] roots = new double[hards.length];
+        for (int p = 0; p < hards.length; p++) {
+            roots[p] = Math.sqrt(hards[p]);
+        }
+        double[][] costs = new double[packages][];
+        for (int i = 0; i < packages; i++) {
+            double normalizedWeight = normalizedPackageWeight(widths[i], lengths[i], heights[i], weights[i]);
+            double[] row = new double[roots.length];
+            for (int p = 0; p < row.length; p++) {
+                row[p] = Math.round(roots[p] * normalizedWeight * 100d) / 100d;
+            }
+            costs[i] = row;
+        }
+        return costs;
+    }
+
     /**
      * A normalized package weight is the greater value of an actual weight or a volumetric weight.
      *
@@ -62,6 +110,17 @@ public class Computations {
         return Math.max(dimensionsWeight.getWeight(), volumetricWeight(dimensionsWeight.getDimensions()));
     }
 
+    /**
+     * @param width  the width of the package in cm
+     * @param length the length of the package in cm
+     * @param height the height of the package in cm
+     * @param grams  the weight of the package in grams
+     * @return the same weight as {@link #normalizedPackageWeight(DimensionsWeight)} for a package of these fields
+     */
+    public static double normalizedPackageWeight(double width, double length, double height, double grams) {
+        return Math.max(grams / 1000d, roundUpToHalf((width * length * height) / 5_000d));
+    }
+
     /**
      * A 'volumetric weight' (sometimes called dimensional weight) is a formula often applied by
      * carriers to take into account volume as a function of weight. A light package that
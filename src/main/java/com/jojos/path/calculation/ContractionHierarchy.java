@@ -0,0 +1,589 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * A contraction hierarchy of a graph for fast point to point queries.
+ *
+ * Every vertex gets a rank and is contracted in the order of its rank: it is removed from the graph and,
+ * for every pair of its neighbours whose shortest path went through it, a shortcut edge with the weight of that
+ * path is added between them. A query then only follows edges towards higher ranked vertices, forwards from the
+ * source and backwards from the target, and the two searches meet at the highest ranked vertex of the path.
+ * Every shortcut remembers the vertex it skips, so the path is unpacked back to the edges of the original graph.
+ *
+ * The vertices are contracted in rounds. A round picks the vertices whose priority, the number of shortcuts their
+ * contraction adds minus the number of edges it removes, is lower than the priority of all their neighbours.
+ * These vertices have no common edges, so they are contracted in parallel; the witness searches that look for
+ * a path between two neighbours avoiding the contracted vertex avoid all the vertices of the round.
+ *
+ * The hierarchy pays off for networks with a hierarchical structure, where a few vertices lie on most of the
+ * long shortest paths. Random networks without one end up with a dense top of the hierarchy that the queries
+ * search from both ends, so they settle about as many vertices as a bidirectional search.
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class ContractionHierarchy {
+    private static final Logger log = LoggerFactory.getLogger(ContractionHierarchy.class);
+
+    static final int NONE = -1;
+    // a witness search gives up after settling this many vertices and the shortcut is added anyway
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    // the priorities only estimate the shortcuts, so their witness searches give up much earlier
+    private static final int PRIORITY_SETTLE_LIMIT = 40;
+
+    private final CsrGraph graph;
+    private final int[] ranks;
+    // the edges from every vertex to higher ranked vertices
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upMiddles;
+    // the edges from higher ranked vertices to every vertex, kept at the lower ranked vertex
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final double[] downWeights;
+    private final int[] downMiddles;
+
+    private ContractionHierarchy(CsrGraph graph,
+                                 int[] ranks,
+                                 int[] upOffsets,
+                                 int[] upTargets,
+                                 double[] upWeights,
+                                 int[] upMiddles,
+                                 int[] downOffsets,
+                                 int[] downSources,
+                                 double[] downWeights,
+                                 int[] downMiddles) {
+        this.graph = graph;
+        this.ranks = ranks;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the position of the vertex in the contraction order
+     */
+    public int getRank(int vertex) {
+        return ranks[vertex];
+    }
+
+    /**
+     * @return the number of edges of the hierarchy, original edges and shortcuts
+     */
+    public int getEdgeCount() {
+        return upTargets.length + downSources.length;
+    }
+
+    /**
+     * @return a new query instance, to be used by a single thread
+     */
+    public ContractionHierarchyQuery newQuery() {
+        return new ContractionHierarchyQuery(this);
+    }
+
+    int getFirstUpEdge(int vertex) {
+        return upOffsets[vertex];
+    }
+
+    int getEndUpEdge(int vertex) {
+        return upOffsets[vertex + 1];
+    }
+
+    int getUpTarget(int edge) {
+        return upTargets[edge];
+    }
+
+    double getUpWeight(int edge) {
+        return upWeights[edge];
+    }
+
+    /**
+     * @return the vertex skipped by the edge or {@link #NONE} if it's an edge of the original graph
+     */
+    int getUpMiddle(int edge) {
+        return upMiddles[edge];
+    }
+
+    int getFirstDownEdge(int vertex) {
+        return downOffsets[vertex];
+    }
+
+    int getEndDownEdge(int vertex) {
+        return downOffsets[vertex + 1];
+    }
+
+    int getDownSource(int edge) {
+        return downSources[edge];
+    }
+
+    double getDownWeight(int edge) {
+        return downWeights[edge];
+    }
+
+    int getDownMiddle(int edge) {
+        return downMiddles[edge];
+    }
+
+    /**
+     * @return the vertex skipped by the edge from a higher ranked vertex to the middle vertex of a shortcut
+     */
+    int getMiddleFrom(int source, int middle) {
+        for (int e = downOffsets[middle], end = downOffsets[middle + 1]; e < end; e++) {
+            if (downSources[e] == source) {
+                return downMiddles[e];
+            }
+        }
+        throw new IllegalStateException(String.format("No edge from %d to %d", source, middle));
+    }
+
+    /**
+     * @return the vertex skipped by the edge from the middle vertex of a shortcut to a higher ranked vertex
+     */
+    int getMiddleTo(int middle, int target) {
+        for (int e = upOffsets[middle], end = upOffsets[middle + 1]; e < end; e++) {
+            if (upTargets[e] == target) {
+                return upMiddles[e];
+            }
+        }
+        throw new IllegalStateException(String.format("No edge from %d to %d", middle, target));
+    }
+
+    /**
+     * Orders and contracts all the vertices of the graph
+     *
+     * @param parallelism the number of threads contracting the vertices of a round
+     */
+    public static ContractionHierarchy build(CsrGraph graph, int parallelism) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
+        long start = System.currentTimeMillis();
+        Contraction contraction = new Contraction(graph);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            contraction.contractAll(pool);
+        } finally {
+            pool.shutdown();
+        }
+        ContractionHierarchy hierarchy = contraction.toHierarchy();
+        log.info(String.format("Contracted %d vertices in %d rounds adding %d shortcuts in %s",
+                graph.getVertexCount(), contraction.rounds, contraction.shortcutCount, Util.longDuration(start)));
+        return hierarchy;
+    }
+
+    /**
+     * The graph while it's being contracted. Every vertex keeps its edges to and from the vertices that
+     * aren't contracted yet, with a single edge of the lowest weight between two vertices. The edges of a vertex
+     * don't change after it's contracted and become its edges in the hierarchy.
+     */
+    private static final class Contraction {
+        private final CsrGraph graph;
+        private final int vertexCount;
+
+        private final int[][] outTargets;
+        private final double[][] outWeights;
+        private final int[][] outMiddles;
+        private final int[] outDegrees;
+        private final int[][] inSources;
+        private final double[][] inWeights;
+        private final int[][] inMiddles;
+        private final int[] inDegrees;
+
+        private final int[] ranks;
+        private final int[] priorities;
+        private final int[] deletedNeighbours;
+        private final boolean[] contracted;
+        // the vertices contracted by the current round
+        private final boolean[] selected;
+        private final boolean[] dirty;
+        private final ThreadLocal<WitnessSearch> searchPerThread = ThreadLocal.withInitial(WitnessSearch::new);
+
+        private int rounds;
+        private long shortcutCount;
+
+        private Contraction(CsrGraph graph) {
+            this.graph = graph;
+            this.vertexCount = graph.getVertexCount();
+            this.outTargets = new int[vertexCount][];
+            this.outWeights = new double[vertexCount][];
+            this.outMiddles = new int[vertexCount][];
+            this.outDegrees = new int[vertexCount];
+            this.inSources = new int[vertexCount][];
+            this.inWeights = new double[vertexCount][];
+            this.inMiddles = new int[vertexCount][];
+            this.inDegrees = new int[vertexCount];
+            this.ranks = new int[vertexCount];
+            this.priorities = new int[vertexCount];
+            this.deletedNeighbours = new int[vertexCount];
+            this.contracted = new boolean[vertexCount];
+            this.selected = new boolean[vertexCount];
+            this.dirty = new boolean[vertexCount];
+
+            for (int v = 0; v < vertexCount; v++) {
+                for (int e = graph.getFirstEdge(v), end = graph.getEndEdge(v); e < end; e++) {
+                    int target = graph.getEdgeTarget(e);
+                    if (target != v) {
+                        addEdge(v, target, graph.getEdgeWeight(e), NONE);
+                    }
+                }
+            }
+        }
+
+        private void contractAll(ForkJoinPool pool) {
+            int[] remaining = new int[vertexCount];
+            for (int v = 0; v < vertexCount; v++) {
+                remaining[v] = v;
+            }
+            int remainingCount = vertexCount;
+            updatePriorities(pool, remaining, remainingCount);
+
+            int[] round = new int[vertexCount];
+            int[] touched = new int[vertexCount];
+            int rank = 0;
+            while (remainingCount > 0) {
+                rounds++;
+                int roundSize = 0;
+                for (int i = 0; i < remainingCount; i++) {
+                    int v = remaining[i];
+                    if (isLocalMinimum(v)) {
+                        selected[v] = true;
+                        round[roundSize++] = v;
+                    }
+                }
+
+                Shortcuts[] shortcuts = new Shortcuts[roundSize];
+                forEach(pool, roundSize, i -> shortcuts[i] = searchPerThread.get().shortcuts(round[i], true));
+
+                int touchedCount = 0;
+                for (int i = 0; i < roundSize; i++) {
+                    int v = round[i];
+                    ranks[v] = rank++;
+                    contracted[v] = true;
+                    touchedCount = detach(v, touched, touchedCount);
+                    Shortcuts found = shortcuts[i];
+                    for (int s = 0; s < found.count; s++) {
+                        addEdge(found.sources[s], found.targets[s], found.weights[s], v);
+                    }
+                    shortcutCount += found.count;
+                }
+                for (int i = 0; i < roundSize; i++) {
+                    selected[round[i]] = false;
+                }
+
+                int kept = 0;
+                for (int i = 0; i < remainingCount; i++) {
+                    int v = remaining[i];
+                    if (!contracted[v]) {
+                        remaining[kept++] = v;
+                    }
+                }
+                remainingCount = kept;
+                updatePriorities(pool, touched, touchedCount);
+                for (int i = 0; i < touchedCount; i++) {
+                    dirty[touched[i]] = false;
+                }
+            }
+        }
+
+        private boolean isLocalMinimum(int vertex) {
+            for (int i = 0; i < outDegrees[vertex]; i++) {
+                if (precedes(outTargets[vertex][i], vertex)) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < inDegrees[vertex]; i++) {
+                if (precedes(inSources[vertex][i], vertex)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean precedes(int vertex, int other) {
+            return priorities[vertex] < priorities[other] || (priorities[vertex] == priorities[other] && vertex < other);
+        }
+
+        /**
+         * The edge difference of the vertex plus the number of its contracted neighbours, which spreads
+         * the contraction evenly over the graph
+         */
+        private int priority(WitnessSearch search, int vertex) {
+            int shortcuts = search.shortcuts(vertex, false).count;
+            return shortcuts - outDegrees[vertex] - inDegrees[vertex] + deletedNeighbours[vertex];
+        }
+
+        /**
+         * Removes the vertex from the edges of its neighbours and collects the neighbours whose priority changes
+         */
+        private int detach(int vertex, int[] touched, int touchedCount) {
+            for (int i = 0; i < outDegrees[vertex]; i++) {
+                int target = outTargets[vertex][i];
+                removeIncoming(target, vertex);
+                touchedCount = touch(target, touched, touchedCount);
+            }
+            for (int i = 0; i < inDegrees[vertex]; i++) {
+                int source = inSources[vertex][i];
+                removeOutgoing(source, vertex);
+                touchedCount = touch(source, touched, touchedCount);
+            }
+            return touchedCount;
+        }
+
+        private int touch(int vertex, int[] touched, int touchedCount) {
+            deletedNeighbours[vertex]++;
+            if (!dirty[vertex]) {
+                dirty[vertex] = true;
+                touched[touchedCount++] = vertex;
+            }
+            return touchedCount;
+        }
+
+        /**
+         * Adds an edge between two vertices that aren't contracted or lowers the weight of the existing one
+         */
+        private void addEdge(int source, int target, double weight, int middle) {
+            int[] targets = outTargets[source];
+            for (int i = 0; i < outDegrees[source]; i++) {
+                if (targets[i] == target) {
+                    if (weight < outWeights[source][i]) {
+                        outWeights[source][i] = weight;
+                        outMiddles[source][i] = middle;
+                        int[] sources = inSources[target];
+                        for (int j = 0; j < inDegrees[target]; j++) {
+                            if (sources[j] == source) {
+                                inWeights[target][j] = weight;
+                                inMiddles[target][j] = middle;
+                                break;
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+
+            int out = outDegrees[source]++;
+            if (outTargets[source] == null || out == outTargets[source].length) {
+                int capacity = Math.max(4, out * 2);
+                outTargets[source] = outTargets[source] == null ? new int[capacity] : Arrays.copyOf(outTargets[source], capacity);
+                outWeights[source] = outWeights[source] == null ? new double[capacity] : Arrays.copyOf(outWeights[source], capacity);
+                outMiddles[source] = outMiddles[source] == null ? new int[capacity] : Arrays.copyOf(outMiddles[source], capacity);
+            }
+            outTargets[source][out] = target;
+            outWeights[source][out] = weight;
+            outMiddles[source][out] = middle;
+
+            int in = inDegrees[target]++;
+            if (inSources[target] == null || in == inSources[target].length) {
+                int capacity = Math.max(4, in * 2);
+                inSources[target] = inSources[target] == null ? new int[capacity] : Arrays.copyOf(inSources[target], capacity);
+                inWeights[target] = inWeights[target] == null ? new double[capacity] : Arrays.copyOf(inWeights[target], capacity);
+                inMiddles[target] = inMiddles[target] == null ? new int[capacity] : Arrays.copyOf(inMiddles[target], capacity);
+            }
+            inSources[target][in] = source;
+            inWeights[target][in] = weight;
+            inMiddles[target][in] = middle;
+        }
+
+        private void removeOutgoing(int source, int target) {
+            int[] targets = outTargets[source];
+            for (int i = 0; i < outDegrees[source]; i++) {
+                if (targets[i] == target) {
+                    int last = --outDegrees[source];
+                    targets[i] = targets[last];
+                    outWeights[source][i] = outWeights[source][last];
+                    outMiddles[source][i] = outMiddles[source][last];
+                    return;
+                }
+            }
+        }
+
+        private void removeIncoming(int target, int source) {
+            int[] sources = inSources[target];
+            for (int i = 0; i < inDegrees[target]; i++) {
+                if (sources[i] == source) {
+                    int last = --inDegrees[target];
+                    sources[i] = sources[last];
+                    inWeights[target][i] = inWeights[target][last];
+                    inMiddles[target][i] = inMiddles[target][last];
+                    return;
+                }
+            }
+        }
+
+        private ContractionHierarchy toHierarchy() {
+            int[] upOffsets = new int[vertexCount + 1];
+            int[] downOffsets = new int[vertexCount + 1];
+            for (int v = 0; v < vertexCount; v++) {
+                upOffsets[v + 1] = upOffsets[v] + outDegrees[v];
+                downOffsets[v + 1] = downOffsets[v] + inDegrees[v];
+            }
+            int[] upTargets = new int[upOffsets[vertexCount]];
+            double[] upWeights = new double[upTargets.length];
+            int[] upMiddles = new int[upTargets.length];
+            int[] downSources = new int[downOffsets[vertexCount]];
+            double[] downWeights = new double[downSources.length];
+            int[] downMiddles = new int[downSources.length];
+            for (int v = 0; v < vertexCount; v++) {
+                if (outDegrees[v] > 0) {
+                    System.arraycopy(outTargets[v], 0, upTargets, upOffsets[v], outDegrees[v]);
+                    System.arraycopy(outWeights[v], 0, upWeights, upOffsets[v], outDegrees[v]);
+                    System.arraycopy(outMiddles[v], 0, upMiddles, upOffsets[v], outDegrees[v]);
+                }
+                if (inDegrees[v] > 0) {
+                    System.arraycopy(inSources[v], 0, downSources, downOffsets[v], inDegrees[v]);
+                    System.arraycopy(inWeights[v], 0, downWeights, downOffsets[v], inDegrees[v]);
+                    System.arraycopy(inMiddles[v], 0, downMiddles, downOffsets[v], inDegrees[v]);
+                }
+            }
+            return new ContractionHierarchy(graph, ranks, upOffsets, upTargets, upWeights, upMiddles,
+                    downOffsets, downSources, downWeights, downMiddles);
+        }
+
+        private void updatePriorities(ForkJoinPool pool, int[] vertices, int count) {
+            forEach(pool, count, i -> priorities[vertices[i]] = priority(searchPerThread.get(), vertices[i]));
+        }
+
+        /**
+         * Runs the action for the indexes [0, count) on the threads of the pool
+         */
+        private static void forEach(ForkJoinPool pool, int count, IntConsumer action) {
+            pool.submit(() -> IntStream.range(0, count).parallel().forEach(action)).join();
+        }
+
+        /**
+         * Searches the paths between the neighbours of a vertex that avoid it, with the working arrays of a single thread
+         */
+        private final class WitnessSearch {
+            private final IndexedMinHeap heap = new IndexedMinHeap(vertexCount);
+            private final double[] distances = new double[vertexCount];
+            private final int[] stamps = new int[vertexCount];
+            // the neighbours a witness search still has to reach within the length of their path through the vertex
+            private final int[] targetStamps = new int[vertexCount];
+            private final double[] targetLimits = new double[vertexCount];
+            private int targets;
+            private int stamp;
+
+            /**
+             * @param excludeRound true to avoid all the vertices of the round instead of just the contracted one
+             * @return the shortcuts needed when the vertex is contracted
+             */
+            private Shortcuts shortcuts(int vertex, boolean excludeRound) {
+                Shortcuts shortcuts = new Shortcuts();
+                for (int i = 0; i < inDegrees[vertex]; i++) {
+                    int source = inSources[vertex][i];
+                    double inWeight = inWeights[vertex][i];
+                    double maxDistance = -1d;
+                    for (int j = 0; j < outDegrees[vertex]; j++) {
+                        if (outTargets[vertex][j] != source) {
+                            maxDistance = Math.max(maxDistance, inWeight + outWeights[vertex][j]);
+                        }
+                    }
+                    if (maxDistance < 0) {
+                        continue;
+                    }
+                    nextStamp();
+                    targets = 0;
+                    for (int j = 0; j < outDegrees[vertex]; j++) {
+                        int target = outTargets[vertex][j];
+                        if (target != source) {
+                            targetStamps[target] = stamp;
+                            targetLimits[target] = inWeight + outWeights[vertex][j];
+                            targets++;
+                        }
+                    }
+                    search(source, vertex, maxDistance, excludeRound ? WITNESS_SETTLE_LIMIT : PRIORITY_SETTLE_LIMIT, excludeRound);
+                    for (int j = 0; j < outDegrees[vertex]; j++) {
+                        int target = outTargets[vertex][j];
+                        double via = inWeight + outWeights[vertex][j];
+                        if (target != source && (stamps[target] != stamp || distances[target] > via)) {
+                            shortcuts.add(source, target, via);
+                        }
+                    }
+                }
+                return shortcuts;
+            }
+
+            private void search(int source, int avoided, double maxDistance, int settleLimit, boolean excludeRound) {
+                heap.clear();
+                reach(source, 0d);
+                int settled = 0;
+                while (!heap.isEmpty() && targets > 0 && settled < settleLimit && heap.peekKey() <= maxDistance) {
+                    int vertex = heap.poll();
+                    settled++;
+                    double distance = distances[vertex];
+                    for (int i = 0; i < outDegrees[vertex]; i++) {
+                        int next = outTargets[vertex][i];
+                        if (next == avoided || (excludeRound && selected[next])) {
+                            continue;
+                        }
+                        double candidate = distance + outWeights[vertex][i];
+                        if (candidate <= maxDistance && (stamps[next] != stamp || candidate < distances[next])) {
+                            reach(next, candidate);
+                        }
+                    }
+                }
+            }
+
+            private void reach(int vertex, double distance) {
+                stamps[vertex] = stamp;
+                distances[vertex] = distance;
+                heap.insertOrDecrease(vertex, distance);
+                if (targetStamps[vertex] == stamp && distance <= targetLimits[vertex]) {
+                    // a path no longer than the one through the contracted vertex is a witness, shorter or not
+                    targetStamps[vertex] = 0;
+                    targets--;
+                }
+            }
+
+            private void nextStamp() {
+                stamp++;
+                if (stamp == 0) {
+                    Arrays.fill(stamps, 0);
+                    Arrays.fill(targetStamps, 0);
+                    stamp = 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * The shortcuts needed by the contraction of a single vertex
+     */
+    private static final class Shortcuts {
+        private int count;
+        private int[] sources = new int[4];
+        private int[] targets = new int[4];
+        private double[] weights = new double[4];
+
+        private void add(int source, int target, double weight) {
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            sources[count] = source;
+            targets[count] = target;
+            weights[count] = weight;
+            count++;
+        }
+    }
+}
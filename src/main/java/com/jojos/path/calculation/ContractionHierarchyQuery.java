@@ -0,0 +1,255 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Point to point queries over a {@link ContractionHierarchy}.
+ *
+ * A forward search from the source follows the edges to higher ranked vertices and a backward search from
+ * the target follows the edges from higher ranked vertices, so both settle only a few vertices on their way up
+ * the hierarchy. A settled vertex that is reached shorter through a higher ranked neighbour can't be on a
+ * shortest path of the hierarchy, so its edges are skipped. A side stops as soon as its smallest distance reaches the best path found through a vertex
+ * reached by both. The edges of the path are then unpacked, shortcut by shortcut, into the vertices of the
+ * original graph and the weight is summed from the source over the original edges, exactly as a single
+ * source search sums it. When there are several equally short paths the one returned may differ from the one
+ * a single source search would return.
+ *
+ * Only the vertices touched by a query are reset before the next one, so an instance can answer many
+ * queries cheaply, but it must not be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ContractionHierarchyQuery implements PointToPointAlgorithm {
+
+    private static final int NONE = ContractionHierarchy.NONE;
+
+    private final ContractionHierarchy hierarchy;
+    private final CsrGraph graph;
+    private final IndexedMinHeap forwardHeap;
+    private final IndexedMinHeap backwardHeap;
+    private final double[] forwardDistances;
+    private final double[] backwardDistances;
+    // the hierarchy edge that reached every vertex from the source and the one that leads to the target
+    private final int[] forwardEdges;
+    private final int[] backwardEdges;
+    private final int[] predecessors;
+    private final int[] successors;
+    // a distance is only valid when its stamp equals the stamp of the current query
+    private final int[] forwardStamps;
+    private final int[] backwardStamps;
+    private int stamp;
+
+    private double best;
+    private int meeting;
+    private long settledCount;
+
+    // the edges of the hierarchy still to be unpacked, as (source, target, middle) triples
+    private int[] unpackStack = new int[48];
+    private int[] path = new int[16];
+    private int pathLength;
+
+    ContractionHierarchyQuery(ContractionHierarchy hierarchy) {
+        int vertexCount = hierarchy.getGraph().getVertexCount();
+        this.hierarchy = hierarchy;
+        this.graph = hierarchy.getGraph();
+        this.forwardHeap = new IndexedMinHeap(vertexCount);
+        this.backwardHeap = new IndexedMinHeap(vertexCount);
+        this.forwardDistances = new double[vertexCount];
+        this.backwardDistances = new double[vertexCount];
+        this.forwardEdges = new int[vertexCount];
+        this.backwardEdges = new int[vertexCount];
+        this.predecessors = new int[vertexCount];
+        this.successors = new int[vertexCount];
+        this.forwardStamps = new int[vertexCount];
+        this.backwardStamps = new int[vertexCount];
+    }
+
+    @Override
+    public ShortestPath getPath(int source, int target) {
+        int vertexCount = graph.getVertexCount();
+        if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+            return ShortestPath.none(source, target);
+        }
+        if (source == target) {
+            return new ShortestPath(source, target, 0d, new int[]{source});
+        }
+
+        nextStamp();
+        forwardHeap.clear();
+        backwardHeap.clear();
+        best = Double.POSITIVE_INFINITY;
+        meeting = NONE;
+        forwardStamps[source] = stamp;
+        forwardDistances[source] = 0d;
+        predecessors[source] = NONE;
+        forwardHeap.insertOrDecrease(source, 0d);
+        backwardStamps[target] = stamp;
+        backwardDistances[target] = 0d;
+        successors[target] = NONE;
+        backwardHeap.insertOrDecrease(target, 0d);
+
+        while (true) {
+            double forwardMin = forwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : forwardHeap.peekKey();
+            double backwardMin = backwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : backwardHeap.peekKey();
+            if (Math.min(forwardMin, backwardMin) >= best || (forwardHeap.isEmpty() && backwardHeap.isEmpty())) {
+                break;
+            }
+            if (forwardMin <= backwardMin) {
+                expandForward();
+            } else {
+                expandBackward();
+            }
+        }
+
+        if (meeting == NONE) {
+            return ShortestPath.none(source, target);
+        }
+        unpack(source, target);
+        return new ShortestPath(source, target, originalWeight(), Arrays.copyOf(path, pathLength));
+    }
+
+    @Override
+    public long getSettledCount() {
+        return settledCount;
+    }
+
+    private void expandForward() {
+        int vertex = forwardHeap.poll();
+        settledCount++;
+        double distance = forwardDistances[vertex];
+        // a vertex reached shorter through a higher ranked vertex isn't on a shortest path climbing the hierarchy
+        for (int e = hierarchy.getFirstDownEdge(vertex), end = hierarchy.getEndDownEdge(vertex); e < end; e++) {
+            int higher = hierarchy.getDownSource(e);
+            if (forwardStamps[higher] == stamp && forwardDistances[higher] + hierarchy.getDownWeight(e) < distance) {
+                return;
+            }
+        }
+        for (int e = hierarchy.getFirstUpEdge(vertex), end = hierarchy.getEndUpEdge(vertex); e < end; e++) {
+            int next = hierarchy.getUpTarget(e);
+            double candidate = distance + hierarchy.getUpWeight(e);
+            if (forwardStamps[next] != stamp || candidate < forwardDistances[next]) {
+                forwardStamps[next] = stamp;
+                forwardDistances[next] = candidate;
+                predecessors[next] = vertex;
+                forwardEdges[next] = e;
+                forwardHeap.insertOrDecrease(next, candidate);
+                if (backwardStamps[next] == stamp && candidate + backwardDistances[next] < best) {
+                    best = candidate + backwardDistances[next];
+                    meeting = next;
+                }
+            }
+        }
+    }
+
+    private void expandBackward() {
+        int vertex = backwardHeap.poll();
+        settledCount++;
+        double distance = backwardDistances[vertex];
+        for (int e = hierarchy.getFirstUpEdge(vertex), end = hierarchy.getEndUpEdge(vertex); e < end; e++) {
+            int higher = hierarchy.getUpTarget(e);
+            if (backwardStamps[higher] == stamp && backwardDistances[higher] + hierarchy.getUpWeight(e) < distance) {
+                return;
+            }
+        }
+        for (int e = hierarchy.getFirstDownEdge(vertex), end = hierarchy.getEndDownEdge(vertex); e < end; e++) {
+            int next = hierarchy.getDownSource(e);
+            double candidate = distance + hierarchy.getDownWeight(e);
+            if (backwardStamps[next] != stamp || candidate < backwardDistances[next]) {
+                backwardStamps[next] = stamp;
+                backwardDistances[next] = candidate;
+                successors[next] = vertex;
+                backwardEdges[next] = e;
+                backwardHeap.insertOrDecrease(next, candidate);
+                if (forwardStamps[next] == stamp && candidate + forwardDistances[next] < best) {
+                    best = candidate + forwardDistances[next];
+                    meeting = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the vertices of the original graph from the source to the target into the path buffer
+     */
+    private void unpack(int source, int target) {
+        pathLength = 0;
+        appendVertex(source);
+        // the stack is popped from the source to the target, so the edges after the meeting vertex go to the bottom
+        int top = 0;
+        for (int v = meeting; v != target; v = successors[v]) {
+            top = push(top, v, successors[v], hierarchy.getDownMiddle(backwardEdges[v]));
+        }
+        for (int left = 0, right = top - 3; left < right; left += 3, right -= 3) {
+            for (int i = 0; i < 3; i++) {
+                int swap = unpackStack[left + i];
+                unpackStack[left + i] = unpackStack[right + i];
+                unpackStack[right + i] = swap;
+            }
+        }
+        for (int v = meeting; v != source; v = predecessors[v]) {
+            top = push(top, predecessors[v], v, hierarchy.getUpMiddle(forwardEdges[v]));
+        }
+
+        while (top > 0) {
+            top -= 3;
+            int from = unpackStack[top];
+            int to = unpackStack[top + 1];
+            int middle = unpackStack[top + 2];
+            if (middle == NONE) {
+                appendVertex(to);
+            } else {
+                // the second half is pushed first so that the first half is unpacked first
+                top = push(top, middle, to, hierarchy.getMiddleTo(middle, to));
+                top = push(top, from, middle, hierarchy.getMiddleFrom(from, middle));
+            }
+        }
+    }
+
+    private int push(int top, int from, int to, int middle) {
+        if (top + 3 > unpackStack.length) {
+            unpackStack = Arrays.copyOf(unpackStack, unpackStack.length * 2);
+        }
+        unpackStack[top] = from;
+        unpackStack[top + 1] = to;
+        unpackStack[top + 2] = middle;
+        return top + 3;
+    }
+
+    private void appendVertex(int vertex) {
+        if (pathLength == path.length) {
+            path = Arrays.copyOf(path, pathLength * 2);
+        }
+        path[pathLength++] = vertex;
+    }
+
+    /**
+     * @return the weight of the unpacked path summed over the lightest original edge between every two of its vertices
+     */
+    private double originalWeight() {
+        double weight = 0d;
+        for (int i = 1; i < pathLength; i++) {
+            int from = path[i - 1];
+            int to = path[i];
+            double lightest = Double.POSITIVE_INFINITY;
+            for (int e = graph.getFirstEdge(from), end = graph.getEndEdge(from); e < end; e++) {
+                if (graph.getEdgeTarget(e) == to) {
+                    lightest = Math.min(lightest, graph.getEdgeWeight(e));
+                }
+            }
+            weight += lightest;
+        }
+        return weight;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // after the stamps wrap around older queries could look current, so forget all of them
+            Arrays.fill(forwardStamps, 0);
+            Arrays.fill(backwardStamps, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.DynamicGraph;
+import com.jojos.path.input.GraphChange;
+import com.jojos.path.output.OutputBuffer;
+import com.jojos.path.output.PathOutputWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Applies a delta file of edge changes to a graph and writes the shortest paths of the changed graph, in the
+ * same format as {@link ShortestPathJob}, without searching the trees of the sources again after every change.
+ *
+ * The tree of the source is searched once on the original graph and is then kept up to date by
+ * {@link DynamicShortestPaths}, which only visits the vertices whose paths a change affects. The number of
+ * those vertices is logged for every line of the delta file. The job needs a source: the trees of all the
+ * vertices would take 12 bytes per pair of vertices and cost more to search than a {@link ShortestPathJob} of
+ * the changed graph, so without one the changed input is better parsed again.
+ *
+ * @author karanikasg@gmail.com
+ * @see GraphChange
+ */
+public class DeltaJob {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final CsrGraph graph;
+    private final String deltaFileName;
+    private final String outputFileName;
+    private final String source;
+    private final String target;
+    private final DimensionsWeight dimensionsWeight;
+    private final int parallelism;
+
+    /**
+     * @param graph            the graph created on a previous step, which isn't modified
+     * @param deltaFileName    the file of the changes
+     * @param outputFileName   the file the paths of the changed graph are written to
+     * @param source           the source of the paths
+     * @param target           the target of the paths or null for all the vertices of the changed graph
+     * @param dimensionsWeight the package the shipping costs are calculated for or null for plain weights
+     * @param parallelism      the number of threads updating the trees of different sources at the same time
+     * @throws ApplicationException if there's no source
+     */
+    public DeltaJob(CsrGraph graph,
+                    String deltaFileName,
+                    String outputFileName,
+                    String source,
+                    String target,
+                    DimensionsWeight dimensionsWeight,
+                    int parallelism) {
+        if (source == null) {
+            throw new ApplicationException("The changes are applied to the paths of a single source");
+        }
+        this.graph = graph;
+        this.deltaFileName = deltaFileName;
+        this.outputFileName = outputFileName;
+        this.source = source;
+        this.target = target;
+        this.dimensionsWeight = dimensionsWeight;
+        this.parallelism = parallelism;
+    }
+
+    public void run() {
+        DynamicGraph dynamicGraph = DynamicGraph.of(graph);
+        int id = graph.getVertexId(source);
+        if (id < 0) {
+            throw new ApplicationException(String.format("The graph doesn't contain the source vertex %s", source));
+        }
+        int[] sources = {id};
+
+        long start = System.currentTimeMillis();
+        DynamicShortestPaths paths = new DynamicShortestPaths(dynamicGraph, sources, parallelism);
+        try {
+            log.info("Searched the trees of {} sources in {}", sources.length, Util.longDuration(start));
+            applyChanges(paths);
+            writePaths(paths);
+        } finally {
+            paths.shutdown();
+        }
+    }
+
+    private void applyChanges(DynamicShortestPaths paths) {
+        long start = System.currentTimeMillis();
+        int changes = 0;
+        long affected = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(deltaFileName), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                List<GraphChange> lineChanges = GraphChange.parse(line);
+                long lineAffected = 0;
+                for (GraphChange change : lineChanges) {
+                    lineAffected += paths.apply(change);
+                }
+                log.info("{}: {} vertices affected", line.trim(), lineAffected);
+                changes += lineChanges.size();
+                affected += lineAffected;
+            }
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot read the changes of %s: %s", deltaFileName, e.getMessage()));
+        }
+        log.info("Applied {} changes to the trees of {} sources in {}, {} vertices affected in total, now {}",
+                changes, paths.getSources().length, Util.longDuration(start), affected, paths.getGraph());
+    }
+
+    private void writePaths(DynamicShortestPaths paths) {
+        DynamicGraph dynamicGraph = paths.getGraph();
+        int vertexCount = dynamicGraph.getVertexCount();
+        int[] targets;
+        if (target == null) {
+            targets = new int[vertexCount];
+            for (int t = 0; t < vertexCount; t++) {
+                targets[t] = t;
+            }
+        } else {
+            targets = new int[]{dynamicGraph.getVertexId(target)};
+        }
+
+        long start = System.currentTimeMillis();
+        OutputBuffer buffer = new OutputBuffer();
+        int[] path = new int[vertexCount];
+        try (PathOutputWriter writer = new PathOutputWriter(outputFileName)) {
+            for (int source : paths.getSources()) {
+                ShortestPathTree tree = paths.getPaths(source);
+                buffer.reset();
+                for (int target : targets) {
+                    // exclude self reference nodes even if they have an infinite distance
+                    if (target == source || !tree.hasPath(target)) {
+                        continue;
+                    }
+                    int length = tree.copyPath(target, path);
+                    ShortestPathJob.appendLine(buffer, path, length, tree.getWeight(target), dimensionsWeight,
+                            dynamicGraph.getVertexDictionary());
+                }
+                writer.write(buffer);
+            }
+            writer.flush();
+            log.info("Wrote the paths of the changed graph to {} ({} bytes) in {}",
+                    outputFileName, writer.getBytesWritten(), Util.longDuration(start));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Dial's variant of Dijkstra's algorithm for graphs whose weights are small non negative whole numbers.
+ *
+ * The priority queue is a circular array of maxWeight + 1 buckets, each one a doubly linked list of the vertices
+ * whose tentative distance falls in it. Every queued distance lies between the current distance and the current
+ * distance plus the largest weight, so bucket distance % (maxWeight + 1) holds exactly one distance at a time.
+ * Inserting, moving and removing a vertex are constant time and there are no comparisons between keys at all;
+ * the price is scanning the empty buckets, which is cheap as long as the largest weight is small.
+ *
+ * The buckets and links are reused between searches, so an instance must not be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DialDijkstra implements ShortestPathAlgorithm {
+
+    private static final int NONE = -1;
+
+    private final CsrGraph graph;
+    private final int bucketCount;
+    private final int[] bucketHeads;
+    private final int[] next;
+    private final int[] previous;
+    // the bucket every queued vertex is in or NONE if it isn't queued
+    private final int[] bucketOf;
+
+    public DialDijkstra(CsrGraph graph) {
+        this.graph = graph;
+        this.bucketCount = (int) graph.getMaxEdgeWeight() + 1;
+        this.bucketHeads = new int[bucketCount];
+        this.next = new int[graph.getVertexCount()];
+        this.previous = new int[graph.getVertexCount()];
+        this.bucketOf = new int[graph.getVertexCount()];
+        Arrays.fill(bucketHeads, NONE);
+        Arrays.fill(bucketOf, NONE);
+    }
+
+    @Override
+    public ShortestPathTree getPaths(int source) {
+        int vertexCount = graph.getVertexCount();
+        double[] distances = new double[vertexCount];
+        int[] predecessors = new int[vertexCount];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+
+        distances[source] = 0d;
+        add(source, 0);
+        int queued = 1;
+        long current = 0;
+        while (queued > 0) {
+            int bucket = (int) (current % bucketCount);
+            int vertex = bucketHeads[bucket];
+            if (vertex == NONE) {
+                current++;
+                continue;
+            }
+            remove(vertex);
+            queued--;
+
+            double distance = distances[vertex];
+            for (int e = graph.getFirstEdge(vertex), end = graph.getEndEdge(vertex); e < end; e++) {
+                int target = graph.getEdgeTarget(e);
+                double candidate = distance + graph.getEdgeWeight(e);
+                if (candidate < distances[target]) {
+                    if (bucketOf[target] == NONE) {
+                        queued++;
+                    } else {
+                        remove(target);
+                    }
+                    distances[target] = candidate;
+                    predecessors[target] = vertex;
+                    add(target, (int) ((long) candidate % bucketCount));
+                }
+            }
+        }
+        return new ShortestPathTree(source, distances, predecessors);
+    }
+
+    private void add(int vertex, int bucket) {
+        int head = bucketHeads[bucket];
+        next[vertex] = head;
+        previous[vertex] = NONE;
+        if (head != NONE) {
+            previous[head] = vertex;
+        }
+        bucketHeads[bucket] = vertex;
+        bucketOf[vertex] = bucket;
+    }
+
+    private void remove(int vertex) {
+        int bucket = bucketOf[vertex];
+        if (previous[vertex] == NONE) {
+            bucketHeads[bucket] = next[vertex];
+        } else {
+            next[previous[vertex]] = next[vertex];
+        }
+        if (next[vertex] != NONE) {
+            previous[next[vertex]] = previous[vertex];
+        }
+        bucketOf[vertex] = NONE;
+    }
+}
@@ -0,0 +1,51 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's single source shortest path algorithm running directly on the primitive arrays of a {@link CsrGraph}.
+ * It accepts any non negative weights; graphs with whole number weights are faster with {@link DialDijkstra}
+ * or {@link RadixHeapDijkstra}.
+ *
+ * The priority queue is reused between searches, so an instance must not be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class Dijkstra implements ShortestPathAlgorithm {
+
+    private final CsrGraph graph;
+    private final IndexedMinHeap heap;
+
+    public Dijkstra(CsrGraph graph) {
+        this.graph = graph;
+        this.heap = new IndexedMinHeap(graph.getVertexCount());
+    }
+
+    @Override
+    public ShortestPathTree getPaths(int source) {
+        int vertexCount = graph.getVertexCount();
+        double[] distances = new double[vertexCount];
+        int[] predecessors = new int[vertexCount];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+
+        distances[source] = 0d;
+        heap.insertOrDecrease(source, 0d);
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            double distance = distances[vertex];
+            for (int e = graph.getFirstEdge(vertex), end = graph.getEndEdge(vertex); e < end; e++) {
+                int target = graph.getEdgeTarget(e);
+                double candidate = distance + graph.getEdgeWeight(e);
+                if (candidate < distances[target]) {
+                    distances[target] = candidate;
+                    predecessors[target] = vertex;
+                    heap.insertOrDecrease(target, candidate);
+                }
+            }
+        }
+        return new ShortestPathTree(source, distances, predecessors);
+    }
+}
@@ -8,10 +8,12 @@ package com.jojos.path.calculation;
 public class DimensionsWeight {
     private final Dimensions dimensions;
     private final double weight;
+    private final double grams;
 
     public DimensionsWeight(Dimensions dimensions, double weight) {
         this.dimensions = dimensions;
         this.weight = weight / 1000d;
+        this.grams = weight;
     }
 
     public Dimensions getDimensions() {
@@ -35,6 +37,13 @@ public class DimensionsWeight {
         return weight;
     }
 
+    /**
+     * @return the weight in grams, as it was given
+     */
+    public double getGrams() {
+        return grams;
+    }
+
     @Override
     public String toString() {
         return "DimensionsWeight{" +
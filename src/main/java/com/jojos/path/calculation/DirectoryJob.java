@@ -0,0 +1,280 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.input.ParsedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs a {@link ParseJob} followed by a {@link ShortestPathJob} for every .csv file of a directory.
+ *
+ * The files are processed at the same time on a bounded number of threads. On top of that every file reserves
+ * an estimate of the memory its graph needs from a common memory budget before it starts, so a few huge files
+ * don't run at the same time even if there are threads available. A file whose estimate exceeds the whole
+ * budget still runs, but only on its own.
+ *
+ * Every input file gets an output file with the same name inside the output directory. A failing file doesn't
+ * stop the others, it's reported in the summary logged at the end.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DirectoryJob {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final String INPUT_EXTENSION = ".csv";
+    private static final String SNAPSHOT_EXTENSION = ".snapshot";
+    // a rough estimate of the heap needed per byte of input, covering the builders and the final graph
+    private static final long MEMORY_PER_INPUT_BYTE = 6;
+    private static final long MEMORY_PER_JOB = 16L * 1024 * 1024;
+    // the semaphore counts the budget in kilobytes so that it fits in an int
+    private static final long PERMIT_SIZE = 1024;
+
+    private final Path inputDirectory;
+    private final Path outputDirectory;
+    private final ParseJob.RunMode runMode;
+    private final String source;
+    private final String target;
+    private final DimensionsWeight dimensionsWeight;
+    private final int jobs;
+    private final int parallelism;
+    private final long memoryBudget;
+    private final Path snapshotDirectory;
+
+    /**
+     * @param inputDirectory    the directory containing the input files
+     * @param outputDirectory   the directory the output files are written to, created if it doesn't exist
+     * @param runMode           whether the assertions of every file are verified instead of writing output
+     * @param source            the source of the paths or null for all of them
+     * @param target            the target of the paths or null for all of them
+     * @param dimensionsWeight  the package the shipping costs are calculated for or null for plain weights
+     * @param jobs              the maximum number of files processed at the same time
+     * @param parallelism       the total number of threads shared by the files processed at the same time
+     * @param memoryBudget      the maximum number of bytes the graphs processed at the same time are estimated to use
+     * @param snapshotDirectory the directory the snapshot of every file is kept in or null to always parse the files
+     */
+    public DirectoryJob(String inputDirectory,
+                        String outputDirectory,
+                        ParseJob.RunMode runMode,
+                        String source,
+                        String target,
+                        DimensionsWeight dimensionsWeight,
+                        int jobs,
+                        int parallelism,
+                        long memoryBudget,
+                        String snapshotDirectory) {
+        if (jobs < 1) {
+            throw new ApplicationException("Jobs must be a positive number but was " + jobs);
+        }
+        if (memoryBudget < PERMIT_SIZE) {
+            throw new ApplicationException("Memory budget must be at least " + PERMIT_SIZE + " bytes");
+        }
+        this.inputDirectory = Paths.get(inputDirectory);
+        this.outputDirectory = Paths.get(outputDirectory);
+        this.runMode = runMode;
+        this.source = source;
+        this.target = target;
+        this.dimensionsWeight = dimensionsWeight;
+        this.jobs = jobs;
+        this.parallelism = Math.max(1, parallelism / jobs);
+        this.memoryBudget = memoryBudget;
+        this.snapshotDirectory = snapshotDirectory == null ? null : Paths.get(snapshotDirectory);
+    }
+
+    /**
+     * Processes all the files and blocks until every one of them is done
+     *
+     * @return the outcome of every file in the order of the file names
+     */
+    public List<FileSummary> run() {
+        List<Path> files = listInputFiles();
+        if (runMode == ParseJob.RunMode.WITHOUT_ASSERTIONS) {
+            createDirectory(outputDirectory);
+        }
+        if (snapshotDirectory != null) {
+            createDirectory(snapshotDirectory);
+        }
+        log.info("Processing {} files of {} with {} jobs of parallelism {} and a memory budget of {} MB",
+                files.size(), inputDirectory, jobs, parallelism, memoryBudget / (1024 * 1024));
+
+        long start = System.currentTimeMillis();
+        int budgetPermits = (int) Math.min(Integer.MAX_VALUE, memoryBudget / PERMIT_SIZE);
+        Semaphore budget = new Semaphore(budgetPermits, true);
+        ExecutorService executor = Executors.newFixedThreadPool(jobs);
+        List<Future<FileSummary>> futures = new ArrayList<>(files.size());
+        try {
+            for (Path file : files) {
+                int permits = (int) Math.min(budgetPermits, estimateMemory(file) / PERMIT_SIZE);
+                // reserving in the submitting thread keeps the files in order and the threads free for running jobs
+                budget.acquireUninterruptibly(permits);
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return process(file);
+                        } finally {
+                            budget.release(permits);
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    budget.release(permits);
+                    throw e;
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<FileSummary> summaries = new ArrayList<>(files.size());
+        try {
+            for (Future<FileSummary> future : futures) {
+                summaries.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new ApplicationException("Interrupted while processing the files of " + inputDirectory);
+        } catch (ExecutionException e) {
+            // process catches every failure of a file, so this can only be an Error
+            throw new ApplicationException("Processing the files of " + inputDirectory + " failed with " + e.getCause());
+        }
+        logSummary(summaries, start);
+        return summaries;
+    }
+
+    private FileSummary process(Path file) {
+        String fileName = file.getFileName().toString();
+        long start = System.currentTimeMillis();
+        long parseMillis = 0;
+        boolean parsed = false;
+        try {
+            String snapshotFile = snapshotDirectory == null ? null
+                    : snapshotDirectory.resolve(fileName + SNAPSHOT_EXTENSION).toString();
+            ParsedObject parsedObject = new ParseJob(file.toString(), parallelism, snapshotFile).runAndCreateGraph(runMode);
+            parseMillis = System.currentTimeMillis() - start;
+            parsed = true;
+            if (runMode == ParseJob.RunMode.WITH_ASSERTIONS) {
+                ShortestPathJob.withAssertions(parsedObject, parallelism).run();
+            } else {
+                String outputFile = outputDirectory.resolve(fileName).toString();
+                ShortestPathJob
+                        .withoutAssertions(parsedObject.getGraph(), outputFile, source, target, dimensionsWeight, parallelism)
+                        .run();
+            }
+            return new FileSummary(fileName, parseMillis, System.currentTimeMillis() - start - parseMillis, null);
+        } catch (RuntimeException | AssertionError e) {
+            log.error(String.format("Processing %s failed", file), e);
+            long pathMillis = 0;
+            if (parsed) {
+                pathMillis = System.currentTimeMillis() - start - parseMillis;
+            } else {
+                parseMillis = System.currentTimeMillis() - start;
+            }
+            String error = e.getMessage() == null ? e.toString() : e.getMessage();
+            // the summary holds a line per file, the failed assertions are all in the log above
+            int lineEnd = error.indexOf(System.lineSeparator());
+            return new FileSummary(fileName, parseMillis, pathMillis, lineEnd < 0 ? error : error.substring(0, lineEnd));
+        }
+    }
+
+    private List<Path> listInputFiles() {
+        try (Stream<Path> stream = Files.list(inputDirectory)) {
+            return stream.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase().endsWith(INPUT_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot list the files of " + inputDirectory);
+        }
+    }
+
+    private void createDirectory(Path directory) {
+        try {
+            if (Files.exists(directory) && Files.isSameFile(inputDirectory, directory)) {
+                throw new ApplicationException("The directory " + directory + " must be different from the input directory");
+            }
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot create the directory " + directory);
+        }
+    }
+
+    private static long estimateMemory(Path file) {
+        try {
+            return MEMORY_PER_JOB + Files.size(file) * MEMORY_PER_INPUT_BYTE;
+        } catch (IOException e) {
+            return MEMORY_PER_JOB;
+        }
+    }
+
+    private void logSummary(List<FileSummary> summaries, long start) {
+        long parseMillis = 0;
+        long pathMillis = 0;
+        int failed = 0;
+        for (FileSummary summary : summaries) {
+            parseMillis += summary.getParseMillis();
+            pathMillis += summary.getPathMillis();
+            if (!summary.isSuccessful()) {
+                failed++;
+            }
+            log.info(String.format("%-40s parse %8d ms, paths %8d ms, %s", summary.getFileName(),
+                    summary.getParseMillis(), summary.getPathMillis(),
+                    summary.isSuccessful() ? "OK" : "FAILED: " + summary.getError()));
+        }
+        log.info(String.format("Processed %d files (%d failed) in %s, parse %d ms and paths %d ms in total",
+                summaries.size(), failed, Util.longDuration(start), parseMillis, pathMillis));
+    }
+
+    /**
+     * The outcome of processing a single file of the directory
+     */
+    public static class FileSummary {
+        private final String fileName;
+        private final long parseMillis;
+        private final long pathMillis;
+        private final String error;
+
+        FileSummary(String fileName, long parseMillis, long pathMillis, String error) {
+            this.fileName = fileName;
+            this.parseMillis = parseMillis;
+            this.pathMillis = pathMillis;
+            this.error = error;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getParseMillis() {
+            return parseMillis;
+        }
+
+        public long getPathMillis() {
+            return pathMillis;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        /**
+         * @return the reason the file failed or null if it was successful
+         */
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Calculates the paths of all the sources of a graph in separate worker processes, each one running a
+ * {@link WorkerJob}, and writes them to a single output that is identical to the one of a {@link ShortestPathJob}
+ * run by a single process.
+ *
+ * The sources are split into ranges of consecutive ids, several per worker so that the workers that are done
+ * early take the ranges that are left. The workers connect to the coordinator over the loopback interface and
+ * are handed one range at a time as a line of the form
+ * <pre>
+ * RANGE first end partition_file
+ * </pre>
+ * to which a worker answers {@code DONE first end} once it has written the paths of the range to the partition
+ * file, or {@code FAILED} followed by the reason. {@code STOP} ends a worker once all the ranges are done.
+ * Every worker also sends a {@code HEARTBEAT} line every second, so that a worker that hangs or is suspended
+ * is told apart from one that is busy with a large range.
+ *
+ * A range whose worker disconnects, dies or misses its heartbeats before it's done is handed to the next worker
+ * asking for one, and is written to a partition file of its own so that a worker that is still writing can't
+ * spoil it. A range is handed out at most {@value #MAX_ATTEMPTS} times, whether its workers failed or were gone,
+ * so a range that crashes its workers fails the job instead of taking all the workers down one after the other.
+ * Once every range is done the partitions are copied to the output in the order of the ranges and deleted.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DistributedJob {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    static final String RANGE = "RANGE";
+    static final String DONE = "DONE";
+    static final String FAILED = "FAILED";
+    static final String STOP = "STOP";
+    static final String HEARTBEAT = "HEARTBEAT";
+    // how often the workers send a heartbeat
+    static final long HEARTBEAT_INTERVAL_MILLIS = 1_000;
+    // how many ranges every worker gets on average, more of them lose less work when a worker dies
+    private static final int RANGES_PER_WORKER = 8;
+    // a range failing this many times fails the job instead of being handed out again
+    private static final int MAX_ATTEMPTS = 3;
+    // how long the coordinator waits for a worker to connect when none is connected
+    private static final long CONNECT_TIMEOUT_MILLIS = 60_000;
+    // a worker that doesn't send anything for this long is taken for gone
+    private static final int HEARTBEAT_TIMEOUT_MILLIS = 30_000;
+
+    // the graph itself isn't kept, every worker loads one of its own
+    private final int vertexCount;
+    private final int edgeCount;
+    private final String outputFileName;
+    private final int workers;
+    private final WorkerLauncher launcher;
+    private int heartbeatTimeoutMillis = HEARTBEAT_TIMEOUT_MILLIS;
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+    // the state of the ranges, guarded by this job
+    private final Deque<Range> pending = new ArrayDeque<>();
+    private Range[] ranges;
+    private int completed;
+    private int connected;
+    private int accepted;
+    private int reassigned;
+    private long idleSince;
+    private String failure;
+    private boolean stopped;
+
+    /**
+     * Starts a worker process that connects back to the coordinator
+     */
+    @FunctionalInterface
+    public interface WorkerLauncher {
+        /**
+         * @param port  the port of the coordinator on the loopback interface
+         * @param index the index of the worker, from 0 to the number of workers
+         */
+        void launch(int port, int index) throws IOException;
+    }
+
+    /**
+     * @param graph          the graph of the workers, of which only the number of vertices and edges is kept
+     * @param outputFileName the file name of the output
+     * @param workers        the number of worker processes
+     * @param launcher       starts the worker processes
+     */
+    public DistributedJob(CsrGraph graph, String outputFileName, int workers, WorkerLauncher launcher) {
+        if (workers < 1) {
+            throw new ApplicationException("Workers must be a positive number but was " + workers);
+        }
+        this.vertexCount = graph.getVertexCount();
+        this.edgeCount = graph.getEdgeCount();
+        this.outputFileName = outputFileName;
+        this.workers = workers;
+        this.launcher = launcher;
+    }
+
+    /**
+     * Launches every worker as a JVM running the main class with the same class path, heap and direct memory
+     * limits and system properties as this one, followed by the arguments of the worker and the port to
+     * connect to as {@code -worker port}. The output and the errors of the workers go to the ones of this JVM.
+     *
+     * @param mainClass        the main class of the workers
+     * @param workerArguments  the command line arguments of every worker
+     */
+    public static WorkerLauncher processLauncher(Class<?> mainClass, List<String> workerArguments) {
+        return (port, index) -> {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+                if (option.startsWith("-Xmx") || option.startsWith("-Xms") || option.startsWith("-Xss")
+                        || option.startsWith("-XX:MaxDirectMemorySize") || option.startsWith("-D")) {
+                    command.add(option);
+                }
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(mainClass.getName());
+            command.addAll(workerArguments);
+            command.add("-worker");
+            command.add(Integer.toString(port));
+            new ProcessBuilder(command).inheritIO().start();
+        };
+    }
+
+    /**
+     * Changes how long a worker may stay silent before its range is handed to another worker
+     *
+     * @return this job
+     */
+    DistributedJob withHeartbeatTimeout(int millis) {
+        if (millis <= HEARTBEAT_INTERVAL_MILLIS) {
+            throw new ApplicationException("The heartbeat timeout must be longer than the heartbeat interval but was " + millis);
+        }
+        this.heartbeatTimeoutMillis = millis;
+        return this;
+    }
+
+    /**
+     * @return how many ranges were handed out again after their worker disconnected or failed
+     */
+    public synchronized int getReassignedCount() {
+        return reassigned;
+    }
+
+    /**
+     * Calculates the paths with the workers and writes the output once they are all done
+     *
+     * @throws ApplicationException if a range keeps failing, no worker connects or all of them are gone
+     */
+    public void run() {
+        if (vertexCount == 0) {
+            log.warn("Graph contains no vertices...exiting");
+            return;
+        } else if (edgeCount == 0) {
+            log.warn("Graph with no edges between vertices");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        createRanges();
+        Path outputFile = Paths.get(outputFileName).toAbsolutePath();
+        Path partitions;
+        try {
+            partitions = Files.createTempDirectory(outputFile.getParent(), outputFile.getFileName() + ".partitions");
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot create the directory of the partitions next to " + outputFileName);
+        }
+        try (ServerSocket serverSocket = new ServerSocket()) {
+            serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            Thread acceptor = new Thread(() -> acceptWorkers(serverSocket, partitions), "distributed-job-acceptor");
+            acceptor.start();
+            log.info("Calculating the paths of {} sources in {} ranges with {} workers connecting to {}",
+                    vertexCount, ranges.length, workers, serverSocket.getLocalSocketAddress());
+            for (int i = 0; i < workers; i++) {
+                launcher.launch(serverSocket.getLocalPort(), i);
+            }
+            awaitRanges();
+            log.info("The workers calculated the paths of {} ranges in {}, {} reassigned",
+                    ranges.length, Util.longDuration(start), getReassignedCount());
+            writeOutput(outputFile);
+        } catch (IOException e) {
+            throw new ApplicationException("The workers cannot be started: " + e.getMessage());
+        } finally {
+            stop();
+            // the workers stop once their connection is closed
+            for (Socket socket : openSockets) {
+                closeQuietly(socket);
+            }
+            deleteQuietly(partitions);
+        }
+        log.info("Wrote the paths of {} sources to {} in {}", vertexCount, outputFileName, Util.longDuration(start));
+    }
+
+    private synchronized void createRanges() {
+        int size = Math.max(1, (vertexCount + workers * RANGES_PER_WORKER - 1) / (workers * RANGES_PER_WORKER));
+        ranges = new Range[(vertexCount + size - 1) / size];
+        for (int i = 0; i < ranges.length; i++) {
+            ranges[i] = new Range(i * size, Math.min(vertexCount, (i + 1) * size));
+            pending.add(ranges[i]);
+        }
+        idleSince = System.currentTimeMillis();
+    }
+
+    /**
+     * Blocks until every range is done
+     */
+    private synchronized void awaitRanges() {
+        while (completed < ranges.length) {
+            if (failure != null) {
+                throw new ApplicationException(failure);
+            }
+            if (connected == 0) {
+                if (accepted == workers) {
+                    throw new ApplicationException(String.format("All the workers are gone with %d of %d ranges left",
+                            ranges.length - completed, ranges.length));
+                }
+                if (System.currentTimeMillis() - idleSince > CONNECT_TIMEOUT_MILLIS) {
+                    throw new ApplicationException(String.format("No worker connected in %d seconds",
+                            CONNECT_TIMEOUT_MILLIS / 1000));
+                }
+            }
+            try {
+                wait(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApplicationException("Interrupted while waiting for the workers");
+            }
+        }
+    }
+
+    private void acceptWorkers(ServerSocket serverSocket, Path partitions) {
+        int index = 0;
+        while (true) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(heartbeatTimeoutMillis);
+            } catch (SocketException e) {
+                // the server socket was closed
+                return;
+            } catch (IOException e) {
+                log.warn("Cannot accept a worker: {}", e.getMessage());
+                continue;
+            }
+            openSockets.add(socket);
+            synchronized (this) {
+                accepted++;
+                connected++;
+            }
+            new Thread(() -> serve(socket, partitions), "distributed-job-worker-" + index++).start();
+        }
+    }
+
+    /**
+     * Hands the ranges over to a single worker until they are all done or the worker is gone
+     */
+    private void serve(Socket socket, Path partitions) {
+        Range range = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            while ((range = nextRange()) != null) {
+                Path partition = partitions.resolve(String.format("%d-%d.csv", range.first, range.attempts));
+                writer.write(String.format("%s %d %d %s\n", RANGE, range.first, range.end, partition));
+                writer.flush();
+                String reply;
+                do {
+                    reply = reader.readLine();
+                } while (HEARTBEAT.equals(reply));
+                if (reply == null) {
+                    throw new IOException("the worker disconnected");
+                }
+                if (!reply.equals(String.format("%s %d %d", DONE, range.first, range.end))) {
+                    rangeFailed(range, reply.startsWith(FAILED) ? reply.substring(FAILED.length()).trim() : "unexpected reply " + reply);
+                    range = null;
+                    continue;
+                }
+                rangeDone(range, partition);
+                range = null;
+            }
+            writer.write(STOP + "\n");
+            writer.flush();
+        } catch (SocketTimeoutException e) {
+            log.warn("Worker {} sent no heartbeat in {} ms", socket.getRemoteSocketAddress(), heartbeatTimeoutMillis);
+        } catch (IOException e) {
+            log.warn("Worker {} is gone: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            openSockets.remove(socket);
+            closeQuietly(socket);
+            workerGone(range);
+        }
+    }
+
+    /**
+     * @return the next range to calculate, waiting for ranges handed to other workers that may fail, or null
+     * once all of them are done
+     */
+    private synchronized Range nextRange() {
+        while (pending.isEmpty() && completed < ranges.length && failure == null && !stopped) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        if (failure != null || stopped) {
+            return null;
+        }
+        Range range = pending.poll();
+        if (range != null) {
+            range.attempts++;
+        }
+        return range;
+    }
+
+    /**
+     * Lets the workers waiting for a range go, also when the job fails
+     */
+    private synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    private synchronized void rangeDone(Range range, Path partition) {
+        range.partition = partition;
+        completed++;
+        notifyAll();
+    }
+
+    private synchronized void rangeFailed(Range range, String reason) {
+        log.warn("Range [{}, {}) failed: {}", range.first, range.end, reason);
+        if (range.attempts >= MAX_ATTEMPTS) {
+            failure = String.format("Range [%d, %d) failed %d times: %s", range.first, range.end, range.attempts, reason);
+        } else {
+            reassigned++;
+            pending.addFirst(range);
+        }
+        notifyAll();
+    }
+
+    /**
+     * @param range the range the worker was calculating or null
+     */
+    private synchronized void workerGone(Range range) {
+        connected--;
+        idleSince = System.currentTimeMillis();
+        // the workers closed once the job failed or stopped have nothing to hand over
+        if (range != null && failure == null && !stopped) {
+            if (range.attempts >= MAX_ATTEMPTS) {
+                failure = String.format("Range [%d, %d) was handed out %d times and every worker was gone before it was done",
+                        range.first, range.end, range.attempts);
+            } else {
+                log.info("Reassigning range [{}, {})", range.first, range.end);
+                reassigned++;
+                pending.addFirst(range);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Copies the partitions to the output in the order of the ranges
+     */
+    private void writeOutput(Path outputFile) throws IOException {
+        long start = System.currentTimeMillis();
+        try (FileChannel output = FileChannel.open(outputFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Range range : ranges) {
+                try (FileChannel partition = FileChannel.open(range.partition, StandardOpenOption.READ)) {
+                    long size = partition.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += partition.transferTo(position, size - position, output);
+                    }
+                }
+            }
+            log.info("Merged {} partitions ({} bytes) in {}", ranges.length, output.size(), Util.longDuration(start));
+        }
+    }
+
+    private void deleteQuietly(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Cannot delete partition {}: {}", file, e.getMessage());
+                }
+            });
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Cannot delete the partitions in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+
+    /**
+     * The sources from the first id up to the end id
+     */
+    private static class Range {
+        private final int first;
+        private final int end;
+        // the number of times the range was handed out
+        private int attempts;
+        // the file of the paths once the range is done
+        private Path partition;
+
+        private Range(int first, int end) {
+            this.first = first;
+            this.end = end;
+        }
+    }
+}
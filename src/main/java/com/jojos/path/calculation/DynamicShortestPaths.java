@@ -0,0 +1,380 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.graph.DynamicGraph;
+import com.jojos.path.input.GraphChange;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps the shortest path trees of a set of sources up to date while the edges of a {@link DynamicGraph} change,
+ * in the spirit of the dynamic algorithm of Ramalingam and Reps: a change only touches the vertices whose
+ * shortest path goes through the changed edge, so its cost depends on the size of the change and not on the size
+ * of the graph.
+ * <ul>
+ * <li>An edge that is added or gets lighter is relaxed, and if it shortens the path of its target a Dijkstra search
+ * starting at the target spreads the shorter distances for as long as they improve.</li>
+ * <li>An edge that is removed or gets heavier only matters if it's part of the tree. Then the subtree below it is
+ * cut off, every vertex of the subtree takes the best path through its incoming edges from the rest of the tree,
+ * and a Dijkstra search restricted to the subtree settles the new distances.</li>
+ * </ul>
+ * Ties between paths of the same weight may be broken differently than by a search from scratch, the weights are
+ * always the same.
+ *
+ * The graph is changed through {@link #apply(GraphChange)} only. The trees of the sources are updated in parallel.
+ * Every tree takes 12 bytes per vertex, so the sources are meant to be a few of the vertices, not all of them.
+ * Vertices the changes add can become sources through {@link #addSources(int[])}.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DynamicShortestPaths {
+
+    // below this many trees a change updates them on the calling thread
+    private static final int MIN_PARALLEL_TREES = 4;
+
+    private final DynamicGraph graph;
+    private final int parallelism;
+    private int[] sources;
+    private Tree[] trees;
+    // the index of the tree of every vertex of the graph, -1 for the vertices that aren't sources
+    private int[] treeIndices;
+    // created once there are enough trees to update in parallel
+    private ForkJoinPool pool;
+    private final ThreadLocal<Workspace> workspacePerThread = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Searches the trees of the sources from scratch
+     *
+     * @param sources     the vertices whose trees are kept
+     * @param parallelism the number of threads updating the trees of different sources at the same time
+     */
+    public DynamicShortestPaths(DynamicGraph graph, int[] sources, int parallelism) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
+        this.graph = graph;
+        this.parallelism = parallelism;
+        this.sources = new int[0];
+        this.trees = new Tree[0];
+        this.treeIndices = new int[0];
+        addSources(sources);
+    }
+
+    /**
+     * Searches the trees of more sources on the graph as it is now, usually of the vertices the changes added.
+     * The vertices whose trees are kept already are skipped.
+     *
+     * @return the number of trees added
+     * @throws ApplicationException if a vertex isn't part of the graph
+     */
+    public int addSources(int[] vertices) {
+        growTreeIndices();
+        int first = trees.length;
+        int count = first;
+        int[] grownSources = Arrays.copyOf(sources, first + vertices.length);
+        for (int vertex : vertices) {
+            if (vertex < 0 || vertex >= treeIndices.length) {
+                throw new ApplicationException(String.format("%d isn't a vertex of %s", vertex, graph));
+            }
+            if (treeIndices[vertex] < 0) {
+                treeIndices[vertex] = count;
+                grownSources[count++] = vertex;
+            }
+        }
+        sources = Arrays.copyOf(grownSources, count);
+        trees = Arrays.copyOf(trees, count);
+        forEachTree(first, i -> {
+            trees[i] = new Tree(sources[i]);
+            return trees[i].search(workspacePerThread.get());
+        });
+        return count - first;
+    }
+
+    public DynamicGraph getGraph() {
+        return graph;
+    }
+
+    public int[] getSources() {
+        return sources.clone();
+    }
+
+    /**
+     * Applies the change to the graph and updates the trees
+     *
+     * @return the number of vertices whose distance was searched again, summed over all the trees,
+     * 0 if the change doesn't affect any shortest path
+     */
+    public long apply(GraphChange change) {
+        int from;
+        int to;
+        double previous;
+        double weight;
+        if (change.getType() == GraphChange.Type.REMOVE) {
+            from = graph.getVertexId(change.getSource());
+            to = graph.getVertexId(change.getTarget());
+            if (from < 0 || to < 0) {
+                return 0;
+            }
+            previous = graph.removeEdge(from, to);
+            weight = Double.POSITIVE_INFINITY;
+        } else {
+            from = graph.addVertex(change.getSource());
+            to = graph.addVertex(change.getTarget());
+            previous = graph.getEdgeWeight(from, to);
+            weight = change.getType() == GraphChange.Type.ADD ? Math.min(previous, change.getWeight()) : change.getWeight();
+            if (weight != previous) {
+                graph.setEdge(from, to, weight);
+            }
+        }
+        growTreeIndices();
+        if (weight == previous) {
+            return 0;
+        }
+        for (Tree tree : trees) {
+            tree.ensureCapacity(graph.getVertexCount());
+        }
+        return forEachTree(0, i -> {
+            long affected = weight < previous
+                    ? trees[i].decreased(from, to, weight, workspacePerThread.get())
+                    : trees[i].increased(from, to, workspacePerThread.get());
+            trees[i].changed |= affected > 0;
+            return affected;
+        });
+    }
+
+    /**
+     * @return true if a change affected the tree of the source since the last {@link #clearChanged()}
+     */
+    public boolean hasChanged(int source) {
+        return trees[treeIndexOrThrow(source)].changed;
+    }
+
+    /**
+     * Forgets which trees the changes so far affected
+     */
+    public void clearChanged() {
+        for (Tree tree : trees) {
+            tree.changed = false;
+        }
+    }
+
+    /**
+     * @return the tree of the source as of the last change, valid until the next one
+     * @throws ApplicationException if the tree of the source isn't kept
+     */
+    public ShortestPathTree getPaths(int source) {
+        Tree tree = trees[treeIndexOrThrow(source)];
+        return new ShortestPathTree(source, tree.distances, tree.predecessors);
+    }
+
+    private void growTreeIndices() {
+        int previous = treeIndices.length;
+        if (previous < graph.getVertexCount()) {
+            treeIndices = Arrays.copyOf(treeIndices, graph.getVertexCount());
+            Arrays.fill(treeIndices, previous, treeIndices.length, -1);
+        }
+    }
+
+    private int treeIndexOrThrow(int source) {
+        if (source < 0 || source >= treeIndices.length || treeIndices[source] < 0) {
+            throw new ApplicationException(String.format("The tree of %s isn't kept", graph.getVertexName(source)));
+        }
+        return treeIndices[source];
+    }
+
+    /**
+     * Stops the threads updating the trees
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param first the first of the trees to update, the ones after it are updated too
+     */
+    private long forEachTree(int first, TreeUpdate update) {
+        if (parallelism == 1 || trees.length - first < MIN_PARALLEL_TREES) {
+            long total = 0;
+            for (int i = first; i < trees.length; i++) {
+                total += update.apply(i);
+            }
+            return total;
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool.submit(() -> IntStream.range(first, trees.length).parallel().mapToLong(update::apply).sum()).join();
+    }
+
+    private interface TreeUpdate {
+        /**
+         * @return the number of vertices searched
+         */
+        long apply(int tree);
+    }
+
+    /**
+     * The working arrays of the updates, owned by a single thread and sized for the largest graph it has seen
+     */
+    private class Workspace {
+        private IndexedMinHeap heap = new IndexedMinHeap(0);
+        // the vertices of the subtree cut off by the last increase are the ones stamped with the current stamp
+        private int[] stamps = new int[0];
+        private int stamp;
+        private int[] subtree = new int[0];
+
+        private void ensureCapacity(int vertexCount) {
+            if (stamps.length < vertexCount) {
+                int capacity = Math.max(vertexCount, stamps.length * 2);
+                heap = new IndexedMinHeap(capacity);
+                stamps = new int[capacity];
+                subtree = new int[capacity];
+                stamp = 0;
+            }
+        }
+
+        private int nextStamp() {
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+    }
+
+    /**
+     * The distances and the predecessors of a single source, grown together with the graph
+     */
+    private class Tree {
+        private final int source;
+        private double[] distances;
+        private int[] predecessors;
+        private boolean changed;
+
+        private Tree(int source) {
+            this.source = source;
+            this.distances = new double[0];
+            this.predecessors = new int[0];
+            ensureCapacity(graph.getVertexCount());
+        }
+
+        private void ensureCapacity(int vertexCount) {
+            if (distances.length < vertexCount) {
+                int previous = distances.length;
+                int capacity = Math.max(vertexCount, previous + (previous >> 1));
+                distances = Arrays.copyOf(distances, capacity);
+                predecessors = Arrays.copyOf(predecessors, capacity);
+                Arrays.fill(distances, previous, capacity, Double.POSITIVE_INFINITY);
+                Arrays.fill(predecessors, previous, capacity, -1);
+            }
+        }
+
+        private long search(Workspace workspace) {
+            workspace.ensureCapacity(graph.getVertexCount());
+            distances[source] = 0d;
+            workspace.heap.insertOrDecrease(source, 0d);
+            return settle(workspace.heap);
+        }
+
+        /**
+         * The edge was added or got lighter
+         */
+        private long decreased(int from, int to, double weight, Workspace workspace) {
+            double candidate = distances[from] + weight;
+            if (!(candidate < distances[to])) {
+                return 0;
+            }
+            workspace.ensureCapacity(graph.getVertexCount());
+            distances[to] = candidate;
+            predecessors[to] = from;
+            workspace.heap.insertOrDecrease(to, candidate);
+            return settle(workspace.heap);
+        }
+
+        /**
+         * The edge was removed or got heavier
+         */
+        private long increased(int from, int to, Workspace workspace) {
+            if (predecessors[to] != from) {
+                // the edge isn't part of the tree, so no shortest path goes through it
+                return 0;
+            }
+            workspace.ensureCapacity(graph.getVertexCount());
+            int[] stamps = workspace.stamps;
+            int stamp = workspace.nextStamp();
+            int[] subtree = workspace.subtree;
+
+            // the subtree below the edge, whose paths all went through it
+            int size = 0;
+            subtree[size++] = to;
+            stamps[to] = stamp;
+            for (int i = 0; i < size; i++) {
+                int vertex = subtree[i];
+                for (int e = 0, degree = graph.getOutDegree(vertex); e < degree; e++) {
+                    int child = graph.getOutTarget(vertex, e);
+                    if (predecessors[child] == vertex && stamps[child] != stamp) {
+                        stamps[child] = stamp;
+                        subtree[size++] = child;
+                    }
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                distances[subtree[i]] = Double.POSITIVE_INFINITY;
+                predecessors[subtree[i]] = -1;
+            }
+
+            // the best way into the subtree from the rest of the tree, whose distances haven't changed
+            IndexedMinHeap heap = workspace.heap;
+            for (int i = 0; i < size; i++) {
+                int vertex = subtree[i];
+                double best = Double.POSITIVE_INFINITY;
+                int bestPredecessor = -1;
+                for (int e = 0, degree = graph.getInDegree(vertex); e < degree; e++) {
+                    int parent = graph.getInSource(vertex, e);
+                    if (stamps[parent] != stamp) {
+                        double candidate = distances[parent] + graph.getInWeight(vertex, e);
+                        if (candidate < best) {
+                            best = candidate;
+                            bestPredecessor = parent;
+                        }
+                    }
+                }
+                if (bestPredecessor >= 0) {
+                    distances[vertex] = best;
+                    predecessors[vertex] = bestPredecessor;
+                    heap.insertOrDecrease(vertex, best);
+                }
+            }
+            settle(heap);
+            return size;
+        }
+
+        /**
+         * Dijkstra's search from the vertices of the heap, relaxing the edges for as long as they shorten a path
+         *
+         * @return the number of vertices settled
+         */
+        private long settle(IndexedMinHeap heap) {
+            long settled = 0;
+            while (!heap.isEmpty()) {
+                int vertex = heap.poll();
+                settled++;
+                double distance = distances[vertex];
+                for (int e = 0, degree = graph.getOutDegree(vertex); e < degree; e++) {
+                    int target = graph.getOutTarget(vertex, e);
+                    double candidate = distance + graph.getOutWeight(vertex, e);
+                    if (candidate < distances[target]) {
+                        distances[target] = candidate;
+                        predecessors[target] = vertex;
+                        heap.insertOrDecrease(target, candidate);
+                    }
+                }
+            }
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * A* point to point queries guided by the lower bounds of a {@link LandmarkIndex}.
+ *
+ * The vertices are settled in the order of their distance from the source plus the lower bound of their
+ * distance to the target, so the search heads towards the target instead of growing a ball around the source.
+ * The bounds of the landmarks are consistent, so every vertex is settled at most once and the path found is a
+ * shortest one. Only the few landmarks that give the tightest bound between the source and the target are
+ * consulted during a query, and a landmark that proves the target unreachable answers the query without
+ * searching at all.
+ *
+ * Only the vertices touched by a query are reset before the next one, so an instance can answer many
+ * queries cheaply, but it must not be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class LandmarkAStar implements PointToPointAlgorithm {
+
+    private static final int NONE = -1;
+    // consulting more landmarks tightens the bounds a little but makes every bound more expensive
+    private static final int ACTIVE_LANDMARKS = 4;
+
+    private final LandmarkIndex index;
+    private final CsrGraph graph;
+    private final IndexedMinHeap heap;
+    private final double[] distances;
+    private final double[] bounds;
+    private final int[] predecessors;
+    // a distance is only valid when its stamp equals the stamp of the current query
+    private final int[] stamps;
+    // the landmarks consulted by the current query and the bounds they give between its source and target
+    private final int[] active;
+    private final double[] activeBounds;
+    private int activeCount;
+    private int stamp;
+    private long settledCount;
+
+    LandmarkAStar(LandmarkIndex index) {
+        int vertexCount = index.getGraph().getVertexCount();
+        this.index = index;
+        this.graph = index.getGraph();
+        this.heap = new IndexedMinHeap(vertexCount);
+        this.distances = new double[vertexCount];
+        this.bounds = new double[vertexCount];
+        this.predecessors = new int[vertexCount];
+        this.stamps = new int[vertexCount];
+        this.active = new int[Math.min(ACTIVE_LANDMARKS, index.getLandmarkCount())];
+        this.activeBounds = new double[active.length];
+    }
+
+    @Override
+    public ShortestPath getPath(int source, int target) {
+        return getPath(source, target, true);
+    }
+
+    /**
+     * The same search without the landmarks is plain Dijkstra stopping at the target,
+     * which tells how many vertices the landmarks saved
+     *
+     * @param useLandmarks false to ignore the lower bounds of the landmarks
+     */
+    public ShortestPath getPath(int source, int target, boolean useLandmarks) {
+        int vertexCount = graph.getVertexCount();
+        if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+            return ShortestPath.none(source, target);
+        }
+        if (source == target) {
+            return new ShortestPath(source, target, 0d, new int[]{source});
+        }
+
+        activeCount = useLandmarks ? pickLandmarks(source, target) : 0;
+        nextStamp();
+        heap.clear();
+        double sourceBound = bound(source, target);
+        if (sourceBound == Double.POSITIVE_INFINITY) {
+            return ShortestPath.none(source, target);
+        }
+        reach(source, 0d, sourceBound, NONE);
+
+        while (!heap.isEmpty()) {
+            int vertex = heap.poll();
+            settledCount++;
+            if (vertex == target) {
+                return new ShortestPath(source, target, distances[target], path(source, target));
+            }
+            double distance = distances[vertex];
+            for (int e = graph.getFirstEdge(vertex), end = graph.getEndEdge(vertex); e < end; e++) {
+                int next = graph.getEdgeTarget(e);
+                double candidate = distance + graph.getEdgeWeight(e);
+                if (stamps[next] != stamp) {
+                    double bound = bound(next, target);
+                    if (bound != Double.POSITIVE_INFINITY) {
+                        reach(next, candidate, bound, vertex);
+                    }
+                } else if (candidate < distances[next]) {
+                    reach(next, candidate, bounds[next], vertex);
+                }
+            }
+        }
+        return ShortestPath.none(source, target);
+    }
+
+    @Override
+    public long getSettledCount() {
+        return settledCount;
+    }
+
+    private void reach(int vertex, double distance, double bound, int predecessor) {
+        stamps[vertex] = stamp;
+        distances[vertex] = distance;
+        bounds[vertex] = bound;
+        predecessors[vertex] = predecessor;
+        heap.insertOrDecrease(vertex, distance + bound);
+    }
+
+    private double bound(int vertex, int target) {
+        double bound = 0d;
+        for (int i = 0; i < activeCount; i++) {
+            bound = Math.max(bound, index.lowerBound(active[i], vertex, target));
+        }
+        return bound;
+    }
+
+    /**
+     * Keeps the landmarks with the tightest bounds between the source and the target
+     *
+     * @return the number of landmarks kept
+     */
+    private int pickLandmarks(int source, int target) {
+        int count = 0;
+        for (int i = 0; i < index.getLandmarkCount(); i++) {
+            double bound = index.lowerBound(i, source, target);
+            int position = count < active.length ? count++ : active.length;
+            // insertion sort of the few best landmarks, tightest first
+            while (position > 0 && activeBounds[position - 1] < bound) {
+                if (position < active.length) {
+                    activeBounds[position] = activeBounds[position - 1];
+                    active[position] = active[position - 1];
+                }
+                position--;
+            }
+            if (position < active.length) {
+                activeBounds[position] = bound;
+                active[position] = i;
+            }
+        }
+        return count;
+    }
+
+    private int[] path(int source, int target) {
+        int length = 1;
+        for (int v = target; v != source; v = predecessors[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = target, i = length - 1; i >= 0; v = predecessors[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // after the stamps wrap around older queries could look current, so forget all of them
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+}
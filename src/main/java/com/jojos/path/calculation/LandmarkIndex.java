@@ -0,0 +1,365 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * The preprocessing of ALT (A*, landmarks and triangle inequality) point to point queries.
+ *
+ * A few vertices are picked as landmarks and the distances from every landmark to every vertex and from every
+ * vertex to every landmark are stored. By the triangle inequality, for any landmark L
+ *
+ * d(v, t) &gt;= d(L, t) - d(L, v)   and   d(v, t) &gt;= d(v, L) - d(t, L)
+ *
+ * so the largest of these differences is a lower bound of the distance from v to t that {@link LandmarkAStar}
+ * uses to steer its search towards the target. The landmarks are picked one after the other as the vertex
+ * farthest from the landmarks picked so far, which puts them at the edges of the graph where the bounds are tight.
+ *
+ * The tables can be saved next to the input and loaded by later runs, as long as the input hasn't changed.
+ * An index is immutable once created and can be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class LandmarkIndex {
+    private static final Logger log = LoggerFactory.getLogger(LandmarkIndex.class);
+
+    public static final int VERSION = 1;
+    public static final String FILE_EXTENSION = ".alt";
+
+    // "SPALT" followed by three zero bytes, read as a little endian long
+    private static final long MAGIC = 0x0000_0054_4c41_5053L;
+    private static final int HEADER_SIZE = 48;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final CsrGraph graph;
+    private final int[] landmarks;
+    // fromLandmarks[i][v] is the distance from the i-th landmark to v and toLandmarks[i][v] the one from v to it
+    private final double[][] fromLandmarks;
+    private final double[][] toLandmarks;
+
+    private LandmarkIndex(CsrGraph graph, int[] landmarks, double[][] fromLandmarks, double[][] toLandmarks) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmarks = fromLandmarks;
+        this.toLandmarks = toLandmarks;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    public int getLandmark(int index) {
+        return landmarks[index];
+    }
+
+    /**
+     * @return a query on this index owned by the calling thread
+     */
+    public LandmarkAStar newQuery() {
+        return new LandmarkAStar(this);
+    }
+
+    /**
+     * @return the lower bound the i-th landmark gives for the distance from the vertex to the target,
+     * {@link Double#POSITIVE_INFINITY} if the landmark proves the target cannot be reached from the vertex
+     */
+    double lowerBound(int landmark, int vertex, int target) {
+        double[] from = fromLandmarks[landmark];
+        double[] to = toLandmarks[landmark];
+        double bound = 0d;
+        // L reaches the vertex but not the target, so the vertex can't reach the target either
+        if (from[target] == Double.POSITIVE_INFINITY) {
+            if (from[vertex] != Double.POSITIVE_INFINITY) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else if (from[vertex] != Double.POSITIVE_INFINITY) {
+            bound = from[target] - from[vertex];
+        }
+        // the target reaches L but the vertex doesn't, so the vertex can't reach the target
+        if (to[vertex] == Double.POSITIVE_INFINITY) {
+            if (to[target] != Double.POSITIVE_INFINITY) {
+                return Double.POSITIVE_INFINITY;
+            }
+        } else if (to[target] != Double.POSITIVE_INFINITY) {
+            bound = Math.max(bound, to[vertex] - to[target]);
+        }
+        return bound;
+    }
+
+    /**
+     * Picks the landmarks and computes their distance tables
+     *
+     * @param count the number of landmarks, at most the number of vertices are used
+     */
+    public static LandmarkIndex create(CsrGraph graph, int count) {
+        if (count < 1) {
+            throw new ApplicationException("The number of landmarks must be a positive number but was " + count);
+        }
+        long start = System.currentTimeMillis();
+        int vertexCount = graph.getVertexCount();
+        count = Math.min(count, vertexCount);
+        if (count == 0) {
+            return new LandmarkIndex(graph, new int[0], new double[0][], new double[0][]);
+        }
+        ShortestPathAlgorithm forward = ShortestPathAlgorithm.forGraph(graph);
+        ShortestPathAlgorithm backward = ShortestPathAlgorithm.forGraph(graph.getReverse());
+
+        int[] landmarks = new int[count];
+        double[][] fromLandmarks = new double[count][];
+        double[][] toLandmarks = new double[count][];
+        // the smallest distance between every vertex and the landmarks picked so far, in any direction
+        double[] closest = new double[vertexCount];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+
+        boolean[] picked = new boolean[vertexCount];
+
+        for (int i = 0; i < count; i++) {
+            int next = nextLandmark(graph, forward, closest, picked);
+            landmarks[i] = next;
+            picked[next] = true;
+            fromLandmarks[i] = forward.getPaths(next).getDistances();
+            toLandmarks[i] = backward.getPaths(next).getDistances();
+            for (int v = 0; v < vertexCount; v++) {
+                closest[v] = Math.min(closest[v], Math.min(fromLandmarks[i][v], toLandmarks[i][v]));
+            }
+        }
+        log.info(String.format("Picked %d landmarks in %s", count, Util.longDuration(start)));
+        return new LandmarkIndex(graph, landmarks, fromLandmarks, toLandmarks);
+    }
+
+    /**
+     * Picks the vertex farthest from the landmarks picked so far. Once every vertex connected to them is covered,
+     * the next landmark is the vertex farthest from the first vertex with edges that none of them is connected to,
+     * so that every component with edges gets landmarks before vertices without any.
+     *
+     * @param closest the smallest distance of every vertex to the landmarks, infinite for the ones not connected to any
+     */
+    private static int nextLandmark(CsrGraph graph, ShortestPathAlgorithm forward, double[] closest, boolean[] picked) {
+        int farthest = farthest(closest, null);
+        if (farthest >= 0) {
+            return farthest;
+        }
+        for (int v = 0; v < closest.length; v++) {
+            if (closest[v] == Double.POSITIVE_INFINITY && graph.getEndEdge(v) > graph.getFirstEdge(v)) {
+                farthest = farthest(forward.getPaths(v).getDistances(), closest);
+                if (farthest >= 0) {
+                    return farthest;
+                }
+            }
+        }
+        // only vertices without edges or at distance zero from a landmark are left
+        for (int v = 0; v < closest.length; v++) {
+            if (!picked[v]) {
+                return v;
+            }
+        }
+        throw new IllegalStateException("There are more landmarks than vertices");
+    }
+
+    /**
+     * @param covered the distances to the landmarks when the candidates are limited to the vertices none of them
+     *                is connected to, or null for all the vertices
+     * @return the lowest id with the largest finite distance above zero or -1 if there's none
+     */
+    private static int farthest(double[] distances, double[] covered) {
+        int farthest = -1;
+        double max = 0d;
+        for (int v = 0; v < distances.length; v++) {
+            double distance = distances[v];
+            if (distance > max && distance != Double.POSITIVE_INFINITY
+                    && (covered == null || covered[v] == Double.POSITIVE_INFINITY)) {
+                max = distance;
+                farthest = v;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Loads the index saved next to the input if it was created for the current version of the input with
+     * the same number of landmarks, otherwise creates it and saves it for later runs
+     *
+     * @param inputFileName the file the graph was parsed from; the index is kept in the same file name
+     *                      followed by {@link #FILE_EXTENSION}
+     */
+    public static LandmarkIndex loadOrCreate(CsrGraph graph, int count, String inputFileName) {
+        Path input = Paths.get(inputFileName);
+        Path file = Paths.get(inputFileName + FILE_EXTENSION);
+        long size;
+        long lastModified;
+        try {
+            size = Files.size(input);
+            lastModified = Files.getLastModifiedTime(input).toMillis();
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot read the attributes of " + inputFileName);
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            LandmarkIndex index = load(file, graph, Math.min(count, graph.getVertexCount()), size, lastModified);
+            if (index != null) {
+                log.info(String.format("Loaded %d landmarks from %s in %s", index.getLandmarkCount(), file, Util.longDuration(start)));
+                return index;
+            }
+        } catch (IOException | ApplicationException e) {
+            log.warn("Ignoring landmarks {} that cannot be loaded: {}", file, e.getMessage());
+        }
+
+        LandmarkIndex index = create(graph, count);
+        try {
+            index.save(file, size, lastModified);
+            log.info("Saved {} landmarks to {}", index.getLandmarkCount(), file);
+        } catch (IOException e) {
+            log.warn("Cannot save landmarks {}: {}", file, e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Saves the landmarks and their distance tables, together with the size and the modification time of the input
+     */
+    void save(Path file, long inputSize, long inputLastModified) throws IOException {
+        Path temporary = Paths.get(file.toString() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(HEADER_SIZE);
+            for (int landmark : landmarks) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush(channel, buffer, crc);
+                }
+                buffer.putInt(landmark);
+            }
+            for (int i = 0; i < landmarks.length; i++) {
+                writeTable(channel, buffer, fromLandmarks[i], crc);
+                writeTable(channel, buffer, toLandmarks[i], crc);
+            }
+            flush(channel, buffer, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(landmarks.length)
+                    .putLong(inputSize)
+                    .putLong(inputLastModified)
+                    .putInt(graph.getVertexCount())
+                    .putInt(graph.getEdgeCount())
+                    .putLong(crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeTable(FileChannel channel, ByteBuffer buffer, double[] table, CRC32 crc) throws IOException {
+        int offset = 0;
+        while (offset < table.length) {
+            if (buffer.remaining() < Double.BYTES) {
+                flush(channel, buffer, crc);
+            }
+            int count = Math.min(table.length - offset, buffer.remaining() / Double.BYTES);
+            buffer.asDoubleBuffer().put(table, offset, count);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            offset += count;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return the index or null if there is no saved index, it's of another version or it's stale
+     * @throws ApplicationException if the saved index is corrupt
+     */
+    static LandmarkIndex load(Path file, CsrGraph graph, int count, long inputSize, long inputLastModified) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong() != MAGIC || header.getInt() != VERSION || header.getInt() != count
+                    || header.getLong() != inputSize || header.getLong() != inputLastModified
+                    || header.getInt() != graph.getVertexCount() || header.getInt() != graph.getEdgeCount()) {
+                return null;
+            }
+            long checksum = header.getLong();
+            int vertexCount = graph.getVertexCount();
+            long tableSize = (long) vertexCount * Double.BYTES;
+            if (channel.size() != HEADER_SIZE + (long) count * Integer.BYTES + 2L * count * tableSize) {
+                throw new ApplicationException(String.format("Landmarks %s are truncated", file));
+            }
+
+            CRC32 crc = new CRC32();
+            long position = HEADER_SIZE;
+            MappedByteBuffer ids = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Integer.BYTES);
+            crc.update(ids.duplicate());
+            int[] landmarks = new int[count];
+            ids.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(landmarks);
+            position += (long) count * Integer.BYTES;
+
+            double[][] fromLandmarks = new double[count][];
+            double[][] toLandmarks = new double[count][];
+            for (int i = 0; i < count; i++) {
+                fromLandmarks[i] = readTable(channel, position, vertexCount, crc);
+                position += tableSize;
+                toLandmarks[i] = readTable(channel, position, vertexCount, crc);
+                position += tableSize;
+            }
+            if (crc.getValue() != checksum) {
+                throw new ApplicationException(String.format("Landmarks %s are corrupt, their checksum doesn't match", file));
+            }
+            for (int landmark : landmarks) {
+                if (landmark < 0 || landmark >= vertexCount) {
+                    throw new ApplicationException(String.format("Landmarks %s are corrupt", file));
+                }
+            }
+            return new LandmarkIndex(graph, landmarks, fromLandmarks, toLandmarks);
+        }
+    }
+
+    private static double[] readTable(FileChannel channel, long position, int vertexCount, CRC32 crc) throws IOException {
+        MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) vertexCount * Double.BYTES);
+        crc.update(table.duplicate());
+        double[] distances = new double[vertexCount];
+        table.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(distances);
+        return distances;
+    }
+}
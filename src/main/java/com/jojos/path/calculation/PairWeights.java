@@ -0,0 +1,178 @@
+package com.jojos.path.calculation;
+
+import java.util.Arrays;
+
+/**
+ * The weights of all the edges between the same two vertices, as many as the lines of an input giving them,
+ * so that the lightest one is known again once a line is removed. Everything is stored in primitive arrays:
+ * an open addressing table of the pairs of vertices, with linear probing, where every pair heads a linked list
+ * of its weights. Most pairs have a single weight.
+ *
+ * @author karanikasg@gmail.com
+ */
+class PairWeights {
+
+    private static final int INITIAL_CAPACITY = 16;
+    // no pair of vertex ids is negative
+    private static final long EMPTY = -1L;
+
+    private long[] pairs;
+    // the first weight of every pair of the table, -1 for the empty slots
+    private int[] heads;
+    private int pairCount;
+    private double[] weights;
+    private int[] next;
+    private int weightCount;
+    // the weights removed so far, linked through next
+    private int free = -1;
+
+    PairWeights() {
+        pairs = new long[INITIAL_CAPACITY];
+        heads = new int[INITIAL_CAPACITY];
+        Arrays.fill(pairs, EMPTY);
+        weights = new double[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+    }
+
+    static long pair(int source, int target) {
+        return (long) source << 32 | target;
+    }
+
+    static int sourceOf(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    static int targetOf(long pair) {
+        return (int) pair;
+    }
+
+    void add(long pair, double weight) {
+        if ((pairCount + 1) * 4L > pairs.length * 3L) {
+            rehash(pairs.length * 2);
+        }
+        int slot = slot(pair);
+        if (pairs[slot] == EMPTY) {
+            pairs[slot] = pair;
+            heads[slot] = -1;
+            pairCount++;
+        }
+        int entry = newEntry();
+        weights[entry] = weight;
+        next[entry] = heads[slot];
+        heads[slot] = entry;
+    }
+
+    /**
+     * Removes one of the weights of the pair equal to the given one
+     *
+     * @return false if the pair had no such weight
+     */
+    boolean remove(long pair, double weight) {
+        int slot = slot(pair);
+        if (pairs[slot] == EMPTY) {
+            return false;
+        }
+        int previous = -1;
+        for (int entry = heads[slot]; entry >= 0; previous = entry, entry = next[entry]) {
+            if (weights[entry] == weight) {
+                if (previous < 0) {
+                    heads[slot] = next[entry];
+                } else {
+                    next[previous] = next[entry];
+                }
+                next[entry] = free;
+                free = entry;
+                if (heads[slot] < 0) {
+                    delete(slot);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the lightest weight of the pair or {@link Double#POSITIVE_INFINITY} if it has none
+     */
+    double min(long pair) {
+        int slot = slot(pair);
+        double min = Double.POSITIVE_INFINITY;
+        if (pairs[slot] != EMPTY) {
+            for (int entry = heads[slot]; entry >= 0; entry = next[entry]) {
+                min = Math.min(min, weights[entry]);
+            }
+        }
+        return min;
+    }
+
+    /**
+     * @return the number of pairs with at least one weight
+     */
+    int size() {
+        return pairCount;
+    }
+
+    /**
+     * @return the slot of the pair, or the empty slot where it would go
+     */
+    private int slot(long pair) {
+        int mask = pairs.length - 1;
+        int slot = hash(pair) & mask;
+        while (pairs[slot] != EMPTY && pairs[slot] != pair) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long pair) {
+        long h = pair * 0x9E37_79B9_7F4A_7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int newEntry() {
+        if (free >= 0) {
+            int entry = free;
+            free = next[entry];
+            return entry;
+        }
+        if (weightCount == weights.length) {
+            weights = Arrays.copyOf(weights, weightCount * 2);
+            next = Arrays.copyOf(next, weightCount * 2);
+        }
+        return weightCount++;
+    }
+
+    /**
+     * Empties the slot and moves back the pairs probed past it, so that no lookup stops at the hole
+     */
+    private void delete(int slot) {
+        int mask = pairs.length - 1;
+        int hole = slot;
+        for (int s = (slot + 1) & mask; pairs[s] != EMPTY; s = (s + 1) & mask) {
+            int home = hash(pairs[s]) & mask;
+            // the pair at s may fill the hole if its home isn't cyclically within (hole, s]
+            if (((s - home) & mask) >= ((s - hole) & mask)) {
+                pairs[hole] = pairs[s];
+                heads[hole] = heads[s];
+                hole = s;
+            }
+        }
+        pairs[hole] = EMPTY;
+        pairCount--;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldPairs = pairs;
+        int[] oldHeads = heads;
+        pairs = new long[capacity];
+        heads = new int[capacity];
+        Arrays.fill(pairs, EMPTY);
+        for (int s = 0; s < oldPairs.length; s++) {
+            if (oldPairs[s] != EMPTY) {
+                int slot = slot(oldPairs[s]);
+                pairs[slot] = oldPairs[s];
+                heads[slot] = oldHeads[s];
+            }
+        }
+    }
+}
@@ -1,30 +1,39 @@
 package com.jojos.path.calculation;
 
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import com.jojos.path.graph.GraphSnapshot;
+import com.jojos.path.graph.OffHeapGraph;
 import com.jojos.path.input.AssertionElement;
 import com.jojos.path.input.Assertions;
-import com.jojos.path.input.InputElement;
-import com.jojos.path.input.InputLine;
-import com.jojos.path.input.InputLinesHandler;
-import com.jojos.path.input.InputLinesIterator;
+import com.jojos.path.input.InputRecordHandler;
+import com.jojos.path.input.InputTokenizer;
 import com.jojos.path.input.ParsedObject;
-import org.jgrapht.DirectedGraph;
-import org.jgrapht.WeightedGraph;
-import org.jgrapht.graph.ClassBasedEdgeFactory;
-import org.jgrapht.graph.DefaultWeightedEdge;
-import org.jgrapht.graph.DirectedWeightedPseudograph;
+import com.jojos.path.metrics.FlightRecorderEvents;
+import com.jojos.path.metrics.GraphBuildEvent;
+import com.jojos.path.metrics.Metrics;
+import com.jojos.path.metrics.ParseChunkEvent;
+import com.jojos.path.metrics.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import static com.jojos.path.input.AssertionElement.ASSERTION_PREFIX;
 
 /**
  * This class is responsible to parse the file(s) of the friend's network
@@ -45,12 +54,29 @@ import static com.jojos.path.input.AssertionElement.ASSERTION_PREFIX;
  * to Peter @ `123 HARD` and to John @ `55 HARD`. In addition, Lisa shipment to John is `3 HARD`
  * and Diana can ship to Peter @ `11 HARD`. You cannot ship to Diana.
  *
+ * The file is memory mapped and read in a single pass by an {@link InputTokenizer} that hands the edges
+ * and the assertions straight to the graph builder. Large files are parsed in chunks on several threads.
+ * When a snapshot file is given the parsed graph is saved in a {@link GraphSnapshot} and later runs load
+ * the snapshot instead of parsing the file again, for as long as the file doesn't change. A graph off the heap
+ * is built, or loaded from the snapshot, straight into memory off the heap without a copy of it on the heap.
+ *
  * @author karanikasg@gmail.com
  */
 public class ParseJob {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    // the largest part of the file mapped at once, always cut at a line boundary
+    static final long MAPPING_WINDOW = 256L * 1024 * 1024;
+    // files are cut in chunks for parallel parsing only when they are at least twice this size
+    static final long MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+    // more chunks than threads keep all the threads busy even if some chunks take longer than others
+    private static final int CHUNKS_PER_THREAD = 4;
 
     private final String fileName;
-    private final DirectedGraph<String, RelationshipEdge> graph;
+    private final int parallelism;
+    private final String snapshotFileName;
+    private final boolean offHeap;
+    private final CsrGraphBuilder graphBuilder;
 
     /**
      * The constructor of this class
@@ -58,99 +84,351 @@ public class ParseJob {
      *                 Assertions must also be included in this file.
      */
     public ParseJob(String fileName) {
+        this(fileName, 1);
+    }
+
+    /**
+     * @param fileName    the name of the file that the graph shall get loaded from.
+     *                    Assertions must also be included in this file.
+     * @param parallelism the number of threads parsing different chunks of large files at the same time
+     */
+    public ParseJob(String fileName, int parallelism) {
+        this(fileName, parallelism, null);
+    }
+
+    /**
+     * @param fileName         the name of the file that the graph shall get loaded from.
+     *                         Assertions must also be included in this file.
+     * @param parallelism      the number of threads parsing different chunks of large files at the same time
+     * @param snapshotFileName the snapshot the graph is loaded from if it's current or saved to otherwise,
+     *                         null to always parse the file
+     */
+    public ParseJob(String fileName, int parallelism, String snapshotFileName) {
+        this(fileName, parallelism, snapshotFileName, false);
+    }
+
+    /**
+     * @param fileName         the name of the file that the graph shall get loaded from.
+     *                         Assertions must also be included in this file.
+     * @param parallelism      the number of threads parsing different chunks of large files at the same time
+     * @param snapshotFileName the snapshot the graph is loaded from if it's current or saved to otherwise,
+     *                         null to always parse the file
+     * @param offHeap          whether the graph is kept off the heap, see {@link ParsedObject#getOffHeapGraph()}
+     */
+    public ParseJob(String fileName, int parallelism, String snapshotFileName, boolean offHeap) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
         this.fileName = fileName;
-        this.graph = new DirectedWeightedPseudograph<>(new ClassBasedEdgeFactory<>(RelationshipEdge.class));
+        this.parallelism = parallelism;
+        this.snapshotFileName = snapshotFileName;
+        this.offHeap = offHeap;
+        this.graphBuilder = new CsrGraphBuilder();
     }
 
     /**
-     * After parsing is done we'll have a complete weighted {@link DirectedGraph} constructed
+     * After parsing is done we'll have a complete weighted {@link CsrGraph} constructed
      * together with a potential assertions object
      */
     public ParsedObject runAndCreateGraph(RunMode runMode) {
-        List<String[]> lines;
-
-        try (Stream<String> stream = Files.lines(Paths.get(fileName))) {
-            lines = stream.filter(line -> (Objects.nonNull(line) && !line.trim().isEmpty() && !line.startsWith(ASSERTION_PREFIX))).
-                    map(line -> line.split("\\s*,\\s*")).
-                    filter(strings -> ((Objects.nonNull(strings)) && (strings.length > 1))).
-                    collect(Collectors.toList());
-
-            List<InputLine> inputLines = new ArrayList<>();
-            for (String[] line : lines) {
-                List<InputElement> inputElements = new ArrayList<>();
-                for (String element : line) {
-                    InputElement inputElement = new InputElement(element);
-                    inputElements.add(inputElement);
+        if (snapshotFileName != null) {
+            return loadOrSaveSnapshot(runMode);
+        }
+        return runAndCreateGraph(runMode, MAPPING_WINDOW, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Loads the snapshot if it was saved for the current version of the file, otherwise parses the file
+     * and saves the snapshot for the next run
+     */
+    private ParsedObject loadOrSaveSnapshot(RunMode runMode) {
+        Path input = Paths.get(fileName);
+        Path snapshotFile = Paths.get(snapshotFileName);
+        long size;
+        long lastModified;
+        try {
+            size = Files.size(input);
+            lastModified = Files.getLastModifiedTime(input).toMillis();
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot read the attributes of " + fileName);
+        }
+
+        long start = System.currentTimeMillis();
+        GraphSnapshot snapshot = null;
+        try {
+            snapshot = GraphSnapshot.readIfCurrent(snapshotFile, size, lastModified, runMode == RunMode.WITH_ASSERTIONS, offHeap);
+        } catch (IOException | ApplicationException e) {
+            log.warn("Ignoring snapshot {} that cannot be loaded: {}", snapshotFileName, e.getMessage());
+        }
+        if (snapshot != null) {
+            log.info(String.format("Loaded %s from snapshot %s in %s", snapshot.getGraph(), snapshotFileName, Util.longDuration(start)));
+            Assertions assertions = runMode == RunMode.WITH_ASSERTIONS
+                    ? new Assertions(snapshot.getAssertions().stream().map(AssertionElement::new).collect(Collectors.toList()))
+                    : null;
+            return new ParsedObject(snapshot.getGraph(), assertions, snapshot.getOffHeapGraph());
+        }
+
+        log.info("Snapshot {} is missing or stale, parsing {}", snapshotFileName, fileName);
+        ParsedObject parsedObject = runAndCreateGraph(runMode, MAPPING_WINDOW, MIN_CHUNK_SIZE);
+        start = System.currentTimeMillis();
+        List<List<String>> statements = null;
+        Assertions assertions = parsedObject.getAssertions();
+        if (assertions != null) {
+            statements = new ArrayList<>(assertions.size());
+            for (int i = 0; i < assertions.size(); i++) {
+                statements.add(assertions.getStatement(i));
+            }
+        }
+        try {
+            GraphSnapshot.write(snapshotFile, parsedObject.getGraph(), statements, size, lastModified);
+            log.info(String.format("Saved snapshot %s in %s", snapshotFileName, Util.longDuration(start)));
+        } catch (IOException e) {
+            log.warn("Cannot save snapshot {}: {}", snapshotFileName, e.getMessage());
+        }
+        return parsedObject;
+    }
+
+    ParsedObject runAndCreateGraph(RunMode runMode, long mappingWindow) {
+        return runAndCreateGraph(runMode, mappingWindow, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Files smaller than two chunks are parsed by the calling thread straight into the graph builder.
+     * Larger files are cut into chunks at line boundaries, every chunk is parsed on its own thread into
+     * a builder of its own and the builders are appended to the graph builder in the order of the chunks,
+     * so the vertex ids are always the same as the ones of a single threaded run.
+     */
+    ParsedObject runAndCreateGraph(RunMode runMode, long mappingWindow, long minChunkSize) {
+        List<AssertionElement> assertionElements = new ArrayList<>();
+        long lines = 0;
+
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.min(mappingWindow,
+                    Math.max(minChunkSize, (size + parallelism * CHUNKS_PER_THREAD - 1) / (parallelism * CHUNKS_PER_THREAD)));
+            if (parallelism == 1 || size < 2 * chunkSize) {
+                ParseChunkEvent event = FlightRecorderEvents.AVAILABLE ? new ParseChunkEvent() : null;
+                if (event != null) {
+                    event.begin();
+                }
+                InputTokenizer tokenizer = newTokenizer(graphBuilder, assertionElements, runMode);
+                parseRange(channel, 0, size, mappingWindow, tokenizer);
+                tokenizer.finish();
+                lines = tokenizer.getLineCount();
+                if (event != null) {
+                    event.commit(fileName, 0, 0, size, lines);
                 }
-                inputLines.add(new InputLine(inputElements));
+            } else {
+                lines = parseChunks(channel, chunkBoundaries(channel, size, chunkSize), mappingWindow, runMode, assertionElements);
             }
-            InputLinesIterator linesIterator = new InputLinesIterator(inputLines);
-
-            linesIterator.forEach(new InputLinesHandler() {
-                @Override
-                public void handle(InputLine inputLine) {
-                    String source = inputLine.getSource().getName();
-                    graph.addVertex(source);
-                    Set<InputElement> targets = inputLine.getTargets();
-                    targets.forEach(target -> {
-                        graph.addVertex(target.getName());
-                        graph.addEdge(source, target.getName(), new RelationshipEdge<>(source, target.getName(), target.getWeight().getValue()));
-                    });
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot read %s: %s", fileName, e.getMessage()));
+        }
+
+        String time = Util.longDuration(start);
+        log.info(String.format("Processed all %d lines in %s", lines, time));
+
+        Assertions assertions = runMode == RunMode.WITH_ASSERTIONS ? new Assertions(assertionElements) : null;
+        GraphBuildEvent event = FlightRecorderEvents.AVAILABLE ? new GraphBuildEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long buildStart = Metrics.startNanos();
+        long allocated = Metrics.allocatedBytes();
+        OffHeapGraph offHeapGraph = offHeap ? graphBuilder.buildOffHeap() : null;
+        CsrGraph graph = offHeap ? offHeapGraph.getGraph() : graphBuilder.build();
+        Metrics.record(Phase.GRAPH_BUILD, buildStart, allocated);
+        if (event != null) {
+            event.commit(fileName, lines, graph.getVertexCount(), graph.getEdgeCount());
+        }
+        return new ParsedObject(graph, assertions, offHeapGraph);
+    }
+
+    private long parseChunks(FileChannel channel,
+                             long[] boundaries,
+                             long mappingWindow,
+                             RunMode runMode,
+                             List<AssertionElement> assertionElements) throws IOException {
+        int chunks = boundaries.length - 1;
+        log.info("Parsing {} in {} chunks with parallelism {}", fileName, chunks, parallelism);
+
+        List<Callable<Chunk>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            // the chunks are numbered from 1, 0 is the whole file
+            int number = i + 1;
+            long from = boundaries[i];
+            long to = boundaries[i + 1];
+            tasks.add(() -> {
+                ParseChunkEvent event = FlightRecorderEvents.AVAILABLE ? new ParseChunkEvent() : null;
+                if (event != null) {
+                    event.begin();
                 }
+                Chunk chunk = new Chunk();
+                InputTokenizer tokenizer = newTokenizer(chunk.graphBuilder, chunk.assertionElements, runMode);
+                parseRange(channel, from, to, mappingWindow, tokenizer);
+                try {
+                    tokenizer.finish();
+                } catch (ApplicationException e) {
+                    chunk.assertionError = e;
+                }
+                chunk.lines = tokenizer.getLineCount();
+                if (event != null) {
+                    event.commit(fileName, number, from, to - from, chunk.lines);
+                }
+                return chunk;
             });
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        Assertions assertions = null;
-        if (runMode == RunMode.WITH_ASSERTIONS) {
-            try (Stream<String> stream = Files.lines(Paths.get(fileName))) {
-                List<AssertionElement> assertionLines = stream.filter(line -> Objects.nonNull(line) && !line.trim().isEmpty()).
-                        filter(line -> line.startsWith(ASSERTION_PREFIX)).
-                        map(line -> Arrays.asList(line.split("\\s*,\\s*"))).
-                        filter(strings -> Objects.nonNull(strings) && strings.size() == 4).
-                        map(strings -> strings.subList(1, strings.size())).
-                        map(AssertionElement::new).
-                        collect(Collectors.toList());
-                assertions = new Assertions(assertionLines);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        }
 
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<Future<Chunk>> futures;
+        try {
+            futures = pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
         }
 
-        return new ParsedObject(graph, assertions);
+        List<Chunk> results = new ArrayList<>(chunks);
+        for (Future<Chunk> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ApplicationException("Interrupted while parsing " + fileName);
+            } catch (ExecutionException e) {
+                // the first error of the file wins, exactly like in a single threaded run
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new ApplicationException("Parsing " + fileName + " failed: " + cause);
+            }
+        }
+
+        long lines = 0;
+        for (Chunk chunk : results) {
+            if (chunk.assertionError != null) {
+                throw chunk.assertionError;
+            }
+        }
+        long start = Metrics.startNanos();
+        long allocated = Metrics.allocatedBytes();
+        for (Chunk chunk : results) {
+            graphBuilder.addAll(chunk.graphBuilder);
+            assertionElements.addAll(chunk.assertionElements);
+            lines += chunk.lines;
+        }
+        Metrics.record(Phase.GRAPH_BUILD, start, allocated);
+        return lines;
     }
 
     /**
-     * A custom implementation for edges in a {@link WeightedGraph}
-     * @param <V>
+     * Maps the range [from, to) in windows of at most mappingWindow bytes, each one cut at a line boundary,
+     * and tokenizes them one after the other
      */
-    public static class RelationshipEdge<V> extends DefaultWeightedEdge {
-        private final V v1;
-        private final V v2;
-        private final double weight;
+    private void parseRange(FileChannel channel, long from, long to, long mappingWindow, InputTokenizer tokenizer) throws IOException {
+        long position = from;
+        while (position < to) {
+            long length = Math.min(to - position, mappingWindow);
+            long start = Metrics.startNanos();
+            long allocated = Metrics.allocatedBytes();
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            if (position + length < to) {
+                length = lastLineEnd(window);
+                window.limit((int) length);
+            }
+            Metrics.record(Phase.READ, start, allocated);
 
-        public RelationshipEdge(V v1, V v2, double weight) {
-            this.v1 = v1;
-            this.v2 = v2;
-            this.weight = weight;
+            start = Metrics.startNanos();
+            allocated = Metrics.allocatedBytes();
+            tokenizer.tokenize(window);
+            Metrics.record(Phase.TOKENIZE, start, allocated);
+            position += length;
         }
+    }
 
-        @SuppressWarnings("unused")
-        public V getV1() {
-            return v1;
+    /**
+     * Cuts the file roughly every chunkSize bytes, right after the next line terminator
+     *
+     * @return the offsets where the chunks start followed by the size of the file
+     */
+    private long[] chunkBoundaries(FileChannel channel, long size, long chunkSize) throws IOException {
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long next = chunkSize;
+        while (next < size) {
+            long boundary = nextLineStart(channel, next, size, buffer);
+            if (boundary >= size) {
+                break;
+            }
+            boundaries.add(boundary);
+            next = boundary + chunkSize;
         }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
 
-        @SuppressWarnings("unused")
-        public V getV2() {
-            return v2;
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer buffer) throws IOException {
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
         }
+        return size;
+    }
+
+    private static InputTokenizer newTokenizer(CsrGraphBuilder builder, List<AssertionElement> assertionElements, RunMode runMode) {
+        return new InputTokenizer(new InputRecordHandler() {
+            @Override
+            public int vertex(byte[] bytes, int offset, int length) {
+                return builder.addVertex(bytes, offset, length);
+            }
+
+            @Override
+            public void edge(int source, int target, long weight) {
+                builder.addEdge(source, target, weight);
+            }
 
-        @Override
-        public double getWeight() {
-            return weight;
+            @Override
+            public void assertion(AssertionElement assertionElement) {
+                assertionElements.add(assertionElement);
+            }
+        }, runMode == RunMode.WITH_ASSERTIONS);
+    }
+
+    /**
+     * @return the number of bytes of the window up to and including its last line terminator
+     */
+    private long lastLineEnd(MappedByteBuffer window) {
+        for (int i = window.limit() - 1; i >= 0; i--) {
+            byte b = window.get(i);
+            if (b == '\n' || b == '\r') {
+                return i + 1;
+            }
         }
+        throw new ApplicationException(String.format("%s contains a line longer than %d bytes", fileName, window.limit()));
+    }
+
+    /**
+     * The outcome of parsing a single chunk of the file with vertex ids local to the chunk
+     */
+    private static class Chunk {
+        private final CsrGraphBuilder graphBuilder = new CsrGraphBuilder();
+        private final List<AssertionElement> assertionElements = new ArrayList<>();
+        private ApplicationException assertionError;
+        private long lines;
     }
 
     /**
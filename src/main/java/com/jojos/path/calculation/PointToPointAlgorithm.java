@@ -0,0 +1,24 @@
+package com.jojos.path.calculation;
+
+/**
+ * An algorithm that finds the shortest path between a single source and a single target
+ * without computing the paths to the rest of the graph.
+ *
+ * Implementations keep their working arrays between queries, so an instance must not be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public interface PointToPointAlgorithm {
+
+    /**
+     * @param source the id of the source vertex
+     * @param target the id of the target vertex, ids outside the graph have no path
+     * @return the shortest path from the source to the target
+     */
+    ShortestPath getPath(int source, int target);
+
+    /**
+     * @return the number of vertices settled by all the queries of this instance so far
+     */
+    long getSettledCount();
+}
@@ -0,0 +1,312 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.output.OutputBuffer;
+import com.jojos.path.output.PathOutputWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Answers a file of single source and target queries against a graph parsed once, writing an answer line
+ * for every query in the order of the queries.
+ *
+ * Every line of the queries file is a query of the form
+ * <pre>
+ * SOURCE,TARGET
+ * SOURCE,TARGET,WidthxLengthxHeightxWeight
+ * </pre>
+ * answered by a line that starts with the query itself, {@code SOURCE,TARGET: }, followed by the path in the format
+ * of the output file, by {@code NO PATH} when the target can't be reached or by {@code ERROR} and the reason when
+ * the query is invalid. The source and the target of an invalid query are unknown, so the line starts with the query
+ * as it was written. Every line of the file, blank ones included, gets exactly one answer, so the answers can be
+ * matched to the queries by their position as well. A query from a vertex to itself is answered with the path of
+ * the vertex alone and a weight of 0. Queries without dimensions of their own get the shipping cost of the
+ * dimensions of the job, or the weight of the path if the job has none either.
+ *
+ * The queries are read in windows. The queries of a window are grouped by source so that the shortest path tree
+ * of every source is searched once, no matter how many of its targets are asked for, and the groups are spread
+ * over a fork/join pool. When a window is answered its lines are written in the order of the queries, so the memory
+ * used doesn't grow with the number of queries. With a tree cache the trees of sources repeated in later windows
+ * are searched once as well.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class QueryBatchJob {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final int QUERIES_PER_WINDOW = 1 << 16;
+    // how many chunks of sources each thread gets on average, every one formatting its lines into a buffer of its own
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final String NO_PATH = "NO PATH";
+    private static final String ERROR = "ERROR ";
+    private static final String ANSWER_SEPARATOR = ": ";
+
+    private final CsrGraph graph;
+    private final String queriesFileName;
+    private final String outputFileName;
+    private final DimensionsWeight dimensionsWeight;
+    private final int parallelism;
+    // keeps the trees of the sources between windows when present
+    private ShortestPathTreeCache treeCache;
+
+    /**
+     * @param graph            the graph created on a previous step
+     * @param queriesFileName  the file of the queries
+     * @param outputFileName   the file the answers are written to
+     * @param dimensionsWeight the package of the queries without dimensions of their own or null for plain weights
+     * @param parallelism      the number of threads searching the trees of different sources at the same time
+     */
+    public QueryBatchJob(CsrGraph graph,
+                         String queriesFileName,
+                         String outputFileName,
+                         DimensionsWeight dimensionsWeight,
+                         int parallelism) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
+        this.graph = graph;
+        this.queriesFileName = queriesFileName;
+        this.outputFileName = outputFileName;
+        this.dimensionsWeight = dimensionsWeight;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Takes the shortest path trees of the sources from the cache, so that a source repeated in a later window
+     * isn't searched again
+     *
+     * @param treeCache the cache of the trees of the graph of this job
+     * @return this job
+     */
+    public QueryBatchJob withTreeCache(ShortestPathTreeCache treeCache) {
+        if (treeCache.getGraph() != graph) {
+            throw new ApplicationException("The tree cache doesn't belong to the graph of the job");
+        }
+        this.treeCache = treeCache;
+        return this;
+    }
+
+    public void run() {
+        long start = System.currentTimeMillis();
+        Window window = new Window();
+        ThreadLocal<ShortestPathAlgorithm> algorithmPerThread = ThreadLocal.withInitial(
+                () -> treeCache != null ? treeCache : ShortestPathAlgorithm.forGraph(graph));
+        // a path never contains more vertices than the graph
+        ThreadLocal<int[]> pathPerThread = ThreadLocal.withInitial(() -> new int[graph.getVertexCount()]);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long queries = 0;
+        long searches = 0;
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(queriesFileName), StandardCharsets.UTF_8);
+             PathOutputWriter writer = new PathOutputWriter(outputFileName)) {
+            while (window.read(reader)) {
+                int groups = window.group();
+                int chunks = Math.min(groups, parallelism * CHUNKS_PER_THREAD);
+                window.ensureChunkBuffers(chunks);
+                pool.invoke(new ChunksTask(window, 0, chunks, chunks, algorithmPerThread, pathPerThread));
+                window.write(writer);
+                queries += window.size;
+                searches += groups;
+            }
+            writer.flush();
+            log.info("Answered {} queries with {} searches and wrote them to {} ({} bytes) in {}",
+                    queries, searches, outputFileName, writer.getBytesWritten(), Util.longDuration(start));
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot read the queries of %s: %s", queriesFileName, e.getMessage()));
+        } finally {
+            pool.shutdown();
+        }
+        if (treeCache != null) {
+            log.info("Tree cache: {}", treeCache);
+        }
+    }
+
+    /**
+     * The queries of a window together with the buffers their answers are formatted into, reused for every window
+     */
+    private class Window {
+        private final int[] sources = new int[QUERIES_PER_WINDOW];
+        private final int[] targets = new int[QUERIES_PER_WINDOW];
+        private final DimensionsWeight[] dimensions = new DimensionsWeight[QUERIES_PER_WINDOW];
+        // the reason of every invalid query, null for the valid ones
+        private final String[] errors = new String[QUERIES_PER_WINDOW];
+        // the text of every invalid query, null for the valid ones
+        private final String[] invalidQueries = new String[QUERIES_PER_WINDOW];
+        // the source in the high and the query in the low half, sorted to group the queries by source
+        private final long[] order = new long[QUERIES_PER_WINDOW];
+        // the first entry of order of every group, followed by the end of the last group
+        private final int[] groupStarts = new int[QUERIES_PER_WINDOW + 1];
+        // where the answer of every query was formatted
+        private final int[] lineChunks = new int[QUERIES_PER_WINDOW];
+        private final int[] lineStarts = new int[QUERIES_PER_WINDOW];
+        private final int[] lineEnds = new int[QUERIES_PER_WINDOW];
+        private OutputBuffer[] chunkBuffers = new OutputBuffer[0];
+        private int size;
+        private int groups;
+
+        /**
+         * @return false if there were no more queries to read
+         */
+        private boolean read(BufferedReader reader) throws IOException {
+            size = 0;
+            String line;
+            while (size < QUERIES_PER_WINDOW && (line = reader.readLine()) != null) {
+                parse(line.trim(), size++);
+            }
+            return size > 0;
+        }
+
+        private void parse(String line, int query) {
+            sources[query] = -1;
+            targets[query] = -1;
+            dimensions[query] = dimensionsWeight;
+            errors[query] = null;
+            invalidQueries[query] = line;
+            String[] fields = line.split(",");
+            if (fields.length < 2 || fields.length > 3) {
+                errors[query] = "expected SOURCE,TARGET or SOURCE,TARGET,WidthxLengthxHeightxWeight";
+                return;
+            }
+            String sourceName = fields[0].trim();
+            String targetName = fields[1].trim();
+            int source = graph.getVertexId(sourceName);
+            int target = graph.getVertexId(targetName);
+            if (source < 0 || target < 0) {
+                errors[query] = "unknown " + (source < 0 ? sourceName : targetName);
+                return;
+            }
+            if (fields.length == 3) {
+                try {
+                    dimensions[query] = Computations.parseDimensions(fields[2]);
+                } catch (ApplicationException e) {
+                    errors[query] = e.getMessage();
+                    return;
+                }
+            }
+            sources[query] = source;
+            targets[query] = target;
+            invalidQueries[query] = null;
+        }
+
+        /**
+         * Sorts the valid queries by source, the invalid ones forming a group of their own at the start
+         *
+         * @return the number of groups
+         */
+        private int group() {
+            for (int query = 0; query < size; query++) {
+                order[query] = (long) sources[query] << 32 | query;
+            }
+            Arrays.sort(order, 0, size);
+            groups = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || (int) (order[i] >> 32) != (int) (order[i - 1] >> 32)) {
+                    groupStarts[groups++] = i;
+                }
+            }
+            groupStarts[groups] = size;
+            return groups;
+        }
+
+        /**
+         * Formats the answers of a range of groups into the buffer of the chunk
+         *
+         * @param algorithm the algorithm instance owned by the calling thread
+         */
+        private void answer(ShortestPathAlgorithm algorithm, int chunk, int fromGroup, int toGroup, int[] path) {
+            OutputBuffer buffer = chunkBuffers[chunk];
+            buffer.reset();
+            for (int group = fromGroup; group < toGroup; group++) {
+                int source = (int) (order[groupStarts[group]] >> 32);
+                ShortestPathTree tree = source < 0 ? null : algorithm.getPaths(source);
+                for (int i = groupStarts[group]; i < groupStarts[group + 1]; i++) {
+                    int query = (int) order[i];
+                    lineChunks[query] = chunk;
+                    lineStarts[query] = buffer.size();
+                    if (tree == null) {
+                        buffer.appendUtf8(invalidQueries[query]).appendAscii(ANSWER_SEPARATOR)
+                                .appendAscii(ERROR).appendUtf8(errors[query]).appendLineSeparator();
+                    } else if (!tree.hasPath(targets[query])) {
+                        appendQuery(buffer, source, targets[query]);
+                        buffer.appendAscii(NO_PATH).appendLineSeparator();
+                    } else {
+                        appendQuery(buffer, source, targets[query]);
+                        int length = tree.copyPath(targets[query], path);
+                        ShortestPathJob.appendLine(buffer, path, length, tree.getWeight(targets[query]),
+                                dimensions[query], graph.getVertexDictionary());
+                    }
+                    lineEnds[query] = buffer.size();
+                }
+            }
+        }
+
+        private void appendQuery(OutputBuffer buffer, int source, int target) {
+            buffer.appendName(source, graph.getVertexDictionary()).append((byte) ',')
+                    .appendName(target, graph.getVertexDictionary()).appendAscii(ANSWER_SEPARATOR);
+        }
+
+        private void ensureChunkBuffers(int chunks) {
+            if (chunkBuffers.length < chunks) {
+                int previous = chunkBuffers.length;
+                chunkBuffers = Arrays.copyOf(chunkBuffers, chunks);
+                for (int chunk = previous; chunk < chunks; chunk++) {
+                    chunkBuffers[chunk] = new OutputBuffer();
+                }
+            }
+        }
+
+        private void write(PathOutputWriter writer) {
+            for (int query = 0; query < size; query++) {
+                writer.write(chunkBuffers[lineChunks[query]].array(), lineStarts[query], lineEnds[query] - lineStarts[query]);
+            }
+        }
+    }
+
+    /**
+     * Splits a range of chunks in halves until every task holds a single chunk, a consecutive range of the groups
+     * of the window, so that idle threads of the pool steal the remaining chunks from the busy ones
+     */
+    private class ChunksTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Window window;
+        private final int from;
+        private final int to;
+        private final int chunks;
+        private final ThreadLocal<ShortestPathAlgorithm> algorithmPerThread;
+        private final ThreadLocal<int[]> pathPerThread;
+
+        private ChunksTask(Window window, int from, int to, int chunks,
+                           ThreadLocal<ShortestPathAlgorithm> algorithmPerThread, ThreadLocal<int[]> pathPerThread) {
+            this.window = window;
+            this.from = from;
+            this.to = to;
+            this.chunks = chunks;
+            this.algorithmPerThread = algorithmPerThread;
+            this.pathPerThread = pathPerThread;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                int fromGroup = (int) ((long) window.groups * from / chunks);
+                int toGroup = (int) ((long) window.groups * to / chunks);
+                window.answer(algorithmPerThread.get(), from, fromGroup, toGroup, pathPerThread.get());
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunksTask(window, from, middle, chunks, algorithmPerThread, pathPerThread),
+                        new ChunksTask(window, middle, to, chunks, algorithmPerThread, pathPerThread));
+            }
+        }
+    }
+}
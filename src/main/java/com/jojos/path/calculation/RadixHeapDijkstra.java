@@ -0,0 +1,113 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm on a radix heap, for graphs whose weights are non negative whole numbers too large
+ * for the buckets of {@link DialDijkstra}.
+ *
+ * A radix heap relies on the keys taken out of a Dijkstra queue never decreasing. Every key is kept in the
+ * bucket of the highest bit in which it differs from the last key taken out, so there are only 65 buckets
+ * and an entry moves to a lower bucket at most 64 times. A decreased key is simply added once more and the
+ * outdated entry is skipped when it comes out, so there is no decrease key operation and no comparisons
+ * except for finding the smallest key of a bucket that is about to be split.
+ *
+ * The buckets are reused between searches, so an instance must not be shared between threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class RadixHeapDijkstra implements ShortestPathAlgorithm {
+
+    private static final int BUCKETS = Long.SIZE + 1;
+    private static final int INITIAL_BUCKET_CAPACITY = 16;
+
+    private final CsrGraph graph;
+    private final long[][] bucketKeys = new long[BUCKETS][];
+    private final int[][] bucketVertices = new int[BUCKETS][];
+    private final int[] bucketSizes = new int[BUCKETS];
+    private int size;
+    // the last key taken out of the heap
+    private long last;
+
+    public RadixHeapDijkstra(CsrGraph graph) {
+        this.graph = graph;
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketKeys[i] = new long[INITIAL_BUCKET_CAPACITY];
+            bucketVertices[i] = new int[INITIAL_BUCKET_CAPACITY];
+        }
+    }
+
+    @Override
+    public ShortestPathTree getPaths(int source) {
+        int vertexCount = graph.getVertexCount();
+        double[] distances = new double[vertexCount];
+        int[] predecessors = new int[vertexCount];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessors, -1);
+
+        last = 0;
+        distances[source] = 0d;
+        push(source, 0);
+        while (size > 0) {
+            int vertex = pop();
+            double distance = distances[vertex];
+            if (last != (long) distance) {
+                // an outdated entry of a vertex whose distance was decreased after it was added
+                continue;
+            }
+            for (int e = graph.getFirstEdge(vertex), end = graph.getEndEdge(vertex); e < end; e++) {
+                int target = graph.getEdgeTarget(e);
+                double candidate = distance + graph.getEdgeWeight(e);
+                if (candidate < distances[target]) {
+                    distances[target] = candidate;
+                    predecessors[target] = vertex;
+                    push(target, (long) candidate);
+                }
+            }
+        }
+        return new ShortestPathTree(source, distances, predecessors);
+    }
+
+    private void push(int vertex, long key) {
+        int bucket = key == last ? 0 : Long.SIZE - Long.numberOfLeadingZeros(key ^ last);
+        int bucketSize = bucketSizes[bucket];
+        if (bucketSize == bucketKeys[bucket].length) {
+            bucketKeys[bucket] = Arrays.copyOf(bucketKeys[bucket], bucketSize * 2);
+            bucketVertices[bucket] = Arrays.copyOf(bucketVertices[bucket], bucketSize * 2);
+        }
+        bucketKeys[bucket][bucketSize] = key;
+        bucketVertices[bucket][bucketSize] = vertex;
+        bucketSizes[bucket] = bucketSize + 1;
+        size++;
+    }
+
+    /**
+     * Takes out a vertex with the smallest key, which becomes the last key
+     */
+    private int pop() {
+        if (bucketSizes[0] == 0) {
+            int bucket = 1;
+            while (bucketSizes[bucket] == 0) {
+                bucket++;
+            }
+            long[] keys = bucketKeys[bucket];
+            int[] vertices = bucketVertices[bucket];
+            int bucketSize = bucketSizes[bucket];
+            long min = keys[0];
+            for (int i = 1; i < bucketSize; i++) {
+                min = Math.min(min, keys[i]);
+            }
+            // every entry of the bucket moves to a lower one relative to the new last key
+            last = min;
+            bucketSizes[bucket] = 0;
+            size -= bucketSize;
+            for (int i = 0; i < bucketSize; i++) {
+                push(vertices[i], keys[i]);
+            }
+        }
+        size--;
+        return bucketVertices[0][--bucketSizes[0]];
+    }
+}
@@ -0,0 +1,51 @@
+package com.jojos.path.calculation;
+
+/**
+ * The shortest path between a single source and a single target, or the lack of one.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ShortestPath {
+
+    private final int source;
+    private final int target;
+    private final double weight;
+    private final int[] vertices;
+
+    ShortestPath(int source, int target, double weight, int[] vertices) {
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+        this.vertices = vertices;
+    }
+
+    static ShortestPath none(int source, int target) {
+        return new ShortestPath(source, target, Double.POSITIVE_INFINITY, null);
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public boolean exists() {
+        return vertices != null;
+    }
+
+    /**
+     * @return the sum of the weights of the path or {@link Double#POSITIVE_INFINITY} if there's no path
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the vertex ids of the path starting with the source and ending with the target or null if there's no path
+     */
+    public int[] getVertices() {
+        return vertices;
+    }
+}
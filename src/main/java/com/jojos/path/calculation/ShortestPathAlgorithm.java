@@ -0,0 +1,58 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+
+/**
+ * A single source shortest path algorithm bound to a {@link CsrGraph}.
+ *
+ * Implementations keep their working arrays between searches, so an instance must not be shared between threads.
+ * Among several equally short paths to a vertex different implementations may return different ones,
+ * but every implementation always returns the same one for the same graph.
+ *
+ * @author karanikasg@gmail.com
+ */
+public interface ShortestPathAlgorithm {
+
+    // up to this weight the buckets of Dial's algorithm are cheaper to scan than the levels of a radix heap
+    int DIAL_MAX_WEIGHT = 1 << 12;
+    // every path weight is below this, so it fits in a long and is represented exactly by a double
+    long MAX_EXACT_DISTANCE = 1L << 53;
+
+    /**
+     * Computes the shortest paths from the source to every vertex reachable from it
+     *
+     * @param source the id of the source vertex
+     * @return the shortest path tree rooted at the source
+     */
+    ShortestPathTree getPaths(int source);
+
+    /**
+     * Picks the fastest algorithm for the weights of the graph: when every weight is a whole number Dial's
+     * bucket queue for small maximum weights or a radix heap for larger ones, otherwise {@link Dijkstra}
+     * with a binary heap.
+     */
+    static ShortestPathAlgorithm forGraph(CsrGraph graph) {
+        Class<? extends ShortestPathAlgorithm> type = typeForGraph(graph);
+        if (type == Dijkstra.class) {
+            return new Dijkstra(graph);
+        } else if (type == DialDijkstra.class) {
+            return new DialDijkstra(graph);
+        }
+        return new RadixHeapDijkstra(graph);
+    }
+
+    /**
+     * @return the class of the algorithm {@link #forGraph(CsrGraph)} creates, without allocating its arrays
+     */
+    static Class<? extends ShortestPathAlgorithm> typeForGraph(CsrGraph graph) {
+        double maxWeight = graph.getMaxEdgeWeight();
+        boolean integral = graph.hasIntegralWeights()
+                && maxWeight * Math.max(1, graph.getVertexCount() - 1) < MAX_EXACT_DISTANCE;
+        if (!integral) {
+            return Dijkstra.class;
+        } else if (maxWeight <= DIAL_MAX_WEIGHT) {
+            return DialDijkstra.class;
+        }
+        return RadixHeapDijkstra.class;
+    }
+}
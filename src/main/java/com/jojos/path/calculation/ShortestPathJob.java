@@ -2,22 +2,26 @@ package com.jojos.path.calculation;
 
 import com.jojos.path.ApplicationException;
 import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.VertexDictionary;
 import com.jojos.path.input.Assertions;
+import com.jojos.path.metrics.FlightRecorderEvents;
+import com.jojos.path.metrics.Metrics;
+import com.jojos.path.metrics.Phase;
+import com.jojos.path.metrics.ShortestPathQueryEvent;
 import com.jojos.path.input.ParsedObject;
-import org.jgrapht.DirectedGraph;
-import org.jgrapht.alg.interfaces.ShortestPathAlgorithm;
-import org.jgrapht.alg.shortestpath.DijkstraShortestPath;
+import com.jojos.path.output.OutputBuffer;
+import com.jojos.path.output.PathOutputWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A job whose sole purpose it to compute the shortest path of a weighted directed graph
@@ -27,27 +31,49 @@ import java.util.Objects;
 public class ShortestPathJob {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    private static final String ME = "ME";
+    // how many sources each thread gets on average before the output of a parallel run is written
+    private static final int SOURCES_PER_THREAD_AND_WINDOW = 16;
+    // up to this many assertion targets a bidirectional search per target is cheaper than a full search from the source
+    private static final int BIDIRECTIONAL_MAX_TARGETS = 16;
+    // the failed assertions reported by the error, the log holds all of them
+    private static final int MAX_REPORTED_FAILURES = 100;
 
-    private final DirectedGraph<String, ParseJob.RelationshipEdge> graph;
+    private final CsrGraph graph;
     private final Assertions assertions;
     private final String outputFileName;
-    private final Collection<String> sources;
-    private final Collection<String> targets;
+    // the vertex ids to calculate the paths for, null means the vertices from the first source to the end source
+    private final int[] sources;
+    private final int firstSource;
+    private final int endSource;
+    private final int[] targets;
     private final DimensionsWeight dimensionsWeight;
+    // the number of threads calculating the paths of different sources at the same time
+    private final int parallelism;
+    // guides the point to point queries when present
+    private LandmarkIndex landmarkIndex;
+    // answers the point to point queries when present, before the landmarks
+    private ContractionHierarchy hierarchy;
+    // keeps the trees of the sources searched by this and other jobs of the same graph when present
+    private ShortestPathTreeCache treeCache;
 
-    private ShortestPathJob(DirectedGraph<String, ParseJob.RelationshipEdge> graph,
+    private ShortestPathJob(CsrGraph graph,
                            Assertions assertions,
                            String outputFileName,
-                           Collection<String> sources,
-                           Collection<String> targets,
-                           DimensionsWeight dimensionsWeight) {
+                           int[] sources,
+                           int firstSource,
+                           int endSource,
+                           int[] targets,
+                           DimensionsWeight dimensionsWeight,
+                           int parallelism) {
         this.graph = graph;
         this.assertions = assertions;
         this.outputFileName = outputFileName;
         this.sources = sources;
+        this.firstSource = firstSource;
+        this.endSource = endSource;
         this.targets = targets;
         this.dimensionsWeight = dimensionsWeight;
+        this.parallelism = parallelism;
     }
 
     /**
@@ -57,12 +83,28 @@ public class ShortestPathJob {
      * @param parsedObject the graph created on a previous step together with assertions to assert the results against
      */
     public static ShortestPathJob withAssertions(ParsedObject parsedObject) {
+        return withAssertions(parsedObject, 1);
+    }
+
+    /**
+     * Running with assertions ON where the assertions of different sources are verified in parallel
+     *
+     * @param parallelism the number of threads verifying the assertions
+     * @see #withAssertions(ParsedObject)
+     */
+    public static ShortestPathJob withAssertions(ParsedObject parsedObject, int parallelism) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
         return new ShortestPathJob(parsedObject.getGraph(),
                 parsedObject.getAssertions(),
                 null,
                 null,
+                0,
+                parsedObject.getGraph() == null ? 0 : parsedObject.getGraph().getVertexCount(),
+                null,
                 null,
-                null);
+                parallelism);
     }
 
     /**
@@ -73,14 +115,107 @@ public class ShortestPathJob {
      * @param target the ending vertex. It null it will default to all of the vertices contained in this graph
      * @param dimensionsWeight the dimensions and weight object for which we must calculate the shipping costs
      */
-    public static ShortestPathJob withoutAssertions(DirectedGraph<String, ParseJob.RelationshipEdge> graph,
+    public static ShortestPathJob withoutAssertions(CsrGraph graph,
                                              String outputFileName,
                                              String source,
                                              String target,
                                              DimensionsWeight dimensionsWeight) {
-        Collection<String> sources = source == null ? graph.vertexSet() : Collections.singleton(source);
-        Collection<String> targets = target == null ? graph.vertexSet() : Collections.singleton(target);
-        return new ShortestPathJob(graph, null, outputFileName, sources, targets, dimensionsWeight);
+        return withoutAssertions(graph, outputFileName, source, target, dimensionsWeight, 1);
+    }
+
+    /**
+     * This is the running mode without assertions where the paths of different sources are calculated in parallel.
+     * The output is exactly the same as the one of the sequential run.
+     *
+     * @param parallelism the number of threads used when the paths of all the sources are calculated
+     * @see #withoutAssertions(CsrGraph, String, String, String, DimensionsWeight)
+     */
+    public static ShortestPathJob withoutAssertions(CsrGraph graph,
+                                             String outputFileName,
+                                             String source,
+                                             String target,
+                                             DimensionsWeight dimensionsWeight,
+                                             int parallelism) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
+        int[] sources = source == null ? null : new int[]{sourceIdOrThrow(graph, source)};
+        int[] targets = target == null ? null : new int[]{graph.getVertexId(target)};
+        return new ShortestPathJob(graph, null, outputFileName, sources, 0, graph.getVertexCount(), targets,
+                dimensionsWeight, parallelism);
+    }
+
+    /**
+     * Writes the paths of the sources whose ids are in a range, exactly as they appear in the output of all the
+     * sources, so that the outputs of consecutive ranges put together are the output of the whole graph
+     *
+     * @param firstSource the id of the first source
+     * @param endSource   the id after the last source
+     * @see #withoutAssertions(CsrGraph, String, String, String, DimensionsWeight, int)
+     */
+    public static ShortestPathJob forSourceRange(CsrGraph graph,
+                                                 String outputFileName,
+                                                 int firstSource,
+                                                 int endSource,
+                                                 String target,
+                                                 DimensionsWeight dimensionsWeight,
+                                                 int parallelism) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
+        if (firstSource < 0 || firstSource > endSource || endSource > graph.getVertexCount()) {
+            throw new ApplicationException(String.format("Invalid range of sources [%d, %d) of %d vertices",
+                    firstSource, endSource, graph.getVertexCount()));
+        }
+        int[] targets = target == null ? null : new int[]{graph.getVertexId(target)};
+        return new ShortestPathJob(graph, null, outputFileName, null, firstSource, endSource, targets,
+                dimensionsWeight, parallelism);
+    }
+
+    /**
+     * Answers the single source and target queries, including the ones of the assertions, with A* over
+     * the lower bounds of the landmarks instead of a bidirectional search
+     *
+     * @param landmarkIndex the landmarks of the graph of this job
+     * @return this job
+     */
+    public ShortestPathJob withLandmarks(LandmarkIndex landmarkIndex) {
+        if (landmarkIndex.getGraph() != graph) {
+            throw new ApplicationException("The landmarks don't belong to the graph of the job");
+        }
+        this.landmarkIndex = landmarkIndex;
+        return this;
+    }
+
+    /**
+     * Answers the single source and target queries, including the ones of the assertions, from the
+     * contraction hierarchy instead of searching the graph
+     *
+     * @param hierarchy the hierarchy of the graph of this job
+     * @return this job
+     */
+    public ShortestPathJob withHierarchy(ContractionHierarchy hierarchy) {
+        if (hierarchy.getGraph() != graph) {
+            throw new ApplicationException("The hierarchy doesn't belong to the graph of the job");
+        }
+        this.hierarchy = hierarchy;
+        return this;
+    }
+
+    /**
+     * Takes the shortest path trees of the sources from the cache, which keeps the ones this job searches
+     * for the following jobs. The assertions are then checked against the tree of their source instead of
+     * searching the path to every target.
+     *
+     * @param treeCache the cache of the trees of the graph of this job
+     * @return this job
+     */
+    public ShortestPathJob withTreeCache(ShortestPathTreeCache treeCache) {
+        if (treeCache.getGraph() != graph) {
+            throw new ApplicationException("The tree cache doesn't belong to the graph of the job");
+        }
+        this.treeCache = treeCache;
+        return this;
     }
 
     /**
@@ -93,90 +228,563 @@ public class ShortestPathJob {
             return;
         }
 
-        log.info("Start calculating the graph for sources {}", sources);
-
-        DijkstraShortestPath<String, ParseJob.RelationshipEdge> dijkstraAlg =
-                new DijkstraShortestPath<>(graph);
+        log.info("Start calculating the graph for {} sources", sources == null ? endSource - firstSource : sources.length);
 
         // running with assertions on
         if (assertions != null) {
-            String source = ME;
-            ShortestPathAlgorithm.SingleSourcePaths<String, ParseJob.RelationshipEdge> iPaths = dijkstraAlg.getPaths(source);
-            for (int i = 0; i < assertions.getTargets().size(); i++) {
-                String target = assertions.getTargets().get(i);
-                DimensionsWeight packageDimensions = assertions.getDimensions().get(i);
-                double assertionCost = assertions.getShippingCost().get(i);
-                if (iPaths.getPath(target) == null) {
-                    // if there isn't any path ensure that it's also reflected in the assertions (only if it contains the equivalent line)
-                    if (assertionCost == Double.POSITIVE_INFINITY) {
-                        log.info(String.format("[%s -> %s] - [Cost: %f]", source, target, assertionCost));
-                        log.info("Shipping cost defined for path from {} -> {} is correctly asserted to {} (doesn't exist)", source, target, Double.POSITIVE_INFINITY);
-                    } else {
-                        throw new AssertionError(String.format("Path from %s -> %s doesn't seem to exist but assertion cost has a value of %.2f. Exiting", source, target, assertionCost));
-                    }
+            verifyAssertions();
+        } else { // running without assertions
+            int sourceCount = sources == null ? endSource - firstSource : sources.length;
+            long start = System.currentTimeMillis();
+            try (PathOutputWriter writer = new PathOutputWriter(outputFileName)) {
+                if (sources != null && targets != null && sources.length == 1 && targets.length == 1) {
+                    writeSinglePair(writer);
+                } else if (parallelism > 1 && sourceCount > 1) {
+                    writeInParallel(writer, sourceCount);
                 } else {
-                    if (packageDimensions != null) {
-                        double pathWeight = dijkstraAlg.getPathWeight(source, target);
-                        double shippingCost = Computations.shippingCost(pathWeight, packageDimensions);
-
-                        String formattedStr = String.format("%s - [Cost: %s]",
-                                Util.toPrettyPathString(iPaths.getPath(target).getVertexList()),
-                                shippingCost);
-                        log.info(formattedStr);
-                        if (Double.compare(shippingCost, assertionCost) != 0) {
-                            throw new AssertionError(String.format("%.2f is not equal to shipping cost defined in assertion %.2f. Exiting", shippingCost, assertionCost));
-                        } else {
-                            log.info("Shipping cost defined for path from {} -> {} is correctly asserted to {}", source, target, shippingCost);
-                        }
+                    ShortestPathAlgorithm algorithm = newAlgorithm();
+                    log.info("Calculating the shortest paths with {}", algorithm.getClass().getSimpleName());
+                    SourceOutput output = new SourceOutput();
+                    // a path never contains more vertices than the graph
+                    int[] path = new int[graph.getVertexCount()];
+                    for (int s = 0; s < sourceCount; s++) {
+                        output.reset();
+                        appendLinesOfSource(algorithm, s, output, path);
+                        writer.write(output.buffer);
+                        writer.flush();
                     }
                 }
+                log.info("Wrote the paths of {} sources to {} ({} bytes) in {}",
+                        sourceCount, outputFileName, writer.getBytesWritten(), Util.longDuration(start));
             }
-        } else { // running without assertions
-            List<String> lines = new ArrayList<>();
-
-            for (String source : sources) {
-                ShortestPathAlgorithm.SingleSourcePaths<String, ParseJob.RelationshipEdge> iPaths = dijkstraAlg.getPaths(source);
-                for (String target : targets) {
-                    // exclude self reference nodes even if they have an infinite distance
-                    if (target.equals(source)) {
-                        continue;
-                    }
+        }
+        if (treeCache != null) {
+            log.info("Tree cache: {}", treeCache);
+        }
+    }
 
-                    if (iPaths.getPath(target) != null) {
-                        double pathWeight = dijkstraAlg.getPathWeight(source, target);
-                        String weightStr = "Weight";
-                        if (dimensionsWeight != null) {
-                            pathWeight = Computations.shippingCost(pathWeight, dimensionsWeight);
-                            weightStr = "Cost";
-                        }
+    /**
+     * The assertions are grouped by their source so that every source is searched once, with a full search or,
+     * when its assertions have few targets, with a point to point search per target. The groups are verified in
+     * parallel and all the failed assertions are reported together once every group is done.
+     *
+     * @throws AssertionError if any assertion failed
+     */
+    private void verifyAssertions() {
+        long start = System.currentTimeMillis();
+        AssertionGroups groups = new AssertionGroups();
+        if (parallelism > 1 && groups.count > 1) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new AssertionGroupsTask(groups, 0, groups.count));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int g = 0; g < groups.count; g++) {
+                groups.verify(g);
+            }
+        }
+        if (groups.pointToPointQueries.sum() > 0) {
+            log.info("Settled {} vertices for {} point to point queries", groups.settled.sum(), groups.pointToPointQueries.sum());
+        }
 
-                        String formattedStr = String.format("%s - [%s: %s]",
-                                Util.toPrettyPathString(iPaths.getPath(target).getVertexList()),
-                                weightStr,
-                                pathWeight);
-                        log.info(formattedStr);
-                        lines.add(formattedStr);
-                    }
+        int failed = 0;
+        StringBuilder report = new StringBuilder();
+        for (String failure : groups.failures) {
+            if (failure == null) {
+                continue;
+            }
+            log.error(failure);
+            if (++failed <= MAX_REPORTED_FAILURES) {
+                report.append(System.lineSeparator()).append(failure);
+            }
+        }
+        log.info("Verified {} assertions of {} sources in {}", assertions.size(), groups.count, Util.longDuration(start));
+        if (failed > 0) {
+            if (failed > MAX_REPORTED_FAILURES) {
+                report.append(System.lineSeparator())
+                        .append(String.format("and %d more, see the log", failed - MAX_REPORTED_FAILURES));
+            }
+            throw new AssertionError(String.format("%d of %d assertions failed:%s", failed, assertions.size(), report));
+        }
+    }
+
+    /**
+     * @return the tree cache, which is shared between threads, or a new algorithm for the calling thread
+     */
+    private ShortestPathAlgorithm newAlgorithm() {
+        return treeCache != null ? treeCache : ShortestPathAlgorithm.forGraph(graph);
+    }
+
+    /**
+     * A single source and target only need the path between them, found by a bidirectional search, by A*
+     * or from the contraction hierarchy
+     */
+    private void writeSinglePair(PathOutputWriter writer) {
+        int source = sources[0];
+        int target = targets[0];
+        // exclude self reference nodes even if they have an infinite distance
+        if (target == source) {
+            return;
+        }
+        // a target missing from the graph can't be reached, so the output stays empty
+        if (target < 0) {
+            log.info("The graph doesn't contain the target vertex, there is no path from {}", graph.getVertexName(source));
+            return;
+        }
+        PointToPointAlgorithm pointToPoint = newPointToPointAlgorithm();
+        ShortestPathQueryEvent event = FlightRecorderEvents.AVAILABLE ? new ShortestPathQueryEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        long metricsStart = Metrics.startNanos();
+        long allocated = Metrics.allocatedBytes();
+        ShortestPath path = pointToPoint.getPath(source, target);
+        Metrics.record(Phase.SHORTEST_PATHS, metricsStart, allocated);
+        if (event != null) {
+            event.commit(graph.getVertexName(source), 1, pointToPoint.getSettledCount(), pointToPoint.getClass().getSimpleName());
+        }
+        log.info("Found the path from {} to {} in {} microseconds", graph.getVertexName(source), graph.getVertexName(target),
+                (System.nanoTime() - start) / 1000);
+        logSettledCount(pointToPoint, source, Collections.singletonList(graph.getVertexName(target)));
+        if (path.exists()) {
+            OutputBuffer buffer = new OutputBuffer();
+            int[] vertices = path.getVertices();
+            appendLine(buffer, vertices, vertices.length, path.getWeight());
+            writer.write(buffer);
+            writer.flush();
+        }
+    }
+
+    private PointToPointAlgorithm newPointToPointAlgorithm() {
+        PointToPointAlgorithm pointToPoint;
+        if (hierarchy != null) {
+            pointToPoint = hierarchy.newQuery();
+        } else if (landmarkIndex != null) {
+            pointToPoint = landmarkIndex.newQuery();
+        } else {
+            pointToPoint = new BidirectionalDijkstra(graph);
+        }
+        log.info("Calculating the shortest paths with {}", pointToPoint.getClass().getSimpleName());
+        return pointToPoint;
+    }
+
+    /**
+     * Logs how many vertices the point to point queries settled and, at debug level,
+     * how many plain Dijkstra stopping at the same targets would have settled
+     */
+    private void logSettledCount(PointToPointAlgorithm pointToPoint, int source, List<String> targetNames) {
+        log.info("Settled {} vertices for {} queries with {}", pointToPoint.getSettledCount(), targetNames.size(),
+                pointToPoint.getClass().getSimpleName());
+        if (landmarkIndex != null && log.isDebugEnabled()) {
+            LandmarkAStar dijkstra = landmarkIndex.newQuery();
+            for (String targetName : targetNames) {
+                dijkstra.getPath(source, graph.getVertexId(targetName), false);
+            }
+            log.debug("Plain Dijkstra settles {} vertices for the same queries", dijkstra.getSettledCount());
+        }
+    }
+
+    /**
+     * The sources are calculated in consecutive windows, each one spread over a fork/join pool.
+     * When a window is complete its output is written in the order of the sources, so at most one window
+     * of output is held in memory no matter how many sources there are.
+     */
+    private void writeInParallel(PathOutputWriter writer, int sourceCount) {
+        int windowSize = Math.min(sourceCount, parallelism * SOURCES_PER_THREAD_AND_WINDOW);
+        log.info("Calculating the paths of {} sources with parallelism {} and {}", sourceCount, parallelism,
+                treeCache != null ? treeCache.getClass().getSimpleName()
+                        : ShortestPathAlgorithm.typeForGraph(graph).getSimpleName());
+
+        SourceOutput[] window = new SourceOutput[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = new SourceOutput();
+        }
+        ThreadLocal<ShortestPathAlgorithm> algorithmPerThread = ThreadLocal.withInitial(this::newAlgorithm);
+        // a path never contains more vertices than the graph
+        ThreadLocal<int[]> pathPerThread = ThreadLocal.withInitial(() -> new int[graph.getVertexCount()]);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int from = 0; from < sourceCount; from += windowSize) {
+                int to = Math.min(sourceCount, from + windowSize);
+                pool.invoke(new SourcesTask(from, to, from, window, algorithmPerThread, pathPerThread));
+                for (int s = from; s < to; s++) {
+                    SourceOutput output = window[s - from];
+                    writer.write(output.buffer);
+                    writer.flush();
                 }
             }
-            try {
-                Files.write(Paths.get(outputFileName), lines);
-            } catch (IOException e) {
-                throw new ApplicationException("Cannot write to " + outputFileName);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Formats the output lines of a single source
+     *
+     * @param algorithm   the algorithm instance owned by the calling thread
+     * @param sourceIndex the index of the source inside the sources of this job
+     * @param output      where the lines are appended
+     * @param path        the buffer for the vertices of a path owned by the calling thread
+     */
+    private void appendLinesOfSource(ShortestPathAlgorithm algorithm, int sourceIndex, SourceOutput output, int[] path) {
+        int source = sources == null ? firstSource + sourceIndex : sources[sourceIndex];
+        int targetCount = targets == null ? graph.getVertexCount() : targets.length;
+        ShortestPathQueryEvent event = FlightRecorderEvents.AVAILABLE ? new ShortestPathQueryEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = Metrics.startNanos();
+        long allocated = Metrics.allocatedBytes();
+        ShortestPathTree iPaths = algorithm.getPaths(source);
+        Metrics.record(Phase.SHORTEST_PATHS, start, allocated);
+        if (event != null && event.shouldCommit()) {
+            event.commit(graph.getVertexName(source), targetCount, reachableCount(iPaths), algorithm.getClass().getSimpleName());
+        }
+        start = Metrics.startNanos();
+        allocated = Metrics.allocatedBytes();
+        for (int t = 0; t < targetCount; t++) {
+            int target = targets == null ? t : targets[t];
+            // exclude self reference nodes even if they have an infinite distance
+            if (target == source) {
+                continue;
+            }
+
+            if (iPaths.hasPath(target)) {
+                int length = iPaths.copyPath(target, path);
+                appendLine(output.buffer, path, length, iPaths.getWeight(target));
+            }
+        }
+        Metrics.record(Phase.COST, start, allocated);
+    }
+
+    /**
+     * Appends a line of the form [ME -> Adam -> Philipp] - [Weight: 17.0]
+     *
+     * @param path       the vertices of the path
+     * @param length     the number of vertices of the path
+     * @param pathWeight the weight of the path, turned into a shipping cost if there are dimensions
+     */
+    private void appendLine(OutputBuffer buffer, int[] path, int length, double pathWeight) {
+        appendLine(buffer, path, length, pathWeight, dimensionsWeight, graph.getVertexDictionary());
+    }
+
+    /**
+     * @param dimensionsWeight the package of the shipping cost or null for the weight
+     * @see #appendLine(OutputBuffer, int[], int, double)
+     */
+    static void appendLine(OutputBuffer buffer, int[] path, int length, double pathWeight,
+                           DimensionsWeight dimensionsWeight, VertexDictionary dictionary) {
+        if (dimensionsWeight != null) {
+            pathWeight = Computations.shippingCost(pathWeight, dimensionsWeight);
+        }
+        buffer.append((byte) '[');
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                buffer.appendAscii(" -> ");
+            }
+            buffer.appendName(path[i], dictionary);
+        }
+        buffer.appendAscii("] - [").appendAscii(dimensionsWeight != null ? "Cost" : "Weight").appendAscii(": ")
+                .appendDouble(pathWeight)
+                .append((byte) ']')
+                .appendLineSeparator();
+    }
+
+    /**
+     * @return the number of vertices the search of the tree settled, which are the ones it reached
+     */
+    private static long reachableCount(ShortestPathTree tree) {
+        long reachable = 0;
+        for (double distance : tree.getDistances()) {
+            if (distance != Double.POSITIVE_INFINITY) {
+                reachable++;
             }
         }
+        return reachable;
+    }
+
+    private static int sourceIdOrThrow(CsrGraph graph, String source) {
+        int id = graph.getVertexId(source);
+        if (id < 0) {
+            throw new ApplicationException(String.format("The graph doesn't contain the source vertex %s", source));
+        }
+        return id;
     }
 
     private boolean graphIsInvalid() {
         final boolean invalid = true;
-        if (Objects.isNull(graph) || Objects.isNull(graph.vertexSet()) || graph.vertexSet().isEmpty()) {
+        if (Objects.isNull(graph) || graph.getVertexCount() == 0) {
             log.warn("Graph contains no vertices...exiting");
             return invalid;
-        } else if (Objects.isNull(graph.edgeSet()) || graph.edgeSet().isEmpty()) {
+        } else if (graph.getEdgeCount() == 0) {
             log.warn("Graph with no edges between vertices");
             return invalid;
         }
         return !invalid;
     }
 
+    /**
+     * The assertions ordered by the id of their source, the ones of sources missing from the graph last, with
+     * the bounds of every group of the same source. Every group writes the failures of its own assertions only.
+     */
+    private class AssertionGroups {
+        private final int[] sourceIds;
+        private final int[] targetIds;
+        // the indices of the assertions, grouped by source
+        private final int[] order;
+        // the start of every group in the order and the end of the last one
+        private final int[] bounds;
+        private final int count;
+        // the failure of every assertion, null for the ones that hold
+        private final String[] failures;
+        private final ThreadLocal<ShortestPathAlgorithm> algorithmPerThread = ThreadLocal.withInitial(ShortestPathJob.this::newAlgorithm);
+        private final ThreadLocal<PointToPointAlgorithm> pointToPointPerThread = ThreadLocal.withInitial(ShortestPathJob.this::newPointToPointAlgorithm);
+        private final LongAdder settled = new LongAdder();
+        private final LongAdder pointToPointQueries = new LongAdder();
+
+        private AssertionGroups() {
+            int size = assertions.size();
+            int missingSource = graph.getVertexCount();
+            sourceIds = new int[size];
+            targetIds = new int[size];
+            failures = new String[size];
+            // a counting sort by source keeps the assertions of every source in the order of the input
+            int[] starts = new int[missingSource + 2];
+            int[] nameIds = new int[assertions.getNameCount()];
+            for (int n = 0; n < nameIds.length; n++) {
+                nameIds[n] = graph.getVertexId(assertions.getName(n));
+            }
+            for (int i = 0; i < size; i++) {
+                sourceIds[i] = nameIds[assertions.getSourceIndex(i)];
+                targetIds[i] = nameIds[assertions.getTargetIndex(i)];
+                starts[group(sourceIds[i], missingSource) + 1]++;
+            }
+            int groupCount = 0;
+            for (int g = 0; g <= missingSource; g++) {
+                if (starts[g + 1] > 0) {
+                    groupCount++;
+                }
+                starts[g + 1] += starts[g];
+            }
+            order = new int[size];
+            int[] next = Arrays.copyOf(starts, starts.length);
+            for (int i = 0; i < size; i++) {
+                order[next[group(sourceIds[i], missingSource)]++] = i;
+            }
+            bounds = new int[groupCount + 1];
+            int g = 0;
+            for (int group = 0; group <= missingSource; group++) {
+                if (starts[group + 1] > starts[group]) {
+                    bounds[g++] = starts[group];
+                }
+            }
+            bounds[groupCount] = size;
+            count = groupCount;
+        }
+
+        private int group(int sourceId, int missingSource) {
+            return sourceId < 0 ? missingSource : sourceId;
+        }
+
+        private void verify(int group) {
+            int from = bounds[group];
+            int to = bounds[group + 1];
+            int sourceId = sourceIds[order[from]];
+            String source = assertions.getSource(order[from]);
+            if (sourceId < 0) {
+                for (int o = from; o < to; o++) {
+                    int i = order[o];
+                    if (assertions.getShippingCost(i) != Double.POSITIVE_INFINITY) {
+                        failures[i] = String.format("The graph doesn't contain the source vertex %s but assertion cost to %s has a value of %.2f",
+                                source, assertions.getTarget(i), assertions.getShippingCost(i));
+                    }
+                }
+                return;
+            }
+            if (hierarchy != null || landmarkIndex != null || (treeCache == null && hasFewTargets(from, to))) {
+                PointToPointAlgorithm pointToPoint = pointToPointPerThread.get();
+                for (int o = from; o < to; o++) {
+                    int i = order[o];
+                    int targetId = targetIds[i];
+                    ShortestPath path = null;
+                    if (targetId >= 0) {
+                        ShortestPathQueryEvent event = FlightRecorderEvents.AVAILABLE ? new ShortestPathQueryEvent() : null;
+                        if (event != null) {
+                            event.begin();
+                        }
+                        long settledBefore = pointToPoint.getSettledCount();
+                        long start = Metrics.startNanos();
+                        long allocated = Metrics.allocatedBytes();
+                        path = pointToPoint.getPath(sourceId, targetId);
+                        Metrics.record(Phase.SHORTEST_PATHS, start, allocated);
+                        long querySettled = pointToPoint.getSettledCount() - settledBefore;
+                        if (event != null) {
+                            event.commit(source, 1, querySettled, pointToPoint.getClass().getSimpleName());
+                        }
+                        settled.add(querySettled);
+                        pointToPointQueries.increment();
+                    }
+                    boolean exists = path != null && path.exists();
+                    check(i, source, exists ? path.getWeight() : Double.POSITIVE_INFINITY, exists ? path.getVertices() : null);
+                }
+            } else {
+                ShortestPathAlgorithm algorithm = algorithmPerThread.get();
+                ShortestPathQueryEvent event = FlightRecorderEvents.AVAILABLE ? new ShortestPathQueryEvent() : null;
+                if (event != null) {
+                    event.begin();
+                }
+                long start = Metrics.startNanos();
+                long allocated = Metrics.allocatedBytes();
+                ShortestPathTree iPaths = algorithm.getPaths(sourceId);
+                Metrics.record(Phase.SHORTEST_PATHS, start, allocated);
+                if (event != null && event.shouldCommit()) {
+                    event.commit(source, to - from, reachableCount(iPaths), algorithm.getClass().getSimpleName());
+                }
+                for (int o = from; o < to; o++) {
+                    int i = order[o];
+                    int targetId = targetIds[i];
+                    // the vertices of the path are only needed for the log
+                    check(i, source, iPaths.getWeight(targetId),
+                            iPaths.hasPath(targetId) && log.isInfoEnabled() ? iPaths.getPath(targetId) : null);
+                }
+            }
+        }
+
+        /**
+         * @return true if the assertions of the group have no more distinct targets than a bidirectional search suits
+         */
+        private boolean hasFewTargets(int from, int to) {
+            int[] distinct = new int[BIDIRECTIONAL_MAX_TARGETS];
+            int distinctCount = 0;
+            for (int o = from; o < to; o++) {
+                int target = targetIds[order[o]];
+                int d = 0;
+                while (d < distinctCount && distinct[d] != target) {
+                    d++;
+                }
+                if (d == distinctCount) {
+                    if (distinctCount == BIDIRECTIONAL_MAX_TARGETS) {
+                        return false;
+                    }
+                    distinct[distinctCount++] = target;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Compares the shipping cost of the path found to the one of the assertion
+         *
+         * @param weight   the weight of the path or {@link Double#POSITIVE_INFINITY} if there's no path
+         * @param vertices the vertices of the path to log, null if there's no path or nothing is logged
+         */
+        private void check(int i, String source, double weight, int[] vertices) {
+            String target = assertions.getTarget(i);
+            double assertionCost = assertions.getShippingCost(i);
+            if (weight == Double.POSITIVE_INFINITY) {
+                // if there isn't any path ensure that it's also reflected in the assertions (only if it contains the equivalent line)
+                if (assertionCost == Double.POSITIVE_INFINITY) {
+                    if (log.isInfoEnabled()) {
+                        log.info(String.format("[%s -> %s] - [Cost: %f]", source, target, assertionCost));
+                        log.info("Shipping cost defined for path from {} -> {} is correctly asserted to {} (doesn't exist)", source, target, Double.POSITIVE_INFINITY);
+                    }
+                } else {
+                    failures[i] = String.format("Path from %s -> %s doesn't seem to exist but assertion cost has a value of %.2f", source, target, assertionCost);
+                }
+            } else {
+                double shippingCost = Computations.shippingCost(weight, assertions.getNormalizedWeight(i));
+                if (vertices != null) {
+                    log.info(String.format("%s - [Cost: %s]",
+                            Util.toPrettyPathString(vertices, graph.getVertexDictionary()), shippingCost));
+                }
+                if (Double.compare(shippingCost, assertionCost) != 0) {
+                    failures[i] = String.format("Path from %s -> %s: %.2f is not equal to shipping cost defined in assertion %.2f",
+                            source, target, shippingCost, assertionCost);
+                } else {
+                    log.info("Shipping cost defined for path from {} -> {} is correctly asserted to {}", source, target, shippingCost);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits a range of assertion groups in halves until every task holds a single group, the same way
+     * {@link SourcesTask} splits the sources
+     */
+    private static class AssertionGroupsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AssertionGroups groups;
+        private final int from;
+        private final int to;
+
+        private AssertionGroupsTask(AssertionGroups groups, int from, int to) {
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                groups.verify(from);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AssertionGroupsTask(groups, from, middle), new AssertionGroupsTask(groups, middle, to));
+            }
+        }
+    }
+
+    /**
+     * The formatted output of a single source, reused for every source the instance is assigned to
+     */
+    private static class SourceOutput {
+        private final OutputBuffer buffer = new OutputBuffer();
+
+        private void reset() {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Splits a range of sources in halves until every task holds a single source, so that idle threads
+     * of the pool can steal the remaining sources from threads busy with sources that reach large parts of the graph.
+     */
+    private class SourcesTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int windowStart;
+        private final SourceOutput[] window;
+        private final ThreadLocal<ShortestPathAlgorithm> algorithmPerThread;
+        private final ThreadLocal<int[]> pathPerThread;
+
+        private SourcesTask(int from, int to, int windowStart, SourceOutput[] window,
+                            ThreadLocal<ShortestPathAlgorithm> algorithmPerThread, ThreadLocal<int[]> pathPerThread) {
+            this.from = from;
+            this.to = to;
+            this.windowStart = windowStart;
+            this.window = window;
+            this.algorithmPerThread = algorithmPerThread;
+            this.pathPerThread = pathPerThread;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                SourceOutput output = window[from - windowStart];
+                output.reset();
+                appendLinesOfSource(algorithmPerThread.get(), from, output, pathPerThread.get());
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SourcesTask(from, middle, windowStart, window, algorithmPerThread, pathPerThread),
+                        new SourcesTask(middle, to, windowStart, window, algorithmPerThread, pathPerThread));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,91 @@
+package com.jojos.path.calculation;
+
+/**
+ * The outcome of a single source shortest path search: for every vertex of the graph the weight of the
+ * shortest path from the source and its predecessor on that path.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ShortestPathTree {
+
+    private final int source;
+    private final double[] distances;
+    private final int[] predecessors;
+
+    ShortestPathTree(int source, double[] distances, int[] predecessors) {
+        this.source = source;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    /**
+     * @return the distances of all the vertices, owned by this tree and not to be modified
+     */
+    double[] getDistances() {
+        return distances;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public boolean hasPath(int target) {
+        return target >= 0 && target < distances.length && distances[target] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the sum of the weights of the shortest path or {@link Double#POSITIVE_INFINITY} if there's no path
+     */
+    public double getWeight(int target) {
+        return hasPath(target) ? distances[target] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the vertex ids of the shortest path starting with the source and ending with the target
+     * or null if the target cannot be reached
+     */
+    public int[] getPath(int target) {
+        if (!hasPath(target)) {
+            return null;
+        }
+        int[] path = new int[getPathLength(target)];
+        copyPath(target, path);
+        return path;
+    }
+
+    /**
+     * @return the shortest path from the source to the target
+     */
+    public ShortestPath getShortestPath(int target) {
+        return hasPath(target) ? new ShortestPath(source, target, distances[target], getPath(target)) : ShortestPath.none(source, target);
+    }
+
+    /**
+     * @return the number of vertices of the shortest path including the source and the target
+     * or 0 if the target cannot be reached
+     */
+    public int getPathLength(int target) {
+        if (!hasPath(target)) {
+            return 0;
+        }
+        int length = 1;
+        for (int v = target; v != source; v = predecessors[v]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Copies the vertex ids of the shortest path into the destination, which must be able to hold
+     * {@link #getPathLength(int)} elements
+     *
+     * @return the number of vertices copied
+     */
+    public int copyPath(int target, int[] destination) {
+        int length = getPathLength(target);
+        for (int v = target, i = length - 1; i >= 0; v = predecessors[v], i--) {
+            destination[i] = v;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,169 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.graph.CsrGraph;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Keeps the shortest path trees of the most recently used sources, so that a source asked for again is
+ * answered without another search.
+ *
+ * The number of trees is bounded either directly or by the memory they take, a distance and a predecessor
+ * for every vertex of the graph, and the least recently used tree is evicted first. Unlike the algorithms it
+ * wraps the cache is shared between threads: every thread searches with an algorithm of its own, and a thread
+ * asking for a source another thread is searching waits for that search instead of repeating it.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ShortestPathTreeCache implements ShortestPathAlgorithm {
+
+    // the distances and the predecessors of every vertex
+    private static final long BYTES_PER_VERTEX = Double.BYTES + Integer.BYTES;
+
+    private final CsrGraph graph;
+    private final int capacity;
+    private final ThreadLocal<ShortestPathAlgorithm> algorithmPerThread;
+    // the trees in the order they were last used, guarded by this
+    private final LinkedHashMap<Integer, ShortestPathTree> trees;
+    // the searches still running, guarded by this
+    private final Map<Integer, CompletableFuture<ShortestPathTree>> searches = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private ShortestPathTreeCache(CsrGraph graph, int capacity) {
+        this.graph = graph;
+        this.capacity = capacity;
+        this.algorithmPerThread = ThreadLocal.withInitial(() -> ShortestPathAlgorithm.forGraph(graph));
+        this.trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+                if (size() > ShortestPathTreeCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param maxTrees the number of trees kept at most
+     */
+    public static ShortestPathTreeCache withMaxTrees(CsrGraph graph, int maxTrees) {
+        if (maxTrees < 0) {
+            throw new ApplicationException("The number of cached trees can't be negative but was " + maxTrees);
+        }
+        return new ShortestPathTreeCache(graph, maxTrees);
+    }
+
+    /**
+     * @param maxBytes the memory the trees take at most
+     */
+    public static ShortestPathTreeCache withMaxBytes(CsrGraph graph, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new ApplicationException("The size of the cached trees can't be negative but was " + maxBytes);
+        }
+        long treeBytes = Math.max(1, graph.getVertexCount() * BYTES_PER_VERTEX);
+        return new ShortestPathTreeCache(graph, (int) Math.min(Integer.MAX_VALUE, maxBytes / treeBytes));
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the tree of the source from the cache, or from a new search whose tree is added to the cache
+     */
+    @Override
+    public ShortestPathTree getPaths(int source) {
+        CompletableFuture<ShortestPathTree> search;
+        synchronized (this) {
+            ShortestPathTree tree = trees.get(source);
+            if (tree != null) {
+                hits++;
+                return tree;
+            }
+            search = searches.get(source);
+            if (search != null) {
+                hits++;
+            } else {
+                misses++;
+                searches.put(source, new CompletableFuture<>());
+            }
+        }
+        if (search != null) {
+            return await(search);
+        }
+
+        ShortestPathTree tree;
+        try {
+            tree = algorithmPerThread.get().getPaths(source);
+        } catch (RuntimeException | Error e) {
+            CompletableFuture<ShortestPathTree> failed;
+            synchronized (this) {
+                failed = searches.remove(source);
+            }
+            failed.completeExceptionally(e);
+            throw e;
+        }
+        CompletableFuture<ShortestPathTree> done;
+        synchronized (this) {
+            done = searches.remove(source);
+            trees.put(source, tree);
+        }
+        done.complete(tree);
+        return tree;
+    }
+
+    private static ShortestPathTree await(CompletableFuture<ShortestPathTree> search) {
+        try {
+            return search.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of trees kept at most
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    /**
+     * @return the number of requests answered without a search of their own
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of requests that searched the graph
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d of %d trees, %d hits, %d misses, %d evictions", trees.size(), capacity, hits, misses, evictions);
+    }
+}
@@ -0,0 +1,603 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraphBuilder;
+import com.jojos.path.graph.DynamicGraph;
+import com.jojos.path.input.AssertionElement;
+import com.jojos.path.input.GraphChange;
+import com.jojos.path.input.InputRecordHandler;
+import com.jojos.path.input.InputTokenizer;
+import com.jojos.path.output.OutputBuffer;
+import com.jojos.path.output.PathOutputWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Keeps running after the paths of the input are written and refreshes them whenever the input changes, without
+ * parsing the input or searching the paths again from scratch.
+ *
+ * The input file, or every .csv file of the input directory, is watched through a {@link WatchService}. When a file
+ * changes its lines are compared to the ones of the previous load and only the lines that were removed or added are
+ * tokenized. Their edges turn into changes of a {@link DynamicGraph}, whose trees {@link DynamicShortestPaths} keeps
+ * up to date by visiting the affected vertices only. Then only the output rows of the sources whose tree changed are
+ * formatted again, the rows of the other sources are copied from the previous output file into the new one, or with
+ * assertions only the assertions whose outcome changed are logged. An invalid change is logged and skipped, keeping
+ * the results of the last valid version of the file.
+ *
+ * Friends a change adds become sources as well, and so do the sources of new assertions. Without a source every
+ * friend keeps a tree of 12 bytes per friend, so that mode is meant for small networks.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class WatchJob {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final String INPUT_EXTENSION = ".csv";
+    // editors write a file in several steps, so the events of a short period are handled together
+    private static final long SETTLE_MILLIS = 100;
+    // the rows of the previous output are copied through a buffer of this size
+    private static final int COPY_CHUNK_SIZE = 64 * 1024;
+
+    private final Path input;
+    private final Path output;
+    private final boolean directoryInput;
+    private final ParseJob.RunMode runMode;
+    private final String source;
+    private final String target;
+    private final DimensionsWeight dimensionsWeight;
+    private final int parallelism;
+    private final Map<Path, WatchedFile> files = new ConcurrentHashMap<>();
+    private final CountDownLatch watching = new CountDownLatch(1);
+    private final AtomicLong reloads = new AtomicLong();
+    private volatile WatchService watchService;
+    private volatile boolean stopped;
+
+    /**
+     * @param input            the input file or directory
+     * @param output           the output file, or the output directory when the input is a directory
+     * @param runMode          whether the assertions of the files are verified instead of writing output
+     * @param source           the source of the paths or null for all of them
+     * @param target           the target of the paths or null for all of them
+     * @param dimensionsWeight the package the shipping costs are calculated for or null for plain weights
+     * @param parallelism      the number of threads updating the trees of different sources at the same time
+     */
+    public WatchJob(String input,
+                    String output,
+                    ParseJob.RunMode runMode,
+                    String source,
+                    String target,
+                    DimensionsWeight dimensionsWeight,
+                    int parallelism) {
+        this.input = Paths.get(input).toAbsolutePath();
+        this.output = Paths.get(output);
+        this.directoryInput = Files.isDirectory(this.input);
+        this.runMode = runMode;
+        this.source = source;
+        this.target = target;
+        this.dimensionsWeight = dimensionsWeight;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Loads the input and refreshes the results on every change until {@link #stop()} is called
+     */
+    public void run() {
+        Path directory = directoryInput ? input : input.getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot watch %s: %s", directory, e.getMessage()));
+        }
+        try {
+            if (directoryInput && runMode == ParseJob.RunMode.WITHOUT_ASSERTIONS) {
+                createDirectory(output);
+            }
+            for (Path file : inputFiles()) {
+                refresh(file);
+            }
+            log.info("Watching {} for changes", input);
+            watching.countDown();
+            watch();
+        } finally {
+            stop();
+            watching.countDown();
+        }
+    }
+
+    /**
+     * Stops watching, the call to {@link #run()} returns shortly after
+     */
+    public void stop() {
+        stopped = true;
+        WatchService service = watchService;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                log.warn("Cannot close the watch service: {}", e.getMessage());
+            }
+        }
+        for (WatchedFile file : files.values()) {
+            file.paths.shutdown();
+        }
+    }
+
+    /**
+     * Blocks until the input is loaded for the first time and its changes are watched
+     */
+    public void awaitWatching() throws InterruptedException {
+        watching.await();
+    }
+
+    /**
+     * @return the number of times a file was loaded again after a change
+     */
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    private void watch() {
+        try {
+            while (!stopped) {
+                WatchKey key = watchService.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                collectChanges(key, changed);
+                Thread.sleep(SETTLE_MILLIS);
+                while ((key = watchService.poll()) != null) {
+                    collectChanges(key, changed);
+                }
+                for (Path file : changed) {
+                    refresh(file);
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // stopped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void collectChanges(WatchKey key, Set<Path> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // some events were lost, so every file is compared to its previous version
+                changed.addAll(inputFiles());
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (directoryInput ? isInputFile(file) : file.equals(input)) {
+                changed.add(file);
+            }
+        }
+        key.reset();
+    }
+
+    private void refresh(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            WatchedFile watchedFile = files.get(file);
+            if (watchedFile == null) {
+                files.put(file, new WatchedFile(file, readLines(file)));
+                log.info("Loaded {} in {}", file.getFileName(), Util.longDuration(start));
+            } else if (watchedFile.update(readLines(file))) {
+                reloads.incrementAndGet();
+                log.info("Refreshed {} in {}", file.getFileName(), Util.longDuration(start));
+            }
+        } catch (RuntimeException | IOException e) {
+            // the results of the last valid version are kept
+            log.error(String.format("Cannot refresh %s: %s", file.getFileName(), e.getMessage()));
+        }
+    }
+
+    private List<Path> inputFiles() {
+        if (!directoryInput) {
+            return Files.isRegularFile(input) ? Arrays.asList(input) : new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.list(input)) {
+            return paths.filter(this::isInputFile).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot list the files of %s: %s", input, e.getMessage()));
+        }
+    }
+
+    private boolean isInputFile(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(INPUT_EXTENSION) && Files.isRegularFile(file);
+    }
+
+    private static void createDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot create the directory " + directory);
+        }
+    }
+
+    /**
+     * @return the number of times every line that isn't blank appears in the file
+     */
+    private static Map<String, Integer> readLines(Path file) throws IOException {
+        // in the order the lines first appear, so that the vertices get the ids a parse of the file gives them
+        Map<String, Integer> lines = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                lines.merge(line, 1, Integer::sum);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The state of a single input file as of its last valid version
+     */
+    private class WatchedFile {
+        private final Path file;
+        private final Path outputFile;
+        private Map<String, Integer> lines;
+        // the weights of all the lines with an edge between the same vertices, the graph keeping the lightest one
+        private final PairWeights pairWeights = new PairWeights();
+        private final DynamicGraph graph;
+        private final DynamicShortestPaths paths;
+        private int[] sources;
+        // the id of the target, -1 until a version of the file contains it
+        private int targetId = -1;
+        // where the rows of every source start in the output file, followed by where the last ones end
+        private long[] rowOffsets = new long[1];
+        private List<AssertionElement> assertions = new ArrayList<>();
+        private final Map<List<String>, String> assertionResults = new HashMap<>();
+
+        private WatchedFile(Path file, Map<String, Integer> lines) {
+            this.file = file;
+            this.outputFile = runMode == ParseJob.RunMode.WITH_ASSERTIONS ? null
+                    : directoryInput ? output.resolve(file.getFileName()) : output;
+            CsrGraphBuilder builder = new CsrGraphBuilder();
+            InputTokenizer tokenizer = new InputTokenizer(new InputRecordHandler() {
+                @Override
+                public int vertex(byte[] bytes, int offset, int length) {
+                    return builder.addVertex(bytes, offset, length);
+                }
+
+                @Override
+                public void edge(int source, int target, long weight) {
+                    builder.addEdge(source, target, weight);
+                    pairWeights.add(PairWeights.pair(source, target), weight);
+                }
+
+                @Override
+                public void assertion(AssertionElement assertionElement) {
+                    assertions.add(assertionElement);
+                }
+            }, runMode == ParseJob.RunMode.WITH_ASSERTIONS);
+            tokenize(tokenizer, lines.keySet(), lines);
+            this.lines = lines;
+            this.graph = DynamicGraph.of(builder.build());
+
+            if (runMode == ParseJob.RunMode.WITH_ASSERTIONS) {
+                sources = assertionSources();
+                if (sources.length == 0) {
+                    sources = new int[]{vertexIdOrThrow(AssertionElement.DEFAULT_SOURCE)};
+                }
+            } else if (source != null) {
+                sources = new int[]{vertexIdOrThrow(source)};
+            } else {
+                sources = new int[graph.getVertexCount()];
+                for (int s = 0; s < sources.length; s++) {
+                    sources[s] = s;
+                }
+            }
+            this.paths = new DynamicShortestPaths(graph, sources, parallelism);
+            refreshResults(true);
+        }
+
+        /**
+         * Applies the lines removed from and added to the file since its last version
+         *
+         * @return false if the lines of the file didn't change
+         */
+        private boolean update(Map<String, Integer> newLines) {
+            List<String> removed = difference(lines, newLines);
+            List<String> added = difference(newLines, lines);
+            if (removed.isEmpty() && added.isEmpty()) {
+                return false;
+            }
+            // every edge of the changed lines with +1 or -1 for added or removed
+            List<long[]> edges = new ArrayList<>();
+            List<AssertionElement> newAssertions = new ArrayList<>();
+            boolean withAssertions = runMode == ParseJob.RunMode.WITH_ASSERTIONS;
+            int vertexCount = graph.getVertexCount();
+            tokenize(newTokenizer(edges, null, -1), removed, null);
+            tokenize(newTokenizer(edges, null, 1), added, null);
+            if (withAssertions) {
+                // assertions are few and their order matters, so all the assertion lines are read again
+                List<String> assertionLines = newLines.keySet().stream()
+                        .filter(line -> line.startsWith(AssertionElement.ASSERTION_PREFIX))
+                        .collect(Collectors.toList());
+                tokenize(newTokenizer(new ArrayList<>(), newAssertions, 0), assertionLines, newLines);
+            }
+
+            long[] touched = new long[edges.size()];
+            for (int e = 0; e < touched.length; e++) {
+                long[] edge = edges.get(e);
+                long key = PairWeights.pair((int) edge[0], (int) edge[1]);
+                if (edge[3] > 0) {
+                    pairWeights.add(key, Double.longBitsToDouble(edge[2]));
+                } else {
+                    pairWeights.remove(key, Double.longBitsToDouble(edge[2]));
+                }
+                touched[e] = key;
+            }
+            // every pair is applied once, in the order the lines first touched it
+            touched = Arrays.stream(touched).distinct().toArray();
+            paths.clearChanged();
+            long affected = 0;
+            for (long key : touched) {
+                int from = PairWeights.sourceOf(key);
+                int to = PairWeights.targetOf(key);
+                double weight = pairWeights.min(key);
+                double current = graph.getEdgeWeight(from, to);
+                if (weight != current) {
+                    GraphChange.Type type = weight == Double.POSITIVE_INFINITY ? GraphChange.Type.REMOVE
+                            : current == Double.POSITIVE_INFINITY ? GraphChange.Type.ADD : GraphChange.Type.REWEIGHT;
+                    affected += paths.apply(new GraphChange(type, graph.getVertexName(from), graph.getVertexName(to),
+                            weight == Double.POSITIVE_INFINITY ? 0 : weight));
+                }
+            }
+            lines = newLines;
+            int newSources;
+            if (withAssertions) {
+                assertions = newAssertions;
+                newSources = paths.addSources(assertionSources());
+            } else if (source == null) {
+                newSources = paths.addSources(IntStream.range(vertexCount, graph.getVertexCount()).toArray());
+            } else {
+                newSources = 0;
+            }
+            sources = paths.getSources();
+            log.info("{}: {} lines removed, {} lines added, {} edges changed, {} vertices affected, {} new sources",
+                    file.getFileName(), removed.size(), added.size(), touched.length, affected, newSources);
+            refreshResults(false);
+            return true;
+        }
+
+        /**
+         * @param edges      collects the edges as source, target, weight bits and sign
+         * @param assertions collects the assertions or null to skip them
+         */
+        private InputTokenizer newTokenizer(List<long[]> edges, List<AssertionElement> assertions, int sign) {
+            return new InputTokenizer(new InputRecordHandler() {
+                @Override
+                public int vertex(byte[] bytes, int offset, int length) {
+                    return graph.addVertex(new String(bytes, offset, length, StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void edge(int source, int target, long weight) {
+                    edges.add(new long[]{source, target, Double.doubleToLongBits(weight), sign});
+                }
+
+                @Override
+                public void assertion(AssertionElement assertionElement) {
+                    assertions.add(assertionElement);
+                }
+            }, assertions != null);
+        }
+
+        /**
+         * Tokenizes every line as many times as it appears, or once if the counts are null
+         */
+        private void tokenize(InputTokenizer tokenizer, Iterable<String> lines, Map<String, Integer> counts) {
+            for (String line : lines) {
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                for (int i = 0, times = counts == null ? 1 : counts.get(line); i < times; i++) {
+                    tokenizer.tokenizeLine(bytes, 0, bytes.length);
+                }
+            }
+            tokenizer.finish();
+        }
+
+        /**
+         * @return the lines of the first map that appear fewer times in the second, as many times as they're missing
+         */
+        private List<String> difference(Map<String, Integer> from, Map<String, Integer> to) {
+            List<String> difference = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : from.entrySet()) {
+                int missing = entry.getValue() - to.getOrDefault(entry.getKey(), 0);
+                for (int i = 0; i < missing; i++) {
+                    difference.add(entry.getKey());
+                }
+            }
+            return difference;
+        }
+
+        /**
+         * @return the distinct sources of the assertions that are friends of the network
+         */
+        private int[] assertionSources() {
+            return assertions.stream()
+                    .mapToInt(assertion -> graph.getVertexId(assertion.getSource()))
+                    .filter(id -> id >= 0)
+                    .distinct()
+                    .toArray();
+        }
+
+        private int vertexIdOrThrow(String name) {
+            int id = graph.getVertexId(name);
+            if (id < 0) {
+                throw new ApplicationException(String.format("The graph doesn't contain the source vertex %s", name));
+            }
+            return id;
+        }
+
+        private void refreshResults(boolean all) {
+            if (runMode == ParseJob.RunMode.WITH_ASSERTIONS) {
+                verifyAssertions();
+                return;
+            }
+            if (target != null && targetId < 0) {
+                // vertices are never removed, so once the target is found its id stays the same
+                targetId = graph.getVertexId(target);
+            }
+            // the sources added since the last refresh have no rows yet
+            int previousSources = all ? 0 : rowOffsets.length - 1;
+            boolean[] format = new boolean[sources.length];
+            int formatted = 0;
+            for (int i = 0; i < sources.length; i++) {
+                format[i] = i >= previousSources || paths.hasChanged(sources[i]);
+                if (format[i]) {
+                    formatted++;
+                }
+            }
+            if (formatted == 0) {
+                return;
+            }
+            Path temporary = Paths.get(outputFile + ".tmp");
+            long[] offsets = new long[sources.length + 1];
+            try (PathOutputWriter writer = new PathOutputWriter(temporary.toString());
+                 FileChannel previous = all ? null : FileChannel.open(outputFile, StandardOpenOption.READ)) {
+                OutputBuffer buffer = new OutputBuffer();
+                int[] path = new int[graph.getVertexCount()];
+                ByteBuffer chunk = ByteBuffer.allocate(COPY_CHUNK_SIZE);
+                long position = 0;
+                // the rows of the previous output that are copied next, as one run of consecutive sources
+                long copyFrom = 0;
+                long copyTo = 0;
+                for (int i = 0; i < sources.length; i++) {
+                    offsets[i] = position;
+                    if (format[i]) {
+                        copy(previous, copyFrom, copyTo, writer, chunk);
+                        copyFrom = copyTo;
+                        buffer.reset();
+                        appendRows(buffer, sources[i], path);
+                        writer.write(buffer);
+                        position += buffer.size();
+                    } else {
+                        if (copyTo != rowOffsets[i]) {
+                            copy(previous, copyFrom, copyTo, writer, chunk);
+                            copyFrom = rowOffsets[i];
+                        }
+                        copyTo = rowOffsets[i + 1];
+                        position += rowOffsets[i + 1] - rowOffsets[i];
+                    }
+                }
+                copy(previous, copyFrom, copyTo, writer, chunk);
+                offsets[sources.length] = position;
+            } catch (IOException e) {
+                throw new ApplicationException(String.format("Cannot read the previous output %s: %s", outputFile, e.getMessage()));
+            }
+            move(temporary, outputFile);
+            rowOffsets = offsets;
+            log.info("Formatted the rows of {} of {} sources and wrote {}", formatted, sources.length, outputFile);
+        }
+
+        /**
+         * Copies the bytes of the previous output between the two positions to the writer
+         */
+        private void copy(FileChannel previous, long from, long to, PathOutputWriter writer, ByteBuffer chunk) throws IOException {
+            for (long position = from; position < to; ) {
+                chunk.clear();
+                chunk.limit((int) Math.min(chunk.capacity(), to - position));
+                int read = previous.read(chunk, position);
+                if (read < 0) {
+                    throw new IOException("the file is shorter than it was written");
+                }
+                writer.write(chunk.array(), 0, read);
+                position += read;
+            }
+        }
+
+        private void move(Path temporary, Path file) {
+            try {
+                try {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                throw new ApplicationException(String.format("Cannot replace %s: %s", file, e.getMessage()));
+            }
+        }
+
+        private void appendRows(OutputBuffer buffer, int source, int[] path) {
+            ShortestPathTree tree = paths.getPaths(source);
+            int from = 0;
+            int to = graph.getVertexCount();
+            if (target != null) {
+                from = targetId;
+                to = from + 1;
+            }
+            for (int vertex = Math.max(0, from); vertex < to; vertex++) {
+                // exclude self reference nodes even if they have an infinite distance
+                if (vertex == source || !tree.hasPath(vertex)) {
+                    continue;
+                }
+                int length = tree.copyPath(vertex, path);
+                ShortestPathJob.appendLine(buffer, path, length, tree.getWeight(vertex), dimensionsWeight,
+                        graph.getVertexDictionary());
+            }
+        }
+
+        /**
+         * Logs the outcome of every assertion that is new or whose outcome changed
+         */
+        private void verifyAssertions() {
+            Map<List<String>, String> previousResults = new HashMap<>(assertionResults);
+            assertionResults.clear();
+            for (AssertionElement assertion : assertions) {
+                // every source of the assertions that is a friend of the network has a tree
+                int sourceId = graph.getVertexId(assertion.getSource());
+                ShortestPathTree tree = sourceId >= 0 ? paths.getPaths(sourceId) : null;
+                int targetId = graph.getVertexId(assertion.getTarget());
+                double cost = tree != null && tree.hasPath(targetId)
+                        ? Computations.shippingCost(tree.getWeight(targetId), assertion.getPackageDimensions())
+                        : Double.POSITIVE_INFINITY;
+                boolean correct = Double.compare(cost, assertion.getShippingCost()) == 0;
+                String result = String.format("%s -> %s costs %s, %s", assertion.getSource(), assertion.getTarget(), cost,
+                        correct ? "as asserted" : "but the assertion expects " + assertion.getShippingCost());
+                assertionResults.put(assertion.getStatement(), result);
+                if (!Objects.equals(previousResults.get(assertion.getStatement()), result)) {
+                    if (correct) {
+                        log.info(result);
+                    } else {
+                        log.error(result);
+                    }
+                }
+            }
+        }
+    }
+}
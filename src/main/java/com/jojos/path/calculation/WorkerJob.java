@@ -0,0 +1,132 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculates the ranges of sources a {@link DistributedJob} hands over, until the coordinator stops it or
+ * closes the connection.
+ *
+ * Every range is written to the partition file the coordinator names, the same way a {@link ShortestPathJob}
+ * writes those sources to its output. The worker loads the graph on its own, usually from the snapshot the
+ * coordinator saved, so only the ranges and their replies go over the connection. A heartbeat goes to the
+ * coordinator every {@value DistributedJob#HEARTBEAT_INTERVAL_MILLIS} ms for as long as the worker is connected,
+ * so the coordinator can tell a long range from a worker that hangs.
+ *
+ * @author karanikasg@gmail.com
+ * @see DistributedJob
+ */
+public class WorkerJob {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final CsrGraph graph;
+    private final int coordinatorPort;
+    private final String target;
+    private final DimensionsWeight dimensionsWeight;
+    private final int parallelism;
+
+    /**
+     * @param graph            the graph of the coordinator
+     * @param coordinatorPort  the port of the coordinator on the loopback interface
+     * @param target           the target of the paths or null for all the vertices
+     * @param dimensionsWeight the package the shipping costs are calculated for or null for the weights
+     * @param parallelism      the number of threads calculating the paths of a range
+     */
+    public WorkerJob(CsrGraph graph, int coordinatorPort, String target, DimensionsWeight dimensionsWeight, int parallelism) {
+        this.graph = graph;
+        this.coordinatorPort = coordinatorPort;
+        this.target = target;
+        this.dimensionsWeight = dimensionsWeight;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Calculates ranges until the coordinator is done with this worker
+     *
+     * @throws ApplicationException if the coordinator can't be reached
+     */
+    public void run() {
+        long start = System.currentTimeMillis();
+        int ranges = 0;
+        ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinatorPort);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            log.info("Connected to the coordinator on port {}", coordinatorPort);
+            heartbeats.scheduleAtFixedRate(() -> send(writer, DistributedJob.HEARTBEAT),
+                    DistributedJob.HEARTBEAT_INTERVAL_MILLIS, DistributedJob.HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            String line;
+            while ((line = reader.readLine()) != null && !line.equals(DistributedJob.STOP)) {
+                String reply = calculate(line);
+                synchronized (writer) {
+                    writer.write(reply);
+                    writer.write('\n');
+                    writer.flush();
+                }
+                ranges++;
+            }
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot work for the coordinator on port %d: %s",
+                    coordinatorPort, e.getMessage()));
+        } finally {
+            heartbeats.shutdownNow();
+        }
+        log.info("Calculated {} ranges in {}", ranges, Util.longDuration(start));
+    }
+
+    private void send(Writer writer, String line) {
+        synchronized (writer) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            } catch (IOException e) {
+                // the calculating thread finds out on its next reply
+                log.debug("Cannot send {} to the coordinator: {}", line, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param request a line of the form RANGE first end partition_file
+     * @return the reply to the coordinator
+     */
+    private String calculate(String request) {
+        String[] fields = request.split(" ", 4);
+        if (fields.length != 4 || !fields[0].equals(DistributedJob.RANGE)) {
+            return DistributedJob.FAILED + " unknown request " + request;
+        }
+        try {
+            int first = Integer.parseInt(fields[1]);
+            int end = Integer.parseInt(fields[2]);
+            ShortestPathJob.forSourceRange(graph, fields[3], first, end, target, dimensionsWeight, parallelism).run();
+            return String.format("%s %d %d", DistributedJob.DONE, first, end);
+        } catch (NumberFormatException e) {
+            return DistributedJob.FAILED + " unknown request " + request;
+        } catch (ApplicationException e) {
+            log.error("Range {} failed", request, e);
+            return DistributedJob.FAILED + " " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.jojos.path.graph;
+
+import java.util.Arrays;
+
+/**
+ * An immutable weighted directed graph stored in compressed sparse row (CSR) form.
+ *
+ * Vertices are identified by dense int ids in the range [0, vertexCount). The outgoing edges of a vertex v
+ * occupy the edge ids [firstEdge(v), endEdge(v)) and for every edge id e the target vertex and the weight
+ * are found in two parallel primitive arrays. Parallel edges and self loops are allowed.
+ * The names of the vertices are kept in a {@link VertexDictionary}.
+ *
+ * Instances are created through {@link CsrGraphBuilder}. An {@link OffHeapGraph} copies the arrays of a graph
+ * outside the Java heap into an {@link OffHeapCsrGraph}, which is read through the same methods. Only that copy
+ * overrides them, so the graphs on the heap read their arrays directly.
+ *
+ * @author karanikasg@gmail.com
+ *
+ * @see CsrGraphBuilder
+ */
+public class CsrGraph {
+
+    private final VertexDictionary dictionary;
+    private final int vertexCount;
+    private final int edgeCount;
+    // null in a graph off the heap, which reads the arrays of its own
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final double maxEdgeWeight;
+    private final boolean integralWeights;
+    // built on first use, the reverse of the reverse is this graph
+    private volatile CsrGraph reverse;
+
+    CsrGraph(VertexDictionary dictionary, int vertexCount, int[] offsets, int[] targets, double[] weights) {
+        this.dictionary = dictionary;
+        this.vertexCount = vertexCount;
+        this.edgeCount = targets.length;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+
+        double max = 0d;
+        boolean integral = true;
+        for (double weight : weights) {
+            max = Math.max(max, weight);
+            integral &= weight >= 0 && weight == Math.rint(weight);
+        }
+        this.maxEdgeWeight = max;
+        this.integralWeights = integral;
+    }
+
+    /**
+     * A graph whose arrays are kept by the subclass, with the same weights as the graph it's copied from
+     */
+    CsrGraph(VertexDictionary dictionary, int vertexCount, int edgeCount, double maxEdgeWeight, boolean integralWeights) {
+        this.dictionary = dictionary;
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.offsets = null;
+        this.targets = null;
+        this.weights = null;
+        this.maxEdgeWeight = maxEdgeWeight;
+        this.integralWeights = integralWeights;
+    }
+
+    /**
+     * Copies the arrays of this graph off the heap
+     *
+     * @param offHeapDictionary the copy of the dictionary of this graph off the heap
+     */
+    CsrGraph copyOffHeap(VertexDictionary offHeapDictionary) {
+        return OffHeapCsrGraph.copyOf(this, offHeapDictionary);
+    }
+
+    /**
+     * @return true if the arrays of the graph are off the heap
+     */
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    /**
+     * @return the bytes this graph and its reverse, if it was built, hold off the heap
+     */
+    long getOffHeapBytes() {
+        return 0;
+    }
+
+    /**
+     * Frees the memory of this graph and of its reverse, if it was built, when the graph is off the heap
+     */
+    void free() {
+        // nothing is held off the heap
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @param name the name of the vertex
+     * @return the id of the vertex or -1 if the graph doesn't contain a vertex with this name
+     */
+    public int getVertexId(String name) {
+        int id = dictionary.getId(name);
+        return id < vertexCount ? id : -1;
+    }
+
+    public String getVertexName(int vertex) {
+        return dictionary.getName(vertex);
+    }
+
+    public VertexDictionary getVertexDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return the id of the first outgoing edge of the vertex
+     */
+    public int getFirstEdge(int vertex) {
+        return offsets[vertex];
+    }
+
+    /**
+     * @return one past the id of the last outgoing edge of the vertex
+     */
+    public int getEndEdge(int vertex) {
+        return offsets[vertex + 1];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    public double getEdgeWeight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * @return the largest weight of all the edges or 0 if the graph has no edges
+     */
+    public double getMaxEdgeWeight() {
+        return maxEdgeWeight;
+    }
+
+    /**
+     * @return true if every edge weight is a non negative whole number
+     */
+    public boolean hasIntegralWeights() {
+        return integralWeights;
+    }
+
+    /**
+     * The graph with the direction of every edge flipped, sharing the vertex ids and the dictionary of this graph.
+     * The incoming edges of a vertex keep the order of their sources. It's built the first time it's asked for.
+     */
+    public CsrGraph getReverse() {
+        CsrGraph result = reverse;
+        if (result == null) {
+            synchronized (this) {
+                result = reverse;
+                if (result == null) {
+                    result = buildReverse();
+                    result.reverse = this;
+                    reverse = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the reverse if it was already built, otherwise null
+     */
+    CsrGraph getBuiltReverse() {
+        return reverse;
+    }
+
+    /**
+     * @return the reverse of this graph, on the heap
+     */
+    CsrGraph buildReverse() {
+        int[] reverseOffsets = countReverseOffsets();
+        int[] next = Arrays.copyOf(reverseOffsets, vertexCount);
+        int[] reverseTargets = new int[edgeCount];
+        double[] reverseWeights = new double[edgeCount];
+        for (int v = 0; v < vertexCount; v++) {
+            for (int e = offsets[v], end = offsets[v + 1]; e < end; e++) {
+                int slot = next[targets[e]]++;
+                reverseTargets[slot] = v;
+                reverseWeights[slot] = weights[e];
+            }
+        }
+        return new CsrGraph(dictionary, vertexCount, reverseOffsets, reverseTargets, reverseWeights);
+    }
+
+    /**
+     * @return the offsets of the reverse, where the incoming edges of every vertex start
+     */
+    int[] countReverseOffsets() {
+        int[] reverseOffsets = new int[vertexCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            reverseOffsets[getEdgeTarget(e) + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        return reverseOffsets;
+    }
+
+    /**
+     * @return the offsets of a graph on the heap, null if it's off the heap
+     */
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    int[] getTargets() {
+        return targets;
+    }
+
+    double[] getWeights() {
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return "CsrGraph{" +
+                "vertices=" + getVertexCount() +
+                ", edges=" + getEdgeCount() +
+                '}';
+    }
+}
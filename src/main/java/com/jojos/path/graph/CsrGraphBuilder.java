@@ -0,0 +1,146 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+
+import java.util.Arrays;
+
+/**
+ * Collects vertices and edges in the order they are parsed and creates an immutable {@link CsrGraph}.
+ *
+ * Vertex ids are handed out by a {@link VertexDictionary} in the order the vertices are first added.
+ * The edges are kept in growable primitive arrays and are sorted by their source with a stable counting sort
+ * when the graph is built, so the outgoing edges of every vertex keep their insertion order.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class CsrGraphBuilder {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final VertexDictionary dictionary;
+
+    private int[] sources = new int[INITIAL_CAPACITY];
+    private int[] targets = new int[INITIAL_CAPACITY];
+    private double[] weights = new double[INITIAL_CAPACITY];
+    private int edgeCount;
+
+    public CsrGraphBuilder() {
+        this(new VertexDictionary());
+    }
+
+    /**
+     * @param dictionary the dictionary whose ids are used as vertex ids. Every name interned in it becomes a vertex.
+     */
+    public CsrGraphBuilder(VertexDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Adds a vertex if it's not already present
+     *
+     * @param name the name of the vertex
+     * @return the id of the vertex
+     */
+    public int addVertex(String name) {
+        return dictionary.intern(name);
+    }
+
+    /**
+     * Adds the vertex whose name is contained in bytes[offset, offset + length) if it's not already present
+     *
+     * @return the id of the vertex
+     */
+    public int addVertex(byte[] bytes, int offset, int length) {
+        return dictionary.intern(bytes, offset, length);
+    }
+
+    public VertexDictionary getVertexDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Adds a directed edge between two vertices already added to this builder
+     */
+    public void addEdge(int source, int target, double weight) {
+        int vertexCount = dictionary.size();
+        if (source < 0 || source >= vertexCount || target < 0 || target >= vertexCount) {
+            throw new ApplicationException(String.format("Edge %d -> %d refers to an unknown vertex", source, target));
+        }
+        if (!(weight >= 0)) {
+            throw new ApplicationException(String.format("Edge %d -> %d must have a non negative weight but was %s",
+                    source, target, weight));
+        }
+        if (edgeCount == sources.length) {
+            int capacity = sources.length * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        sources[edgeCount] = source;
+        targets[edgeCount] = target;
+        weights[edgeCount] = weight;
+        edgeCount++;
+    }
+
+    /**
+     * Appends the vertices and the edges of another builder. The vertices of the other builder that are new
+     * to this one get their ids in the order of the ids they had in the other builder.
+     */
+    public void addAll(CsrGraphBuilder other) {
+        VertexDictionary names = other.dictionary;
+        int[] ids = new int[names.size()];
+        byte[] name = new byte[64];
+        for (int id = 0; id < ids.length; id++) {
+            int length = names.getNameLength(id);
+            if (length > name.length) {
+                name = new byte[Math.max(length, name.length * 2)];
+            }
+            names.copyName(id, name, 0);
+            ids[id] = dictionary.intern(name, 0, length);
+        }
+        for (int e = 0; e < other.edgeCount; e++) {
+            addEdge(ids[other.sources[e]], ids[other.targets[e]], other.weights[e]);
+        }
+    }
+
+    public CsrGraph build() {
+        int vertexCount = dictionary.size();
+        int[] offsets = countOffsets();
+        int[] csrTargets = new int[edgeCount];
+        double[] csrWeights = new double[edgeCount];
+        int[] next = Arrays.copyOf(offsets, vertexCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int position = next[sources[e]]++;
+            csrTargets[position] = targets[e];
+            csrWeights[position] = weights[e];
+        }
+
+        return new CsrGraph(dictionary, vertexCount, offsets, csrTargets, csrWeights);
+    }
+
+    /**
+     * Creates the graph outside the Java heap, sorting the edges straight into it, so that the arrays of the graph
+     * are never allocated on the heap. The names are copied off the heap as well. The builder isn't needed
+     * afterwards and can be dropped.
+     *
+     * @throws ApplicationException if there isn't enough direct memory
+     */
+    public OffHeapGraph buildOffHeap() {
+        return OffHeapGraph.sortedFrom(dictionary, countOffsets(), sources, targets, weights, edgeCount);
+    }
+
+    /**
+     * @return the first edge of every vertex once the edges are sorted by their source, followed by the number of edges
+     */
+    private int[] countOffsets() {
+        int vertexCount = dictionary.size();
+        int[] offsets = new int[vertexCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            offsets[sources[e] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        return offsets;
+    }
+}
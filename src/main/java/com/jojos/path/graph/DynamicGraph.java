@@ -0,0 +1,281 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+
+import java.util.Arrays;
+
+/**
+ * A weighted directed graph whose edges can be added, removed and reweighted after it's built, the counterpart
+ * of the immutable {@link CsrGraph} for networks that change over time.
+ *
+ * Every vertex keeps its outgoing and its incoming edges in growable primitive arrays, so a change costs time
+ * proportional to the degree of its two vertices and not to the size of the graph. There's at most one edge from
+ * a vertex to another: parallel edges of the graph it's created from collapse to the lightest one, which is the only
+ * one shortest paths take. The dictionary of the original graph is shared until the first new vertex, which is
+ * interned in a copy of it so that the original graph never changes.
+ *
+ * Changes are not thread safe. Between changes the graph can be read from many threads.
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class DynamicGraph {
+
+    private static final int INITIAL_DEGREE = 2;
+    private static final int[] NO_VERTICES = new int[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+
+    private VertexDictionary dictionary;
+    // false while the dictionary is the one of the original graph
+    private boolean ownsDictionary;
+    private int vertexCount;
+    private int edgeCount;
+    private int[] outDegrees;
+    private int[][] outTargets;
+    private double[][] outWeights;
+    private int[] inDegrees;
+    private int[][] inSources;
+    private double[][] inWeights;
+
+    private DynamicGraph(VertexDictionary dictionary, int vertexCount) {
+        this.dictionary = dictionary;
+        this.vertexCount = vertexCount;
+        int capacity = Math.max(vertexCount, 1);
+        outDegrees = new int[capacity];
+        outTargets = new int[capacity][];
+        outWeights = new double[capacity][];
+        inDegrees = new int[capacity];
+        inSources = new int[capacity][];
+        inWeights = new double[capacity][];
+        Arrays.fill(outTargets, NO_VERTICES);
+        Arrays.fill(outWeights, NO_WEIGHTS);
+        Arrays.fill(inSources, NO_VERTICES);
+        Arrays.fill(inWeights, NO_WEIGHTS);
+    }
+
+    /**
+     * @return a graph with the vertices and the edges of the graph, which isn't modified
+     */
+    public static DynamicGraph of(CsrGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        DynamicGraph dynamicGraph = new DynamicGraph(graph.getVertexDictionary(), vertexCount);
+        // the position of the edge to every target among the outgoing edges of the current vertex
+        int[] lastSources = new int[vertexCount];
+        int[] positions = new int[vertexCount];
+        Arrays.fill(lastSources, -1);
+        for (int v = 0; v < vertexCount; v++) {
+            for (int e = graph.getFirstEdge(v), end = graph.getEndEdge(v); e < end; e++) {
+                int target = graph.getEdgeTarget(e);
+                double weight = graph.getEdgeWeight(e);
+                if (lastSources[target] != v) {
+                    lastSources[target] = v;
+                    positions[target] = dynamicGraph.outDegrees[v];
+                    dynamicGraph.appendOut(v, target, weight);
+                    dynamicGraph.edgeCount++;
+                } else if (weight < dynamicGraph.outWeights[v][positions[target]]) {
+                    dynamicGraph.outWeights[v][positions[target]] = weight;
+                }
+            }
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            for (int i = 0; i < dynamicGraph.outDegrees[v]; i++) {
+                dynamicGraph.appendIn(dynamicGraph.outTargets[v][i], v, dynamicGraph.outWeights[v][i]);
+            }
+        }
+        return dynamicGraph;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @return the id of the vertex or -1 if the graph doesn't contain a vertex with this name
+     */
+    public int getVertexId(String name) {
+        int id = dictionary.getId(name);
+        return id < vertexCount ? id : -1;
+    }
+
+    public String getVertexName(int vertex) {
+        return dictionary.getName(vertex);
+    }
+
+    public VertexDictionary getVertexDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Adds a vertex without edges if it's not already present
+     *
+     * @return the id of the vertex
+     */
+    public int addVertex(String name) {
+        int id = getVertexId(name);
+        if (id >= 0) {
+            return id;
+        }
+        if (!ownsDictionary) {
+            dictionary = dictionary.copy();
+            ownsDictionary = true;
+        }
+        id = dictionary.intern(name);
+        if (id >= vertexCount) {
+            vertexCount = id + 1;
+            if (vertexCount > outDegrees.length) {
+                grow(Math.max(vertexCount, outDegrees.length * 2));
+            }
+        }
+        return id;
+    }
+
+    public int getOutDegree(int vertex) {
+        return outDegrees[vertex];
+    }
+
+    /**
+     * @return the target of the i-th outgoing edge of the vertex
+     */
+    public int getOutTarget(int vertex, int i) {
+        return outTargets[vertex][i];
+    }
+
+    public double getOutWeight(int vertex, int i) {
+        return outWeights[vertex][i];
+    }
+
+    public int getInDegree(int vertex) {
+        return inDegrees[vertex];
+    }
+
+    /**
+     * @return the source of the i-th incoming edge of the vertex
+     */
+    public int getInSource(int vertex, int i) {
+        return inSources[vertex][i];
+    }
+
+    public double getInWeight(int vertex, int i) {
+        return inWeights[vertex][i];
+    }
+
+    /**
+     * @return the weight of the edge or {@link Double#POSITIVE_INFINITY} if there's no edge between the vertices
+     */
+    public double getEdgeWeight(int source, int target) {
+        int i = indexOf(outTargets[source], outDegrees[source], target);
+        return i < 0 ? Double.POSITIVE_INFINITY : outWeights[source][i];
+    }
+
+    /**
+     * Adds the edge or changes its weight if it's already present
+     *
+     * @return the previous weight of the edge or {@link Double#POSITIVE_INFINITY} if it wasn't present
+     */
+    public double setEdge(int source, int target, double weight) {
+        checkVertex(source);
+        checkVertex(target);
+        if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+            throw new ApplicationException(String.format("Edge %d -> %d must have a finite non negative weight but was %s",
+                    source, target, weight));
+        }
+        int out = indexOf(outTargets[source], outDegrees[source], target);
+        if (out >= 0) {
+            double previous = outWeights[source][out];
+            outWeights[source][out] = weight;
+            inWeights[target][indexOf(inSources[target], inDegrees[target], source)] = weight;
+            return previous;
+        }
+        appendOut(source, target, weight);
+        appendIn(target, source, weight);
+        edgeCount++;
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return the weight of the removed edge or {@link Double#POSITIVE_INFINITY} if there was no edge to remove
+     */
+    public double removeEdge(int source, int target) {
+        checkVertex(source);
+        checkVertex(target);
+        int out = indexOf(outTargets[source], outDegrees[source], target);
+        if (out < 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double previous = outWeights[source][out];
+        // the last edge takes the place of the removed one
+        int last = --outDegrees[source];
+        outTargets[source][out] = outTargets[source][last];
+        outWeights[source][out] = outWeights[source][last];
+        int in = indexOf(inSources[target], inDegrees[target], source);
+        last = --inDegrees[target];
+        inSources[target][in] = inSources[target][last];
+        inWeights[target][in] = inWeights[target][last];
+        edgeCount--;
+        return previous;
+    }
+
+    private void appendOut(int source, int target, double weight) {
+        int degree = outDegrees[source];
+        if (degree == outTargets[source].length) {
+            int capacity = Math.max(INITIAL_DEGREE, degree * 2);
+            outTargets[source] = Arrays.copyOf(outTargets[source], capacity);
+            outWeights[source] = Arrays.copyOf(outWeights[source], capacity);
+        }
+        outTargets[source][degree] = target;
+        outWeights[source][degree] = weight;
+        outDegrees[source]++;
+    }
+
+    private void appendIn(int target, int source, double weight) {
+        int degree = inDegrees[target];
+        if (degree == inSources[target].length) {
+            int capacity = Math.max(INITIAL_DEGREE, degree * 2);
+            inSources[target] = Arrays.copyOf(inSources[target], capacity);
+            inWeights[target] = Arrays.copyOf(inWeights[target], capacity);
+        }
+        inSources[target][degree] = source;
+        inWeights[target][degree] = weight;
+        inDegrees[target]++;
+    }
+
+    private void grow(int capacity) {
+        int previous = outDegrees.length;
+        outDegrees = Arrays.copyOf(outDegrees, capacity);
+        outTargets = Arrays.copyOf(outTargets, capacity);
+        outWeights = Arrays.copyOf(outWeights, capacity);
+        inDegrees = Arrays.copyOf(inDegrees, capacity);
+        inSources = Arrays.copyOf(inSources, capacity);
+        inWeights = Arrays.copyOf(inWeights, capacity);
+        Arrays.fill(outTargets, previous, capacity, NO_VERTICES);
+        Arrays.fill(outWeights, previous, capacity, NO_WEIGHTS);
+        Arrays.fill(inSources, previous, capacity, NO_VERTICES);
+        Arrays.fill(inWeights, previous, capacity, NO_WEIGHTS);
+    }
+
+    private void checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= vertexCount) {
+            throw new ApplicationException(String.format("Vertex %d is not part of the graph", vertex));
+        }
+    }
+
+    private static int indexOf(int[] vertices, int degree, int vertex) {
+        for (int i = 0; i < degree; i++) {
+            if (vertices[i] == vertex) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "DynamicGraph{" +
+                "vertices=" + getVertexCount() +
+                ", edges=" + getEdgeCount() +
+                '}';
+    }
+}
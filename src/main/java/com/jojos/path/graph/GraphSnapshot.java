@@ -0,0 +1,509 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A binary snapshot of a parsed {@link CsrGraph}, together with the assertion statements of its input.
+ *
+ * The snapshot is a fixed header followed by a body that holds the arrays of the graph and of its
+ * {@link VertexDictionary}, including the hash table of the dictionary, exactly as they are kept in memory.
+ * Loading a snapshot memory maps the file and bulk copies every array out of it, so nothing is parsed,
+ * hashed or sorted again. The arrays of the graph and of the dictionary are laid out the way an {@link OffHeapGraph}
+ * keeps them, so a snapshot is loaded off the heap by copying both parts of the body to a block each, without
+ * any array on the heap. All the numbers are little endian.
+ *
+ * <pre>
+ * header  magic, version, flags, input size, input last modified, body length, CRC32 of the body
+ * body    vertex count, edge count, name count, arena size, table length, assertion count,
+ *         double[edges] weights, int[vertices + 1] offsets, int[edges] targets,
+ *         int[names + 1] name offsets, int[names] name hashes, int[table length] table, byte[arena size] arena,
+ *         every assertion as the number of its fields and as many length prefixed UTF-8 strings
+ * </pre>
+ *
+ * The size and the last modification time of the input are recorded so that a snapshot of an input that
+ * changed since is recognized as stale and parsed again. Snapshots are written to a temporary file that
+ * is moved in place once it's complete.
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class GraphSnapshot {
+
+    public static final int VERSION = 2;
+
+    // "SPSNAP" followed by two zero bytes, read as a little endian long
+    private static final long MAGIC = 0x0000_5041_4e53_5053L;
+    private static final int HEADER_SIZE = 48;
+    private static final int FLAG_ASSERTIONS = 1;
+    // the source, target, package and cost
+    private static final int MAX_ASSERTION_FIELDS = 4;
+    private static final int BUFFER_SIZE = 1 << 20;
+    // the largest part of the snapshot mapped at once
+    private static final int MAPPING_WINDOW = 64 * 1024 * 1024;
+
+    private final CsrGraph graph;
+    private final OffHeapGraph offHeapGraph;
+    private final List<List<String>> assertions;
+
+    private GraphSnapshot(CsrGraph graph, OffHeapGraph offHeapGraph, List<List<String>> assertions) {
+        this.graph = graph;
+        this.offHeapGraph = offHeapGraph;
+        this.assertions = assertions;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return the owner of the graph if it was loaded off the heap, null otherwise
+     */
+    public OffHeapGraph getOffHeapGraph() {
+        return offHeapGraph;
+    }
+
+    /**
+     * @return the statement of every assertion or null if the snapshot was saved without assertions
+     */
+    public List<List<String>> getAssertions() {
+        return assertions;
+    }
+
+    /**
+     * Saves the graph and the assertions of an input
+     *
+     * @param file              the snapshot file, replaced if it exists
+     * @param graph             the graph parsed from the input
+     * @param assertions        the statement of every assertion, as the fields of its line after the @, or null if the assertions weren't parsed
+     * @param inputSize         the size of the input in bytes
+     * @param inputLastModified the last modification time of the input in milliseconds
+     */
+    public static void write(Path file,
+                             CsrGraph graph,
+                             List<List<String>> assertions,
+                             long inputSize,
+                             long inputLastModified) throws IOException {
+        Path temporary = Paths.get(file.toString() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = new Writer(channel);
+            VertexDictionary dictionary = graph.getVertexDictionary();
+            int names = dictionary.size();
+            int edges = graph.getEdgeCount();
+            List<List<String>> statements = assertions == null ? Collections.emptyList() : assertions;
+
+            writer.putInt(graph.getVertexCount());
+            writer.putInt(edges);
+            writer.putInt(names);
+            writer.putInt(dictionary.getArenaSize());
+            writer.putInt(dictionary.tableLength());
+            writer.putInt(statements.size());
+            if (graph.isOffHeap()) {
+                putOffHeap(writer, graph);
+            } else {
+                writer.putDoubles(graph.getWeights(), edges);
+                writer.putInts(graph.getOffsets(), graph.getVertexCount() + 1);
+                writer.putInts(graph.getTargets(), edges);
+                writer.putInts(dictionary.getOffsets(), names + 1);
+                writer.putInts(dictionary.getHashes(), names);
+                writer.putInts(dictionary.getTable(), dictionary.getTable().length);
+                writer.putBytes(dictionary.getArena(), dictionary.getArenaSize());
+            }
+            for (List<String> statement : statements) {
+                writer.putInt(statement.size());
+                for (String value : statement) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    writer.putInt(bytes.length);
+                    writer.putBytes(bytes, bytes.length);
+                }
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(assertions == null ? 0 : FLAG_ASSERTIONS)
+                    .putLong(inputSize)
+                    .putLong(inputLastModified)
+                    .putLong(writer.bodyLength)
+                    .putLong(writer.crc.getValue())
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the arrays of a graph off the heap value by value, in the same layout as the ones of a graph on the heap
+     */
+    private static void putOffHeap(Writer writer, CsrGraph graph) throws IOException {
+        VertexDictionary dictionary = graph.getVertexDictionary();
+        int vertexCount = graph.getVertexCount();
+        int edges = graph.getEdgeCount();
+        for (int e = 0; e < edges; e++) {
+            writer.putDouble(graph.getEdgeWeight(e));
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            writer.putInt(graph.getFirstEdge(v));
+        }
+        writer.putInt(edges);
+        for (int e = 0; e < edges; e++) {
+            writer.putInt(graph.getEdgeTarget(e));
+        }
+        for (int id = 0; id <= dictionary.size(); id++) {
+            writer.putInt(dictionary.offsetAt(id));
+        }
+        for (int id = 0; id < dictionary.size(); id++) {
+            writer.putInt(dictionary.hashAt(id));
+        }
+        for (int slot = 0; slot < dictionary.tableLength(); slot++) {
+            writer.putInt(dictionary.idAt(slot));
+        }
+        for (int i = 0; i < dictionary.getArenaSize(); i++) {
+            writer.putByte(dictionary.arenaAt(i));
+        }
+    }
+
+    /**
+     * Loads the snapshot on the heap if it was saved for an input of the given size and modification time,
+     * with the assertions if they are needed
+     *
+     * @return the snapshot or null if there is no snapshot, it's of another version or it's stale
+     * @throws ApplicationException if the snapshot is corrupt
+     */
+    public static GraphSnapshot readIfCurrent(Path file,
+                                              long inputSize,
+                                              long inputLastModified,
+                                              boolean withAssertions) throws IOException {
+        return readIfCurrent(file, inputSize, inputLastModified, withAssertions, false);
+    }
+
+    /**
+     * Loads the snapshot if it was saved for an input of the given size and modification time, with the assertions
+     * if they are needed, and off the heap if asked to. The graph off the heap is owned by the snapshot, see
+     * {@link #getOffHeapGraph()}. On a big endian platform it's loaded on the heap and copied off it.
+     *
+     * @return the snapshot or null if there is no snapshot, it's of another version or it's stale
+     * @throws ApplicationException if the snapshot is corrupt or there isn't enough direct memory
+     */
+    public static GraphSnapshot readIfCurrent(Path file,
+                                              long inputSize,
+                                              long inputLastModified,
+                                              boolean withAssertions,
+                                              boolean offHeap) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // keep reading until the header is complete
+            }
+            header.flip();
+            if (header.getLong() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+            int flags = header.getInt();
+            if (header.getLong() != inputSize || header.getLong() != inputLastModified) {
+                return null;
+            }
+            if (withAssertions && (flags & FLAG_ASSERTIONS) == 0) {
+                return null;
+            }
+            long bodyLength = header.getLong();
+            long checksum = header.getLong();
+            if (channel.size() != HEADER_SIZE + bodyLength) {
+                throw new ApplicationException(String.format("Snapshot %s is truncated", file));
+            }
+            boolean bulkOffHeap = offHeap && ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+            GraphSnapshot snapshot = read(file, channel, bodyLength, checksum, (flags & FLAG_ASSERTIONS) != 0, bulkOffHeap);
+            if (offHeap && !bulkOffHeap) {
+                OffHeapGraph copy = OffHeapGraph.copyOf(snapshot.graph);
+                return new GraphSnapshot(copy.getGraph(), copy, snapshot.assertions);
+            }
+            return snapshot;
+        }
+    }
+
+    private static GraphSnapshot read(Path file,
+                                      FileChannel channel,
+                                      long bodyLength,
+                                      long checksum,
+                                      boolean withAssertions,
+                                      boolean offHeap) throws IOException {
+        Reader reader = new Reader(channel, HEADER_SIZE + bodyLength);
+        try {
+            int vertexCount = reader.getInt();
+            int edges = reader.getInt();
+            int names = reader.getInt();
+            int arenaSize = reader.getInt();
+            int tableLength = reader.getInt();
+            int assertionCount = reader.getInt();
+            if (vertexCount < 0 || edges < 0 || names < 0 || arenaSize < 0 || assertionCount < 0
+                    || tableLength <= names || Integer.bitCount(tableLength) != 1
+                    || 24L + 12L * edges + 4L * (vertexCount + 1) + 8L * names + 4 + 4L * tableLength + arenaSize > bodyLength) {
+                throw new ApplicationException(String.format("Snapshot %s is corrupt", file));
+            }
+
+            CsrGraph graph;
+            OffHeapGraph offHeapGraph = null;
+            if (offHeap) {
+                OffHeapBlock graphBlock = new OffHeapBlock(OffHeapCsrGraph.sizeOf(vertexCount, edges));
+                reader.copyTo(graphBlock);
+                OffHeapBlock dictionaryBlock = new OffHeapBlock(OffHeapVertexDictionary.sizeOf(names, arenaSize, tableLength));
+                reader.copyTo(dictionaryBlock);
+                VertexDictionary dictionary = OffHeapVertexDictionary.wrap(dictionaryBlock, names, arenaSize, tableLength);
+                offHeapGraph = new OffHeapGraph(OffHeapCsrGraph.wrap(dictionary, vertexCount, edges, graphBlock));
+                graph = offHeapGraph.getGraph();
+            } else {
+                double[] weights = reader.getDoubles(edges);
+                int[] offsets = reader.getInts(vertexCount + 1);
+                int[] targets = reader.getInts(edges);
+                int[] nameOffsets = reader.getInts(names + 1);
+                int[] hashes = reader.getInts(names);
+                int[] table = reader.getInts(tableLength);
+                byte[] arena = reader.getBytes(arenaSize);
+                graph = new CsrGraph(new VertexDictionary(arena, nameOffsets, hashes, table), vertexCount, offsets, targets, weights);
+            }
+
+            List<List<String>> assertions = null;
+            if (withAssertions) {
+                assertions = new ArrayList<>(assertionCount);
+                for (int i = 0; i < assertionCount; i++) {
+                    int fields = reader.getInt();
+                    if (fields < 0 || fields > MAX_ASSERTION_FIELDS) {
+                        throw new ApplicationException(String.format("Snapshot %s is corrupt", file));
+                    }
+                    String[] statement = new String[fields];
+                    for (int j = 0; j < statement.length; j++) {
+                        statement[j] = new String(reader.getBytes(reader.getInt()), StandardCharsets.UTF_8);
+                    }
+                    assertions.add(Arrays.asList(statement));
+                }
+            }
+            reader.finish();
+            if (reader.position != HEADER_SIZE + bodyLength || reader.crc.getValue() != checksum) {
+                throw new ApplicationException(String.format("Snapshot %s is corrupt, its checksum doesn't match", file));
+            }
+
+            return new GraphSnapshot(graph, offHeapGraph, assertions);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new ApplicationException(String.format("Snapshot %s is corrupt", file));
+        }
+    }
+
+    /**
+     * Writes the body through a reusable direct buffer and keeps the checksum of everything written
+     */
+    private static class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+        private long bodyLength;
+
+        Writer(FileChannel channel) throws IOException {
+            this.channel = channel;
+            channel.position(HEADER_SIZE);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInts(int[] values, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                ensure(Integer.BYTES);
+                int count = Math.min(length - offset, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        void putDoubles(double[] values, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                ensure(Double.BYTES);
+                int count = Math.min(length - offset, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, offset, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                offset += count;
+            }
+        }
+
+        void putBytes(byte[] values, int length) throws IOException {
+            int offset = 0;
+            while (offset < length) {
+                ensure(1);
+                int count = Math.min(length - offset, buffer.remaining());
+                buffer.put(values, offset, count);
+                offset += count;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            bodyLength += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the body through windows mapped one after the other and keeps the checksum of everything read
+     */
+    private static class Reader {
+        private final FileChannel channel;
+        private final long end;
+        private final CRC32 crc = new CRC32();
+        private MappedByteBuffer window;
+        // the position of the file where the current window starts
+        private long position = HEADER_SIZE;
+
+        Reader(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        int[] getInts(int length) throws IOException {
+            int[] values = new int[length];
+            int offset = 0;
+            while (offset < length) {
+                ensure(Integer.BYTES);
+                int count = Math.min(length - offset, window.remaining() / Integer.BYTES);
+                window.asIntBuffer().get(values, offset, count);
+                window.position(window.position() + count * Integer.BYTES);
+                offset += count;
+            }
+            return values;
+        }
+
+        double[] getDoubles(int length) throws IOException {
+            double[] values = new double[length];
+            int offset = 0;
+            while (offset < length) {
+                ensure(Double.BYTES);
+                int count = Math.min(length - offset, window.remaining() / Double.BYTES);
+                window.asDoubleBuffer().get(values, offset, count);
+                window.position(window.position() + count * Double.BYTES);
+                offset += count;
+            }
+            return values;
+        }
+
+        /**
+         * Copies as many of the next bytes as the block holds to the block
+         */
+        void copyTo(OffHeapBlock block) throws IOException {
+            long copied = 0;
+            while (copied < block.size()) {
+                ensure(1);
+                int count = (int) Math.min(block.size() - copied, window.remaining());
+                ByteBuffer part = window.duplicate();
+                part.limit(part.position() + count);
+                block.putBytes(copied, part);
+                window.position(window.position() + count);
+                copied += count;
+            }
+        }
+
+        byte[] getBytes(int length) throws IOException {
+            long remaining = end - position - (window == null ? 0 : window.position());
+            if (length < 0 || length > remaining) {
+                throw new IndexOutOfBoundsException("The snapshot ends before its content");
+            }
+            byte[] values = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                ensure(1);
+                int count = Math.min(length - offset, window.remaining());
+                window.get(values, offset, count);
+                offset += count;
+            }
+            return values;
+        }
+
+        /**
+         * Maps the next window right after the bytes read so far if the current one doesn't have enough bytes left
+         */
+        private void ensure(int bytes) throws IOException {
+            if (window != null && window.remaining() >= bytes) {
+                return;
+            }
+            finish();
+            long length = Math.min(MAPPING_WINDOW, end - position);
+            if (length < bytes) {
+                throw new IndexOutOfBoundsException("The snapshot ends before its content");
+            }
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Adds the bytes read from the current window to the checksum
+         */
+        void finish() {
+            if (window == null) {
+                return;
+            }
+            int read = window.position();
+            window.flip();
+            crc.update(window);
+            position += read;
+            window = null;
+        }
+    }
+}
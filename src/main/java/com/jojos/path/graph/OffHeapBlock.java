@@ -0,0 +1,157 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed size block of memory outside the Java heap, addressed by long byte offsets.
+ *
+ * The block is made of direct buffers of up to 1GB each, so it may be larger than a single buffer. Ints and
+ * doubles are read at offsets that are multiples of their size, so a value never spans two buffers, while bytes
+ * may. Freeing the block drops its buffers, so reading it afterwards throws, and the garbage collector gives
+ * their memory back once no thread reads them anymore. The memory is never released explicitly, since a thread
+ * that is still reading a buffer freed that way would crash the JVM instead of failing with an exception.
+ *
+ * @author karanikasg@gmail.com
+ */
+final class OffHeapBlock {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final long size;
+    private ByteBuffer[] segments;
+    // blocks of up to 1GB, which are most of them, are read without looking the buffer up
+    private ByteBuffer single;
+
+    /**
+     * @param size the size of the block in bytes
+     * @throws ApplicationException if there isn't enough direct memory
+     */
+    OffHeapBlock(long size) {
+        this.size = size;
+        int count = (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        segments = new ByteBuffer[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                int length = (int) Math.min(SEGMENT_SIZE, size - ((long) i << SEGMENT_SHIFT));
+                segments[i] = ByteBuffer.allocateDirect(length).order(ByteOrder.nativeOrder());
+            }
+            single = count == 1 ? segments[0] : null;
+        } catch (OutOfMemoryError e) {
+            free();
+            throw new ApplicationException(String.format("Cannot allocate %d bytes off the heap, "
+                    + "-XX:MaxDirectMemorySize may be too low: %s", size, e.getMessage()));
+        }
+    }
+
+    /**
+     * @return the size of the block in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    int getInt(long offset) {
+        ByteBuffer buffer = single;
+        if (buffer != null) {
+            return buffer.getInt((int) offset);
+        }
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) offset & SEGMENT_MASK);
+    }
+
+    void putInt(long offset, int value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putInt((int) offset & SEGMENT_MASK, value);
+    }
+
+    double getDouble(long offset) {
+        ByteBuffer buffer = single;
+        if (buffer != null) {
+            return buffer.getDouble((int) offset);
+        }
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getDouble((int) offset & SEGMENT_MASK);
+    }
+
+    void putDouble(long offset, double value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putDouble((int) offset & SEGMENT_MASK, value);
+    }
+
+    byte getByte(long offset) {
+        ByteBuffer buffer = single;
+        if (buffer != null) {
+            return buffer.get((int) offset);
+        }
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) offset & SEGMENT_MASK);
+    }
+
+    /**
+     * Copies the first values of the array to the block, starting at the offset
+     */
+    void putInts(long offset, int[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            putInt(offset + ((long) i << 2), values[i]);
+        }
+    }
+
+    void putDoubles(long offset, double[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            putDouble(offset + ((long) i << 3), values[i]);
+        }
+    }
+
+    void putBytes(long offset, byte[] values, int length) {
+        int copied = 0;
+        while (copied < length) {
+            ByteBuffer segment = segments[(int) ((offset + copied) >>> SEGMENT_SHIFT)].duplicate();
+            int position = (int) (offset + copied) & SEGMENT_MASK;
+            int count = Math.min(length - copied, segment.capacity() - position);
+            segment.position(position);
+            segment.put(values, copied, count);
+            copied += count;
+        }
+    }
+
+    /**
+     * Copies the remaining bytes of the source to the block, starting at the offset, and consumes them
+     */
+    void putBytes(long offset, ByteBuffer source) {
+        long position = offset;
+        while (source.hasRemaining()) {
+            ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+            segment.position((int) position & SEGMENT_MASK);
+            int count = Math.min(source.remaining(), segment.remaining());
+            ByteBuffer part = source.duplicate();
+            part.limit(part.position() + count);
+            segment.put(part);
+            source.position(source.position() + count);
+            position += count;
+        }
+    }
+
+    /**
+     * Copies bytes of the block, which may span two buffers, to the destination array
+     */
+    void getBytes(long offset, byte[] destination, int destinationOffset, int length) {
+        int copied = 0;
+        while (copied < length) {
+            ByteBuffer segment = segments[(int) ((offset + copied) >>> SEGMENT_SHIFT)].duplicate();
+            int position = (int) (offset + copied) & SEGMENT_MASK;
+            int count = Math.min(length - copied, segment.capacity() - position);
+            segment.position(position);
+            segment.get(destination, destinationOffset + copied, count);
+            copied += count;
+        }
+    }
+
+    /**
+     * Drops the buffers of the block so that reading it afterwards throws. Their memory is given back by the
+     * garbage collector once the threads that may still be reading them are done with them.
+     */
+    void free() {
+        segments = new ByteBuffer[0];
+        single = null;
+    }
+}
@@ -0,0 +1,156 @@
+package com.jojos.path.graph;
+
+import java.util.Arrays;
+
+/**
+ * A {@link CsrGraph} whose weights, offsets and targets are kept in a single {@link OffHeapBlock}, in this order
+ * since the weights are aligned to 8 bytes. The reverse of the graph is built off the heap as well.
+ *
+ * Instances are only created for an {@link OffHeapGraph}, straight from the edges of a {@link CsrGraphBuilder}, from a
+ * {@link GraphSnapshot} or as a copy of a graph on the heap, so the class isn't even loaded unless a graph is kept
+ * off the heap and the searches over the graphs on the heap read their arrays without going through it.
+ *
+ * @author karanikasg@gmail.com
+ */
+final class OffHeapCsrGraph extends CsrGraph {
+
+    private final OffHeapBlock block;
+    private final long offsetsAt;
+    private final long targetsAt;
+
+    private OffHeapCsrGraph(VertexDictionary dictionary, int vertexCount, int edgeCount, double maxEdgeWeight,
+                            boolean integralWeights, OffHeapBlock block) {
+        super(dictionary, vertexCount, edgeCount, maxEdgeWeight, integralWeights);
+        this.block = block;
+        this.offsetsAt = (long) edgeCount * Double.BYTES;
+        this.targetsAt = offsetsAt + (long) (vertexCount + 1) * Integer.BYTES;
+    }
+
+    /**
+     * @param graph             a graph on the heap
+     * @param offHeapDictionary the copy of the dictionary of the graph off the heap
+     */
+    static OffHeapCsrGraph copyOf(CsrGraph graph, VertexDictionary offHeapDictionary) {
+        int vertexCount = graph.getVertexCount();
+        int edgeCount = graph.getEdgeCount();
+        OffHeapCsrGraph copy = new OffHeapCsrGraph(offHeapDictionary, vertexCount, edgeCount, graph.getMaxEdgeWeight(),
+                graph.hasIntegralWeights(), new OffHeapBlock(sizeOf(vertexCount, edgeCount)));
+        copy.block.putDoubles(0, graph.getWeights(), edgeCount);
+        copy.block.putInts(copy.offsetsAt, graph.getOffsets(), vertexCount + 1);
+        copy.block.putInts(copy.targetsAt, graph.getTargets(), edgeCount);
+        return copy;
+    }
+
+    /**
+     * Sorts the edges by their source straight into the block, the same way {@link CsrGraphBuilder#build()} sorts
+     * them into the arrays of a graph on the heap, so the outgoing edges of every vertex keep their order
+     *
+     * @param offHeapDictionary the dictionary of the vertices off the heap
+     * @param offsets           the first edge of every vertex once sorted, followed by the number of edges
+     */
+    static OffHeapCsrGraph sortedFrom(VertexDictionary offHeapDictionary, int[] offsets,
+                                      int[] sources, int[] targets, double[] weights, int edgeCount) {
+        int vertexCount = offsets.length - 1;
+        double max = 0d;
+        boolean integral = true;
+        for (int e = 0; e < edgeCount; e++) {
+            max = Math.max(max, weights[e]);
+            integral &= weights[e] >= 0 && weights[e] == Math.rint(weights[e]);
+        }
+        OffHeapCsrGraph graph = new OffHeapCsrGraph(offHeapDictionary, vertexCount, edgeCount, max, integral,
+                new OffHeapBlock(sizeOf(vertexCount, edgeCount)));
+        int[] next = Arrays.copyOf(offsets, vertexCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int slot = next[sources[e]]++;
+            graph.block.putDouble((long) slot << 3, weights[e]);
+            graph.block.putInt(graph.targetsAt + ((long) slot << 2), targets[e]);
+        }
+        graph.block.putInts(graph.offsetsAt, offsets, vertexCount + 1);
+        return graph;
+    }
+
+    /**
+     * Wraps a block that already holds the weights, the offsets and the targets of a graph, as they are laid out
+     * in a {@link GraphSnapshot}
+     */
+    static OffHeapCsrGraph wrap(VertexDictionary offHeapDictionary, int vertexCount, int edgeCount, OffHeapBlock block) {
+        double max = 0d;
+        boolean integral = true;
+        for (int e = 0; e < edgeCount; e++) {
+            double weight = block.getDouble((long) e << 3);
+            max = Math.max(max, weight);
+            integral &= weight >= 0 && weight == Math.rint(weight);
+        }
+        return new OffHeapCsrGraph(offHeapDictionary, vertexCount, edgeCount, max, integral, block);
+    }
+
+    /**
+     * @return the bytes of the block holding the weights, the offsets and the targets of a graph
+     */
+    static long sizeOf(int vertexCount, int edgeCount) {
+        return (long) edgeCount * (Double.BYTES + Integer.BYTES) + (long) (vertexCount + 1) * Integer.BYTES;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    @Override
+    long getOffHeapBytes() {
+        OffHeapCsrGraph reverse = (OffHeapCsrGraph) getBuiltReverse();
+        return block.size() + (reverse == null ? 0 : reverse.block.size());
+    }
+
+    @Override
+    void free() {
+        block.free();
+        OffHeapCsrGraph reverse = (OffHeapCsrGraph) getBuiltReverse();
+        if (reverse != null) {
+            reverse.block.free();
+        }
+    }
+
+    @Override
+    public int getFirstEdge(int vertex) {
+        return block.getInt(offsetsAt + ((long) vertex << 2));
+    }
+
+    @Override
+    public int getEndEdge(int vertex) {
+        return block.getInt(offsetsAt + ((long) (vertex + 1) << 2));
+    }
+
+    @Override
+    public int getEdgeTarget(int edge) {
+        return block.getInt(targetsAt + ((long) edge << 2));
+    }
+
+    @Override
+    public double getEdgeWeight(int edge) {
+        return block.getDouble((long) edge << 3);
+    }
+
+    /**
+     * Only the offsets of the reverse are counted on the heap, its weights and targets are written straight to
+     * the block. The reverse has the same weights as this graph.
+     */
+    @Override
+    CsrGraph buildReverse() {
+        int vertexCount = getVertexCount();
+        int edgeCount = getEdgeCount();
+        int[] reverseOffsets = countReverseOffsets();
+        int[] next = Arrays.copyOf(reverseOffsets, vertexCount);
+        OffHeapCsrGraph reverse = new OffHeapCsrGraph(getVertexDictionary(), vertexCount, edgeCount, getMaxEdgeWeight(),
+                hasIntegralWeights(), new OffHeapBlock(sizeOf(vertexCount, edgeCount)));
+        for (int v = 0; v < vertexCount; v++) {
+            for (int e = getFirstEdge(v), end = getEndEdge(v); e < end; e++) {
+                int slot = next[getEdgeTarget(e)]++;
+                reverse.block.putDouble((long) slot << 3, getEdgeWeight(e));
+                reverse.block.putInt(targetsAt + ((long) slot << 2), v);
+            }
+        }
+        reverse.block.putInts(offsetsAt, reverseOffsets, vertexCount + 1);
+        return reverse;
+    }
+}
@@ -0,0 +1,103 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+
+/**
+ * Owns a {@link CsrGraph} whose offsets, targets, weights and vertex names are kept outside the Java heap.
+ *
+ * The graph is built off the heap by {@link CsrGraphBuilder#buildOffHeap()}, loaded off the heap from a
+ * {@link GraphSnapshot} or copied from a graph on the heap. It's an ordinary {@link CsrGraph} that the algorithms
+ * read through the same methods, so the heap only holds what the searches allocate and the garbage collector never
+ * has to copy or scan the network itself. Its reverse is built off the heap as well the first time it's asked for.
+ *
+ * The memory is held until the graph is closed, after which neither the graph nor anything built on top of it,
+ * such as landmarks or a contraction hierarchy, may be used, and reading it throws. Closing drops the memory
+ * rather than releasing it right away, and the garbage collector gives it back once the searches that may still
+ * be running are done with it, so a late read never touches released memory. Direct memory is limited by
+ * -XX:MaxDirectMemorySize, which defaults to the -Xmx of the JVM, so a JVM whose heap is made small for a graph
+ * off the heap needs it set to at least the size of the graph.
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class OffHeapGraph implements AutoCloseable {
+
+    private final CsrGraph graph;
+    private boolean closed;
+
+    OffHeapGraph(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @see CsrGraphBuilder#buildOffHeap()
+     */
+    static OffHeapGraph sortedFrom(VertexDictionary dictionary, int[] offsets,
+                                   int[] sources, int[] targets, double[] weights, int edgeCount) {
+        VertexDictionary offHeapDictionary = dictionary.copyOffHeap();
+        try {
+            return new OffHeapGraph(OffHeapCsrGraph.sortedFrom(offHeapDictionary, offsets, sources, targets, weights, edgeCount));
+        } catch (ApplicationException e) {
+            offHeapDictionary.free();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the graph off the heap. The graph on the heap isn't needed afterwards and can be dropped.
+     *
+     * @param graph a graph on the heap
+     * @throws ApplicationException if the graph is already off the heap or there isn't enough direct memory
+     */
+    public static OffHeapGraph copyOf(CsrGraph graph) {
+        if (graph.isOffHeap()) {
+            throw new ApplicationException("The graph is already off the heap");
+        }
+        VertexDictionary dictionary = graph.getVertexDictionary().copyOffHeap();
+        try {
+            return new OffHeapGraph(graph.copyOffHeap(dictionary));
+        } catch (ApplicationException e) {
+            dictionary.free();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the graph off the heap, valid until this is closed
+     */
+    public CsrGraph getGraph() {
+        if (closed) {
+            throw new ApplicationException("The off heap graph is closed");
+        }
+        return graph;
+    }
+
+    /**
+     * @return the bytes held off the heap by the graph, its reverse if it was built and the names of the vertices
+     */
+    public synchronized long getSizeBytes() {
+        return closed ? 0 : graph.getOffHeapBytes() + graph.getVertexDictionary().getOffHeapBytes();
+    }
+
+    /**
+     * Drops the memory of the graph, which is given back by the garbage collector. Closing it more than once has
+     * no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        graph.free();
+        graph.getVertexDictionary().free();
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapGraph{" +
+                "vertices=" + graph.getVertexCount() +
+                ", edges=" + graph.getEdgeCount() +
+                ", bytes=" + getSizeBytes() +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link VertexDictionary} whose offsets, hashes, table and arena are kept in a single {@link OffHeapBlock},
+ * in this order. It's read only, since the block can't grow.
+ *
+ * Instances are only created for an {@link OffHeapGraph}, so the dictionaries on the heap read their arrays without
+ * going through this class.
+ *
+ * @author karanikasg@gmail.com
+ */
+final class OffHeapVertexDictionary extends VertexDictionary {
+
+    private final OffHeapBlock block;
+    private final long hashesAt;
+    private final long tableAt;
+    private final long arenaAt;
+    private final int tableLength;
+
+    private OffHeapVertexDictionary(OffHeapBlock block, int size, int arenaSize, int tableLength) {
+        super(size, arenaSize);
+        this.block = block;
+        this.hashesAt = (long) (size + 1) * Integer.BYTES;
+        this.tableAt = hashesAt + (long) size * Integer.BYTES;
+        this.arenaAt = tableAt + (long) tableLength * Integer.BYTES;
+        this.tableLength = tableLength;
+    }
+
+    /**
+     * @param dictionary a dictionary on the heap
+     */
+    static OffHeapVertexDictionary copyOf(VertexDictionary dictionary) {
+        int size = dictionary.size();
+        int arenaSize = dictionary.getArenaSize();
+        int tableLength = dictionary.getTable().length;
+        OffHeapVertexDictionary copy = new OffHeapVertexDictionary(new OffHeapBlock(sizeOf(size, arenaSize, tableLength)),
+                size, arenaSize, tableLength);
+        copy.block.putInts(0, dictionary.getOffsets(), size + 1);
+        copy.block.putInts(copy.hashesAt, dictionary.getHashes(), size);
+        copy.block.putInts(copy.tableAt, dictionary.getTable(), tableLength);
+        copy.block.putBytes(copy.arenaAt, dictionary.getArena(), arenaSize);
+        return copy;
+    }
+
+    /**
+     * Wraps a block that already holds the offsets, hashes, table and arena of a dictionary, as they are laid out
+     * in a {@link GraphSnapshot}
+     */
+    static OffHeapVertexDictionary wrap(OffHeapBlock block, int size, int arenaSize, int tableLength) {
+        return new OffHeapVertexDictionary(block, size, arenaSize, tableLength);
+    }
+
+    /**
+     * @return the bytes of the block holding a dictionary
+     */
+    static long sizeOf(int size, int arenaSize, int tableLength) {
+        return (long) (size + 1) * Integer.BYTES + (long) size * Integer.BYTES + (long) tableLength * Integer.BYTES + arenaSize;
+    }
+
+    /**
+     * @throws ApplicationException always, the block can't grow
+     */
+    @Override
+    public int intern(byte[] bytes, int offset, int length) {
+        throw new ApplicationException("The dictionary is off the heap and can't intern names");
+    }
+
+    @Override
+    public String getName(int id) {
+        byte[] name = new byte[getNameLength(id)];
+        copyName(id, name, 0);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int copyName(int id, byte[] destination, int offset) {
+        int length = getNameLength(id);
+        block.getBytes(arenaAt + offsetAt(id), destination, offset, length);
+        return length;
+    }
+
+    @Override
+    long getOffHeapBytes() {
+        return block.size();
+    }
+
+    @Override
+    void free() {
+        block.free();
+    }
+
+    @Override
+    int offsetAt(int id) {
+        return block.getInt((long) id << 2);
+    }
+
+    @Override
+    int hashAt(int id) {
+        return block.getInt(hashesAt + ((long) id << 2));
+    }
+
+    @Override
+    int idAt(int slot) {
+        return block.getInt(tableAt + ((long) slot << 2));
+    }
+
+    @Override
+    byte arenaAt(int index) {
+        return block.getByte(arenaAt + index);
+    }
+
+    @Override
+    int tableLength() {
+        return tableLength;
+    }
+}
@@ -0,0 +1,334 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps vertex names to dense int ids and back.
+ *
+ * Every distinct name is stored exactly once as UTF-8 bytes in a single growable byte arena and the id of a
+ * name is the order in which it was first interned. Lookups go through an open addressing hash table with
+ * linear probing that holds only int ids, so neither interning nor looking up a name creates any objects
+ * when the name is given as bytes. Names are turned back into Strings only when they are written out.
+ *
+ * Interning is not thread safe. Once all the names are interned the dictionary can be read from many threads.
+ * A dictionary copied off the heap for an {@link OffHeapGraph} is an {@link OffHeapVertexDictionary}, which
+ * keeps the same arrays in a single block and is read only.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class VertexDictionary {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private byte[] arena = new byte[INITIAL_CAPACITY * 8];
+    private int arenaSize;
+    // the name of id i occupies arena[offsets[i], offsets[i + 1])
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private int[] table;
+
+    public VertexDictionary() {
+        table = newTable(INITIAL_CAPACITY * 2);
+    }
+
+    /**
+     * Wraps the arrays of a dictionary that was saved in a {@link GraphSnapshot} without interning the names again.
+     * The arrays are exactly as large as their content and grow on the next intern.
+     */
+    VertexDictionary(byte[] arena, int[] offsets, int[] hashes, int[] table) {
+        this.arena = arena;
+        this.arenaSize = arena.length;
+        this.offsets = offsets;
+        this.hashes = hashes;
+        this.size = hashes.length;
+        this.table = table;
+    }
+
+    /**
+     * A dictionary whose arrays are kept by the subclass
+     */
+    VertexDictionary(int size, int arenaSize) {
+        this.arena = null;
+        this.offsets = null;
+        this.hashes = null;
+        this.size = size;
+        this.arenaSize = arenaSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes the names occupy in the arena
+     */
+    public int getArenaSize() {
+        return arenaSize;
+    }
+
+    /**
+     * Adds the name if it's not already present
+     *
+     * @return the id of the name
+     */
+    public int intern(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return intern(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Adds the name contained in bytes[offset, offset + length) if it's not already present.
+     * The bytes are copied so the buffer can be reused by the caller.
+     *
+     * @return the id of the name
+     */
+    public int intern(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (hashes[id] == hash && nameEquals(id, bytes, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        id = append(bytes, offset, length, hash);
+        table[slot] = id;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of the name or -1 if it isn't contained in this dictionary
+     */
+    public int getId(String name) {
+        if (name == null) {
+            return -1;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return getId(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return the id of the name contained in bytes[offset, offset + length) or -1 if it isn't contained in this dictionary
+     */
+    public int getId(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        int mask = tableLength() - 1;
+        int slot = hash & mask;
+        int id;
+        while ((id = idAt(slot)) != EMPTY) {
+            if (hashAt(id) == hash && nameEquals(id, bytes, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public String getName(int id) {
+        checkId(id);
+        return new String(arena, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the name to the builder without creating an intermediate String for plain ASCII names
+     */
+    public void appendName(int id, StringBuilder builder) {
+        checkId(id);
+        int start = offsetAt(id);
+        int end = offsetAt(id + 1);
+        for (int i = start; i < end; i++) {
+            if (arenaAt(i) < 0) {
+                builder.append(getName(id));
+                return;
+            }
+        }
+        for (int i = start; i < end; i++) {
+            builder.append((char) arenaAt(i));
+        }
+    }
+
+    /**
+     * @return the length of the UTF-8 encoded name in bytes
+     */
+    public int getNameLength(int id) {
+        checkId(id);
+        return offsetAt(id + 1) - offsetAt(id);
+    }
+
+    /**
+     * Copies the UTF-8 encoded name into the destination array
+     *
+     * @return the number of bytes copied
+     */
+    public int copyName(int id, byte[] destination, int offset) {
+        int length = getNameLength(id);
+        System.arraycopy(arena, offsets[id], destination, offset, length);
+        return length;
+    }
+
+    /**
+     * Copies this dictionary, on or off the heap, into a dictionary on the heap with the same ids. Names interned
+     * in the copy don't change this dictionary.
+     */
+    VertexDictionary copy() {
+        byte[] arenaCopy = new byte[arenaSize];
+        for (int i = 0; i < arenaSize; i++) {
+            arenaCopy[i] = arenaAt(i);
+        }
+        int[] offsetsCopy = new int[size + 1];
+        int[] hashesCopy = new int[size];
+        for (int id = 0; id < size; id++) {
+            offsetsCopy[id] = offsetAt(id);
+            hashesCopy[id] = hashAt(id);
+        }
+        offsetsCopy[size] = offsetAt(size);
+        int[] tableCopy = new int[tableLength()];
+        for (int slot = 0; slot < tableCopy.length; slot++) {
+            tableCopy[slot] = idAt(slot);
+        }
+        return new VertexDictionary(arenaCopy, offsetsCopy, hashesCopy, tableCopy);
+    }
+
+    /**
+     * Copies the arrays of this dictionary off the heap, into a dictionary that can't intern names
+     */
+    VertexDictionary copyOffHeap() {
+        return OffHeapVertexDictionary.copyOf(this);
+    }
+
+    /**
+     * @return the bytes the dictionary holds off the heap
+     */
+    long getOffHeapBytes() {
+        return 0;
+    }
+
+    /**
+     * Frees the memory of a dictionary off the heap
+     */
+    void free() {
+        // nothing is held off the heap
+    }
+
+    byte[] getArena() {
+        return arena;
+    }
+
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    int[] getHashes() {
+        return hashes;
+    }
+
+    int[] getTable() {
+        return table;
+    }
+
+    private int append(byte[] bytes, int offset, int length, int hash) {
+        if (arenaSize + length > arena.length) {
+            long capacity = Math.max((long) arena.length * 2, (long) arenaSize + length);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new ApplicationException("Vertex names exceed the maximum size of the dictionary");
+            }
+            arena = Arrays.copyOf(arena, (int) capacity);
+        }
+        if (size == hashes.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, hashes.length * 2);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        System.arraycopy(bytes, offset, arena, arenaSize, length);
+        arenaSize += length;
+        hashes[size] = hash;
+        offsets[size + 1] = arenaSize;
+        return size++;
+    }
+
+    // the arrays are read through these so that the dictionary off the heap can read its own instead
+
+    int offsetAt(int id) {
+        return offsets[id];
+    }
+
+    int hashAt(int id) {
+        return hashes[id];
+    }
+
+    int idAt(int slot) {
+        return table[slot];
+    }
+
+    byte arenaAt(int index) {
+        return arena[index];
+    }
+
+    int tableLength() {
+        return table.length;
+    }
+
+    private boolean nameEquals(int id, byte[] bytes, int offset, int length) {
+        int start = offsetAt(id);
+        if (offsetAt(id + 1) - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (arenaAt(start + i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int capacity) {
+        int[] newTable = newTable(capacity);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id;
+        }
+        table = newTable;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new ApplicationException(String.format("Vertex id %d is not part of the dictionary", id));
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    /**
+     * FNV-1a over the bytes followed by a final avalanche so that the low bits used by the table are well mixed
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash ^= bytes[i];
+            hash *= 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+}
@@ -5,6 +5,8 @@ import com.jojos.path.Util;
 import com.jojos.path.calculation.Computations;
 import com.jojos.path.calculation.DimensionsWeight;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -14,27 +16,43 @@ import java.util.Objects;
  *
  * @,Lisa,10x9x5x1200,6.89
  * @,Diana,6x10x8x1233,~
+ * @,Lisa,Diana,6x10x8x1233,3.50
  *
  * The first assertion states that a shipping cost for a `1.2kg (width=10cm, length=9cm, height=5cm)`
  * package to Lisa should be `6.89 EUR`. The second assertion states that it's impossible to ship a
- * package to Diana so the cost is a positive infinity.
+ * package to Diana so the cost is a positive infinity. Both are shipped from ME, unless the line names
+ * its source before the target like the third assertion does, where Lisa ships the package to Diana.
 
  * @author karanikasg@gmail.com
  */
 public class AssertionElement {
     public static final String ASSERTION_PREFIX = "@";
+    // the source of the assertions that name only their target
+    public static final String DEFAULT_SOURCE = "ME";
 
+    private final String source;
     private final String target;
     private final DimensionsWeight packageDimensions;
     private final double shippingCost;
+    private final List<String> statement;
 
+    /**
+     * @param list the target, package and cost of the assertion, or its source, target, package and cost
+     */
     public AssertionElement(List<String> list) {
-        if (Objects.isNull(list) || list.size() != 3) {
+        if (Objects.isNull(list) || (list.size() != 3 && list.size() != 4)) {
             throw new ApplicationException("Wrong format of assertion statement: " + list);
         }
-        this.target = Util.validateNameOrThrow(list.get(0));
-        this.packageDimensions = Computations.parseDimensions(list.get(1));
-        this.shippingCost = Util.validateDoubleOrThrow(list.get(2));
+        int first = list.size() - 3;
+        this.source = first == 0 ? DEFAULT_SOURCE : Util.validateNameOrThrow(list.get(0));
+        this.target = Util.validateNameOrThrow(list.get(first));
+        this.packageDimensions = Computations.parseDimensions(list.get(first + 1));
+        this.shippingCost = Util.validateDoubleOrThrow(list.get(first + 2));
+        this.statement = Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    public String getSource() {
+        return source;
     }
 
     public String getTarget() {
@@ -48,4 +66,11 @@ public class AssertionElement {
     public double getShippingCost() {
         return shippingCost;
     }
+
+    /**
+     * @return the source if it was given, target, package and cost exactly as they were written in the assertion line
+     */
+    public List<String> getStatement() {
+        return statement;
+    }
 }
@@ -1,39 +1,134 @@
 package com.jojos.path.input;
 
+import com.jojos.path.calculation.Computations;
 import com.jojos.path.calculation.DimensionsWeight;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
- * Simply a list of {@link AssertionElement}s
+ * The {@link AssertionElement}s of an input, kept as one primitive column per field so that the assertion at
+ * any index is read in constant time and nothing is copied while they are verified.
+ *
+ * The sources and targets are indexes into the distinct names of the assertions, since the assertions are parsed
+ * before the vertices get their ids, so every name is looked up in the graph once however many assertions name it.
+ * The packages are kept as their width, length, height and weight in grams, and the statements are formatted from
+ * the columns when they are asked for.
  *
  * @author karanikasg@gmail.com
  */
 public class Assertions {
 
-    private final List<AssertionElement> assertionElements;
+    private final String[] names;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] widths;
+    private final double[] lengths;
+    private final double[] heights;
+    private final double[] grams;
+    private final double[] shippingCosts;
 
     public Assertions(List<AssertionElement> assertionElements) {
-        this.assertionElements = assertionElements;
+        int size = assertionElements.size();
+        this.sources = new int[size];
+        this.targets = new int[size];
+        this.widths = new double[size];
+        this.lengths = new double[size];
+        this.heights = new double[size];
+        this.grams = new double[size];
+        this.shippingCosts = new double[size];
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            AssertionElement element = assertionElements.get(i);
+            sources[i] = indexes.computeIfAbsent(element.getSource(), name -> indexes.size());
+            targets[i] = indexes.computeIfAbsent(element.getTarget(), name -> indexes.size());
+            DimensionsWeight dimensionsWeight = element.getPackageDimensions();
+            widths[i] = dimensionsWeight.getWidth();
+            lengths[i] = dimensionsWeight.getLength();
+            heights[i] = dimensionsWeight.getHeight();
+            grams[i] = dimensionsWeight.getGrams();
+            shippingCosts[i] = element.getShippingCost();
+        }
+        this.names = new String[indexes.size()];
+        indexes.forEach((name, index) -> names[index] = name);
+    }
+
+    /**
+     * @return the number of assertions
+     */
+    public int size() {
+        return sources.length;
+    }
+
+    /**
+     * @return the number of distinct sources and targets
+     */
+    public int getNameCount() {
+        return names.length;
+    }
+
+    public String getName(int nameIndex) {
+        return names[nameIndex];
+    }
+
+    /**
+     * @return the index of the name of the source of an assertion
+     * @see #getName(int)
+     */
+    public int getSourceIndex(int index) {
+        return sources[index];
+    }
+
+    /**
+     * @return the index of the name of the target of an assertion
+     * @see #getName(int)
+     */
+    public int getTargetIndex(int index) {
+        return targets[index];
+    }
+
+    public String getSource(int index) {
+        return names[sources[index]];
+    }
+
+    public String getTarget(int index) {
+        return names[targets[index]];
+    }
+
+    /**
+     * @return the normalized weight of the package of an assertion in kilograms
+     * @see Computations#normalizedPackageWeight(double, double, double, double)
+     */
+    public double getNormalizedWeight(int index) {
+        return Computations.normalizedPackageWeight(widths[index], lengths[index], heights[index], grams[index]);
     }
 
-    public List<String> getTargets() {
-        return assertionElements.stream()
-                .map(AssertionElement::getTarget)
-                .collect(Collectors.toList());
+    /**
+     * @return the asserted cost, {@link Double#POSITIVE_INFINITY} if the assertion states there's no path
+     */
+    public double getShippingCost(int index) {
+        return shippingCosts[index];
     }
 
-    public List<DimensionsWeight> getDimensions() {
-        return assertionElements.stream()
-                .map(AssertionElement::getPackageDimensions)
-                .collect(Collectors.toList());
+    /**
+     * Formats an assertion back to the fields of its line, with the source always given. The numbers may be written
+     * differently from the input but are parsed to the same values.
+     *
+     * @return the source, target, package and cost of the assertion
+     * @see AssertionElement#AssertionElement(List)
+     */
+    public List<String> getStatement(int index) {
+        return Arrays.asList(
+                getSource(index),
+                getTarget(index),
+                format(widths[index]) + "x" + format(lengths[index]) + "x" + format(heights[index]) + "x" + format(grams[index]),
+                shippingCosts[index] == Double.POSITIVE_INFINITY ? "~" : format(shippingCosts[index]));
     }
 
-    public List<Double> getShippingCost() {
-        return assertionElements.stream()
-                .map(AssertionElement::getShippingCost)
-                .collect(Collectors.toList());
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
     }
 
 }
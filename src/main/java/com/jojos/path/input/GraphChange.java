@@ -0,0 +1,111 @@
+package com.jojos.path.input;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single change of an edge of the network, parsed from a line of a delta file of the form
+ * <pre>
+ * +SOURCE,TARGET:HARD,TARGET:HARD ...
+ * -SOURCE,TARGET,TARGET ...
+ * =SOURCE,TARGET:HARD,TARGET:HARD ...
+ * </pre>
+ * where + adds the edges, - removes them and = sets their weight. A line turns into one change per target.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class GraphChange {
+
+    public enum Type {
+        ADD('+'),
+        REMOVE('-'),
+        REWEIGHT('=');
+
+        private final char symbol;
+
+        Type(char symbol) {
+            this.symbol = symbol;
+        }
+
+        public char getSymbol() {
+            return symbol;
+        }
+
+        static Type of(char symbol) {
+            for (Type type : values()) {
+                if (type.symbol == symbol) {
+                    return type;
+                }
+            }
+            throw new ApplicationException(String.format("A change must start with +, - or = but started with %s", symbol));
+        }
+    }
+
+    private final Type type;
+    private final String source;
+    private final String target;
+    private final double weight;
+
+    /**
+     * @param weight the weight of the edge, ignored when it's removed
+     */
+    public GraphChange(Type type, String source, String target, double weight) {
+        this.type = type;
+        this.source = Util.validateNameOrThrow(source);
+        this.target = Util.validateNameOrThrow(target);
+        this.weight = type == Type.REMOVE ? Double.POSITIVE_INFINITY : new Hard(weight).getValue();
+    }
+
+    /**
+     * @param line a line of a delta file
+     * @return the changes of the line, one per target
+     */
+    public static List<GraphChange> parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.length() < 2) {
+            throw new ApplicationException("Provided change does not follow grammar rules: " + line);
+        }
+        Type type = Type.of(trimmed.charAt(0));
+        String[] elements = trimmed.substring(1).split(",");
+        if (elements.length < 2) {
+            throw new ApplicationException("Provided change does not follow grammar rules: " + line);
+        }
+        String source = new InputElement(elements[0].trim()).getName();
+        List<GraphChange> changes = new ArrayList<>(elements.length - 1);
+        for (int i = 1; i < elements.length; i++) {
+            InputElement element = new InputElement(elements[i].trim());
+            if (element.isHead() && type != Type.REMOVE) {
+                throw new ApplicationException("Provided change has no weight for " + element.getName() + ": " + line);
+            }
+            changes.add(new GraphChange(type, source, element.getName(), element.getWeight().getValue()));
+        }
+        return changes;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the weight of the edge or {@link Double#POSITIVE_INFINITY} when it's removed
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return type.symbol + source + "," + target + (type == Type.REMOVE ? "" : ":" + weight);
+    }
+}
@@ -13,7 +13,7 @@ import java.util.stream.Collectors;
  * @author karanikasg@gmail.com
  *
  * @see InputElement
- * @see InputLinesIterator
+ * @see InputTokenizer
  */
 public class InputLine {
     private final List<InputElement> elements;
@@ -0,0 +1,31 @@
+package com.jojos.path.input;
+
+/**
+ * Receives the records found by an {@link InputTokenizer}, in the order they appear in the input.
+ *
+ * @author karanikasg@gmail.com
+ *
+ * @see InputTokenizer
+ */
+public interface InputRecordHandler {
+
+    /**
+     * Called for every name of a valid line, source first and then its targets
+     *
+     * @param bytes  a buffer that is reused once this call returns
+     * @param offset the offset of the UTF-8 encoded name in the buffer
+     * @param length the length of the name in bytes
+     * @return the id of the vertex with this name
+     */
+    int vertex(byte[] bytes, int offset, int length);
+
+    /**
+     * Called for every target of a valid line after the ids of its source and target have been resolved
+     */
+    void edge(int source, int target, long weight);
+
+    /**
+     * Called for every assertion line, only when the tokenizer accepts assertions
+     */
+    void assertion(AssertionElement assertionElement);
+}
@@ -0,0 +1,296 @@
+package com.jojos.path.input;
+
+import com.jojos.path.ApplicationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.jojos.path.input.AssertionElement.ASSERTION_PREFIX;
+
+/**
+ * A byte level tokenizer for the lines of a friend's network file.
+ *
+ * SOURCE,TARGET:HARD,TARGET:HARD ...
+ * @,TARGET,PACKAGE,COST
+ *
+ * It accepts exactly the grammar of splitting every line with "\\s*,\\s*" and every element with ":"
+ * (see {@link InputElement} and {@link InputLine}) but works directly on the UTF-8 bytes: the fields of a line
+ * are kept as offsets into a reusable buffer, weights are parsed without creating Strings and names are handed
+ * to the {@link InputRecordHandler} as bytes. Only invalid elements and assertion lines, which are rare,
+ * are turned into Strings and go through {@link InputElement}, {@link InputLine} and {@link AssertionElement},
+ * so the error messages are exactly the ones of those classes.
+ *
+ * Negative weights are rejected with an error naming the line, so a weight is never mistaken for the head of a line.
+ *
+ * Assertion errors are reported after all the other lines have been tokenized, the same way they were
+ * reported when assertions were read in a second pass over the file.
+ *
+ * An instance is not thread safe.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class InputTokenizer {
+
+    private static final int INITIAL_BLOCK_SIZE = 64 * 1024;
+    private static final int INITIAL_FIELDS = 16;
+    // marks a field without weight, i.e. the head of the line
+    private static final long HEAD = -1L;
+    private static final byte ASSERTION_BYTE = (byte) ASSERTION_PREFIX.charAt(0);
+
+    private final InputRecordHandler handler;
+    private final boolean withAssertions;
+
+    private byte[] block = new byte[INITIAL_BLOCK_SIZE];
+    private int[] fieldStarts = new int[INITIAL_FIELDS];
+    private int[] fieldEnds = new int[INITIAL_FIELDS];
+    private int[] nameEnds = new int[INITIAL_FIELDS];
+    private long[] weights = new long[INITIAL_FIELDS];
+    private int fieldCount;
+
+    private long lineCount;
+    private ApplicationException assertionError;
+
+    /**
+     * @param handler        receives the vertices, edges and assertions
+     * @param withAssertions if false the assertion lines are skipped without being validated
+     */
+    public InputTokenizer(InputRecordHandler handler, boolean withAssertions) {
+        this.handler = handler;
+        this.withAssertions = withAssertions;
+    }
+
+    /**
+     * @return the number of lines with a source and at least one target tokenized so far
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Tokenizes all the remaining bytes of the buffer. The last line doesn't need to end with a line terminator,
+     * so the buffer must end at a line boundary.
+     */
+    public void tokenize(ByteBuffer buffer) {
+        int carry = 0;
+        while (buffer.hasRemaining()) {
+            if (carry == block.length) {
+                block = Arrays.copyOf(block, block.length * 2);
+            }
+            int length = Math.min(buffer.remaining(), block.length - carry);
+            buffer.get(block, carry, length);
+            int limit = carry + length;
+            int lineStart = 0;
+            // the carried bytes never contain a line terminator
+            for (int i = carry; i < limit; i++) {
+                byte b = block[i];
+                if (b == '\n' || b == '\r') {
+                    tokenizeLine(block, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            carry = limit - lineStart;
+            System.arraycopy(block, lineStart, block, 0, carry);
+        }
+        if (carry > 0) {
+            tokenizeLine(block, 0, carry);
+        }
+    }
+
+    /**
+     * Tokenizes a single line without its line terminator
+     */
+    public void tokenizeLine(byte[] bytes, int start, int end) {
+        if (isBlank(bytes, start, end)) {
+            return;
+        }
+        boolean assertionLine = bytes[start] == ASSERTION_BYTE;
+        if (assertionLine && !withAssertions) {
+            return;
+        }
+
+        splitFields(bytes, start, end);
+
+        if (assertionLine) {
+            handleAssertion(bytes);
+            return;
+        }
+        if (fieldCount <= 1) {
+            return;
+        }
+
+        int heads = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            weights[i] = parseElement(bytes, i, start, end);
+            if (weights[i] == HEAD) {
+                heads++;
+            }
+        }
+        if (heads != 1 || weights[0] != HEAD) {
+            // let the line report the exact error
+            List<InputElement> elements = new ArrayList<>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                elements.add(new InputElement(fieldString(bytes, i)));
+            }
+            new InputLine(elements);
+        }
+
+        int source = handler.vertex(bytes, fieldStarts[0], nameEnds[0] - fieldStarts[0]);
+        for (int i = 1; i < fieldCount; i++) {
+            int target = handler.vertex(bytes, fieldStarts[i], nameEnds[i] - fieldStarts[i]);
+            handler.edge(source, target, weights[i]);
+        }
+        lineCount++;
+    }
+
+    /**
+     * Throws the first error found in an assertion line, if any
+     */
+    public void finish() {
+        if (assertionError != null) {
+            throw assertionError;
+        }
+    }
+
+    private void handleAssertion(byte[] bytes) {
+        if ((fieldCount != 4 && fieldCount != 5) || assertionError != null) {
+            return;
+        }
+        try {
+            List<String> statement = new ArrayList<>(fieldCount - 1);
+            for (int i = 1; i < fieldCount; i++) {
+                statement.add(fieldString(bytes, i));
+            }
+            handler.assertion(new AssertionElement(statement));
+        } catch (ApplicationException e) {
+            assertionError = e;
+        }
+    }
+
+    /**
+     * Splits the line the way "\\s*,\\s*" does: the whitespace around every comma is dropped,
+     * a leading empty field is kept and the trailing empty fields are removed
+     */
+    private void splitFields(byte[] bytes, int start, int end) {
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == ',') {
+                int fieldEnd = i;
+                while (fieldEnd > fieldStart && isWhitespace(bytes[fieldEnd - 1])) {
+                    fieldEnd--;
+                }
+                addField(fieldStart, fieldEnd);
+                fieldStart = i + 1;
+                while (fieldStart < end && isWhitespace(bytes[fieldStart])) {
+                    fieldStart++;
+                }
+                i = fieldStart - 1;
+            }
+        }
+        addField(fieldStart, end);
+        while (fieldCount > 0 && fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            int capacity = fieldCount * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, capacity);
+            fieldEnds = Arrays.copyOf(fieldEnds, capacity);
+            nameEnds = Arrays.copyOf(nameEnds, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    /**
+     * Parses an element of the form "Amir:1042" or "Adam" the way {@link InputElement} does
+     * and records where the name of the element ends
+     *
+     * @return the weight of the element or {@link #HEAD} if it has none
+     * @throws ApplicationException if the weight is negative
+     */
+    private long parseElement(byte[] bytes, int field, int lineStart, int lineEnd) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        // splitting with ":" drops the trailing empty parts
+        int effectiveEnd = end;
+        while (effectiveEnd > start && bytes[effectiveEnd - 1] == ':') {
+            effectiveEnd--;
+        }
+        int colon = -1;
+        int colons = 0;
+        for (int i = start; i < effectiveEnd; i++) {
+            if (bytes[i] == ':') {
+                colon = i;
+                colons++;
+            }
+        }
+        if (effectiveEnd > start && colons == 0) {
+            nameEnds[field] = effectiveEnd;
+            return HEAD;
+        }
+        if (colons == 1 && colon > start) {
+            nameEnds[field] = colon;
+            long weight = parseWeight(bytes, colon + 1, effectiveEnd);
+            if (weight >= 0) {
+                return weight;
+            }
+            if (bytes[colon + 1] == '-' && parseWeight(bytes, colon + 2, effectiveEnd) >= 0) {
+                throw new ApplicationException(String.format("Weights must not be negative but %s was found in line %s",
+                        fieldString(bytes, field), new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8)));
+            }
+        }
+        // either an invalid element or a weight that's not plain digits like "+5", let the element decide
+        InputElement element = new InputElement(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+        return element.isHead() ? HEAD : (long) element.getWeight().getValue();
+    }
+
+    /**
+     * @return the value of up to 18 ASCII digits or -1 for anything else
+     */
+    private static long parseWeight(byte[] bytes, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String fieldString(byte[] bytes, int field) {
+        return new String(bytes, fieldStarts[field], fieldEnds[field] - fieldStarts[field], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The same characters the regular expression \s matches
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * The same characters {@link String#trim()} removes
+     */
+    private static boolean isBlank(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if ((bytes[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
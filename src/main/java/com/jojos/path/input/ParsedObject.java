@@ -1,7 +1,8 @@
 package com.jojos.path.input;
 
 import com.jojos.path.calculation.ParseJob;
-import org.jgrapht.DirectedGraph;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.OffHeapGraph;
 
 /**
  * This class contains the outcome of {@link ParseJob#runAndCreateGraph(ParseJob.RunMode)}.
@@ -13,19 +14,35 @@ import org.jgrapht.DirectedGraph;
  */
 public class ParsedObject {
 
-    private final DirectedGraph<String, ParseJob.RelationshipEdge> graph;
+    private final CsrGraph graph;
     private final Assertions assertions;
+    private final OffHeapGraph offHeapGraph;
 
-    public ParsedObject(DirectedGraph<String, ParseJob.RelationshipEdge> graph, Assertions assertions) {
+    public ParsedObject(CsrGraph graph, Assertions assertions) {
+        this(graph, assertions, null);
+    }
+
+    /**
+     * @param offHeapGraph the owner of the graph if it's off the heap, null otherwise
+     */
+    public ParsedObject(CsrGraph graph, Assertions assertions, OffHeapGraph offHeapGraph) {
         this.graph = graph;
         this.assertions = assertions;
+        this.offHeapGraph = offHeapGraph;
     }
 
-    public DirectedGraph<String, ParseJob.RelationshipEdge> getGraph() {
+    public CsrGraph getGraph() {
         return graph;
     }
 
     public Assertions getAssertions() {
         return assertions;
     }
+
+    /**
+     * @return the owner of the graph if it's off the heap, which frees it once closed, null otherwise
+     */
+    public OffHeapGraph getOffHeapGraph() {
+        return offHeapGraph;
+    }
 }
@@ -0,0 +1,36 @@
+package com.jojos.path.metrics;
+
+/**
+ * Tells whether the Java Flight Recorder API is available, so the custom events are only created on JVMs that
+ * have it. The event classes extend {@code jdk.jfr.Event}, so they must not even be loaded on the ones that
+ * don't: every event is created like
+ * <pre>
+ * ParseChunkEvent event = FlightRecorderEvents.AVAILABLE ? new ParseChunkEvent() : null;
+ * </pre>
+ * When the JVM isn't recording, or records without these events, {@code begin()} and {@code shouldCommit()} do
+ * nothing and the JIT compiler removes the allocation of the event, so the events can stay in production code.
+ *
+ * @author karanikasg@gmail.com
+ * @see ParseChunkEvent
+ * @see GraphBuildEvent
+ * @see ShortestPathQueryEvent
+ * @see OutputWriteEvent
+ */
+public final class FlightRecorderEvents {
+
+    public static final String CATEGORY = "Shortest Path";
+
+    public static final boolean AVAILABLE = isAvailable();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
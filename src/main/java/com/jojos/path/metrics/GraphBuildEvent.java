@@ -0,0 +1,41 @@
+package com.jojos.path.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Turning the parsed edges of an input file into a graph
+ *
+ * @author karanikasg@gmail.com
+ * @see FlightRecorderEvents
+ */
+@Name("com.jojos.path.GraphBuild")
+@Label("Graph Build")
+@Category(FlightRecorderEvents.CATEGORY)
+@Description("Turning the parsed edges of an input file into a graph")
+@StackTrace(false)
+public class GraphBuildEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    private String file;
+
+    @Label("Lines")
+    private long lines;
+
+    @Label("Vertices")
+    private int vertices;
+
+    @Label("Edges")
+    private int edges;
+
+    public void commit(String file, long lines, int vertices, int edges) {
+        this.file = file;
+        this.lines = lines;
+        this.vertices = vertices;
+        this.edges = edges;
+        commit();
+    }
+}
@@ -0,0 +1,352 @@
+package com.jojos.path.metrics;
+
+import com.jojos.path.ApplicationException;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Records the wall time, the latencies and the allocated bytes of the {@link Phase}s of the application, and the
+ * garbage collection pauses while they run, and reports them as a JSON file or through JMX.
+ *
+ * Nothing is recorded until the metrics are {@link #enable() enabled}, and the disabled checks of the phases only
+ * cost a volatile read. A phase is recorded like
+ * <pre>
+ * long start = Metrics.startNanos();
+ * long allocated = Metrics.allocatedBytes();
+ * ...
+ * Metrics.record(Phase.TOKENIZE, start, allocated);
+ * </pre>
+ * on the thread that runs it, without creating any objects.
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class Metrics implements MetricsMXBean {
+    private static final Logger log = LoggerFactory.getLogger(Metrics.class);
+
+    public static final String OBJECT_NAME = "com.jojos.path:type=Metrics";
+
+    private static volatile Metrics current;
+
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final Map<Phase, PhaseMetrics> phases = new EnumMap<>(Phase.class);
+    private final LatencyHistogram gcPauses = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> gcPausesPerCollector = new LinkedHashMap<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener gcListener = this::gcFinished;
+    // the allocations of the threads, null if the JVM cannot tell them
+    private final com.sun.management.ThreadMXBean threads;
+    private ObjectName objectName;
+
+    private Metrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new PhaseMetrics(phase));
+        }
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = null;
+        if (threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            allocations = (com.sun.management.ThreadMXBean) threadBean;
+            allocations.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.threads = allocations;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcPausesPerCollector.put(collector.getName(), new LatencyHistogram());
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(gcListener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    /**
+     * Starts recording the metrics, from scratch if they were already recorded
+     *
+     * @return the metrics recorded from now on
+     */
+    public static synchronized Metrics enable() {
+        disable();
+        current = new Metrics();
+        return current;
+    }
+
+    /**
+     * Stops recording the metrics and unregisters their MBean
+     */
+    public static synchronized void disable() {
+        Metrics metrics = current;
+        current = null;
+        if (metrics != null) {
+            metrics.close();
+        }
+    }
+
+    /**
+     * @return the metrics being recorded or null if they are disabled
+     */
+    public static Metrics current() {
+        return current;
+    }
+
+    /**
+     * @return the start of a phase, 0 if the metrics are disabled
+     */
+    public static long startNanos() {
+        return current == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * @return the bytes the calling thread has allocated so far, 0 if the metrics are disabled
+     */
+    public static long allocatedBytes() {
+        Metrics metrics = current;
+        return metrics == null || metrics.threads == null ? 0
+                : metrics.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Records a run of the phase that ended on the calling thread
+     *
+     * @param startNanos     what {@link #startNanos()} returned when the run started
+     * @param allocatedBytes what {@link #allocatedBytes()} returned when the run started
+     */
+    public static void record(Phase phase, long startNanos, long allocatedBytes) {
+        Metrics metrics = current;
+        if (metrics == null || startNanos == 0) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        long allocated = metrics.threads == null || allocatedBytes == 0 ? 0
+                : metrics.threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBytes;
+        metrics.phases.get(phase).record(startNanos, endNanos, allocated);
+    }
+
+    public PhaseMetrics getPhase(Phase phase) {
+        return phases.get(phase);
+    }
+
+    /**
+     * @return the pause times of the garbage collectors in milliseconds
+     */
+    public LatencyHistogram getGcPauses() {
+        return gcPauses;
+    }
+
+    private void gcFinished(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        // the concurrent cycles of a collector run next to the application and don't pause it
+        if (info.getGcName().contains("Concurrent")) {
+            return;
+        }
+        long millis = info.getGcInfo().getDuration();
+        gcPauses.record(millis);
+        LatencyHistogram collector = gcPausesPerCollector.get(info.getGcName());
+        if (collector != null) {
+            collector.record(millis);
+        }
+    }
+
+    /**
+     * Registers the metrics as the {@value #OBJECT_NAME} MBean of the platform
+     */
+    public synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+            log.info("Registered the metrics as MBean {}", OBJECT_NAME);
+        } catch (JMException e) {
+            throw new ApplicationException(String.format("Cannot register the metrics MBean: %s", e.getMessage()));
+        }
+    }
+
+    private synchronized void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(gcListener);
+            } catch (JMException e) {
+                log.warn("Cannot stop listening to the garbage collector: {}", e.getMessage());
+            }
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                log.warn("Cannot unregister the metrics MBean: {}", e.getMessage());
+            }
+            objectName = null;
+        }
+    }
+
+    /**
+     * Writes the {@link #getReport() report} to the file
+     */
+    public void writeJson(Path file) {
+        try {
+            Files.write(file, getReport().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot write the metrics to %s: %s", file, e.getMessage()));
+        }
+        log.info("Wrote the metrics to {}", file);
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return perPhase(PhaseMetrics::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getWallNanos() {
+        return perPhase(PhaseMetrics::getWallNanos);
+    }
+
+    @Override
+    public Map<String, Long> getP99Nanos() {
+        return perPhase(phase -> phase.getLatencies().getPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getAllocatedBytes() {
+        return perPhase(PhaseMetrics::getAllocatedBytes);
+    }
+
+    private Map<String, Long> perPhase(ToLongFunction<PhaseMetrics> metric) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (PhaseMetrics phase : phases.values()) {
+            values.put(phase.getPhase().getJsonName(), metric.applyAsLong(phase));
+        }
+        return values;
+    }
+
+    @Override
+    public long getGcPauseCount() {
+        return gcPauses.getCount();
+    }
+
+    @Override
+    public long getGcPauseMillis() {
+        return Math.round(gcPauses.getMean() * gcPauses.getCount());
+    }
+
+    /**
+     * The report is a JSON object like
+     * <pre>
+     * {
+     *   "startedAt": "2017-03-01T10:15:30Z",
+     *   "uptimeNanos": 1234,
+     *   "phases": {
+     *     "read": {"count": 1, "wallNanos": 1, "totalNanos": 1, "meanNanos": 1.0, "p50Nanos": 1, "p90Nanos": 1,
+     *              "p99Nanos": 1, "maxNanos": 1, "allocatedBytes": 1, "allocatedBytesPerThread": {"main": 1}},
+     *     ...
+     *   },
+     *   "gcPauses": {"count": 1, "totalMillis": 1, "p50Millis": 1, "p99Millis": 1, "maxMillis": 1,
+     *                "perCollector": {"G1 Young Generation": {"count": 1, ...}}}
+     * }
+     * </pre>
+     */
+    @Override
+    public String getReport() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"startedAt\": ").append(quoted(startedAt.toString())).append(",\n");
+        json.append("  \"uptimeNanos\": ").append(System.nanoTime() - startNanos).append(",\n");
+        json.append("  \"phases\": {");
+        String separator = "\n";
+        for (PhaseMetrics phase : phases.values()) {
+            LatencyHistogram latencies = phase.getLatencies();
+            json.append(separator).append("    ").append(quoted(phase.getPhase().getJsonName())).append(": {")
+                    .append("\"count\": ").append(phase.getCount())
+                    .append(", \"wallNanos\": ").append(phase.getWallNanos())
+                    .append(", \"totalNanos\": ").append(phase.getTotalNanos())
+                    .append(", \"meanNanos\": ").append(String.format(Locale.ROOT, "%.1f", latencies.getMean()))
+                    .append(", \"p50Nanos\": ").append(latencies.getPercentile(50))
+                    .append(", \"p90Nanos\": ").append(latencies.getPercentile(90))
+                    .append(", \"p99Nanos\": ").append(latencies.getPercentile(99))
+                    .append(", \"maxNanos\": ").append(latencies.getMax())
+                    .append(", \"allocatedBytes\": ").append(phase.getAllocatedBytes())
+                    .append(", \"allocatedBytesPerThread\": {");
+            String threadSeparator = "";
+            for (Map.Entry<String, Long> thread : phase.getAllocatedBytesPerThread().entrySet()) {
+                json.append(threadSeparator).append(quoted(thread.getKey())).append(": ").append(thread.getValue());
+                threadSeparator = ", ";
+            }
+            json.append("}}");
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"gcPauses\": ");
+        appendPauses(json, gcPauses);
+        json.append(", \"perCollector\": {");
+        separator = "";
+        for (Map.Entry<String, LatencyHistogram> collector : gcPausesPerCollector.entrySet()) {
+            json.append(separator).append(quoted(collector.getKey())).append(": ");
+            appendPauses(json, collector.getValue());
+            json.append('}');
+            separator = ", ";
+        }
+        json.append("}}\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Appends the fields of the pauses to an object that is left open
+     */
+    private static void appendPauses(StringBuilder json, LatencyHistogram pauses) {
+        json.append("{\"count\": ").append(pauses.getCount())
+                .append(", \"totalMillis\": ").append(Math.round(pauses.getMean() * pauses.getCount()))
+                .append(", \"p50Millis\": ").append(pauses.getPercentile(50))
+                .append(", \"p99Millis\": ").append(pauses.getPercentile(99))
+                .append(", \"maxMillis\": ").append(pauses.getMax());
+    }
+
+    /**
+     * @return the string as a JSON string literal
+     */
+    static String quoted(String string) {
+        StringBuilder quoted = new StringBuilder(string.length() + 2).append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
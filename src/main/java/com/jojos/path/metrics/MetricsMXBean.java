@@ -0,0 +1,40 @@
+package com.jojos.path.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link Metrics}, registered as {@value Metrics#OBJECT_NAME}
+ *
+ * @author karanikasg@gmail.com
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return the number of runs of every phase by the name of the phase
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * @return the nanoseconds from the start of the first run to the end of the last one, by the name of the phase
+     */
+    Map<String, Long> getWallNanos();
+
+    /**
+     * @return the 99th percentile of the latencies in nanoseconds, by the name of the phase
+     */
+    Map<String, Long> getP99Nanos();
+
+    /**
+     * @return the bytes allocated while the phase ran, by the name of the phase
+     */
+    Map<String, Long> getAllocatedBytes();
+
+    long getGcPauseCount();
+
+    long getGcPauseMillis();
+
+    /**
+     * @return all the metrics as the JSON report
+     */
+    String getReport();
+}
@@ -0,0 +1,44 @@
+package com.jojos.path.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Writing the buffered output to a file. Only the writes that take longer than the threshold, 1 ms unless the
+ * recording sets another one, are recorded.
+ *
+ * @author karanikasg@gmail.com
+ * @see FlightRecorderEvents
+ */
+@Name("com.jojos.path.OutputWrite")
+@Label("Output Write")
+@Category(FlightRecorderEvents.CATEGORY)
+@Description("Writing the buffered output to a file")
+@StackTrace(false)
+@Threshold("1 ms")
+public class OutputWriteEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    private String file;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Total Bytes")
+    @Description("The bytes written to the file so far, this write included")
+    @DataAmount
+    private long totalBytes;
+
+    public void commit(String file, long bytes, long totalBytes) {
+        this.file = file;
+        this.bytes = bytes;
+        this.totalBytes = totalBytes;
+        commit();
+    }
+}
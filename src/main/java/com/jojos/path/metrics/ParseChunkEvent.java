@@ -0,0 +1,49 @@
+package com.jojos.path.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing a range of an input file, either the whole file or one of its chunks
+ *
+ * @author karanikasg@gmail.com
+ * @see FlightRecorderEvents
+ */
+@Name("com.jojos.path.ParseChunk")
+@Label("Parse Chunk")
+@Category(FlightRecorderEvents.CATEGORY)
+@Description("Parsing a range of an input file into graph edges")
+@StackTrace(false)
+public class ParseChunkEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    private String file;
+
+    @Label("Chunk")
+    @Description("The index of the chunk, 0 when the file is parsed as a whole")
+    private int chunk;
+
+    @Label("Offset")
+    @DataAmount
+    private long offset;
+
+    @Label("Length")
+    @DataAmount
+    private long length;
+
+    @Label("Lines")
+    private long lines;
+
+    public void commit(String file, int chunk, long offset, long length, long lines) {
+        this.file = file;
+        this.chunk = chunk;
+        this.offset = offset;
+        this.length = length;
+        this.lines = lines;
+        commit();
+    }
+}
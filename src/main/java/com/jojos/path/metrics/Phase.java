@@ -0,0 +1,34 @@
+package com.jojos.path.metrics;
+
+/**
+ * The phases of the application that {@link Metrics} are recorded for
+ *
+ * @author karanikasg@gmail.com
+ */
+public enum Phase {
+    // mapping the windows of the input files to memory
+    READ("read"),
+    // tokenizing the mapped windows, which also interns the names and collects the edges
+    TOKENIZE("tokenize"),
+    // appending the edges of the parsed chunks and turning them into a graph
+    GRAPH_BUILD("graphBuild"),
+    // searching the shortest paths of a single source, or of a single source and target
+    SHORTEST_PATHS("shortestPaths"),
+    // calculating the shipping costs and formatting the paths of a single source, timed once for all its targets
+    COST("cost"),
+    // writing the buffered output to the file
+    OUTPUT_WRITE("outputWrite");
+
+    private final String jsonName;
+
+    Phase(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    /**
+     * @return the name of the phase in the JSON report and the MBean
+     */
+    public String getJsonName() {
+        return jsonName;
+    }
+}
@@ -0,0 +1,90 @@
+package com.jojos.path.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a single {@link Phase}: the latencies of its runs in nanoseconds, the wall time from the start of
+ * its first run to the end of its last one, and the bytes allocated by every thread while running it.
+ * The runs may overlap on several threads, so the sum of the latencies can be larger than the wall time.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class PhaseMetrics {
+
+    private final Phase phase;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEnd = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder allocatedBytes = new LongAdder();
+    // keyed by the thread itself, whose name is only read for the report
+    private final Map<Thread, LongAdder> allocatedBytesPerThread = new ConcurrentHashMap<>();
+
+    PhaseMetrics(Phase phase) {
+        this.phase = phase;
+    }
+
+    void record(long startNanos, long endNanos, long allocated) {
+        long nanos = endNanos - startNanos;
+        latencies.record(nanos);
+        totalNanos.add(nanos);
+        firstStart.accumulateAndGet(startNanos, Math::min);
+        lastEnd.accumulateAndGet(endNanos, Math::max);
+        if (allocated > 0) {
+            allocatedBytes.add(allocated);
+            allocatedBytesPerThread.computeIfAbsent(Thread.currentThread(), thread -> new LongAdder()).add(allocated);
+        }
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the latencies of the runs of the phase in nanoseconds
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    public long getCount() {
+        return latencies.getCount();
+    }
+
+    /**
+     * @return the sum of the latencies of all the runs in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * @return the nanoseconds from the start of the first run to the end of the last one, 0 if it never ran
+     */
+    public long getWallNanos() {
+        long start = firstStart.get();
+        long end = lastEnd.get();
+        return end < start ? 0 : end - start;
+    }
+
+    /**
+     * @return the bytes allocated while the phase ran, 0 if the JVM cannot tell
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * @return the bytes allocated while the phase ran by the name of the thread that ran it, sorted by name,
+     * summed for threads of the same name
+     */
+    public Map<String, Long> getAllocatedBytesPerThread() {
+        Map<String, Long> perThread = new TreeMap<>();
+        allocatedBytesPerThread.forEach((thread, bytes) -> perThread.merge(thread.getName(), bytes.sum(), Long::sum));
+        return perThread;
+    }
+}
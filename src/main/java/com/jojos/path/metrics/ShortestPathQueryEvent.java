@@ -0,0 +1,46 @@
+package com.jojos.path.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The search of the shortest paths of a single source, to all its targets or to a single one. Only the searches
+ * that take longer than the threshold, 1 ms unless the recording sets another one, are recorded.
+ *
+ * @author karanikasg@gmail.com
+ * @see FlightRecorderEvents
+ */
+@Name("com.jojos.path.ShortestPathQuery")
+@Label("Shortest Path Query")
+@Category(FlightRecorderEvents.CATEGORY)
+@Description("The search of the shortest paths of a single source")
+@StackTrace(false)
+@Threshold("1 ms")
+public class ShortestPathQueryEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    private String source;
+
+    @Label("Targets")
+    @Description("The number of targets the paths were searched for")
+    private int targets;
+
+    @Label("Settled Vertices")
+    @Description("The number of vertices the search settled")
+    private long settled;
+
+    @Label("Algorithm")
+    private String algorithm;
+
+    public void commit(String source, int targets, long settled, String algorithm) {
+        this.source = source;
+        this.targets = targets;
+        this.settled = settled;
+        this.algorithm = algorithm;
+        commit();
+    }
+}
@@ -0,0 +1,151 @@
+package com.jojos.path.output;
+
+import com.jojos.path.graph.VertexDictionary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte array that output lines are formatted into without creating intermediate Strings.
+ *
+ * Numbers are formatted exactly like {@link Double#toString(double)} would format them, which is what the
+ * output used to contain, with fast paths for whole numbers and for values with at most two decimals,
+ * i.e. weights and shipping costs. The buffer is meant to be reset and reused for every chunk of output.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class OutputBuffer {
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    // above this Double.toString switches to the computerized scientific notation
+    private static final double PLAIN_NOTATION_LIMIT = 1e7;
+
+    private byte[] bytes;
+    private int size;
+
+    public OutputBuffer() {
+        this(8 * 1024);
+    }
+
+    public OutputBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public OutputBuffer append(byte b) {
+        ensureCapacity(1);
+        bytes[size++] = b;
+        return this;
+    }
+
+    /**
+     * Appends a String that is known to contain only ASCII characters, such as a constant label
+     */
+    public OutputBuffer appendAscii(String ascii) {
+        int length = ascii.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            bytes[size++] = (byte) ascii.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Appends any String encoded as UTF-8, for the rare text that doesn't come from the dictionary
+     */
+    public OutputBuffer appendUtf8(String text) {
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+        return this;
+    }
+
+    public OutputBuffer appendName(int vertex, VertexDictionary dictionary) {
+        ensureCapacity(dictionary.getNameLength(vertex));
+        size += dictionary.copyName(vertex, bytes, size);
+        return this;
+    }
+
+    public OutputBuffer appendLineSeparator() {
+        ensureCapacity(LINE_SEPARATOR.length);
+        for (byte b : LINE_SEPARATOR) {
+            bytes[size++] = b;
+        }
+        return this;
+    }
+
+    public OutputBuffer appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            return appendAscii(Long.toString(value));
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        int position = size + digits;
+        do {
+            bytes[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        size += digits;
+        return this;
+    }
+
+    /**
+     * Appends the same characters {@link Double#toString(double)} produces for the value
+     */
+    public OutputBuffer appendDouble(double value) {
+        double absolute = Math.abs(value);
+        if (absolute < PLAIN_NOTATION_LIMIT && (absolute >= 1e-3 || value == 0d)) {
+            if (value == (long) value) {
+                if (value == 0d && Double.doubleToRawLongBits(value) != 0L) {
+                    append((byte) '-');
+                }
+                return appendLong((long) value).appendAscii(".0");
+            }
+            long cents = Math.round(value * 100d);
+            if (cents / 100d == value) {
+                return appendCents(cents);
+            }
+        }
+        return appendAscii(Double.toString(value));
+    }
+
+    private OutputBuffer appendCents(long cents) {
+        if (cents < 0) {
+            append((byte) '-');
+            cents = -cents;
+        }
+        appendLong(cents / 100).append((byte) '.');
+        int fraction = (int) (cents % 100);
+        append((byte) ('0' + fraction / 10));
+        if (fraction % 10 != 0) {
+            append((byte) ('0' + fraction % 10));
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = size + additional;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.jojos.path.output;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.metrics.FlightRecorderEvents;
+import com.jojos.path.metrics.Metrics;
+import com.jojos.path.metrics.OutputWriteEvent;
+import com.jojos.path.metrics.Phase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams formatted output to a file through a {@link FileChannel}.
+ *
+ * The bytes of every {@link OutputBuffer} handed over are copied into one large direct buffer which is written
+ * to the channel whenever it fills up or when {@link #flush()} is called, so the heap used for the output
+ * doesn't grow with the size of the output file.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class PathOutputWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final String fileName;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long bytesWritten;
+
+    public PathOutputWriter(String fileName) {
+        this(fileName, DEFAULT_BUFFER_SIZE);
+    }
+
+    public PathOutputWriter(String fileName, int bufferSize) {
+        this.fileName = fileName;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        Path path = Paths.get(fileName);
+        try {
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot write to " + fileName);
+        }
+    }
+
+    /**
+     * Appends the contents of the output buffer. The output buffer can be reset right after this call.
+     */
+    public void write(OutputBuffer output) {
+        write(output.array(), 0, output.size());
+    }
+
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Writes everything buffered so far to the file
+     */
+    public void flush() {
+        if (buffer.position() == 0) {
+            return;
+        }
+        OutputWriteEvent event = FlightRecorderEvents.AVAILABLE ? new OutputWriteEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = Metrics.startNanos();
+        long allocated = Metrics.allocatedBytes();
+        buffer.flip();
+        long bytes = buffer.remaining();
+        try {
+            while (buffer.hasRemaining()) {
+                bytesWritten += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new ApplicationException("Cannot write to " + fileName);
+        } finally {
+            buffer.clear();
+        }
+        Metrics.record(Phase.OUTPUT_WRITE, start, allocated);
+        if (event != null) {
+            event.commit(fileName, bytes, bytesWritten);
+        }
+    }
+
+    /**
+     * @return the number of bytes written to the file so far, not counting the ones still buffered
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ApplicationException("Cannot close " + fileName);
+            }
+        }
+    }
+}
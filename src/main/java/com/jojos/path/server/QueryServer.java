@@ -0,0 +1,326 @@
+package com.jojos.path.server;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.DimensionsWeight;
+import com.jojos.path.calculation.PointToPointAlgorithm;
+import com.jojos.path.calculation.ShortestPath;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Answers shortest path queries over plain TCP connections on the loopback interface, so that the graph
+ * is parsed once for any number of queries.
+ *
+ * Every line a client sends is a query of the form
+ * <pre>
+ * SOURCE,TARGET
+ * SOURCE,TARGET,WidthxLengthxHeightxWeight
+ * </pre>
+ * and is answered by a single line in the format of the output file, for example
+ * {@code [ME -> Adam -> Philipp] - [Weight: 17.0]}, or {@code NO PATH} when the target can't be reached
+ * and {@code ERROR} followed by the reason when the query is invalid. {@code QUIT} closes the connection.
+ * {@code SHUTDOWN} stops the server only when it was started {@link #withShutdownCommand() with the command},
+ * since any process of the host can connect to the loopback interface.
+ *
+ * Every connection runs on a virtual thread when the runtime has them and on a thread of a cached pool
+ * otherwise. The graph and the structures the queries search are shared by all the connections, while the
+ * working arrays of the queries are taken from a pool for the duration of a single query. The pool holds at most
+ * as many query instances as the queries allowed to run at the same time, further queries wait for one of them,
+ * so the memory of the server doesn't grow with the number of its clients. The latency of
+ * every query is recorded, and the throughput and the latency percentiles are logged when the server stops.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class QueryServer implements Closeable {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final String QUIT = "QUIT";
+    private static final String SHUTDOWN = "SHUTDOWN";
+    private static final String NO_PATH = "NO PATH";
+    private static final String ERROR = "ERROR ";
+
+    private final CsrGraph graph;
+    private final Supplier<PointToPointAlgorithm> queryFactory;
+    // the queries that aren't used by any connection at the moment
+    private final ConcurrentLinkedQueue<PointToPointAlgorithm> idleQueries = new ConcurrentLinkedQueue<>();
+    // a permit for every query instance, which is only created while a permit is held
+    private final Semaphore queryPermits;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private boolean shutdownCommand;
+    private long startNanos;
+
+    /**
+     * @param graph        the graph of the queries
+     * @param queryFactory creates the query instances, every one of them used by a single thread at a time
+     * @param port         the port to listen to or 0 for any free port
+     * @param parallelism  the number of queries answered at the same time, and of the query instances created
+     */
+    public QueryServer(CsrGraph graph, Supplier<PointToPointAlgorithm> queryFactory, int port, int parallelism) {
+        if (parallelism < 1) {
+            throw new ApplicationException("Parallelism must be a positive number but was " + parallelism);
+        }
+        this.graph = graph;
+        this.queryFactory = queryFactory;
+        this.queryPermits = new Semaphore(parallelism);
+        try {
+            this.serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot listen to port %d: %s", port, e.getMessage()));
+        }
+        this.connections = newConnectionExecutor();
+    }
+
+    /**
+     * Lets clients stop the server with {@code SHUTDOWN}, which is otherwise answered with an error
+     *
+     * @return this server
+     */
+    public QueryServer withShutdownCommand() {
+        this.shutdownCommand = true;
+        return this;
+    }
+
+    /**
+     * Starts accepting connections in the background
+     */
+    public QueryServer start() {
+        startNanos = System.nanoTime();
+        new Thread(this::acceptConnections, "query-server-acceptor").start();
+        log.info("Serving queries on {}", serverSocket.getLocalSocketAddress());
+        return this;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    /**
+     * Blocks until the server is stopped by a client or by {@link #close()}
+     */
+    public void awaitShutdown() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and logs the throughput and the latencies
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.warn("Cannot close the server socket: {}", e.getMessage());
+        }
+        for (Socket socket : openSockets) {
+            closeQuietly(socket);
+        }
+        connections.shutdown();
+        try {
+            if (!connections.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Some connections didn't complete in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        double seconds = elapsedNanos / 1e9;
+        log.info(String.format("Server stopped after %.1f sec: %.1f requests/sec, %d errors, %s",
+                seconds, seconds > 0 ? latencies.getCount() / seconds : 0d, errors.get(), latencies));
+        stopped.countDown();
+    }
+
+    private void acceptConnections() {
+        while (!closed.get()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                openSockets.add(socket);
+                try {
+                    connections.execute(() -> serve(socket));
+                } catch (RejectedExecutionException e) {
+                    // accepted while the server was closing
+                    openSockets.remove(socket);
+                    closeQuietly(socket);
+                }
+            } catch (SocketException e) {
+                // the server socket was closed
+                break;
+            } catch (IOException e) {
+                log.warn("Cannot accept a connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        boolean shutdown = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (line.equalsIgnoreCase(QUIT)) {
+                    break;
+                }
+                if (line.equalsIgnoreCase(SHUTDOWN) && shutdownCommand) {
+                    shutdown = true;
+                    break;
+                }
+                long start = System.nanoTime();
+                writer.write(answer(line));
+                writer.write('\n');
+                latencies.record((System.nanoTime() - start) / 1000);
+                // answers of pipelined queries are sent together
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            if (!closed.get()) {
+                log.debug("Connection from {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            openSockets.remove(socket);
+            closeQuietly(socket);
+        }
+        if (shutdown) {
+            log.info("Shutdown requested by {}", socket.getRemoteSocketAddress());
+            // closing waits for the connections, this one included, so it runs on a thread of its own
+            new Thread(this::close, "query-server-shutdown").start();
+        }
+    }
+
+    /**
+     * @return the line answering the query
+     */
+    String answer(String query) {
+        if (query.equalsIgnoreCase(SHUTDOWN)) {
+            // only reached when the server was started without the command
+            errors.incrementAndGet();
+            return ERROR + "the server can't be stopped by its clients";
+        }
+        String[] fields = query.split(",");
+        if (fields.length < 2 || fields.length > 3) {
+            errors.incrementAndGet();
+            return ERROR + "expected SOURCE,TARGET or SOURCE,TARGET,WidthxLengthxHeightxWeight";
+        }
+        String sourceName = fields[0].trim();
+        String targetName = fields[1].trim();
+        int source = graph.getVertexId(sourceName);
+        int target = graph.getVertexId(targetName);
+        if (source < 0 || target < 0) {
+            errors.incrementAndGet();
+            return ERROR + "unknown " + (source < 0 ? sourceName : targetName);
+        }
+        DimensionsWeight dimensionsWeight = null;
+        if (fields.length == 3) {
+            try {
+                dimensionsWeight = Computations.parseDimensions(fields[2].trim());
+            } catch (ApplicationException e) {
+                errors.incrementAndGet();
+                return ERROR + e.getMessage();
+            }
+        }
+
+        ShortestPath path;
+        queryPermits.acquireUninterruptibly();
+        try {
+            PointToPointAlgorithm algorithm = idleQueries.poll();
+            if (algorithm == null) {
+                algorithm = queryFactory.get();
+            }
+            try {
+                path = algorithm.getPath(source, target);
+            } finally {
+                idleQueries.offer(algorithm);
+            }
+        } finally {
+            queryPermits.release();
+        }
+        if (!path.exists()) {
+            return NO_PATH;
+        }
+        double weight = path.getWeight();
+        if (dimensionsWeight != null) {
+            weight = Computations.shippingCost(weight, dimensionsWeight);
+        }
+        return Util.toPrettyPathString(path.getVertices(), graph.getVertexDictionary())
+                + " - [" + (dimensionsWeight != null ? "Cost" : "Weight") + ": " + weight + "]";
+    }
+
+    /**
+     * @return an executor starting a virtual thread for every connection if the runtime has virtual threads,
+     * otherwise a cached thread pool
+     */
+    private ExecutorService newConnectionExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) method.invoke(null);
+            log.info("Connections run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.info("Virtual threads aren't available, connections run on a cached thread pool");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+    }
+}
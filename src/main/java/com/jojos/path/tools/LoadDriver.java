@@ -0,0 +1,168 @@
+package com.jojos.path.tools;
+
+import com.jojos.path.App;
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.DimensionsWeight;
+import com.jojos.path.calculation.ParseJob;
+import com.jojos.path.calculation.ShortestPathJob;
+import com.jojos.path.input.ParsedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the application end to end on a generated network and reports the wall time, the peak heap and the
+ * garbage collection time of every phase.
+ *
+ * The network is generated once by a {@link NetworkGenerator}. Every run then parses it and calculates its
+ * shortest paths the way the application does for a single input file, as separate phases, and finally runs
+ * the whole {@link App} with the same arguments. The first runs warm the JIT compiler up, so more than one run
+ * is usually needed for stable numbers.
+ *
+ * @author karanikasg@gmail.com
+ * @see PhaseReport
+ */
+public class LoadDriver {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final NetworkGenerator generator;
+    private final Path input;
+    private final Path output;
+    private final String source;
+    private final String target;
+    // the package as given on the command line, for the arguments of the application
+    private final String dimensions;
+    private final DimensionsWeight dimensionsWeight;
+    private final ParseJob.RunMode runMode;
+    private final int parallelism;
+    private final int runs;
+
+    /**
+     * @param generator        the generator of the network or null if the input already exists
+     * @param input            the file of the network
+     * @param output           the file the paths are written to
+     * @param source           the source of the paths or null for all the friends
+     * @param target           the target of the paths or null for all the friends
+     * @param dimensions       the package the shipping costs are calculated for, as WxLxHxWeight, or null for
+     *                         plain weights
+     * @param runMode          whether the assertions of the network are checked instead of writing the paths
+     * @param parallelism      the number of threads of the application
+     * @param runs             the number of times the application runs
+     */
+    public LoadDriver(NetworkGenerator generator,
+                      Path input,
+                      Path output,
+                      String source,
+                      String target,
+                      String dimensions,
+                      ParseJob.RunMode runMode,
+                      int parallelism,
+                      int runs) {
+        if (runs < 1) {
+            throw new ApplicationException("Runs must be a positive number but was " + runs);
+        }
+        this.generator = generator;
+        this.input = input;
+        this.output = output;
+        this.source = source;
+        this.target = target;
+        this.dimensions = dimensions;
+        this.dimensionsWeight = dimensions == null ? null : Computations.parseDimensions(dimensions);
+        this.runMode = runMode;
+        this.parallelism = parallelism;
+        this.runs = runs;
+    }
+
+    /**
+     * @return the reports of all the phases in the order they ran
+     */
+    public List<PhaseReport> run() {
+        List<PhaseReport> reports = new ArrayList<>();
+        if (generator != null) {
+            reports.add(report(PhaseReport.measure("generate", () -> generator.write(input))));
+        }
+        for (int run = 1; run <= runs; run++) {
+            log.info("Load test run {} of {}", run, runs);
+            AtomicReference<ParsedObject> parsedObject = new AtomicReference<>();
+            reports.add(report(PhaseReport.measure("parse", () -> parsedObject.set(
+                    new ParseJob(input.toString(), parallelism).runAndCreateGraph(runMode)))));
+            reports.add(report(PhaseReport.measure("paths", () -> shortestPathJob(parsedObject.get()).run())));
+            parsedObject.set(null);
+            reports.add(report(PhaseReport.measure("application", () -> App.main(applicationArguments()))));
+        }
+        return reports;
+    }
+
+    private PhaseReport report(PhaseReport report) {
+        log.info("Phase {}", report);
+        return report;
+    }
+
+    private ShortestPathJob shortestPathJob(ParsedObject parsedObject) {
+        return runMode == ParseJob.RunMode.WITH_ASSERTIONS
+                ? ShortestPathJob.withAssertions(parsedObject, parallelism)
+                : ShortestPathJob.withoutAssertions(parsedObject.getGraph(), output.toString(), source, target,
+                dimensionsWeight, parallelism);
+    }
+
+    private String[] applicationArguments() {
+        List<String> args = new ArrayList<>(Arrays.asList("-input", input.toString(), "-output", output.toString(),
+                "-parallelism", String.valueOf(parallelism)));
+        if (source != null) {
+            args.addAll(Arrays.asList("-source", source));
+        }
+        if (target != null) {
+            args.addAll(Arrays.asList("-target", target));
+        }
+        if (dimensions != null) {
+            args.addAll(Arrays.asList("-dimensions", dimensions));
+        }
+        if (runMode == ParseJob.RunMode.WITH_ASSERTIONS) {
+            args.add("-assert");
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Runs the load test with the parameters of the command line. These are the parameters of the
+     * {@link NetworkGenerator#main(String[]) generator}, where -output is the file of the network, and
+     * -paths paths.csv -source name -target name -dimensions WxLxHxWeight -assert -parallelism 8 -runs 3
+     * that are all optional. The network is generated to network.csv and the paths are written to
+     * paths.csv unless given otherwise. With -input network.csv an existing network is used instead.
+     */
+    public static void main(String[] args) {
+        String existing = Util.getArgument(args, "input");
+        NetworkGenerator generator = existing == null ? NetworkGenerator.fromArguments(args) : null;
+        Path input = Paths.get(existing != null ? existing : Objects.toString(Util.getArgument(args, "output"), "network.csv"));
+        Path output = Paths.get(Objects.toString(Util.getArgument(args, "paths"), "paths.csv"));
+        new LoadDriver(generator, input, output,
+                Util.getArgument(args, "source"),
+                Util.getArgument(args, "target"),
+                Util.getArgument(args, "dimensions"),
+                Util.isPrimaryArgumentPresent(args, "assert")
+                        ? ParseJob.RunMode.WITH_ASSERTIONS : ParseJob.RunMode.WITHOUT_ASSERTIONS,
+                positiveArgument(args, "parallelism", Runtime.getRuntime().availableProcessors()),
+                positiveArgument(args, "runs", 1)).run();
+    }
+
+    private static int positiveArgument(String[] args, String arg, int defaultValue) {
+        String value = Util.getArgument(args, arg);
+        if (Objects.isNull(value)) {
+            return defaultValue;
+        }
+        long result = Util.validateLongOrThrow(value);
+        if (result < 1 || result > Short.MAX_VALUE) {
+            throw new ApplicationException(String.format("%s must be between 1 and %d", arg, Short.MAX_VALUE));
+        }
+        return (int) result;
+    }
+}
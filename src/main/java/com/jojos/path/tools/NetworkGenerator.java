@@ -0,0 +1,315 @@
+package com.jojos.path.tools;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.Util;
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.DimensionsWeight;
+import com.jojos.path.calculation.ShortestPathAlgorithm;
+import com.jojos.path.calculation.ShortestPathTree;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Generates synthetic friend's networks in the input format of the application, for load tests and benchmarks.
+ *
+ * The first friend is always ME and the others are named Friend1, Friend2 etc. The network is shaped by:
+ * <ul>
+ * <li>the number of friends and the average number of friends each of them ships to</li>
+ * <li>the exponent of the power law the numbers of friends follow: few friends ship to many and most ship to
+ * few, the smaller the exponent the larger the differences (it must be greater than 2 for the average to hold)</li>
+ * <li>the locality, the probability a friend ships to one of the friends next to it instead of anyone in the
+ * network, which makes long paths through many friends more likely</li>
+ * <li>the distribution of the HARD units of the edges, uniform or exponential up to a maximum</li>
+ * </ul>
+ * Optionally assertion lines from ME to random friends follow the network, with the shipping costs of random
+ * packages already calculated on the generated network, so the file can also be run with -assert.
+ *
+ * The same parameters and seed always generate the same file.
+ *
+ * @author karanikasg@gmail.com
+ */
+public class NetworkGenerator {
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static final String ME = "ME";
+    // the friends on either side of a friend that count as next to it
+    private static final int LOCAL_WINDOW = 64;
+
+    private final int vertices;
+    private final long seed;
+    private double averageDegree = 8;
+    private double degreeExponent = 2.5;
+    private double locality = 0;
+    private WeightDistribution weightDistribution = WeightDistribution.UNIFORM;
+    private int maxHard = 1000;
+    private int assertions = 0;
+
+    /**
+     * @param vertices the number of friends, ME included
+     * @param seed     the seed of the random numbers
+     */
+    public NetworkGenerator(int vertices, long seed) {
+        if (vertices < 1) {
+            throw new ApplicationException("The network must have at least one friend but was " + vertices);
+        }
+        this.vertices = vertices;
+        this.seed = seed;
+    }
+
+    /**
+     * @param averageDegree the average number of friends a friend ships to, 8 by default
+     * @param exponent      the exponent of the power law of the numbers of friends, greater than 2, 2.5 by default
+     * @return this generator
+     */
+    public NetworkGenerator withDegree(double averageDegree, double exponent) {
+        if (!(averageDegree > 0)) {
+            throw new ApplicationException("The average degree must be a positive number but was " + averageDegree);
+        }
+        if (!(exponent > 2)) {
+            throw new ApplicationException("The exponent of the degrees must be greater than 2 but was " + exponent);
+        }
+        this.averageDegree = averageDegree;
+        this.degreeExponent = exponent;
+        return this;
+    }
+
+    /**
+     * @param locality the probability between 0 and 1 that a friend ships to a friend next to it, 0 by default
+     * @return this generator
+     */
+    public NetworkGenerator withLocality(double locality) {
+        if (!(locality >= 0 && locality <= 1)) {
+            throw new ApplicationException("The locality must be between 0 and 1 but was " + locality);
+        }
+        this.locality = locality;
+        return this;
+    }
+
+    /**
+     * @param weightDistribution the distribution of the HARD units of the edges, uniform by default
+     * @param maxHard            the largest HARD unit of an edge, 1000 by default
+     * @return this generator
+     */
+    public NetworkGenerator withWeights(WeightDistribution weightDistribution, int maxHard) {
+        if (maxHard < 1) {
+            throw new ApplicationException("The largest HARD unit must be a positive number but was " + maxHard);
+        }
+        this.weightDistribution = Objects.requireNonNull(weightDistribution);
+        this.maxHard = maxHard;
+        return this;
+    }
+
+    /**
+     * @param assertions the number of assertion lines written after the network, none by default
+     * @return this generator
+     */
+    public NetworkGenerator withAssertions(int assertions) {
+        if (assertions < 0) {
+            throw new ApplicationException("The number of assertions must not be negative but was " + assertions);
+        }
+        this.assertions = assertions;
+        return this;
+    }
+
+    static String nameOf(int vertex) {
+        return vertex == 0 ? ME : "Friend" + vertex;
+    }
+
+    /**
+     * Writes the network, one line per friend that ships to other friends, and the assertions after it
+     *
+     * @return the number of edges written
+     */
+    public long write(Path file) {
+        long start = System.currentTimeMillis();
+        Random random = new Random(seed);
+        // the smallest degree of the power law whose average is the requested one
+        double minDegree = averageDegree * (degreeExponent - 2) / (degreeExponent - 1);
+        CsrGraphBuilder builder = assertions > 0 ? new CsrGraphBuilder() : null;
+        // the friends named in the file, the only ones the assertions may ship to
+        boolean[] named = assertions > 0 ? new boolean[vertices] : null;
+        if (builder != null) {
+            for (int v = 0; v < vertices; v++) {
+                builder.addVertex(nameOf(v));
+            }
+        }
+
+        long edges = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder();
+            for (int v = 0; v < vertices; v++) {
+                int degree = degree(random, minDegree);
+                if (v == 0 && vertices > 1) {
+                    // ME always ships to someone, as the source of the assertions
+                    degree = Math.max(degree, 1);
+                }
+                if (degree == 0) {
+                    continue;
+                }
+                line.setLength(0);
+                line.append(nameOf(v));
+                for (int e = 0; e < degree; e++) {
+                    int target = target(random, v);
+                    int hard = weightDistribution.next(random, maxHard);
+                    line.append(',').append(nameOf(target)).append(':').append(hard);
+                    if (builder != null) {
+                        builder.addEdge(v, target, hard);
+                        named[target] = true;
+                    }
+                }
+                writer.write(line.toString());
+                writer.newLine();
+                edges += degree;
+                if (named != null) {
+                    named[v] = true;
+                }
+            }
+            if (builder != null) {
+                writeAssertions(writer, builder.build(), named, random);
+            }
+        } catch (IOException e) {
+            throw new ApplicationException(String.format("Cannot write the network to %s: %s", file, e.getMessage()));
+        }
+        log.info("Generated {} friends, {} edges and {} assertions in {} in {}",
+                vertices, edges, assertions, file, Util.longDuration(start));
+        return edges;
+    }
+
+    /**
+     * A degree of the power law, rounded to a whole number and at most the number of the other friends
+     */
+    private int degree(Random random, double minDegree) {
+        double pareto = minDegree * Math.pow(1 - random.nextDouble(), -1 / (degreeExponent - 1));
+        return (int) Math.min(Math.round(pareto), vertices - 1L);
+    }
+
+    private int target(Random random, int source) {
+        if (vertices > 1 && random.nextDouble() < locality) {
+            int window = Math.min(LOCAL_WINDOW, (vertices - 1) / 2);
+            int offset = window == 0 ? 1 : 1 + random.nextInt(window);
+            int target = random.nextBoolean() ? source + offset : source - offset;
+            return Math.floorMod(target, vertices);
+        }
+        return random.nextInt(vertices);
+    }
+
+    /**
+     * Assertions of random packages from ME to random friends, with the costs of the shortest paths of the network
+     */
+    private void writeAssertions(BufferedWriter writer, CsrGraph graph, boolean[] named, Random random) throws IOException {
+        int[] targets = new int[vertices];
+        int targetCount = 0;
+        for (int v = 1; v < vertices; v++) {
+            if (named[v]) {
+                targets[targetCount++] = v;
+            }
+        }
+        if (targetCount == 0) {
+            // ME is the only friend and there aren't any paths to assert
+            return;
+        }
+        ShortestPathTree tree = ShortestPathAlgorithm.forGraph(graph).getPaths(graph.getVertexId(ME));
+        for (int a = 0; a < assertions; a++) {
+            int target = targets[random.nextInt(targetCount)];
+            String dimensions = String.format("%dx%dx%dx%d", 1 + random.nextInt(100), 1 + random.nextInt(100),
+                    1 + random.nextInt(100), 1 + random.nextInt(30_000));
+            String cost = "~";
+            if (tree.hasPath(target)) {
+                DimensionsWeight dimensionsWeight = Computations.parseDimensions(dimensions);
+                cost = String.format(Locale.ROOT, "%.2f", Computations.shippingCost(tree.getWeight(target), dimensionsWeight));
+            }
+            writer.write(String.format("@,%s,%s,%s", nameOf(target), dimensions, cost));
+            writer.newLine();
+        }
+    }
+
+    /**
+     * The distributions of the HARD units of the edges
+     */
+    public enum WeightDistribution {
+        // every HARD unit up to the maximum is as likely
+        UNIFORM {
+            @Override
+            int next(Random random, int maxHard) {
+                return 1 + random.nextInt(maxHard);
+            }
+        },
+        // most edges are short and few are long, with an average of a tenth of the maximum
+        EXPONENTIAL {
+            @Override
+            int next(Random random, int maxHard) {
+                double hard = 1 - Math.log(1 - random.nextDouble()) * maxHard / 10d;
+                return (int) Math.min(hard, maxHard);
+            }
+        };
+
+        abstract int next(Random random, int maxHard);
+    }
+
+    /**
+     * Writes a network with the parameters of the command line, like
+     * -output network.csv -vertices 100000 -degree 8 -exponent 2.5 -locality 0.5 -weights exponential
+     * -maxhard 1000 -assertions 100 -seed 42
+     * where all the parameters but the output are optional
+     */
+    public static void main(String[] args) {
+        String output = Util.getArgument(args, "output");
+        if (Objects.isNull(output)) {
+            throw new ApplicationException("Wrong usage. Please start the generator with command line arguments -output network.csv");
+        }
+        fromArguments(args).write(Paths.get(output));
+    }
+
+    /**
+     * @return a generator with the parameters of the command line, the defaults for the missing ones
+     */
+    static NetworkGenerator fromArguments(String[] args) {
+        NetworkGenerator generator = new NetworkGenerator(
+                (int) longArgument(args, "vertices", 10_000, Integer.MAX_VALUE),
+                longArgument(args, "seed", 42, Long.MAX_VALUE));
+        generator.withDegree(doubleArgument(args, "degree", generator.averageDegree),
+                doubleArgument(args, "exponent", generator.degreeExponent));
+        generator.withLocality(doubleArgument(args, "locality", generator.locality));
+        String weights = Util.getArgument(args, "weights");
+        WeightDistribution weightDistribution = generator.weightDistribution;
+        if (weights != null) {
+            try {
+                weightDistribution = WeightDistribution.valueOf(weights.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ApplicationException("Weights must be uniform or exponential but were " + weights);
+            }
+        }
+        generator.withWeights(weightDistribution, (int) longArgument(args, "maxhard", generator.maxHard, Integer.MAX_VALUE));
+        generator.withAssertions((int) longArgument(args, "assertions", 0, Integer.MAX_VALUE));
+        return generator;
+    }
+
+    private static long longArgument(String[] args, String arg, long defaultValue, long maxValue) {
+        String value = Util.getArgument(args, arg);
+        if (Objects.isNull(value)) {
+            return defaultValue;
+        }
+        long result = Util.validateLongOrThrow(value);
+        if (result < 0 || result > maxValue) {
+            throw new ApplicationException(String.format("%s must be between 0 and %d", arg, maxValue));
+        }
+        return result;
+    }
+
+    private static double doubleArgument(String[] args, String arg, double defaultValue) {
+        String value = Util.getArgument(args, arg);
+        return Objects.isNull(value) ? defaultValue : Util.validateDoubleOrThrow(value);
+    }
+}
@@ -0,0 +1,105 @@
+package com.jojos.path.tools;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+/**
+ * The wall time, the peak heap and the time spent in garbage collection of a phase of a load test.
+ *
+ * The peak heap is the sum of the peak usages of the heap memory pools while the phase runs. The pools peak at
+ * different moments, so it's an upper bound of the heap used at once. A garbage collection runs before every
+ * phase so that the garbage of the previous phase isn't counted.
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class PhaseReport {
+
+    private final String phase;
+    private final long wallMillis;
+    private final long peakHeapBytes;
+    private final long gcMillis;
+    private final long gcCount;
+
+    private PhaseReport(String phase, long wallMillis, long peakHeapBytes, long gcMillis, long gcCount) {
+        this.phase = phase;
+        this.wallMillis = wallMillis;
+        this.peakHeapBytes = peakHeapBytes;
+        this.gcMillis = gcMillis;
+        this.gcCount = gcCount;
+    }
+
+    /**
+     * Runs the phase and measures it
+     */
+    public static PhaseReport measure(String phase, Runnable runnable) {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        System.gc();
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+        long gcMillis = -collectionTime(collectors);
+        long gcCount = -collectionCount(collectors);
+        long start = System.nanoTime();
+
+        runnable.run();
+
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        gcMillis += collectionTime(collectors);
+        gcCount += collectionCount(collectors);
+        long peakHeapBytes = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+        }
+        return new PhaseReport(phase, wallMillis, peakHeapBytes, gcMillis, gcCount);
+    }
+
+    private static long collectionTime(List<GarbageCollectorMXBean> collectors) {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long collectionCount(List<GarbageCollectorMXBean> collectors) {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public long getGcMillis() {
+        return gcMillis;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-12s wall %8d ms, peak heap %8.1f MB, gc %6d ms in %4d collections",
+                phase, wallMillis, peakHeapBytes / (1024d * 1024d), gcMillis, gcCount);
+    }
+}
@@ -0,0 +1,67 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link BidirectionalDijkstra} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class BidirectionalDijkstraTest {
+
+    @Test
+    public void testReadmeNetwork() {
+        CsrGraph graph = DijkstraTest.createGraph();
+        BidirectionalDijkstra bidirectional = new BidirectionalDijkstra(graph);
+        int me = graph.getVertexId("ME");
+
+        ShortestPath path = bidirectional.getPath(me, graph.getVertexId("Martin"));
+        Assert.assertEquals(46, path.getWeight(), 0);
+        Assert.assertArrayEquals(new int[]{me, graph.getVertexId("Adam"), graph.getVertexId("Diana"), graph.getVertexId("Martin")},
+                path.getVertices());
+
+        Assert.assertFalse(bidirectional.getPath(graph.getVertexId("Diana"), graph.getVertexId("Stefan")).exists());
+        Assert.assertFalse(bidirectional.getPath(me, -1).exists());
+        Assert.assertArrayEquals(new int[]{me}, bidirectional.getPath(me, me).getVertices());
+    }
+
+    @Test
+    public void testSameWeightsAsSingleSourceSearch() {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(2_000, 6_000, 11);
+        Dijkstra dijkstra = new Dijkstra(graph);
+        BidirectionalDijkstra bidirectional = new BidirectionalDijkstra(graph);
+        Random random = new Random(5);
+        for (int i = 0; i < 50; i++) {
+            int source = random.nextInt(graph.getVertexCount());
+            ShortestPathTree tree = dijkstra.getPaths(source);
+            for (int j = 0; j < 40; j++) {
+                int target = random.nextInt(graph.getVertexCount());
+                ShortestPath path = bidirectional.getPath(source, target);
+                Assert.assertEquals(tree.hasPath(target), path.exists());
+                Assert.assertEquals(tree.getWeight(target), path.getWeight(), 0);
+                if (path.exists()) {
+                    int[] vertices = path.getVertices();
+                    Assert.assertEquals(source, vertices[0]);
+                    Assert.assertEquals(target, vertices[vertices.length - 1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReverseGraph() {
+        CsrGraph graph = DijkstraTest.createGraph();
+        CsrGraph reverse = graph.getReverse();
+        Assert.assertSame(graph, reverse.getReverse());
+        Assert.assertEquals(graph.getEdgeCount(), reverse.getEdgeCount());
+
+        int martin = graph.getVertexId("Martin");
+        Assert.assertEquals(3, reverse.getEndEdge(martin) - reverse.getFirstEdge(martin));
+        Assert.assertEquals("ME", graph.getVertexName(reverse.getEdgeTarget(reverse.getFirstEdge(martin))));
+        Assert.assertEquals(595, reverse.getEdgeWeight(reverse.getFirstEdge(martin)), 0);
+    }
+}
@@ -4,6 +4,8 @@ import com.jojos.path.ApplicationException;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Random;
+
 /**
  * Unit tests for {@link Computations} class
  *
@@ -109,4 +111,41 @@ public class ComputationsTest {
         Assert.assertEquals(48, result, 0);
     }
 
+    @Test
+    public void testShippingCostMatrixEqualsSingleCosts() {
+        Random random = new Random(5);
+        int packages = 300;
+        double[] widths = new double[packages];
+        double[] lengths = new double[packages];
+        double[] heights = new double[packages];
+        double[] weights = new double[packages];
+        for (int i = 0; i < packages; i++) {
+            widths[i] = 1 + random.nextInt(100);
+            lengths[i] = 1 + random.nextInt(100) + random.nextInt(10) / 10d;
+            heights[i] = 1 + random.nextInt(100);
+            weights[i] = random.nextInt(30_000);
+        }
+        double[] hards = new double[257];
+        for (int p = 0; p < hards.length; p++) {
+            hards[p] = random.nextInt(5_000) + random.nextInt(100) / 100d;
+        }
+        hards[0] = 0;
+        hards[1] = Double.POSITIVE_INFINITY;
+
+        double[][] costs = Computations.shippingCostMatrix(widths, lengths, heights, weights, hards);
+        Assert.assertEquals(packages, costs.length);
+        for (int i = 0; i < packages; i++) {
+            DimensionsWeight dimensionsWeight = new DimensionsWeight(Dimensions.of(widths[i], lengths[i], heights[i]), weights[i]);
+            for (int p = 0; p < hards.length; p++) {
+                double expected = Computations.shippingCost(hards[p], dimensionsWeight);
+                Assert.assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(costs[i][p]));
+            }
+        }
+    }
+
+    @Test(expected = ApplicationException.class)
+    public void testShippingCostMatrixOfUnequalColumns() {
+        Computations.shippingCostMatrix(new double[2], new double[2], new double[1], new double[2], new double[3]);
+    }
+
 }
@@ -0,0 +1,118 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link ContractionHierarchy} and {@link ContractionHierarchyQuery} classes
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ContractionHierarchyTest {
+
+    @Test
+    public void testReadmeNetwork() {
+        CsrGraph graph = DijkstraTest.createGraph();
+        ContractionHierarchyQuery query = ContractionHierarchy.build(graph, 2).newQuery();
+        int me = graph.getVertexId("ME");
+
+        ShortestPath path = query.getPath(me, graph.getVertexId("Martin"));
+        Assert.assertEquals(46, path.getWeight(), 0);
+        Assert.assertArrayEquals(new int[]{me, graph.getVertexId("Adam"), graph.getVertexId("Diana"), graph.getVertexId("Martin")},
+                path.getVertices());
+
+        Assert.assertFalse(query.getPath(graph.getVertexId("Diana"), graph.getVertexId("Stefan")).exists());
+        Assert.assertFalse(query.getPath(me, -1).exists());
+        Assert.assertArrayEquals(new int[]{me}, query.getPath(me, me).getVertices());
+    }
+
+    @Test
+    public void testSameWeightsAsDijkstraWithUnpackedPaths() {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(500, 1_500, 11);
+        Dijkstra dijkstra = new Dijkstra(graph);
+        ContractionHierarchyQuery query = ContractionHierarchy.build(graph, 4).newQuery();
+        Random random = new Random(5);
+        for (int i = 0; i < 50; i++) {
+            int source = random.nextInt(graph.getVertexCount());
+            ShortestPathTree tree = dijkstra.getPaths(source);
+            for (int j = 0; j < 40; j++) {
+                int target = random.nextInt(graph.getVertexCount());
+                ShortestPath path = query.getPath(source, target);
+                Assert.assertEquals(tree.hasPath(target), path.exists());
+                Assert.assertEquals(tree.getWeight(target), path.getWeight(), 0);
+                if (path.exists()) {
+                    int[] vertices = path.getVertices();
+                    Assert.assertEquals(source, vertices[0]);
+                    Assert.assertEquals(target, vertices[vertices.length - 1]);
+                    for (int k = 1; k < vertices.length; k++) {
+                        Assert.assertTrue(hasEdge(graph, vertices[k - 1], vertices[k]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFewerSettledVerticesThanBidirectionalSearch() {
+        CsrGraph graph = createGrid(40, 3);
+        ContractionHierarchyQuery query = ContractionHierarchy.build(graph, 2).newQuery();
+        BidirectionalDijkstra bidirectional = new BidirectionalDijkstra(graph);
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            int source = random.nextInt(graph.getVertexCount());
+            int target = random.nextInt(graph.getVertexCount());
+            Assert.assertEquals(bidirectional.getPath(source, target).getWeight(), query.getPath(source, target).getWeight(), 0);
+        }
+        // the queries climb the hierarchy instead of searching the graph
+        Assert.assertTrue(query.getSettledCount() * 4 < bidirectional.getSettledCount());
+    }
+
+    /**
+     * @return a square grid with edges of random weights in both directions between neighbouring vertices,
+     * a network with a hierarchical structure like the one of a road network
+     */
+    private static CsrGraph createGrid(int side, long seed) {
+        Random random = new Random(seed);
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        for (int v = 0; v < side * side; v++) {
+            builder.addVertex("Friend" + v);
+        }
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                int v = row * side + column;
+                if (column + 1 < side) {
+                    builder.addEdge(v, v + 1, 1 + random.nextInt(1000));
+                    builder.addEdge(v + 1, v, 1 + random.nextInt(1000));
+                }
+                if (row + 1 < side) {
+                    builder.addEdge(v, v + side, 1 + random.nextInt(1000));
+                    builder.addEdge(v + side, v, 1 + random.nextInt(1000));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testSameHierarchyQueriesForAnyParallelism() {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(500, 2_000, 7);
+        ContractionHierarchyQuery sequential = ContractionHierarchy.build(graph, 1).newQuery();
+        ContractionHierarchyQuery parallel = ContractionHierarchy.build(graph, 4).newQuery();
+        for (int target = 0; target < graph.getVertexCount(); target++) {
+            Assert.assertEquals(sequential.getPath(3, target).getWeight(), parallel.getPath(3, target).getWeight(), 0);
+        }
+    }
+
+    private static boolean hasEdge(CsrGraph graph, int source, int target) {
+        for (int e = graph.getFirstEdge(source), end = graph.getEndEdge(source); e < end; e++) {
+            if (graph.getEdgeTarget(e) == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link Dijkstra} running on a {@link CsrGraph}
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DijkstraTest {
+
+    /**
+     * The network of the README
+     * ME,Stefan:100,Amir:1042,Martin:595,Adam:10,Philipp:128
+     * Stefan,Amir:850,Adam:85
+     * Adam,Philipp:7,Martin:400,Diana:33
+     * Diana,Amir:57,Martin:3
+     */
+    public static CsrGraph createGraph() {
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        addEdges(builder, "ME", "Stefan", 100, "Amir", 1042, "Martin", 595, "Adam", 10, "Philipp", 128);
+        addEdges(builder, "Stefan", "Amir", 850, "Adam", 85);
+        addEdges(builder, "Adam", "Philipp", 7, "Martin", 400, "Diana", 33);
+        addEdges(builder, "Diana", "Amir", 57, "Martin", 3);
+        return builder.build();
+    }
+
+    private static void addEdges(CsrGraphBuilder builder, String source, Object... targetsAndWeights) {
+        int sourceId = builder.addVertex(source);
+        for (int i = 0; i < targetsAndWeights.length; i += 2) {
+            int targetId = builder.addVertex((String) targetsAndWeights[i]);
+            builder.addEdge(sourceId, targetId, ((Integer) targetsAndWeights[i + 1]).doubleValue());
+        }
+    }
+
+    @Test
+    public void testGraphLayout() {
+        CsrGraph graph = createGraph();
+        Assert.assertEquals(7, graph.getVertexCount());
+        Assert.assertEquals(12, graph.getEdgeCount());
+
+        int me = graph.getVertexId("ME");
+        Assert.assertEquals(0, me);
+        Assert.assertEquals(5, graph.getEndEdge(me) - graph.getFirstEdge(me));
+        Assert.assertEquals("Stefan", graph.getVertexName(graph.getEdgeTarget(graph.getFirstEdge(me))));
+        Assert.assertEquals(100, graph.getEdgeWeight(graph.getFirstEdge(me)), 0);
+
+        int martin = graph.getVertexId("Martin");
+        Assert.assertEquals(0, graph.getEndEdge(martin) - graph.getFirstEdge(martin));
+        Assert.assertEquals(-1, graph.getVertexId("Nobody"));
+    }
+
+    @Test
+    public void testShortestPaths() {
+        CsrGraph graph = createGraph();
+        ShortestPathTree tree = new Dijkstra(graph).getPaths(graph.getVertexId("ME"));
+
+        int philipp = graph.getVertexId("Philipp");
+        Assert.assertEquals(17, tree.getWeight(philipp), 0);
+        Assert.assertArrayEquals(new int[]{graph.getVertexId("ME"), graph.getVertexId("Adam"), philipp}, tree.getPath(philipp));
+
+        int martin = graph.getVertexId("Martin");
+        Assert.assertEquals(46, tree.getWeight(martin), 0);
+        Assert.assertEquals(4, tree.getPath(martin).length);
+    }
+
+    @Test
+    public void testUnreachableVertices() {
+        CsrGraph graph = createGraph();
+        ShortestPathTree tree = new Dijkstra(graph).getPaths(graph.getVertexId("Diana"));
+
+        int stefan = graph.getVertexId("Stefan");
+        Assert.assertFalse(tree.hasPath(stefan));
+        Assert.assertNull(tree.getPath(stefan));
+        Assert.assertEquals(Double.POSITIVE_INFINITY, tree.getWeight(stefan), 0);
+        Assert.assertFalse(tree.hasPath(-1));
+    }
+}
@@ -0,0 +1,78 @@
+package com.jojos.path.calculation;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link DirectoryJob} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DirectoryJobTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void write(File directory, String name, String content) throws IOException {
+        Files.write(directory.toPath().resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEveryFileGetsItsOwnOutput() throws IOException {
+        File input = folder.newFolder("input");
+        File output = new File(folder.getRoot(), "output");
+        write(input, "b.csv", "ME,Lisa:3\nLisa,John:4\n");
+        write(input, "a.csv", "ME,Peter:5\n");
+        write(input, "broken.csv", "ME,Lisa:x\n");
+        write(input, "ignored.txt", "ME,Lisa:3\n");
+
+        // a budget smaller than a single file still lets every file run, one at a time
+        List<DirectoryJob.FileSummary> summaries = new DirectoryJob(input.getPath(), output.getPath(),
+                ParseJob.RunMode.WITHOUT_ASSERTIONS, null, null, null, 3, 3, 1024, null).run();
+
+        Assert.assertEquals(3, summaries.size());
+        Assert.assertEquals("a.csv", summaries.get(0).getFileName());
+        Assert.assertTrue(summaries.get(0).isSuccessful());
+        Assert.assertEquals("b.csv", summaries.get(1).getFileName());
+        Assert.assertTrue(summaries.get(1).isSuccessful());
+        Assert.assertEquals("broken.csv", summaries.get(2).getFileName());
+        Assert.assertFalse(summaries.get(2).isSuccessful());
+
+        String separator = System.lineSeparator();
+        Path outputPath = output.toPath();
+        String[] outputFiles = outputPath.toFile().list();
+        Arrays.sort(outputFiles);
+        Assert.assertArrayEquals(new String[]{"a.csv", "b.csv"}, outputFiles);
+        Assert.assertEquals("[ME -> Peter] - [Weight: 5.0]" + separator,
+                new String(Files.readAllBytes(outputPath.resolve("a.csv")), StandardCharsets.UTF_8));
+        Assert.assertEquals("[ME -> Lisa] - [Weight: 3.0]" + separator
+                        + "[ME -> Lisa -> John] - [Weight: 7.0]" + separator
+                        + "[Lisa -> John] - [Weight: 4.0]" + separator,
+                new String(Files.readAllBytes(outputPath.resolve("b.csv")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAssertionsOfEveryFile() throws IOException {
+        File input = folder.newFolder("input");
+        write(input, "passing.csv", "ME,Lisa:3\n@,Lisa,1x1x1x400,0.87\n");
+        write(input, "failing.csv", "ME,Lisa:3\n@,Lisa,1x1x1x400,99.0\n");
+
+        List<DirectoryJob.FileSummary> summaries = new DirectoryJob(input.getPath(), "unused",
+                ParseJob.RunMode.WITH_ASSERTIONS, null, null, null, 2, 1, 1 << 30, null).run();
+
+        Assert.assertEquals("failing.csv", summaries.get(0).getFileName());
+        Assert.assertFalse(summaries.get(0).isSuccessful());
+        Assert.assertEquals("passing.csv", summaries.get(1).getFileName());
+        Assert.assertTrue(summaries.get(1).getError(), summaries.get(1).isSuccessful());
+    }
+}
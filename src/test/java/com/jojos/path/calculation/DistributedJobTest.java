@@ -0,0 +1,182 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.App;
+import com.jojos.path.ApplicationException;
+import com.jojos.path.graph.CsrGraph;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Unit tests for {@link DistributedJob} class, with workers connecting over the loopback interface
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DistributedJobTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void startWorker(CsrGraph graph, int port, DimensionsWeight dimensionsWeight) {
+        new Thread(() -> new WorkerJob(graph, port, null, dimensionsWeight, 2).run()).start();
+    }
+
+    @Test
+    public void testOutputIsEqualToSingleProcess() throws IOException {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(200, 1_000, 11L);
+        DimensionsWeight dimensionsWeight = Computations.parseDimensions("10x9x5x1200");
+
+        File single = folder.newFile();
+        ShortestPathJob.withoutAssertions(graph, single.getPath(), null, null, dimensionsWeight, 1).run();
+        File distributed = folder.newFile();
+        DistributedJob job = new DistributedJob(graph, distributed.getPath(), 3,
+                (port, index) -> startWorker(graph, port, dimensionsWeight));
+        job.run();
+
+        Assert.assertArrayEquals(Files.readAllBytes(single.toPath()), Files.readAllBytes(distributed.toPath()));
+        Assert.assertEquals(0, job.getReassignedCount());
+        // only the output is left once the partitions are merged
+        Assert.assertEquals(2, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testRangesOfGoneWorkersAreReassigned() throws Exception {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(200, 1_000, 13L);
+        File single = folder.newFile();
+        ShortestPathJob.withoutAssertions(graph, single.getPath(), null, null, null, 1).run();
+
+        // the first worker disconnects as soon as it's given a range, before the other workers start
+        CountDownLatch rangeTaken = new CountDownLatch(1);
+        String[] request = new String[1];
+        File distributed = folder.newFile();
+        DistributedJob job = new DistributedJob(graph, distributed.getPath(), 2, (port, index) -> {
+            if (index > 0) {
+                try {
+                    rangeTaken.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                startWorker(graph, port, null);
+                return;
+            }
+            new Thread(() -> {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                    request[0] = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                } catch (IOException e) {
+                    request[0] = e.getMessage();
+                }
+                rangeTaken.countDown();
+            }).start();
+        });
+        job.run();
+
+        Assert.assertTrue(request[0], request[0].startsWith("RANGE 0 "));
+        Assert.assertEquals(1, job.getReassignedCount());
+        Assert.assertArrayEquals(Files.readAllBytes(single.toPath()), Files.readAllBytes(distributed.toPath()));
+    }
+
+    @Test
+    public void testRangesOfSilentWorkersAreReassigned() throws Exception {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(200, 1_000, 17L);
+        File single = folder.newFile();
+        ShortestPathJob.withoutAssertions(graph, single.getPath(), null, null, null, 1).run();
+
+        // the first worker takes a range and stays connected without ever answering or sending a heartbeat
+        CountDownLatch rangeTaken = new CountDownLatch(1);
+        CountDownLatch jobDone = new CountDownLatch(1);
+        File distributed = folder.newFile();
+        DistributedJob job = new DistributedJob(graph, distributed.getPath(), 2, (port, index) -> {
+            if (index > 0) {
+                try {
+                    rangeTaken.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                startWorker(graph, port, null);
+                return;
+            }
+            new Thread(() -> {
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                    new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                    rangeTaken.countDown();
+                    jobDone.await();
+                } catch (IOException e) {
+                    rangeTaken.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }).start();
+        }).withHeartbeatTimeout(1_500);
+        try {
+            job.run();
+        } finally {
+            jobDone.countDown();
+        }
+
+        Assert.assertEquals(1, job.getReassignedCount());
+        Assert.assertArrayEquals(Files.readAllBytes(single.toPath()), Files.readAllBytes(distributed.toPath()));
+    }
+
+    @Test
+    public void testRangeThatTakesDownEveryWorkerFailsTheJob() throws Exception {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(200, 1_000, 19L);
+        File distributed = folder.newFile();
+        // every worker disconnects when it's given the first range and does all the others
+        DistributedJob job = new DistributedJob(graph, distributed.getPath(), 4, (port, index) -> new Thread(() -> {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null && line.startsWith(DistributedJob.RANGE)) {
+                    String[] fields = line.split(" ", 4);
+                    if (fields[1].equals("0")) {
+                        return;
+                    }
+                    ShortestPathJob.forSourceRange(graph, fields[3], Integer.parseInt(fields[1]),
+                            Integer.parseInt(fields[2]), null, null, 1).run();
+                    writer.write(String.format("%s %s %s\n", DistributedJob.DONE, fields[1], fields[2]));
+                    writer.flush();
+                }
+            } catch (IOException ignored) {
+                // the coordinator is gone
+            }
+        }).start());
+
+        try {
+            job.run();
+            Assert.fail("The job should fail once the first range took down three workers");
+        } catch (ApplicationException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Range [0, "));
+        }
+        Assert.assertEquals(2, job.getReassignedCount());
+    }
+
+    @Test
+    public void testWorkerProcesses() throws IOException {
+        String input = "src/test/resources/test_success_input/01.csv";
+        ParseJob parseJob = new ParseJob(input, 1, null);
+        CsrGraph graph = parseJob.runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS).getGraph();
+
+        File single = folder.newFile();
+        ShortestPathJob.withoutAssertions(graph, single.getPath(), null, null, null, 1).run();
+        File distributed = folder.newFile();
+        new DistributedJob(graph, distributed.getPath(), 2, DistributedJob.processLauncher(App.class,
+                Arrays.asList("-input", input, "-parallelism", "1"))).run();
+
+        Assert.assertArrayEquals(Files.readAllBytes(single.toPath()), Files.readAllBytes(distributed.toPath()));
+    }
+}
@@ -0,0 +1,214 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import com.jojos.path.graph.DynamicGraph;
+import com.jojos.path.graph.OffHeapGraph;
+import com.jojos.path.input.GraphChange;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link DynamicShortestPaths}, {@link DeltaJob} and the {@link DynamicGraph} and {@link GraphChange}
+ * classes they change
+ *
+ * @author karanikasg@gmail.com
+ */
+public class DynamicShortestPathsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * @return a graph with the vertices and the edges the dynamic graph has at the moment
+     */
+    private static CsrGraph snapshotOf(DynamicGraph graph) {
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            builder.addVertex(graph.getVertexName(v));
+        }
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            for (int i = 0; i < graph.getOutDegree(v); i++) {
+                builder.addEdge(v, graph.getOutTarget(v, i), graph.getOutWeight(v, i));
+            }
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testParseChanges() {
+        List<GraphChange> changes = GraphChange.parse("+Lisa,Peter:12,Diana:7");
+        Assert.assertEquals(2, changes.size());
+        Assert.assertEquals(GraphChange.Type.ADD, changes.get(1).getType());
+        Assert.assertEquals("Lisa", changes.get(1).getSource());
+        Assert.assertEquals("Diana", changes.get(1).getTarget());
+        Assert.assertEquals(7, changes.get(1).getWeight(), 0);
+
+        GraphChange removal = GraphChange.parse("-ME,John").get(0);
+        Assert.assertEquals(GraphChange.Type.REMOVE, removal.getType());
+        Assert.assertEquals(Double.POSITIVE_INFINITY, removal.getWeight(), 0);
+        Assert.assertEquals(GraphChange.Type.REWEIGHT, GraphChange.parse("=Diana,Peter:9").get(0).getType());
+
+        for (String invalid : Arrays.asList("Lisa,Peter:12", "+Lisa", "+Lisa,Peter", "=Lisa,Peter:-1", "+Lisa,Peter:x")) {
+            try {
+                GraphChange.parse(invalid);
+                Assert.fail(invalid + " should not be parsed");
+            } catch (ApplicationException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSameWeightsAsSearchingFromScratch() {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(300, 1_200, 13L);
+        DynamicGraph dynamicGraph = DynamicGraph.of(graph);
+        int[] sources = {0, 1, 2, 3, 4, 5, 6, 7};
+        DynamicShortestPaths paths = new DynamicShortestPaths(dynamicGraph, sources, 4);
+        Random random = new Random(17);
+        GraphChange.Type[] types = GraphChange.Type.values();
+        try {
+            for (int c = 0; c < 300; c++) {
+                GraphChange.Type type = types[random.nextInt(types.length)];
+                // a few changes reach friends that aren't part of the graph yet
+                int vertices = dynamicGraph.getVertexCount() + (c % 30 == 0 ? 1 : 0);
+                String from = "Friend" + random.nextInt(vertices);
+                String to = "Friend" + random.nextInt(vertices);
+                if (type == GraphChange.Type.REMOVE && random.nextBoolean()) {
+                    // remove an edge that exists
+                    int vertex = random.nextInt(dynamicGraph.getVertexCount());
+                    if (dynamicGraph.getOutDegree(vertex) > 0) {
+                        from = dynamicGraph.getVertexName(vertex);
+                        to = dynamicGraph.getVertexName(dynamicGraph.getOutTarget(vertex, random.nextInt(dynamicGraph.getOutDegree(vertex))));
+                    }
+                }
+                paths.apply(new GraphChange(type, from, to, 1 + random.nextInt(1000)));
+
+                ShortestPathAlgorithm algorithm = ShortestPathAlgorithm.forGraph(snapshotOf(dynamicGraph));
+                for (int source : sources) {
+                    ShortestPathTree expected = algorithm.getPaths(source);
+                    ShortestPathTree actual = paths.getPaths(source);
+                    for (int target = 0; target < dynamicGraph.getVertexCount(); target++) {
+                        Assert.assertEquals(expected.getWeight(target), actual.getWeight(target), 0);
+                        if (actual.hasPath(target)) {
+                            // the path adds up to its weight over edges of the graph
+                            int[] path = actual.getPath(target);
+                            double weight = 0;
+                            for (int i = 1; i < path.length; i++) {
+                                weight += dynamicGraph.getEdgeWeight(path[i - 1], path[i]);
+                            }
+                            Assert.assertEquals(actual.getWeight(target), weight, 0);
+                        }
+                    }
+                }
+            }
+        } finally {
+            paths.shutdown();
+        }
+    }
+
+    @Test
+    public void testChangesOffTheTreeAffectNothing() {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(5_000, 25_000, 19L);
+        DynamicGraph dynamicGraph = DynamicGraph.of(graph);
+        DynamicShortestPaths paths = new DynamicShortestPaths(dynamicGraph, new int[]{0}, 1);
+        ShortestPathTree tree = paths.getPaths(0);
+        int[] path = null;
+        for (int target = 1; path == null || path.length < 3; target++) {
+            path = tree.getPath(target);
+        }
+        String from = graph.getVertexName(path[0]);
+        String to = graph.getVertexName(path[1]);
+
+        // a heavier edge next to the path isn't taken
+        Assert.assertEquals(0, paths.apply(new GraphChange(GraphChange.Type.ADD, from, graph.getVertexName(path[2]), 1e9)));
+        // removing an edge nobody has
+        Assert.assertEquals(0, paths.apply(new GraphChange(GraphChange.Type.REMOVE, "Nobody", to, 0)));
+        // making an edge of the tree heavier only searches its subtree again
+        long affected = paths.apply(new GraphChange(GraphChange.Type.REWEIGHT, from, to, 1e6));
+        Assert.assertTrue(affected > 0);
+        Assert.assertTrue(affected < graph.getVertexCount());
+    }
+
+    @Test
+    public void testNewVerticesLeaveTheOriginalGraphUnchanged() {
+        CsrGraph graph = DijkstraTest.createGraph();
+        int vertexCount = graph.getVertexCount();
+        try (OffHeapGraph offHeapGraph = OffHeapGraph.copyOf(graph)) {
+            for (CsrGraph original : Arrays.asList(graph, offHeapGraph.getGraph())) {
+                DynamicGraph dynamicGraph = DynamicGraph.of(original);
+                Assert.assertEquals(graph.getVertexId("Adam"), dynamicGraph.addVertex("Adam"));
+                int id = dynamicGraph.addVertex("Nobody");
+
+                Assert.assertEquals(vertexCount, id);
+                Assert.assertEquals(id, dynamicGraph.getVertexId("Nobody"));
+                Assert.assertEquals("Nobody", dynamicGraph.getVertexName(id));
+                Assert.assertEquals("Adam", dynamicGraph.getVertexName(graph.getVertexId("Adam")));
+                Assert.assertEquals(vertexCount, original.getVertexDictionary().size());
+                Assert.assertEquals(-1, original.getVertexId("Nobody"));
+            }
+        }
+    }
+
+    @Test
+    public void testSourcesOfNewVertices() {
+        CsrGraph graph = DijkstraTest.createGraph();
+        DynamicGraph dynamicGraph = DynamicGraph.of(graph);
+        int me = graph.getVertexId("ME");
+        DynamicShortestPaths paths = new DynamicShortestPaths(dynamicGraph, new int[]{me}, 2);
+        try {
+            paths.apply(new GraphChange(GraphChange.Type.ADD, "Zoe", "ME", 4));
+            int zoe = dynamicGraph.getVertexId("Zoe");
+            try {
+                paths.getPaths(zoe);
+                Assert.fail("Zoe isn't a source yet");
+            } catch (ApplicationException expected) {
+                // expected
+            }
+
+            // ME is a source already
+            Assert.assertEquals(1, paths.addSources(new int[]{zoe, me}));
+            Assert.assertArrayEquals(new int[]{me, zoe}, paths.getSources());
+            ShortestPathTree tree = paths.getPaths(zoe);
+            int adam = graph.getVertexId("Adam");
+            Assert.assertEquals(4 + paths.getPaths(me).getWeight(adam), tree.getWeight(adam), 0);
+
+            // the new tree follows the changes like the others
+            paths.apply(new GraphChange(GraphChange.Type.REWEIGHT, "Zoe", "ME", 1));
+            Assert.assertTrue(paths.hasChanged(zoe));
+            Assert.assertEquals(1 + paths.getPaths(me).getWeight(adam), paths.getPaths(zoe).getWeight(adam), 0);
+        } finally {
+            paths.shutdown();
+        }
+    }
+
+    @Test(expected = ApplicationException.class)
+    public void testDeltaJobNeedsASource() throws IOException {
+        new DeltaJob(DijkstraTest.createGraph(), folder.newFile().getPath(), folder.newFile().getPath(), null, null, null, 1);
+    }
+
+    @Test
+    public void testDeltaJobOutput() throws IOException {
+        File delta = folder.newFile();
+        Files.write(delta.toPath(), Arrays.asList("-Adam,Philipp", "", "+ME,Diana:1", "=Diana,Martin:2", "+Martin,Zoe:5"),
+                StandardCharsets.UTF_8);
+        File output = folder.newFile();
+        new DeltaJob(DijkstraTest.createGraph(), delta.getPath(), output.getPath(), "ME", null, null, 1).run();
+
+        List<String> lines = Files.readAllLines(output.toPath());
+        Assert.assertTrue(lines.contains("[ME -> Philipp] - [Weight: 128.0]"));
+        Assert.assertTrue(lines.contains("[ME -> Diana -> Martin] - [Weight: 3.0]"));
+        Assert.assertTrue(lines.contains("[ME -> Diana -> Martin -> Zoe] - [Weight: 8.0]"));
+    }
+}
@@ -0,0 +1,110 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link LandmarkAStar} and {@link LandmarkIndex} classes
+ *
+ * @author karanikasg@gmail.com
+ */
+public class LandmarkAStarTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadmeNetwork() {
+        CsrGraph graph = DijkstraTest.createGraph();
+        LandmarkAStar aStar = LandmarkIndex.create(graph, 3).newQuery();
+        int me = graph.getVertexId("ME");
+
+        ShortestPath path = aStar.getPath(me, graph.getVertexId("Martin"));
+        Assert.assertEquals(46, path.getWeight(), 0);
+        Assert.assertArrayEquals(new int[]{me, graph.getVertexId("Adam"), graph.getVertexId("Diana"), graph.getVertexId("Martin")},
+                path.getVertices());
+
+        Assert.assertFalse(aStar.getPath(graph.getVertexId("Diana"), graph.getVertexId("Stefan")).exists());
+        Assert.assertFalse(aStar.getPath(me, -1).exists());
+        Assert.assertArrayEquals(new int[]{me}, aStar.getPath(me, me).getVertices());
+    }
+
+    @Test
+    public void testSameWeightsAsDijkstraWithFewerSettledVertices() {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(2_000, 6_000, 11);
+        Dijkstra dijkstra = new Dijkstra(graph);
+        LandmarkAStar aStar = LandmarkIndex.create(graph, 8).newQuery();
+        LandmarkAStar plain = LandmarkIndex.create(graph, 8).newQuery();
+        Random random = new Random(5);
+        for (int i = 0; i < 50; i++) {
+            int source = random.nextInt(graph.getVertexCount());
+            ShortestPathTree tree = dijkstra.getPaths(source);
+            for (int j = 0; j < 40; j++) {
+                int target = random.nextInt(graph.getVertexCount());
+                ShortestPath path = aStar.getPath(source, target);
+                Assert.assertEquals(tree.hasPath(target), path.exists());
+                Assert.assertEquals(tree.getWeight(target), path.getWeight(), 0);
+                Assert.assertEquals(tree.getWeight(target), plain.getPath(source, target, false).getWeight(), 0);
+                if (path.exists()) {
+                    int[] vertices = path.getVertices();
+                    Assert.assertEquals(source, vertices[0]);
+                    Assert.assertEquals(target, vertices[vertices.length - 1]);
+                }
+            }
+        }
+        Assert.assertTrue(aStar.getSettledCount() < plain.getSettledCount());
+    }
+
+    @Test
+    public void testLandmarksAreConnected() {
+        // an isolated vertex first, then two chains of three vertices
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        for (String name : new String[]{"Alone", "A0", "A1", "A2", "B0", "B1", "B2"}) {
+            builder.addVertex(name);
+        }
+        builder.addEdge(1, 2, 1);
+        builder.addEdge(2, 3, 1);
+        builder.addEdge(4, 5, 1);
+        builder.addEdge(5, 6, 1);
+        CsrGraph graph = builder.build();
+
+        LandmarkIndex index = LandmarkIndex.create(graph, 7);
+        // the first chain is covered before the second one and both before the isolated vertex
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals(i < 3 ? 0 : 1, (index.getLandmark(i) - 1) / 3);
+        }
+        Assert.assertEquals(0, index.getLandmark(6));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(500, 1_500, 3);
+        LandmarkIndex index = LandmarkIndex.create(graph, 4);
+        Path file = folder.newFile("input.csv" + LandmarkIndex.FILE_EXTENSION).toPath();
+        index.save(file, 1234, 5678);
+
+        LandmarkIndex loaded = LandmarkIndex.load(file, graph, 4, 1234, 5678);
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(index.getLandmarkCount(), loaded.getLandmarkCount());
+        for (int i = 0; i < index.getLandmarkCount(); i++) {
+            Assert.assertEquals(index.getLandmark(i), loaded.getLandmark(i));
+        }
+        LandmarkAStar expected = index.newQuery();
+        LandmarkAStar actual = loaded.newQuery();
+        for (int target = 0; target < graph.getVertexCount(); target += 7) {
+            Assert.assertEquals(expected.getPath(0, target).getWeight(), actual.getPath(0, target).getWeight(), 0);
+        }
+        Assert.assertEquals(expected.getSettledCount(), actual.getSettledCount());
+
+        // another version of the input or another number of landmarks must not reuse the file
+        Assert.assertNull(LandmarkIndex.load(file, graph, 4, 1234, 5679));
+        Assert.assertNull(LandmarkIndex.load(file, graph, 5, 1234, 5678));
+    }
+}
@@ -0,0 +1,74 @@
+package com.jojos.path.calculation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link PairWeights} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class PairWeightsTest {
+
+    @Test
+    public void testLightestWeightOfEveryPair() {
+        PairWeights pairWeights = new PairWeights();
+        long pair = PairWeights.pair(3, 7);
+        Assert.assertEquals(3, PairWeights.sourceOf(pair));
+        Assert.assertEquals(7, PairWeights.targetOf(pair));
+        Assert.assertEquals(Double.POSITIVE_INFINITY, pairWeights.min(pair), 0);
+
+        pairWeights.add(pair, 5);
+        pairWeights.add(pair, 2);
+        pairWeights.add(pair, 2);
+        Assert.assertEquals(2, pairWeights.min(pair), 0);
+        Assert.assertFalse(pairWeights.remove(pair, 4));
+        Assert.assertTrue(pairWeights.remove(pair, 2));
+        Assert.assertEquals(2, pairWeights.min(pair), 0);
+        Assert.assertTrue(pairWeights.remove(pair, 2));
+        Assert.assertEquals(5, pairWeights.min(pair), 0);
+        Assert.assertTrue(pairWeights.remove(pair, 5));
+        Assert.assertEquals(Double.POSITIVE_INFINITY, pairWeights.min(pair), 0);
+        Assert.assertEquals(0, pairWeights.size());
+    }
+
+    @Test
+    public void testSameAsAMapOfLists() {
+        PairWeights pairWeights = new PairWeights();
+        Map<Long, List<Double>> expected = new HashMap<>();
+        Random random = new Random(23);
+        for (int i = 0; i < 50_000; i++) {
+            // few vertices and weights, so that pairs are removed and added again and collide in the table
+            long pair = PairWeights.pair(random.nextInt(60), random.nextInt(60));
+            double weight = 1 + random.nextInt(4);
+            if (random.nextInt(3) == 0) {
+                List<Double> weights = expected.computeIfAbsent(pair, p -> new ArrayList<>());
+                Assert.assertEquals(weights.remove(weight), pairWeights.remove(pair, weight));
+                if (weights.isEmpty()) {
+                    expected.remove(pair);
+                }
+            } else {
+                expected.computeIfAbsent(pair, p -> new ArrayList<>()).add(weight);
+                pairWeights.add(pair, weight);
+            }
+            if (i % 1_000 == 0) {
+                Assert.assertEquals(expected.size(), pairWeights.size());
+                for (int source = 0; source < 60; source++) {
+                    for (int target = 0; target < 60; target++) {
+                        long key = PairWeights.pair(source, target);
+                        List<Double> weights = expected.get(key);
+                        Assert.assertEquals(weights == null ? Double.POSITIVE_INFINITY : Collections.min(weights),
+                                pairWeights.min(key), 0);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,27 @@
 package com.jojos.path.calculation;
 
+import com.jojos.path.ApplicationException;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.TestGraphs;
 import com.jojos.path.input.ParsedObject;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Random;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -24,6 +32,9 @@ import java.util.stream.Collectors;
  */
 public class ParseJobTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private static final String SUCCESS_PATH = "test_success_input" + File.separator;
     private static final String UNSUCCESSFUL_PATH = "test_wrong_input" + File.separator;
 
@@ -59,6 +70,54 @@ public class ParseJobTest {
         }
     }
 
+    @Test(expected = ApplicationException.class)
+    public void testMissingFile() {
+        new ParseJob(folder.getRoot().toPath().resolve("missing.csv").toString())
+                .runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS);
+    }
+
+    @Test
+    public void testSmallMappingWindows() throws URISyntaxException, IOException {
+        String[] files = getResourceListing(getClass(), SUCCESS_PATH);
+
+        for (String file : files) {
+            CsrGraph expected = new ParseJob(file).runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS).getGraph();
+            // a window just big enough for the longest line of the test files
+            ParsedObject parsedObject = new ParseJob(file).runAndCreateGraph(ParseJob.RunMode.WITH_ASSERTIONS, 64);
+            CsrGraph actual = parsedObject.getGraph();
+
+            TestGraphs.assertSameGraph(expected, actual);
+            ShortestPathJob.withAssertions(parsedObject).run();
+        }
+    }
+
+    @Test
+    public void testParallelChunks() throws IOException {
+        Random random = new Random(3L);
+        File file = folder.newFile();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder line = new StringBuilder("Friend").append(random.nextInt(500));
+            for (int j = random.nextInt(5); j >= 0; j--) {
+                line.append(',').append("Friend").append(random.nextInt(500)).append(':').append(random.nextInt(100));
+            }
+            lines.add(line.toString());
+            if (i % 100 == 0) {
+                lines.add("@,Friend" + random.nextInt(500) + ",1x1x1x1000,~");
+            }
+        }
+        Files.write(file.toPath(), lines);
+
+        ParsedObject expected = new ParseJob(file.getPath()).runAndCreateGraph(ParseJob.RunMode.WITH_ASSERTIONS);
+        ParsedObject actual = new ParseJob(file.getPath(), 4).runAndCreateGraph(ParseJob.RunMode.WITH_ASSERTIONS, 4_096, 1_024);
+
+        TestGraphs.assertSameGraph(expected.getGraph(), actual.getGraph());
+        Assert.assertEquals(expected.getAssertions().size(), actual.getAssertions().size());
+        for (int i = 0; i < expected.getAssertions().size(); i++) {
+            Assert.assertEquals(expected.getAssertions().getStatement(i), actual.getAssertions().getStatement(i));
+        }
+    }
+
     /**
      * Special thanks to Greg Briggs as seen under
      * @see <a href="http://www.uofr.net/~greg/java/get-resource-listing.html">Greg's source code</a>
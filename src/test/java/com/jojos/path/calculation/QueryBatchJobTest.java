@@ -0,0 +1,87 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.Util;
+import com.jojos.path.graph.CsrGraph;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link QueryBatchJob} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class QueryBatchJobTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAnswersInTheOrderOfTheQueries() throws IOException {
+        File queries = folder.newFile();
+        Files.write(queries.toPath(), Arrays.asList(
+                "ME,Philipp", "Diana,Stefan", "ME,Philipp,10x9x5x1200", "", "ME,Nobody", "Adam,Adam", "ME,Martin", "Adam"),
+                StandardCharsets.UTF_8);
+        File output = folder.newFile();
+        new QueryBatchJob(DijkstraTest.createGraph(), queries.getPath(), output.getPath(), null, 2).run();
+
+        double cost = Computations.shippingCost(17, Computations.parseDimensions("10x9x5x1200"));
+        List<String> lines = Files.readAllLines(output.toPath());
+        // a line for every line of the queries
+        Assert.assertEquals(8, lines.size());
+        Assert.assertEquals("ME,Philipp: [ME -> Adam -> Philipp] - [Weight: 17.0]", lines.get(0));
+        Assert.assertEquals("Diana,Stefan: NO PATH", lines.get(1));
+        Assert.assertEquals("ME,Philipp: [ME -> Adam -> Philipp] - [Cost: " + cost + "]", lines.get(2));
+        Assert.assertTrue(lines.get(3).startsWith(": ERROR"));
+        Assert.assertEquals("ME,Nobody: ERROR unknown Nobody", lines.get(4));
+        Assert.assertEquals("Adam,Adam: [Adam] - [Weight: 0.0]", lines.get(5));
+        Assert.assertEquals("ME,Martin: [ME -> Adam -> Diana -> Martin] - [Weight: 46.0]", lines.get(6));
+        Assert.assertTrue(lines.get(7).startsWith("Adam: ERROR"));
+    }
+
+    @Test
+    public void testSameAnswersAsTheTreesAcrossWindows() throws IOException {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(200, 800, 11L);
+        DimensionsWeight dimensionsWeight = Computations.parseDimensions("1x1x1x400");
+        ShortestPathAlgorithm algorithm = ShortestPathAlgorithm.forGraph(graph);
+        ShortestPathTree[] trees = new ShortestPathTree[graph.getVertexCount()];
+
+        // more queries than a single window holds
+        Random random = new Random(3);
+        List<String> queryLines = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            int source = random.nextInt(50);
+            int target = random.nextInt(graph.getVertexCount());
+            queryLines.add(graph.getVertexName(source) + "," + graph.getVertexName(target));
+            if (trees[source] == null) {
+                trees[source] = algorithm.getPaths(source);
+            }
+            ShortestPathTree tree = trees[source];
+            expected.add(graph.getVertexName(source) + "," + graph.getVertexName(target) + ": " + (tree.hasPath(target)
+                    ? Util.toPrettyPathString(tree.getPath(target), graph.getVertexDictionary())
+                    + " - [Cost: " + Computations.shippingCost(tree.getWeight(target), dimensionsWeight) + "]"
+                    : "NO PATH"));
+        }
+        File queries = folder.newFile();
+        Files.write(queries.toPath(), queryLines, StandardCharsets.UTF_8);
+        File output = folder.newFile();
+        ShortestPathTreeCache cache = ShortestPathTreeCache.withMaxTrees(graph, 100);
+        new QueryBatchJob(graph, queries.getPath(), output.getPath(), dimensionsWeight, 4).withTreeCache(cache).run();
+
+        Assert.assertEquals(expected, Files.readAllLines(output.toPath()));
+        // every source is searched once, the second window takes the trees from the cache
+        Assert.assertEquals(50, cache.getMisses());
+        Assert.assertEquals(50, cache.getHits());
+    }
+}
@@ -0,0 +1,83 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link ShortestPathAlgorithm} and its implementations
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ShortestPathAlgorithmTest {
+
+    private static CsrGraph createGraph(int vertices, int edges, int maxWeight, long seed) {
+        Random random = new Random(seed);
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        for (int v = 0; v < vertices; v++) {
+            builder.addVertex("Friend" + v);
+        }
+        for (int e = 0; e < edges; e++) {
+            builder.addEdge(random.nextInt(vertices), random.nextInt(vertices), random.nextInt(maxWeight + 1));
+        }
+        return builder.build();
+    }
+
+    private static void assertSameDistances(CsrGraph graph, ShortestPathAlgorithm algorithm) {
+        Dijkstra dijkstra = new Dijkstra(graph);
+        for (int source = 0; source < graph.getVertexCount(); source += 7) {
+            ShortestPathTree expected = dijkstra.getPaths(source);
+            ShortestPathTree actual = algorithm.getPaths(source);
+            for (int target = 0; target < graph.getVertexCount(); target++) {
+                Assert.assertEquals(expected.getWeight(target), actual.getWeight(target), 0);
+                int[] path = actual.getPath(target);
+                if (path != null) {
+                    // whichever of the equally short paths is returned, it must add up to the distance
+                    double weight = 0;
+                    for (int i = 1; i < path.length; i++) {
+                        weight += cheapestEdge(graph, path[i - 1], path[i]);
+                    }
+                    Assert.assertEquals(actual.getWeight(target), weight, 0);
+                }
+            }
+        }
+    }
+
+    private static double cheapestEdge(CsrGraph graph, int source, int target) {
+        double weight = Double.POSITIVE_INFINITY;
+        for (int e = graph.getFirstEdge(source); e < graph.getEndEdge(source); e++) {
+            if (graph.getEdgeTarget(e) == target) {
+                weight = Math.min(weight, graph.getEdgeWeight(e));
+            }
+        }
+        return weight;
+    }
+
+    @Test
+    public void testDialBuckets() {
+        // zero weights, parallel edges and self loops included
+        CsrGraph graph = createGraph(500, 3_000, 20, 1);
+        assertSameDistances(graph, new DialDijkstra(graph));
+    }
+
+    @Test
+    public void testRadixHeap() {
+        CsrGraph graph = createGraph(500, 3_000, 1_000_000, 2);
+        assertSameDistances(graph, new RadixHeapDijkstra(graph));
+        CsrGraph smallWeights = createGraph(300, 1_000, 3, 3);
+        assertSameDistances(smallWeights, new RadixHeapDijkstra(smallWeights));
+    }
+
+    @Test
+    public void testAlgorithmChosenByWeights() {
+        Assert.assertTrue(ShortestPathAlgorithm.forGraph(DijkstraTest.createGraph()) instanceof DialDijkstra);
+        Assert.assertTrue(ShortestPathAlgorithm.forGraph(createGraph(10, 20, 1_000_000, 4)) instanceof RadixHeapDijkstra);
+
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        builder.addEdge(builder.addVertex("ME"), builder.addVertex("Lisa"), 2.5);
+        Assert.assertTrue(ShortestPathAlgorithm.forGraph(builder.build()) instanceof Dijkstra);
+    }
+}
@@ -0,0 +1,151 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.graph.CsrGraphBuilder;
+import com.jojos.path.input.ParsedObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link ShortestPathJob} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ShortestPathJobTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static CsrGraph createRandomGraph(int vertices, int edges, long seed) {
+        Random random = new Random(seed);
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        for (int v = 0; v < vertices; v++) {
+            builder.addVertex("Friend" + v);
+        }
+        for (int e = 0; e < edges; e++) {
+            builder.addEdge(random.nextInt(vertices), random.nextInt(vertices), 1 + random.nextInt(1000));
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testSingleSourceOutput() throws IOException {
+        File output = folder.newFile();
+        ShortestPathJob.withoutAssertions(DijkstraTest.createGraph(), output.getPath(), "ME", "Philipp", null).run();
+        Assert.assertEquals(Arrays.asList("[ME -> Adam -> Philipp] - [Weight: 17.0]"), Files.readAllLines(output.toPath()));
+
+        ShortestPathJob.withoutAssertions(DijkstraTest.createGraph(), output.getPath(), "ME", "Philipp",
+                Computations.parseDimensions("1x1x1x400")).run();
+        Assert.assertEquals(Arrays.asList("[ME -> Adam -> Philipp] - [Cost: 2.06]"), Files.readAllLines(output.toPath()));
+    }
+
+    @Test
+    public void testSingleSourceToMissingTarget() throws IOException {
+        CsrGraph graph = DijkstraTest.createGraph();
+        File output = folder.newFile();
+        Files.write(output.toPath(), Arrays.asList("stale"));
+        ShortestPathJob.withoutAssertions(graph, output.getPath(), "ME", "Nobody", null).run();
+        Assert.assertEquals(0, output.length());
+
+        Files.write(output.toPath(), Arrays.asList("stale"));
+        ShortestPathJob.withoutAssertions(graph, output.getPath(), "ME", "Nobody", null)
+                .withLandmarks(LandmarkIndex.create(graph, 2))
+                .run();
+        Assert.assertEquals(0, output.length());
+
+        Files.write(output.toPath(), Arrays.asList("stale"));
+        ShortestPathJob.withoutAssertions(graph, output.getPath(), "ME", "Nobody", null)
+                .withHierarchy(ContractionHierarchy.build(graph, 1))
+                .run();
+        Assert.assertEquals(0, output.length());
+    }
+
+    @Test
+    public void testParallelOutputIsEqualToSequential() throws IOException {
+        CsrGraph graph = createRandomGraph(60, 300, 7L);
+        DimensionsWeight dimensionsWeight = Computations.parseDimensions("10x9x5x1200");
+
+        File sequential = folder.newFile();
+        ShortestPathJob.withoutAssertions(graph, sequential.getPath(), null, null, dimensionsWeight, 1).run();
+        File parallel = folder.newFile();
+        ShortestPathJob.withoutAssertions(graph, parallel.getPath(), null, null, dimensionsWeight, 4).run();
+
+        List<String> expected = Files.readAllLines(sequential.toPath());
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, Files.readAllLines(parallel.toPath()));
+    }
+
+    @Test
+    public void testAssertionsOfManySourcesInParallel() throws IOException {
+        Random random = new Random(11L);
+        List<String> lines = new ArrayList<>();
+        for (int v = 0; v < 80; v++) {
+            StringBuilder line = new StringBuilder("Friend").append(v);
+            for (int e = 0; e < 3; e++) {
+                line.append(",Friend").append(random.nextInt(80)).append(':').append(1 + random.nextInt(100));
+            }
+            lines.add(line.toString());
+        }
+        File file = folder.newFile();
+        Files.write(file.toPath(), lines);
+        CsrGraph graph = new ParseJob(file.getPath()).runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS).getGraph();
+
+        // a few sources with many targets searched in full and many sources with a single target searched point to point
+        DimensionsWeight dimensionsWeight = Computations.parseDimensions("10x9x5x1200");
+        ShortestPathAlgorithm algorithm = ShortestPathAlgorithm.forGraph(graph);
+        for (int a = 0; a < 400; a++) {
+            int source = a < 200 ? random.nextInt(3) : random.nextInt(80);
+            int target = random.nextInt(80);
+            ShortestPathTree tree = algorithm.getPaths(graph.getVertexId("Friend" + source));
+            int targetId = graph.getVertexId("Friend" + target);
+            String cost = tree.hasPath(targetId)
+                    ? String.valueOf(Computations.shippingCost(tree.getWeight(targetId), dimensionsWeight)) : "~";
+            lines.add(String.format("@,Friend%d,Friend%d,10x9x5x1200,%s", source, target, cost));
+        }
+        Files.write(file.toPath(), lines);
+
+        ParsedObject parsedObject = new ParseJob(file.getPath()).runAndCreateGraph(ParseJob.RunMode.WITH_ASSERTIONS);
+        Assert.assertEquals(400, parsedObject.getAssertions().size());
+        ShortestPathJob.withAssertions(parsedObject).run();
+        ShortestPathJob.withAssertions(parsedObject, 4).run();
+    }
+
+    @Test
+    public void testAllFailedAssertionsAreReported() throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), Arrays.asList(
+                "ME,Stefan:100,Adam:10,Philipp:128",
+                "Adam,Philipp:7,Diana:33",
+                "@,Philipp,1x1x1x400,2.06",
+                "@,Philipp,1x1x1x400,9.99",
+                "@,Adam,Diana,1x1x1x400,~",
+                "@,Stefan,Adam,1x1x1x400,~",
+                "@,Nobody,Adam,1x1x1x400,1.00"));
+        ParsedObject parsedObject = new ParseJob(file.getPath()).runAndCreateGraph(ParseJob.RunMode.WITH_ASSERTIONS);
+
+        String message = null;
+        try {
+            ShortestPathJob.withAssertions(parsedObject, 2).run();
+        } catch (AssertionError e) {
+            message = e.getMessage();
+        }
+        Assert.assertNotNull(message);
+        String[] failures = message.split(System.lineSeparator());
+        Assert.assertEquals("3 of 5 assertions failed:", failures[0]);
+        Assert.assertEquals(4, failures.length);
+        // in the order of the input, no matter the order the sources were verified in
+        Assert.assertTrue(failures[1], failures[1].startsWith("Path from ME -> Philipp: 2.06 is not equal"));
+        Assert.assertTrue(failures[2], failures[2].startsWith("Path from Adam -> Diana: 2.87 is not equal"));
+        Assert.assertTrue(failures[3], failures[3].startsWith("The graph doesn't contain the source vertex Nobody"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.graph.CsrGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for {@link ShortestPathTreeCache} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class ShortestPathTreeCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        CsrGraph graph = DijkstraTest.createGraph();
+        ShortestPathTreeCache cache = ShortestPathTreeCache.withMaxTrees(graph, 2);
+        ShortestPathTree first = cache.getPaths(0);
+        cache.getPaths(1);
+        Assert.assertSame(first, cache.getPaths(0));
+        // the tree of 1 is the least recently used one
+        cache.getPaths(2);
+        Assert.assertSame(first, cache.getPaths(0));
+        cache.getPaths(1);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(4, cache.getMisses());
+        Assert.assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void testSameTreesAsTheAlgorithm() {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(300, 1_000, 3);
+        ShortestPathAlgorithm algorithm = ShortestPathAlgorithm.forGraph(graph);
+        // room for 10 trees of 12 bytes per vertex
+        ShortestPathTreeCache cache = ShortestPathTreeCache.withMaxBytes(graph, 10 * 300 * 12);
+        Assert.assertEquals(10, cache.getCapacity());
+        for (int source = 0; source < 40; source++) {
+            ShortestPathTree expected = algorithm.getPaths(source % 15);
+            ShortestPathTree actual = cache.getPaths(source % 15);
+            for (int target = 0; target < graph.getVertexCount(); target++) {
+                Assert.assertEquals(expected.getWeight(target), actual.getWeight(target), 0);
+                Assert.assertArrayEquals(expected.getPath(target), actual.getPath(target));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsSearchOnce() throws Exception {
+        CsrGraph graph = ShortestPathJobTest.createRandomGraph(2_000, 8_000, 5);
+        ShortestPathTreeCache cache = ShortestPathTreeCache.withMaxTrees(graph, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ShortestPathTree>> trees = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                int source = i % 4;
+                trees.add(executor.submit(() -> cache.getPaths(source)));
+            }
+            for (int i = 0; i < trees.size(); i++) {
+                Assert.assertSame(trees.get(i % 4).get(), trees.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(4, cache.getMisses());
+        Assert.assertEquals(36, cache.getHits());
+    }
+}
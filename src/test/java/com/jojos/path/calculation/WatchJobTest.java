@@ -0,0 +1,155 @@
+package com.jojos.path.calculation;
+
+import com.jojos.path.input.ParsedObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Unit tests for {@link WatchJob} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class WatchJobTest {
+
+    private static final List<String> NETWORK = Arrays.asList(
+            "ME,Stefan:100,Amir:1042,Martin:595,Adam:10,Philipp:128",
+            "Stefan,Amir:850,Adam:85",
+            "Adam,Philipp:7,Martin:400,Diana:33",
+            "Diana,Amir:57,Martin:3");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void awaitOrFail(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("The change wasn't picked up in time");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<String> readLines(Path file) {
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return Arrays.asList();
+        }
+    }
+
+    /**
+     * Replaces the file in a single step, the way editors save files
+     */
+    private void replace(Path file, List<String> lines) throws IOException {
+        Path temporary = folder.newFile().toPath();
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    public void testChangedLinesRefreshTheOutput() throws Exception {
+        File input = folder.newFile("network.csv");
+        Files.write(input.toPath(), NETWORK, StandardCharsets.UTF_8);
+        File output = folder.newFile("output.csv");
+        WatchJob watchJob = new WatchJob(input.getPath(), output.getPath(), ParseJob.RunMode.WITHOUT_ASSERTIONS,
+                "ME", null, null, 1);
+        Thread thread = new Thread(watchJob::run);
+        thread.start();
+        try {
+            watchJob.awaitWatching();
+            Assert.assertTrue(readLines(output.toPath()).contains("[ME -> Adam -> Philipp] - [Weight: 17.0]"));
+
+            replace(input.toPath(), Arrays.asList(NETWORK.get(0), NETWORK.get(1),
+                    "Adam,Martin:400,Diana:33", NETWORK.get(3), "Diana,Philipp:1,Zoe:2"));
+            awaitOrFail(() -> watchJob.getReloadCount() == 1);
+            List<String> lines = readLines(output.toPath());
+            Assert.assertTrue(lines.contains("[ME -> Adam -> Diana -> Philipp] - [Weight: 44.0]"));
+            Assert.assertTrue(lines.contains("[ME -> Adam -> Diana -> Zoe] - [Weight: 45.0]"));
+
+            // an invalid line keeps the last valid results
+            replace(input.toPath(), Arrays.asList(NETWORK.get(0), "Adam,Martin:x"));
+            Thread.sleep(500);
+            Assert.assertEquals(1, watchJob.getReloadCount());
+            Assert.assertEquals(lines, readLines(output.toPath()));
+        } finally {
+            watchJob.stop();
+            thread.join(5_000);
+        }
+        Assert.assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void testNewFriendsBecomeSources() throws Exception {
+        File input = folder.newFile("network.csv");
+        Files.write(input.toPath(), NETWORK, StandardCharsets.UTF_8);
+        File output = folder.newFile("output.csv");
+        WatchJob watchJob = new WatchJob(input.getPath(), output.getPath(), ParseJob.RunMode.WITHOUT_ASSERTIONS,
+                null, null, null, 2);
+        Thread thread = new Thread(watchJob::run);
+        thread.start();
+        try {
+            watchJob.awaitWatching();
+            List<String> changed = new ArrayList<>(NETWORK);
+            changed.add("Zoe,ME:3");
+            replace(input.toPath(), changed);
+            awaitOrFail(() -> watchJob.getReloadCount() == 1);
+            assertSameLines(input, output);
+            Assert.assertTrue(readLines(output.toPath()).contains("[Zoe -> ME -> Adam] - [Weight: 13.0]"));
+
+            // only the rows of Stefan change, the ones before and after them are copied
+            changed.set(1, "Stefan,Amir:850,Adam:85,Martin:1");
+            replace(input.toPath(), changed);
+            awaitOrFail(() -> watchJob.getReloadCount() == 2);
+            assertSameLines(input, output);
+        } finally {
+            watchJob.stop();
+            thread.join(5_000);
+        }
+    }
+
+    /**
+     * Compares the output to the one of a run from scratch over the input
+     */
+    private void assertSameLines(File input, File output) throws IOException {
+        File expected = folder.newFile();
+        ParsedObject parsedObject = new ParseJob(input.getPath()).runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS);
+        ShortestPathJob.withoutAssertions(parsedObject.getGraph(), expected.getPath(), null, null, null, 1).run();
+        Assert.assertEquals(readLines(expected.toPath()), readLines(output.toPath()));
+    }
+
+    @Test
+    public void testNewFilesOfTheDirectory() throws Exception {
+        File inputDirectory = folder.newFolder("input");
+        Files.write(inputDirectory.toPath().resolve("first.csv"), NETWORK, StandardCharsets.UTF_8);
+        Path outputDirectory = folder.getRoot().toPath().resolve("output");
+        WatchJob watchJob = new WatchJob(inputDirectory.getPath(), outputDirectory.toString(),
+                ParseJob.RunMode.WITHOUT_ASSERTIONS, null, "Martin", null, 2);
+        Thread thread = new Thread(watchJob::run);
+        thread.start();
+        try {
+            watchJob.awaitWatching();
+            Assert.assertTrue(readLines(outputDirectory.resolve("first.csv"))
+                    .contains("[ME -> Adam -> Diana -> Martin] - [Weight: 46.0]"));
+
+            replace(inputDirectory.toPath().resolve("second.csv"), Arrays.asList("ME,Martin:5"));
+            awaitOrFail(() -> readLines(outputDirectory.resolve("second.csv")).contains("[ME -> Martin] - [Weight: 5.0]"));
+        } finally {
+            watchJob.stop();
+            thread.join(5_000);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests for {@link GraphSnapshot} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class GraphSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static CsrGraph createGraph(int vertices, int edges) {
+        return TestGraphs.createGraph(vertices, edges, 7);
+    }
+
+    @Test
+    public void testGraphIsTheSameAfterLoading() throws IOException {
+        CsrGraph graph = createGraph(5_000, 40_000);
+        Path file = folder.getRoot().toPath().resolve("graph.snapshot");
+        GraphSnapshot.write(file, graph, null, 123, 456);
+
+        GraphSnapshot snapshot = GraphSnapshot.readIfCurrent(file, 123, 456, false);
+        Assert.assertNotNull(snapshot);
+        Assert.assertNull(snapshot.getAssertions());
+        CsrGraph loaded = snapshot.getGraph();
+        TestGraphs.assertSameGraph(graph, loaded);
+
+        // the loaded dictionary keeps on interning new names
+        VertexDictionary dictionary = loaded.getVertexDictionary();
+        Assert.assertEquals(5_000, dictionary.intern("Newcomer"));
+        Assert.assertEquals("Newcomer", dictionary.getName(5_000));
+        Assert.assertEquals(0, dictionary.getId("Γιώργος"));
+    }
+
+    @Test
+    public void testOffHeapGraphIsTheSameAfterLoadingAndSaving() throws IOException {
+        CsrGraph graph = createGraph(5_000, 40_000);
+        Path file = folder.getRoot().toPath().resolve("graph.snapshot");
+        GraphSnapshot.write(file, graph, null, 123, 456);
+
+        GraphSnapshot snapshot = GraphSnapshot.readIfCurrent(file, 123, 456, false, true);
+        Assert.assertNotNull(snapshot);
+        try (OffHeapGraph offHeap = snapshot.getOffHeapGraph()) {
+            CsrGraph loaded = snapshot.getGraph();
+            Assert.assertSame(offHeap.getGraph(), loaded);
+            Assert.assertTrue(loaded.isOffHeap());
+            Assert.assertTrue(loaded.getVertexDictionary() instanceof OffHeapVertexDictionary);
+            TestGraphs.assertSameGraph(graph, loaded);
+
+            // saved from off the heap, the snapshot is the same as the one saved from the heap
+            Path copy = folder.getRoot().toPath().resolve("copy.snapshot");
+            GraphSnapshot.write(copy, loaded, null, 123, 456);
+            Assert.assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+        }
+        Assert.assertNull(GraphSnapshot.readIfCurrent(file, 123, 456, false).getOffHeapGraph());
+    }
+
+    @Test
+    public void testStaleSnapshotsAreNotLoaded() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.snapshot");
+        Assert.assertNull(GraphSnapshot.readIfCurrent(file, 123, 456, false));
+
+        GraphSnapshot.write(file, createGraph(10, 20), null, 123, 456);
+        Assert.assertNull(GraphSnapshot.readIfCurrent(file, 124, 456, false));
+        Assert.assertNull(GraphSnapshot.readIfCurrent(file, 123, 457, false));
+        // saved without assertions so it can't serve a run with assertions
+        Assert.assertNull(GraphSnapshot.readIfCurrent(file, 123, 456, true));
+        Assert.assertNotNull(GraphSnapshot.readIfCurrent(file, 123, 456, false));
+    }
+
+    @Test
+    public void testAssertions() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.snapshot");
+        List<List<String>> assertions = Arrays.asList(
+                Arrays.asList("Friend1", "10x9x5x1200", "6.89"),
+                Arrays.asList("Γιώργος", "6x10x8x1233", "~"),
+                Arrays.asList("Friend2", "Friend3", "1x1x1x1000", "2.50"));
+        GraphSnapshot.write(file, createGraph(10, 20), assertions, 1, 2);
+        Assert.assertEquals(assertions, GraphSnapshot.readIfCurrent(file, 1, 2, true).getAssertions());
+
+        GraphSnapshot.write(file, createGraph(10, 20), Collections.emptyList(), 1, 2);
+        Assert.assertEquals(Collections.emptyList(), GraphSnapshot.readIfCurrent(file, 1, 2, true).getAssertions());
+    }
+
+    @Test(expected = ApplicationException.class)
+    public void testCorruptSnapshot() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("graph.snapshot");
+        GraphSnapshot.write(file, createGraph(100, 1_000), null, 1, 2);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() / 2);
+            int b = randomAccessFile.read();
+            randomAccessFile.seek(randomAccessFile.length() / 2);
+            randomAccessFile.write(b ^ 0xFF);
+        }
+        GraphSnapshot.readIfCurrent(file, 1, 2, false);
+    }
+}
@@ -0,0 +1,95 @@
+package com.jojos.path.graph;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.calculation.ShortestPathAlgorithm;
+import com.jojos.path.calculation.ShortestPathTree;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link OffHeapGraph} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class OffHeapGraphTest {
+
+    private static CsrGraph createGraph(int vertices, int edges) {
+        return TestGraphs.createGraph(vertices, edges, 5);
+    }
+
+    @Test
+    public void testCopyIsTheSameGraph() {
+        CsrGraph graph = createGraph(2_000, 15_000);
+        try (OffHeapGraph offHeap = OffHeapGraph.copyOf(graph)) {
+            CsrGraph copy = offHeap.getGraph();
+            Assert.assertTrue(copy.isOffHeap());
+            Assert.assertFalse(graph.isOffHeap());
+            TestGraphs.assertSameGraph(graph, copy);
+            Assert.assertEquals(-1, copy.getVertexId("Nobody"));
+
+            long size = offHeap.getSizeBytes();
+            Assert.assertTrue(size >= 12L * graph.getEdgeCount() + 4L * (graph.getVertexCount() + 1));
+            TestGraphs.assertSameGraph(graph.getReverse(), copy.getReverse());
+            Assert.assertTrue(copy.getReverse().isOffHeap());
+            Assert.assertEquals(size + OffHeapCsrGraph.sizeOf(graph.getVertexCount(), graph.getEdgeCount()),
+                    offHeap.getSizeBytes());
+        }
+    }
+
+    @Test
+    public void testBuiltStraightOffTheHeap() {
+        CsrGraph graph = createGraph(2_000, 15_000);
+        try (OffHeapGraph offHeap = TestGraphs.createBuilder(2_000, 15_000, 5).buildOffHeap()) {
+            CsrGraph built = offHeap.getGraph();
+            Assert.assertTrue(built.isOffHeap());
+            Assert.assertTrue(built.getVertexDictionary() instanceof OffHeapVertexDictionary);
+            TestGraphs.assertSameGraph(graph, built);
+            TestGraphs.assertSameGraph(graph.getReverse(), built.getReverse());
+        }
+    }
+
+    @Test
+    public void testSearchesReadTheCopy() {
+        CsrGraph graph = createGraph(1_000, 6_000);
+        try (OffHeapGraph offHeap = OffHeapGraph.copyOf(graph)) {
+            ShortestPathAlgorithm onHeap = ShortestPathAlgorithm.forGraph(graph);
+            ShortestPathAlgorithm offHeapAlgorithm = ShortestPathAlgorithm.forGraph(offHeap.getGraph());
+            for (int source = 0; source < graph.getVertexCount(); source += 97) {
+                ShortestPathTree expected = onHeap.getPaths(source);
+                ShortestPathTree actual = offHeapAlgorithm.getPaths(source);
+                for (int target = 0; target < graph.getVertexCount(); target++) {
+                    Assert.assertEquals(expected.getWeight(target), actual.getWeight(target), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testClose() {
+        OffHeapGraph offHeap = OffHeapGraph.copyOf(createGraph(10, 20));
+        Assert.assertTrue(offHeap.getSizeBytes() > 0);
+        CsrGraph graph = offHeap.getGraph();
+        offHeap.close();
+        try {
+            graph.getEdgeWeight(0);
+            Assert.fail("A closed graph must not be read");
+        } catch (IndexOutOfBoundsException e) {
+            // the buffers are dropped, the memory isn't released under the reader
+        }
+        offHeap.close();
+        Assert.assertEquals(0, offHeap.getSizeBytes());
+        try {
+            offHeap.getGraph();
+            Assert.fail("A closed graph must not be used");
+        } catch (ApplicationException e) {
+            Assert.assertEquals("The off heap graph is closed", e.getMessage());
+        }
+    }
+
+    @Test(expected = ApplicationException.class)
+    public void testOffHeapDictionaryIsReadOnly() {
+        try (OffHeapGraph offHeap = OffHeapGraph.copyOf(createGraph(10, 20))) {
+            offHeap.getGraph().getVertexDictionary().intern("Friend100");
+        }
+    }
+}
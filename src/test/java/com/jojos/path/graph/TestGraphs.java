@@ -0,0 +1,58 @@
+package com.jojos.path.graph;
+
+import org.junit.Assert;
+
+import java.util.Random;
+
+/**
+ * Random graphs and graph comparisons shared by the tests of the graphs and of their copies
+ *
+ * @author karanikasg@gmail.com
+ */
+public final class TestGraphs {
+
+    private TestGraphs() {
+    }
+
+    /**
+     * @return a graph of random edges with whole weights up to 999, including a vertex with a name that isn't ASCII
+     */
+    public static CsrGraph createGraph(int vertices, int edges, long seed) {
+        return createBuilder(vertices, edges, seed).build();
+    }
+
+    /**
+     * @return the builder of the graph {@link #createGraph(int, int, long)} creates, which isn't built yet
+     */
+    static CsrGraphBuilder createBuilder(int vertices, int edges, long seed) {
+        Random random = new Random(seed);
+        CsrGraphBuilder builder = new CsrGraphBuilder();
+        for (int v = 0; v < vertices; v++) {
+            builder.addVertex(v == 0 ? "Γιώργος" : "Friend" + v);
+        }
+        for (int e = 0; e < edges; e++) {
+            builder.addEdge(random.nextInt(vertices), random.nextInt(vertices), random.nextInt(1000));
+        }
+        return builder;
+    }
+
+    /**
+     * Asserts that the graphs have the same vertices, names and edges in the same order
+     */
+    public static void assertSameGraph(CsrGraph expected, CsrGraph actual) {
+        Assert.assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        Assert.assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        Assert.assertEquals(expected.getMaxEdgeWeight(), actual.getMaxEdgeWeight(), 0);
+        Assert.assertEquals(expected.hasIntegralWeights(), actual.hasIntegralWeights());
+        for (int v = 0; v < expected.getVertexCount(); v++) {
+            Assert.assertEquals(expected.getVertexName(v), actual.getVertexName(v));
+            Assert.assertEquals(v, actual.getVertexId(expected.getVertexName(v)));
+            Assert.assertEquals(expected.getFirstEdge(v), actual.getFirstEdge(v));
+            Assert.assertEquals(expected.getEndEdge(v), actual.getEndEdge(v));
+        }
+        for (int e = 0; e < expected.getEdgeCount(); e++) {
+            Assert.assertEquals(expected.getEdgeTarget(e), actual.getEdgeTarget(e));
+            Assert.assertEquals(expected.getEdgeWeight(e), actual.getEdgeWeight(e), 0);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.jojos.path.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests for {@link VertexDictionary} class
+ *
+ * @author karanikasg@gmail.com
+ */
+public class VertexDictionaryTest {
+
+    @Test
+    public void testInternAssignsDenseIds() {
+        VertexDictionary dictionary = new VertexDictionary();
+        Assert.assertEquals(0, dictionary.intern("ME"));
+        Assert.assertEquals(1, dictionary.intern("Lisa"));
+        Assert.assertEquals(0, dictionary.intern("ME"));
+        Assert.assertEquals(2, dictionary.intern("Jessica1"));
+        Assert.assertEquals(3, dictionary.size());
+        Assert.assertEquals("Lisa", dictionary.getName(1));
+        Assert.assertEquals(-1, dictionary.getId("Peter"));
+        Assert.assertEquals(-1, dictionary.getId((String) null));
+    }
+
+    @Test
+    public void testGrowth() {
+        VertexDictionary dictionary = new VertexDictionary();
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, dictionary.intern("Friend" + i));
+        }
+        Assert.assertEquals(count, dictionary.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, dictionary.getId("Friend" + i));
+            Assert.assertEquals("Friend" + i, dictionary.getName(i));
+        }
+    }
+
+    @Test
+    public void testByteLookups() {
+        VertexDictionary dictionary = new VertexDictionary();
+        byte[] line = "ME,Lisa:33".getBytes(StandardCharsets.US_ASCII);
+        int me = dictionary.intern(line, 0, 2);
+        int lisa = dictionary.intern(line, 3, 4);
+        Assert.assertEquals(me, dictionary.getId("ME"));
+        Assert.assertEquals(lisa, dictionary.getId(line, 3, 4));
+        Assert.assertEquals(-1, dictionary.getId(line, 3, 3));
+
+        byte[] copy = new byte[dictionary.getNameLength(lisa)];
+        dictionary.copyName(lisa, copy, 0);
+        Assert.assertEquals("Lisa", new String(copy, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testNonAsciiNames() {
+        VertexDictionary dictionary = new VertexDictionary();
+        int id = dictionary.intern("Γιώργος");
+        Assert.assertEquals(id, dictionary.getId("Γιώργος"));
+        Assert.assertEquals("Γιώργος", dictionary.getName(id));
+
+        StringBuilder builder = new StringBuilder();
+        dictionary.appendName(dictionary.intern("Adam"), builder);
+        dictionary.appendName(id, builder);
+        Assert.assertEquals("AdamΓιώργος", builder.toString());
+    }
+}
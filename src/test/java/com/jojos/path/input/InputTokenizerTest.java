@@ -0,0 +1,195 @@
+package com.jojos.path.input;
+
+import com.jojos.path.ApplicationException;
+import com.jojos.path.calculation.Computations;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link InputTokenizer} comparing it with splitting the lines by regular expressions
+ *
+ * @author karanikasg@gmail.com
+ */
+public class InputTokenizerTest {
+
+    private static final String[] LINES = {
+            "ME,Stefan:100,Amir:1042,Martin:595",
+            "ME , Lisa:33 ,Peter:123,\tJohn:55",
+            "  ME,Lisa:3",
+            "ME,Lisa:3,",
+            "ME,Lisa:3,,",
+            "ME,Lisa:007",
+            "ME,Lisa:+5",
+            "ME,Lisa:3::",
+            "ME:,Lisa:3",
+            "Γιώργος,Lisa:3",
+            "ME",
+            "ME,",
+            "   ",
+            ",",
+            "ME,Lisa:a",
+            "ME,Lisa: 3",
+            "ME,Lisa:99999999999999999999",
+            "ME,Lisa:3:4",
+            "ME,:3",
+            "ME,::",
+            "ME,,Lisa:3",
+            ",Lisa:3",
+            "ME,Lisa",
+            "ME:3,Lisa:4",
+            "ME:3,Lisa",
+            "ME,Lisa:3 ",
+    };
+
+    /**
+     * The way lines used to be parsed before the tokenizer
+     */
+    private static List<String> parseWithRegularExpressions(String line) {
+        List<String> edges = new ArrayList<>();
+        if (line.trim().isEmpty()) {
+            return edges;
+        }
+        String[] strings = line.split("\\s*,\\s*");
+        if (strings.length <= 1) {
+            return edges;
+        }
+        List<InputElement> elements = Arrays.stream(strings).map(InputElement::new).collect(Collectors.toList());
+        InputLine inputLine = new InputLine(elements);
+        for (InputElement element : elements.subList(1, elements.size())) {
+            edges.add(inputLine.getSource().getName() + "->" + element.getName() + ":" + (long) element.getWeight().getValue());
+        }
+        return edges;
+    }
+
+    private static List<String> tokenize(String text, boolean withAssertions, List<AssertionElement> assertions) {
+        List<String> names = new ArrayList<>();
+        List<String> edges = new ArrayList<>();
+        InputTokenizer tokenizer = new InputTokenizer(new InputRecordHandler() {
+            @Override
+            public int vertex(byte[] bytes, int offset, int length) {
+                names.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+                return names.size() - 1;
+            }
+
+            @Override
+            public void edge(int source, int target, long weight) {
+                edges.add(names.get(source) + "->" + names.get(target) + ":" + weight);
+            }
+
+            @Override
+            public void assertion(AssertionElement assertionElement) {
+                assertions.add(assertionElement);
+            }
+        }, withAssertions);
+        tokenizer.tokenize(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        tokenizer.finish();
+        return edges;
+    }
+
+    private static String outcome(Runnable runnable) {
+        try {
+            runnable.run();
+            return "OK";
+        } catch (ApplicationException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void testSameOutcomeAsRegularExpressions() {
+        for (String line : LINES) {
+            List<String> expected = new ArrayList<>();
+            List<String> actual = new ArrayList<>();
+            String expectedOutcome = outcome(() -> expected.addAll(parseWithRegularExpressions(line)));
+            String actualOutcome = outcome(() -> actual.addAll(tokenize(line, false, new ArrayList<>())));
+            Assert.assertEquals(line, expectedOutcome, actualOutcome);
+            Assert.assertEquals(line, expected, actual);
+        }
+    }
+
+    @Test
+    public void testLineTerminators() {
+        String text = "ME,Lisa:33\r\nLisa,John:3\rDiana,Peter:11\n\nPeter,ME:1";
+        List<String> edges = tokenize(text, false, new ArrayList<>());
+        Assert.assertEquals(Arrays.asList("ME->Lisa:33", "Lisa->John:3", "Diana->Peter:11", "Peter->ME:1"), edges);
+    }
+
+    @Test
+    public void testAssertions() {
+        String text = "ME,Lisa:33\n@,Lisa,10x9x5x1200,6.89\n@ , Diana , 6x10x8x1233 , ~\n@,Lisa,1x1x1x1\n"
+                + "@,Lisa,Diana,1x1x1x1000,2.50\n@,Lisa,Diana,1x1x1x1000,2.50,3\n";
+        List<AssertionElement> assertions = new ArrayList<>();
+        tokenize(text, true, assertions);
+        Assert.assertEquals(3, assertions.size());
+        Assert.assertEquals("ME", assertions.get(0).getSource());
+        Assert.assertEquals("Lisa", assertions.get(0).getTarget());
+        Assert.assertEquals(6.89, assertions.get(0).getShippingCost(), 0);
+        Assert.assertEquals("Diana", assertions.get(1).getTarget());
+        Assert.assertEquals(Double.POSITIVE_INFINITY, assertions.get(1).getShippingCost(), 0);
+        Assert.assertEquals("Lisa", assertions.get(2).getSource());
+        Assert.assertEquals("Diana", assertions.get(2).getTarget());
+        Assert.assertEquals(Arrays.asList("Lisa", "Diana", "1x1x1x1000", "2.50"), assertions.get(2).getStatement());
+
+        assertions.clear();
+        tokenize(text, false, assertions);
+        Assert.assertTrue(assertions.isEmpty());
+    }
+
+    @Test
+    public void testAssertionColumns() {
+        String text = "@,Lisa,10x9x5x1200,6.89\n@,Diana,6x10x8x1233.5,~\n@,Lisa,Diana,1x1x1x1000,2.50\n";
+        List<AssertionElement> elements = new ArrayList<>();
+        tokenize(text, true, elements);
+        Assertions assertions = new Assertions(elements);
+
+        Assert.assertEquals(3, assertions.size());
+        // ME, Lisa and Diana
+        Assert.assertEquals(3, assertions.getNameCount());
+        Assert.assertEquals(assertions.getTargetIndex(0), assertions.getSourceIndex(2));
+        Assert.assertEquals("Diana", assertions.getName(assertions.getTargetIndex(2)));
+        Assert.assertEquals(Arrays.asList("ME", "Lisa", "10x9x5x1200", "6.89"), assertions.getStatement(0));
+        Assert.assertEquals(Arrays.asList("ME", "Diana", "6x10x8x1233.5", "~"), assertions.getStatement(1));
+        Assert.assertEquals(Arrays.asList("Lisa", "Diana", "1x1x1x1000", "2.5"), assertions.getStatement(2));
+        for (int i = 0; i < elements.size(); i++) {
+            AssertionElement parsed = new AssertionElement(assertions.getStatement(i));
+            Assert.assertEquals(elements.get(i).getShippingCost(), parsed.getShippingCost(), 0);
+            Assert.assertEquals(Computations.normalizedPackageWeight(elements.get(i).getPackageDimensions()),
+                    assertions.getNormalizedWeight(i), 0);
+        }
+    }
+
+    @Test
+    public void testAssertionErrorsAreReportedAtTheEnd() {
+        String text = "@,Lisa,10x9x5,6.89\nME,Lisa:33\n";
+        List<String> edges = new ArrayList<>();
+        String outcome = outcome(() -> edges.addAll(tokenize(text, true, new ArrayList<>())));
+        Assert.assertEquals("Dimensions 10x9x5 not in the form of WxLxHxW", outcome);
+    }
+
+    @Test
+    public void testNegativeWeights() {
+        Assert.assertEquals("Weights must not be negative but Lisa:-3 was found in line ME,Lisa:-3",
+                outcome(() -> tokenize("ME,Lisa:-3", false, new ArrayList<>())));
+        // -1 would be taken for the head of the line
+        Assert.assertEquals("Weights must not be negative but Lisa:-1 was found in line  ME , Peter:2, Lisa:-1",
+                outcome(() -> tokenize("ME,Peter:2\n ME , Peter:2, Lisa:-1\nPeter,Lisa:1", false, new ArrayList<>())));
+    }
+
+    @Test
+    public void testLongLinesAcrossBlocks() {
+        StringBuilder line = new StringBuilder("ME");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            line.append(",Friend").append(i).append(':').append(i);
+            expected.add("ME->Friend" + i + ":" + i);
+        }
+        Assert.assertEquals(expected, tokenize(line.toString(), false, new ArrayList<>()));
+    }
+}
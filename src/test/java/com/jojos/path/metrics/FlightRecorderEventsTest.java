@@ -0,0 +1,80 @@
+package com.jojos.path.metrics;
+
+import com.jojos.path.calculation.ParseJob;
+import com.jojos.path.calculation.ShortestPathJob;
+import com.jojos.path.input.ParsedObject;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for the flight recorder events of {@link FlightRecorderEvents}
+ *
+ * @author karanikasg@gmail.com
+ */
+public class FlightRecorderEventsTest {
+
+    private static final String INPUT = "src/test/resources/test_success_input/01.csv";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<RecordedEvent> eventsOf(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEventsOfEveryStage() throws Exception {
+        Assume.assumeTrue(FlightRecorderEvents.AVAILABLE);
+        File output = folder.newFile();
+        Path recordingFile = folder.getRoot().toPath().resolve("recording.jfr");
+        ParsedObject parsedObject;
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"com.jojos.path.ParseChunk", "com.jojos.path.GraphBuild",
+                    "com.jojos.path.ShortestPathQuery", "com.jojos.path.OutputWrite"}) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            parsedObject = new ParseJob(INPUT).runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS);
+            ShortestPathJob.withoutAssertions(parsedObject.getGraph(), output.getPath(), null, null, null).run();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        List<RecordedEvent> chunks = eventsOf(events, "com.jojos.path.ParseChunk");
+        Assert.assertEquals(1, chunks.size());
+        Assert.assertEquals(INPUT, chunks.get(0).getString("file"));
+        Assert.assertEquals(0, chunks.get(0).getInt("chunk"));
+        Assert.assertEquals(new File(INPUT).length(), chunks.get(0).getLong("length"));
+        Assert.assertTrue(chunks.get(0).getLong("lines") > 0);
+
+        List<RecordedEvent> builds = eventsOf(events, "com.jojos.path.GraphBuild");
+        Assert.assertEquals(1, builds.size());
+        Assert.assertEquals(parsedObject.getGraph().getVertexCount(), builds.get(0).getInt("vertices"));
+        Assert.assertEquals(parsedObject.getGraph().getEdgeCount(), builds.get(0).getInt("edges"));
+
+        List<RecordedEvent> queries = eventsOf(events, "com.jojos.path.ShortestPathQuery");
+        Assert.assertEquals(7, queries.size());
+        RecordedEvent me = queries.stream().filter(event -> "ME".equals(event.getString("source"))).findFirst()
+                .orElseThrow(AssertionError::new);
+        // ME reaches every friend but itself
+        Assert.assertEquals(7, me.getLong("settled"));
+        Assert.assertEquals(7, me.getInt("targets"));
+
+        List<RecordedEvent> writes = eventsOf(events, "com.jojos.path.OutputWrite");
+        Assert.assertFalse(writes.isEmpty());
+        Assert.assertEquals(output.length(), writes.get(writes.size() - 1).getLong("totalBytes"));
+    }
+}
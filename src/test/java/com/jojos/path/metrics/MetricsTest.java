@@ -0,0 +1,121 @@
+package com.jojos.path.metrics;
+
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.ParseJob;
+import com.jojos.path.calculation.ShortestPathJob;
+import com.jojos.path.input.ParsedObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Unit tests for {@link Metrics} and {@link LatencyHistogram} classes
+ *
+ * @author karanikasg@gmail.com
+ */
+public class MetricsTest {
+
+    private static final String INPUT = "src/test/resources/test_success_input/01.csv";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void disableMetrics() {
+        Metrics.disable();
+    }
+
+    private static void runApplicationPhases(File output) {
+        ParsedObject parsedObject = new ParseJob(INPUT).runAndCreateGraph(ParseJob.RunMode.WITHOUT_ASSERTIONS);
+        ShortestPathJob.withoutAssertions(parsedObject.getGraph(), output.getPath(), null, null,
+                Computations.parseDimensions("1x1x1x400")).run();
+    }
+
+    @Test
+    public void testEveryPhaseIsRecorded() throws Exception {
+        Metrics metrics = Metrics.enable();
+        runApplicationPhases(folder.newFile());
+
+        for (Phase phase : Phase.values()) {
+            PhaseMetrics phaseMetrics = metrics.getPhase(phase);
+            Assert.assertTrue(phase + " wasn't recorded", phaseMetrics.getCount() > 0);
+            Assert.assertTrue(phaseMetrics.getWallNanos() > 0);
+            Assert.assertTrue(phaseMetrics.getTotalNanos() >= phaseMetrics.getLatencies().getMax());
+        }
+        // one search per source of the network
+        Assert.assertEquals(7, metrics.getPhase(Phase.SHORTEST_PATHS).getCount());
+        // the costs are timed once for all the targets of a source
+        Assert.assertEquals(7, metrics.getPhase(Phase.COST).getCount());
+        // building the graph allocates its arrays
+        Assert.assertTrue(metrics.getPhase(Phase.GRAPH_BUILD).getAllocatedBytes() > 0);
+        Assert.assertTrue(metrics.getPhase(Phase.GRAPH_BUILD).getAllocatedBytesPerThread().containsKey(Thread.currentThread().getName()));
+
+        File report = folder.newFile("metrics.json");
+        metrics.writeJson(report.toPath());
+        String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        for (Phase phase : Phase.values()) {
+            Assert.assertTrue(json.contains("\"" + phase.getJsonName() + "\": {\"count\": "));
+        }
+        Assert.assertTrue(json.contains("\"gcPauses\": {\"count\": "));
+        Assert.assertTrue(json.trim().endsWith("}"));
+    }
+
+    @Test
+    public void testNothingIsRecordedWhenDisabled() throws Exception {
+        Metrics.disable();
+        Assert.assertEquals(0, Metrics.startNanos());
+        Assert.assertEquals(0, Metrics.allocatedBytes());
+        runApplicationPhases(folder.newFile());
+
+        Metrics metrics = Metrics.enable();
+        for (Phase phase : Phase.values()) {
+            Assert.assertEquals(0, metrics.getPhase(phase).getCount());
+        }
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        Metrics.enable().registerMBean();
+        runApplicationPhases(folder.newFile());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        Assert.assertTrue(((String) server.getAttribute(name, "Report")).contains("\"shortestPaths\""));
+        Assert.assertNotNull(server.getAttribute(name, "Counts"));
+
+        Metrics.disable();
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testJsonStrings() {
+        Assert.assertEquals("\"pool-1 \\\"worker\\\" \\\\ \\u0009\"", Metrics.quoted("pool-1 \"worker\" \\ \t"));
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getMax());
+        Assert.assertEquals(500.5, histogram.getMean(), 0);
+        // the buckets of values up to 1000 are at most 32 wide
+        Assert.assertEquals(500, histogram.getPercentile(50), 32);
+        Assert.assertEquals(990, histogram.getPercentile(99), 32);
+        Assert.assertEquals(1000, histogram.getPercentile(100));
+        for (long value = 0; value < 100_000; value += 37) {
+            Assert.assertTrue(LatencyHistogram.highestOf(LatencyHistogram.bucketOf(value)) >= value);
+        }
+    }
+}
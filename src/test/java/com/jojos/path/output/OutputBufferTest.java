@@ -0,0 +1,77 @@
+package com.jojos.path.output;
+
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.Dimensions;
+import com.jojos.path.calculation.DimensionsWeight;
+import com.jojos.path.graph.VertexDictionary;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link OutputBuffer} and {@link PathOutputWriter} classes
+ *
+ * @author karanikasg@gmail.com
+ */
+public class OutputBufferTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String format(double value) {
+        OutputBuffer buffer = new OutputBuffer();
+        buffer.appendDouble(value);
+        return new String(buffer.array(), 0, buffer.size(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testDoublesAreFormattedLikeDoubleToString() {
+        double[] values = {0d, -0d, 1d, 17d, 2.06, 3.3, 5.0, 0.05, 0.87, 16.96, 9_999_999d, 10_000_000d, 1e-3, 0.0025,
+                123.456, 1e-7, Double.POSITIVE_INFINITY, Double.NaN, -4.12, Long.MAX_VALUE};
+        for (double value : values) {
+            Assert.assertEquals(Double.toString(value), format(value));
+        }
+    }
+
+    @Test
+    public void testShippingCostsAreFormattedLikeDoubleToString() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double hard = random.nextInt(1_000_000);
+            DimensionsWeight dimensionsWeight = new DimensionsWeight(
+                    Dimensions.of(1 + random.nextInt(100), 1 + random.nextInt(100), 1 + random.nextInt(100)),
+                    random.nextInt(50_000));
+            double cost = Computations.shippingCost(hard, dimensionsWeight);
+            Assert.assertEquals(Double.toString(cost), format(cost));
+            Assert.assertEquals(Double.toString(hard), format(hard));
+        }
+    }
+
+    @Test
+    public void testWriterWithSmallBuffer() throws IOException {
+        VertexDictionary dictionary = new VertexDictionary();
+        int me = dictionary.intern("ME");
+        int lisa = dictionary.intern("Lisa");
+
+        File file = folder.newFile();
+        StringBuilder expected = new StringBuilder();
+        try (PathOutputWriter writer = new PathOutputWriter(file.getPath(), 16)) {
+            OutputBuffer buffer = new OutputBuffer(16);
+            for (int i = 0; i < 100; i++) {
+                buffer.reset();
+                buffer.append((byte) '[').appendName(me, dictionary).appendAscii(" -> ").appendName(lisa, dictionary)
+                        .appendAscii("] - [Weight: ").appendDouble(i).append((byte) ']').appendLineSeparator();
+                writer.write(buffer);
+                expected.append("[ME -> Lisa] - [Weight: ").append((double) i).append(']').append(System.lineSeparator());
+            }
+        }
+        Assert.assertEquals(expected.toString(), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,114 @@
+package com.jojos.path.server;
+
+import com.jojos.path.calculation.BidirectionalDijkstra;
+import com.jojos.path.calculation.Computations;
+import com.jojos.path.calculation.DijkstraTest;
+import com.jojos.path.graph.CsrGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link QueryServer} class, over the loopback interface
+ *
+ * @author karanikasg@gmail.com
+ */
+public class QueryServerTest {
+
+    @Test
+    public void testQueries() throws Exception {
+        CsrGraph graph = DijkstraTest.createGraph();
+        try (QueryServer server = new QueryServer(graph, () -> new BidirectionalDijkstra(graph), 0, 2).withShutdownCommand().start();
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            // pipelined queries are answered in order
+            writer.write("ME,Philipp\nME,Philipp,10x9x5x1200\nDiana,Stefan\nME,Nobody\nME\n");
+            writer.flush();
+
+            Assert.assertEquals("[ME -> Adam -> Philipp] - [Weight: 17.0]", reader.readLine());
+            double cost = Computations.shippingCost(17, Computations.parseDimensions("10x9x5x1200"));
+            Assert.assertEquals("[ME -> Adam -> Philipp] - [Cost: " + cost + "]", reader.readLine());
+            Assert.assertEquals("NO PATH", reader.readLine());
+            Assert.assertTrue(reader.readLine().startsWith("ERROR unknown Nobody"));
+            Assert.assertTrue(reader.readLine().startsWith("ERROR"));
+
+            writer.write("SHUTDOWN\n");
+            writer.flush();
+            Assert.assertNull(reader.readLine());
+            server.awaitShutdown();
+            Assert.assertEquals(5, server.getLatencies().getCount());
+            Assert.assertEquals(2, server.getErrorCount());
+        }
+    }
+
+    @Test
+    public void testClientsCantStopTheServerByDefault() throws Exception {
+        CsrGraph graph = DijkstraTest.createGraph();
+        try (QueryServer server = new QueryServer(graph, () -> new BidirectionalDijkstra(graph), 0, 2).start();
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write("SHUTDOWN\nME,Philipp\n");
+            writer.flush();
+
+            Assert.assertTrue(reader.readLine().startsWith("ERROR"));
+            Assert.assertEquals("[ME -> Adam -> Philipp] - [Weight: 17.0]", reader.readLine());
+            Assert.assertEquals(1, server.getErrorCount());
+        }
+    }
+
+    @Test
+    public void testConcurrentConnections() throws Exception {
+        CsrGraph graph = DijkstraTest.createGraph();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        AtomicInteger created = new AtomicInteger();
+        try (QueryServer server = new QueryServer(graph, () -> {
+            created.incrementAndGet();
+            return new BidirectionalDijkstra(graph);
+        }, 0, 2).start()) {
+            List<Future<Integer>> answers = new ArrayList<>();
+            for (int c = 0; c < 8; c++) {
+                answers.add(clients.submit(() -> {
+                    int correct = 0;
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                        Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+                        for (int q = 0; q < 100; q++) {
+                            writer.write("ME,Martin\n");
+                            writer.flush();
+                            if ("[ME -> Adam -> Diana -> Martin] - [Weight: 46.0]".equals(reader.readLine())) {
+                                correct++;
+                            }
+                        }
+                        writer.write("QUIT\n");
+                        writer.flush();
+                    }
+                    return correct;
+                }));
+            }
+            for (Future<Integer> answer : answers) {
+                Assert.assertEquals(100, answer.get().intValue());
+            }
+            server.close();
+            Assert.assertEquals(800, server.getLatencies().getCount());
+            // the eight clients share the two query instances
+            Assert.assertTrue(created.get() <= 2);
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
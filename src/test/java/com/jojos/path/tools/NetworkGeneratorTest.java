@@ -0,0 +1,92 @@
+package com.jojos.path.tools;
+
+import com.jojos.path.calculation.ParseJob;
+import com.jojos.path.calculation.ShortestPathJob;
+import com.jojos.path.graph.CsrGraph;
+import com.jojos.path.input.ParsedObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for {@link NetworkGenerator} and {@link LoadDriver} classes
+ *
+ * @author karanikasg@gmail.com
+ */
+public class NetworkGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTheAssertionsOfTheNetworkHold() throws IOException {
+        File network = folder.newFile("network.csv");
+        long edges = new NetworkGenerator(2_000, 7L)
+                .withDegree(6, 2.2)
+                .withLocality(0.7)
+                .withWeights(NetworkGenerator.WeightDistribution.EXPONENTIAL, 5_000)
+                .withAssertions(50)
+                .write(network.toPath());
+
+        ParsedObject parsedObject = new ParseJob(network.getPath(), 2).runAndCreateGraph(ParseJob.RunMode.WITH_ASSERTIONS);
+        CsrGraph graph = parsedObject.getGraph();
+        Assert.assertEquals(edges, graph.getEdgeCount());
+        Assert.assertEquals(50, parsedObject.getAssertions().size());
+        // throws an AssertionError if a precomputed cost is wrong
+        ShortestPathJob.withAssertions(parsedObject).run();
+    }
+
+    @Test
+    public void testSameSeedSameNetwork() throws IOException {
+        File first = folder.newFile();
+        File second = folder.newFile();
+        File other = folder.newFile();
+        new NetworkGenerator(500, 3L).withAssertions(5).write(first.toPath());
+        new NetworkGenerator(500, 3L).withAssertions(5).write(second.toPath());
+        new NetworkGenerator(500, 4L).withAssertions(5).write(other.toPath());
+
+        List<String> lines = Files.readAllLines(first.toPath());
+        Assert.assertEquals(lines, Files.readAllLines(second.toPath()));
+        Assert.assertNotEquals(lines, Files.readAllLines(other.toPath()));
+        Assert.assertTrue(lines.get(0).startsWith("ME,"));
+
+        // few friends ship to many, most ship to few
+        List<Integer> degrees = lines.stream()
+                .filter(line -> !line.startsWith("@"))
+                .map(line -> line.split(",").length - 1)
+                .sorted()
+                .collect(Collectors.toList());
+        Assert.assertTrue(degrees.get(degrees.size() - 1) > 4 * degrees.get(degrees.size() / 2));
+    }
+
+    @Test
+    public void testLoadDriverReportsEveryPhase() {
+        File network = folder.getRoot().toPath().resolve("network.csv").toFile();
+        File paths = folder.getRoot().toPath().resolve("paths.csv").toFile();
+        List<PhaseReport> reports = new LoadDriver(new NetworkGenerator(300, 5L).withAssertions(10),
+                network.toPath(), paths.toPath(), "ME", null, "10x9x5x1200", ParseJob.RunMode.WITHOUT_ASSERTIONS, 2, 2)
+                .run();
+
+        Assert.assertEquals("generate", reports.get(0).getPhase());
+        Assert.assertEquals(7, reports.size());
+        for (int run = 0; run < 2; run++) {
+            Assert.assertEquals("parse", reports.get(1 + 3 * run).getPhase());
+            Assert.assertEquals("paths", reports.get(2 + 3 * run).getPhase());
+            Assert.assertEquals("application", reports.get(3 + 3 * run).getPhase());
+        }
+        for (PhaseReport report : reports) {
+            Assert.assertTrue(report.getWallMillis() >= 0);
+            Assert.assertTrue(report.getPeakHeapBytes() > 0);
+            Assert.assertTrue(report.getGcMillis() >= 0);
+        }
+        Assert.assertTrue(network.isFile());
+        Assert.assertTrue(paths.length() > 0);
+    }
+}